@@ -0,0 +1,62 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end iterations per second of the default algorithm, i.e. {@link Jsprit#createAlgorithm(VehicleRoutingProblem)},
+ * including the construction of the algorithm and of the initial solution.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlgorithmBenchmark {
+
+    private static final int ITERATIONS = 200;
+
+    @Param({BenchmarkProblems.SOLOMON_R101, BenchmarkProblems.LILIM_LC101, BenchmarkProblems.CHRISTOFIDES_VRPNC1})
+    public String instance;
+
+    private VehicleRoutingProblem vrp;
+
+    @Setup
+    public void setup() {
+        vrp = BenchmarkProblems.read(instance);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Collection<VehicleRoutingProblemSolution> iterations() {
+        VehicleRoutingAlgorithm vra = Jsprit.createAlgorithm(vrp);
+        vra.setMaxIterations(ITERATIONS);
+        return vra.searchSolutions();
+    }
+
+}
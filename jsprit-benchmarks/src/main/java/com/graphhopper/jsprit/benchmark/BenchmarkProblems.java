@@ -0,0 +1,88 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.util.Solutions;
+import com.graphhopper.jsprit.instance.reader.ChristofidesReader;
+import com.graphhopper.jsprit.instance.reader.LiLimReader;
+import com.graphhopper.jsprit.instance.reader.SolomonReader;
+
+import java.io.File;
+
+/**
+ * Reads the benchmark problems from the instances of jsprit-instances.
+ * <p>
+ * <p>Problems are referred to by folder and file name without extension, e.g. solomon/R101, lilim/lc101 or
+ * christofides/vrpnc1. The instances folder is taken from system property 'jsprit.instances', otherwise it is looked up
+ * relative to the working directory, i.e. benchmarks can be run from the project or from the benchmark module folder.
+ */
+final class BenchmarkProblems {
+
+    static final String SOLOMON_R101 = "solomon/R101";
+
+    static final String LILIM_LC101 = "lilim/lc101";
+
+    static final String CHRISTOFIDES_VRPNC1 = "christofides/vrpnc1";
+
+    private BenchmarkProblems() {
+    }
+
+    static VehicleRoutingProblem read(String instance) {
+        String file = getInstancesFolder() + "/" + instance + ".txt";
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        if (instance.startsWith("solomon/")) new SolomonReader(vrpBuilder).read(file);
+        else if (instance.startsWith("lilim/")) new LiLimReader(vrpBuilder).read(file);
+        else if (instance.startsWith("christofides/")) new ChristofidesReader(vrpBuilder).read(file);
+        else throw new IllegalArgumentException("unknown instance " + instance);
+        return vrpBuilder.build();
+    }
+
+    /**
+     * Returns the best solution found in a short search, i.e. a realistic solution to benchmark operations on.
+     */
+    static VehicleRoutingProblemSolution solve(VehicleRoutingProblem vrp, int iterations) {
+        VehicleRoutingAlgorithm vra = Jsprit.createAlgorithm(vrp);
+        vra.setMaxIterations(iterations);
+        return Solutions.bestOf(vra.searchSolutions());
+    }
+
+    static VehicleFleetManager createFleetManager(VehicleRoutingProblem vrp) {
+        if (vrp.getFleetSize() == VehicleRoutingProblem.FleetSize.INFINITE) {
+            return new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        }
+        return new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+    }
+
+    private static String getInstancesFolder() {
+        String folder = System.getProperty("jsprit.instances");
+        if (folder != null) return folder;
+        for (String candidate : new String[]{"jsprit-instances/instances", "../jsprit-instances/instances"}) {
+            if (new File(candidate).isDirectory()) return candidate;
+        }
+        throw new IllegalStateException("cannot find instances folder. set it with -Djsprit.instances=<folder>");
+    }
+
+}
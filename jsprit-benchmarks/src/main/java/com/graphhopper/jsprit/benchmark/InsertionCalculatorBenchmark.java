@@ -0,0 +1,109 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.algorithm.recreate.*;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of all insertion positions of a job in each route of a solution, i.e. the costs of finding
+ * the best insertion of a single job. Services are evaluated on Solomon's R101, shipments on Li and Lim's lc101.
+ * <p>
+ * <p>Every tenth job is removed from the solution and jobs to be evaluated are taken from these in turn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertionCalculatorBenchmark {
+
+    @Param({"service", "shipment", "shipment_flex"})
+    public String calculator;
+
+    private JobInsertionCostsCalculator insertionCalculator;
+
+    private List<VehicleRoute> routes;
+
+    private List<Job> unassignedJobs;
+
+    private int nextJob = 0;
+
+    @Setup
+    public void setup() {
+        VehicleRoutingProblem vrp = BenchmarkProblems.read(calculator.equals("service") ? BenchmarkProblems.SOLOMON_R101 : BenchmarkProblems.LILIM_LC101);
+        VehicleRoutingProblemSolution solution = BenchmarkProblems.solve(vrp, 100);
+        routes = new ArrayList<>(solution.getRoutes());
+        unassignedJobs = new ArrayList<>();
+        int jobCount = 0;
+        for (Job job : vrp.getJobs().values()) {
+            if (jobCount++ % 10 != 0) continue;
+            for (VehicleRoute route : routes) {
+                if (route.getTourActivities().removeJob(job)) {
+                    unassignedJobs.add(job);
+                    break;
+                }
+            }
+        }
+
+        StateManager stateManager = new StateManager(vrp);
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        AlgorithmUtil.addCoreConstraints(constraintManager, stateManager, vrp);
+        stateManager.informInsertionStarts(routes, unassignedJobs);
+
+        ActivityInsertionCostsCalculator activityInsertionCostsCalculator = new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager);
+        switch (calculator) {
+            case "service":
+                insertionCalculator = new ServiceInsertionCalculatorFactory().create(vrp, activityInsertionCostsCalculator, vrp.getJobActivityFactory(), constraintManager);
+                break;
+            case "shipment":
+                insertionCalculator = new ShipmentInsertionCalculatorFactory().create(vrp, activityInsertionCostsCalculator, vrp.getJobActivityFactory(), constraintManager);
+                break;
+            default:
+                ShipmentInsertionCalculatorFlex flex = new ShipmentInsertionCalculatorFlex(vrp.getTransportCosts(), vrp.getActivityCosts(), activityInsertionCostsCalculator, constraintManager);
+                flex.setJobActivityFactory(vrp.getJobActivityFactory());
+                insertionCalculator = flex;
+        }
+    }
+
+    @Benchmark
+    public double evaluateAllRoutes() {
+        Job job = unassignedJobs.get(nextJob);
+        nextJob = (nextJob + 1) % unassignedJobs.size();
+        double bestCosts = Double.MAX_VALUE;
+        for (VehicleRoute route : routes) {
+            InsertionData iData = insertionCalculator.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), bestCosts);
+            if (!(iData instanceof InsertionData.NoInsertionFound)) bestCosts = Math.min(bestCosts, iData.getInsertionCost());
+        }
+        return bestCosts;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.io.problem.VrpBinaryReader;
+import com.graphhopper.jsprit.io.problem.VrpBinaryWriter;
+import com.graphhopper.jsprit.io.problem.VrpXMLReader;
+import com.graphhopper.jsprit.io.problem.VrpXMLWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading a problem together with a solution as xml document and as binary snapshot. Documents
+ * are written to and read from memory, i.e. disk io is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProblemSerializationBenchmark {
+
+    @Param({BenchmarkProblems.SOLOMON_R101, "lilim/1000/LC1101"})
+    public String instance;
+
+    @Param({"xml", "binary"})
+    public String format;
+
+    private VehicleRoutingProblem vrp;
+
+    private List<VehicleRoutingProblemSolution> solutions;
+
+    private byte[] document;
+
+    @Setup
+    public void setup() {
+        vrp = BenchmarkProblems.read(instance);
+        solutions = Collections.singletonList(BenchmarkProblems.solve(vrp, 100));
+        document = write().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (format.equals("xml")) new VrpXMLWriter(vrp, solutions).write(out);
+        else new VrpBinaryWriter(vrp, solutions).write(out);
+        return out;
+    }
+
+    @Benchmark
+    public VehicleRoutingProblem read() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<>();
+        if (format.equals("xml")) new VrpXMLReader(vrpBuilder, readSolutions).read(new ByteArrayInputStream(document));
+        else new VrpBinaryReader(vrpBuilder, readSolutions).read(new ByteArrayInputStream(document));
+        return vrpBuilder.build();
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.*;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each ruin strategy removing 20% of the jobs from a solution. Since ruin modifies the routes, the solution is
+ * copied before each invocation (not part of the measurement).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuinStrategyBenchmark {
+
+    @Param({BenchmarkProblems.SOLOMON_R101, BenchmarkProblems.LILIM_LC101, BenchmarkProblems.CHRISTOFIDES_VRPNC1})
+    public String instance;
+
+    @Param({"random", "radial", "worst", "cluster", "string"})
+    public String ruin;
+
+    private VehicleRoutingProblemSolution solution;
+
+    private RuinStrategy ruinStrategy;
+
+    private Collection<VehicleRoute> routes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        VehicleRoutingProblem vrp = BenchmarkProblems.read(instance);
+        solution = BenchmarkProblems.solve(vrp, 100);
+        final int noJobsToRemove = Math.max(1, vrp.getJobs().size() / 5);
+        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), vrp.getJobs().size() / 2);
+        jobNeighborhoods.initialise();
+        AbstractRuinStrategy ruinStrategy;
+        switch (ruin) {
+            case "random":
+                ruinStrategy = new RuinRandom(vrp, 0.2);
+                break;
+            case "radial":
+                ruinStrategy = new RuinRadial(vrp, noJobsToRemove, jobNeighborhoods);
+                break;
+            case "worst":
+                ruinStrategy = new RuinWorst(vrp, noJobsToRemove);
+                break;
+            case "cluster":
+                RuinClusters clusters = new RuinClusters(vrp, noJobsToRemove, jobNeighborhoods);
+                clusters.setRandom(new Random(4711));
+                clusters.informIterationStarts(1, vrp, null);
+                ruinStrategy = clusters;
+                break;
+            case "string":
+                ruinStrategy = new RuinString(vrp, jobNeighborhoods);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown ruin strategy " + ruin);
+        }
+        ruinStrategy.setRandom(new Random(4711));
+        if (!ruin.equals("string")) {
+            ruinStrategy.setRuinShareFactory(new RuinShareFactory() {
+
+                @Override
+                public int createNumberToBeRemoved() {
+                    return noJobsToRemove;
+                }
+
+            });
+        }
+        this.ruinStrategy = ruinStrategy;
+    }
+
+    @Setup(Level.Invocation)
+    public void copySolution() {
+        routes = VehicleRoutingProblemSolution.copyOf(solution).getRoutes();
+    }
+
+    @Benchmark
+    public Collection<Job> ruinRoutes() {
+        return ruinStrategy.ruin(routes);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the state updates the {@link StateManager} runs after a job has been inserted, for each route of a solution
+ * once. State updaters and constraints are the core ones of {@link com.graphhopper.jsprit.core.algorithm.box.Jsprit}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateManagerBenchmark {
+
+    @Param({BenchmarkProblems.SOLOMON_R101, BenchmarkProblems.LILIM_LC101, BenchmarkProblems.CHRISTOFIDES_VRPNC1})
+    public String instance;
+
+    private StateManager stateManager;
+
+    private List<VehicleRoute> routes;
+
+    private List<Job> insertedJobs;
+
+    @Setup
+    public void setup() {
+        VehicleRoutingProblem vrp = BenchmarkProblems.read(instance);
+        VehicleRoutingProblemSolution solution = BenchmarkProblems.solve(vrp, 100);
+        stateManager = new StateManager(vrp);
+        AlgorithmUtil.addCoreConstraints(new ConstraintManager(vrp, stateManager), stateManager, vrp);
+        routes = new ArrayList<>();
+        insertedJobs = new ArrayList<>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            if (route.isEmpty()) continue;
+            routes.add(route);
+            insertedJobs.add(route.getTourActivities().getJobs().iterator().next());
+        }
+        stateManager.informInsertionStarts(routes, Collections.<Job>emptyList());
+    }
+
+    @Benchmark
+    public StateManager informJobInserted() {
+        for (int i = 0; i < routes.size(); i++) {
+            stateManager.informJobInserted(insertedJobs.get(i), routes.get(i), 0., 0.);
+        }
+        return stateManager;
+    }
+
+}
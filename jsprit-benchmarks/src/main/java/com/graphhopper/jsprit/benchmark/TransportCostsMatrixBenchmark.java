@@ -0,0 +1,187 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transport cost lookups of the matrix implementations. Matrices contain the euclidean distances between the
+ * locations of an instance, lookups go to random relations at random times. The time-dependent matrix slows down every
+ * other relation during two rush hours.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportCostsMatrixBenchmark {
+
+    private static final int NU_OF_LOOKUPS = 1024;
+
+    @Param({BenchmarkProblems.SOLOMON_R101, "lilim/1000/LC1101"})
+    public String instance;
+
+    @Param({"vrtc", "fast", "compact", "compact_float", "compact_int", "mapped", "time_dependent"})
+    public String matrix;
+
+    @Param({"false", "true"})
+    public boolean symmetric;
+
+    private VehicleRoutingTransportCosts transportCosts;
+
+    private Location[] from = new Location[NU_OF_LOOKUPS];
+
+    private Location[] to = new Location[NU_OF_LOOKUPS];
+
+    private double[] times = new double[NU_OF_LOOKUPS];
+
+    private Vehicle vehicle;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        VehicleRoutingProblem vrp = BenchmarkProblems.read(instance);
+        vehicle = vrp.getVehicles().iterator().next();
+        List<Location> locations = new ArrayList<>();
+        for (Location location : vrp.getAllLocations()) {
+            locations.add(Location.Builder.newInstance().setId(String.valueOf(locations.size())).setIndex(locations.size())
+                .setCoordinate(location.getCoordinate()).build());
+        }
+        transportCosts = createMatrix(locations);
+        Random random = new Random(4711);
+        for (int i = 0; i < NU_OF_LOOKUPS; i++) {
+            from[i] = locations.get(random.nextInt(locations.size()));
+            to[i] = locations.get(random.nextInt(locations.size()));
+            times[i] = random.nextDouble() * 1000.;
+        }
+    }
+
+    private VehicleRoutingTransportCosts createMatrix(List<Location> locations) throws IOException {
+        int n = locations.size();
+        switch (matrix) {
+            case "vrtc": {
+                VehicleRoutingTransportCostsMatrix.Builder builder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(symmetric);
+                for (Location fromLocation : locations) {
+                    for (Location toLocation : locations) {
+                        if (symmetric && fromLocation.getIndex() > toLocation.getIndex()) continue;
+                        double distance = distance(fromLocation, toLocation);
+                        builder.addTransportDistance(fromLocation.getId(), toLocation.getId(), distance);
+                        builder.addTransportTime(fromLocation.getId(), toLocation.getId(), distance);
+                    }
+                }
+                return builder.build();
+            }
+            case "fast": {
+                FastVehicleRoutingTransportCostsMatrix.Builder builder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(n, symmetric);
+                for (Location fromLocation : locations) {
+                    for (Location toLocation : locations) {
+                        double distance = distance(fromLocation, toLocation);
+                        builder.addTransportTimeAndDistance(fromLocation.getIndex(), toLocation.getIndex(), distance, distance);
+                    }
+                }
+                return builder.build();
+            }
+            default: {
+                CompactVehicleRoutingTransportCostsMatrix.Builder builder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(n, symmetric);
+                if (matrix.equals("compact_float")) builder.setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.FLOAT);
+                if (matrix.equals("compact_int")) builder.setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.INT);
+                for (Location fromLocation : locations) {
+                    for (Location toLocation : locations) {
+                        double distance = distance(fromLocation, toLocation);
+                        builder.addTransportTimeAndDistance(fromLocation.getIndex(), toLocation.getIndex(), distance, distance);
+                    }
+                }
+                CompactVehicleRoutingTransportCostsMatrix compactMatrix = builder.build();
+                if (matrix.equals("time_dependent")) return createTimeDependentMatrix(compactMatrix);
+                if (!matrix.equals("mapped")) return compactMatrix;
+                file = File.createTempFile("jsprit-matrix", ".bin");
+                MappedVehicleRoutingTransportCostsMatrix.Writer.write(compactMatrix, file);
+                return MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+            }
+        }
+    }
+
+    private static TimeDependentVehicleRoutingTransportCostsMatrix createTimeDependentMatrix(CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix) {
+        SpeedProfile rushHours = SpeedProfile.Builder.newInstance()
+            .addSpeedFactor(100., 0.6).addSpeedFactor(200., 1.)
+            .addSpeedFactor(600., 0.5).addSpeedFactor(700., 1.)
+            .build();
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder builder = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix);
+        for (int fromIndex = 0; fromIndex < freeFlowMatrix.getNoLocations(); fromIndex++) {
+            for (int toIndex = fromIndex % 2; toIndex < freeFlowMatrix.getNoLocations(); toIndex += 2) {
+                builder.setSpeedProfile(fromIndex, toIndex, rushHours);
+            }
+        }
+        return builder.build();
+    }
+
+    private static double distance(Location from, Location to) {
+        return EuclideanDistanceCalculator.calculateDistance(from.getCoordinate(), to.getCoordinate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (file != null) file.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NU_OF_LOOKUPS)
+    public double getTransportCost() {
+        double costs = 0.;
+        for (int i = 0; i < NU_OF_LOOKUPS; i++) {
+            costs += transportCosts.getTransportCost(from[i], to[i], times[i], null, vehicle);
+        }
+        return costs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NU_OF_LOOKUPS)
+    public double getTransportTime() {
+        double time = 0.;
+        for (int i = 0; i < NU_OF_LOOKUPS; i++) {
+            time += transportCosts.getTransportTime(from[i], to[i], times[i], null, vehicle);
+        }
+        return time;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NU_OF_LOOKUPS)
+    public double getBackwardTransportTime() {
+        double time = 0.;
+        for (int i = 0; i < NU_OF_LOOKUPS; i++) {
+            time += transportCosts.getBackwardTransportTime(from[i], to[i], times[i], null, vehicle);
+        }
+        return time;
+    }
+
+}
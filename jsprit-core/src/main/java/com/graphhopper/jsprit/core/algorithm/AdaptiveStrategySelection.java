@@ -0,0 +1,161 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Adapts the weights of the strategies of a {@link SearchStrategyManager} to their yield, i.e. the improvement they
+ * achieve per second of computation time (see {@link SearchStrategyStatistics.Statistics#getImprovementPerSecond()}).
+ * <p>
+ * <p>The search is divided into segments of a number of discovered solutions. At the end of each segment, the weight of
+ * each strategy that ran in the segment is updated to
+ * <p>
+ * <code>(1 - reactionFactor) * weight + reactionFactor * initialWeight * yield / averageYield</code>
+ * <p>
+ * <p>where averageYield is the average yield of all strategies that ran in the segment. Updated weights are raised to
+ * at least minWeightFactor * initialWeight, thus each strategy keeps being selected now and then, and strategies with
+ * initial weight 0 are never selected. Finally, weights are scaled such that their sum equals the sum of initial
+ * weights. If no strategy improved a solution in a segment, weights remain unchanged.
+ * <p>
+ * <p>Add it to the algorithm whose strategy manager it adapts with
+ * {@link VehicleRoutingAlgorithm#addListener(com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListener)}.
+ * If the search runs on workers or islands, strategies are drawn from their managers, i.e. each worker or island needs
+ * its own instance, whereas the algorithm that coordinates them does not need one.
+ */
+public class AdaptiveStrategySelection implements StrategySelectedListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveStrategySelection.class);
+
+    private final SearchStrategyManager strategyManager;
+
+    private final int segmentLength;
+
+    private final SearchStrategyStatistics segmentStatistics = new SearchStrategyStatistics();
+
+    private final SearchStrategyStatistics statistics = new SearchStrategyStatistics();
+
+    private double reactionFactor = 0.2;
+
+    private double minWeightFactor = 0.1;
+
+    private double[] initialWeights;
+
+    private int nuOfSolutionsInSegment = 0;
+
+    /**
+     * @param strategyManager manager whose weights are adapted
+     * @param segmentLength   number of discovered solutions after which weights are updated
+     */
+    public AdaptiveStrategySelection(SearchStrategyManager strategyManager, int segmentLength) {
+        if (segmentLength < 1) throw new IllegalArgumentException("segment length must be at least 1");
+        this.strategyManager = strategyManager;
+        this.segmentLength = segmentLength;
+    }
+
+    /**
+     * Sets how much the weights react to the yield of the last segment (default is 0.2).
+     *
+     * @param reactionFactor value between 0 (weights never change) and 1 (weights only depend on the last segment)
+     */
+    public void setReactionFactor(double reactionFactor) {
+        if (reactionFactor < 0. || reactionFactor > 1.)
+            throw new IllegalArgumentException("reaction factor must be between 0 and 1");
+        this.reactionFactor = reactionFactor;
+    }
+
+    /**
+     * Sets the minimum weight of a strategy relative to its initial weight (default is 0.1).
+     *
+     * @param minWeightFactor value between 0 and 1
+     */
+    public void setMinWeightFactor(double minWeightFactor) {
+        if (minWeightFactor < 0. || minWeightFactor > 1.)
+            throw new IllegalArgumentException("min weight factor must be between 0 and 1");
+        this.minWeightFactor = minWeightFactor;
+    }
+
+    /**
+     * Returns time and yield of each strategy collected over the entire search.
+     *
+     * @return statistics
+     */
+    public SearchStrategyStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+        statistics.add(discoveredSolution);
+        segmentStatistics.add(discoveredSolution);
+        nuOfSolutionsInSegment++;
+        if (nuOfSolutionsInSegment == segmentLength) {
+            updateWeights();
+            segmentStatistics.reset();
+            nuOfSolutionsInSegment = 0;
+        }
+    }
+
+    private void updateWeights() {
+        List<SearchStrategy> strategies = strategyManager.getStrategies();
+        List<Double> weights = strategyManager.getWeights();
+        if (initialWeights == null || initialWeights.length != strategies.size()) {
+            initialWeights = new double[strategies.size()];
+            for (int i = 0; i < initialWeights.length; i++) initialWeights[i] = weights.get(i);
+        }
+        double[] yields = new double[strategies.size()];
+        boolean[] ran = new boolean[strategies.size()];
+        double sumYields = 0.;
+        int nuOfStrategiesThatRan = 0;
+        for (int i = 0; i < strategies.size(); i++) {
+            SearchStrategyStatistics.Statistics strategyStatistics = segmentStatistics.getStatistics(strategies.get(i).getId());
+            if (strategyStatistics == null || strategyStatistics.getComputationTime() == 0) continue;
+            ran[i] = true;
+            yields[i] = strategyStatistics.getImprovementPerSecond();
+            sumYields += yields[i];
+            nuOfStrategiesThatRan++;
+        }
+        if (sumYields <= 0.) return;
+        double averageYield = sumYields / nuOfStrategiesThatRan;
+        double[] newWeights = new double[strategies.size()];
+        double sumNewWeights = 0.;
+        double sumInitialWeights = 0.;
+        for (int i = 0; i < strategies.size(); i++) {
+            double weight = weights.get(i);
+            if (ran[i]) {
+                weight = (1. - reactionFactor) * weight + reactionFactor * initialWeights[i] * yields[i] / averageYield;
+            }
+            newWeights[i] = Math.max(weight, minWeightFactor * initialWeights[i]);
+            sumNewWeights += newWeights[i];
+            sumInitialWeights += initialWeights[i];
+        }
+        for (int i = 0; i < strategies.size(); i++) {
+            strategyManager.informStrategyWeightChanged(strategies.get(i).getId(), newWeights[i] * sumInitialWeights / sumNewWeights);
+        }
+        logger.debug("strategy weights updated {}", strategyManager.getWeights());
+    }
+
+}
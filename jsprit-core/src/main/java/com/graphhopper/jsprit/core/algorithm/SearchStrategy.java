@@ -19,6 +19,7 @@ package com.graphhopper.jsprit.core.algorithm;
 
 import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.algorithm.selector.SolutionSelector;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
@@ -41,6 +42,10 @@ public class SearchStrategy {
 
         private String strategyId;
 
+        private double selectedSolutionCost = Double.NaN;
+
+        private long computationTime;
+
         public DiscoveredSolution(VehicleRoutingProblemSolution solution, boolean accepted, String strategyId) {
             super();
             this.solution = solution;
@@ -48,6 +53,19 @@ public class SearchStrategy {
             this.strategyId = strategyId;
         }
 
+        /**
+         * @param solution             the discovered solution
+         * @param accepted             whether the solution has been accepted
+         * @param strategyId           id of the strategy that discovered the solution
+         * @param selectedSolutionCost costs of the solution the strategy started from
+         * @param computationTime      time in nanoseconds the modules of the strategy took to discover the solution
+         */
+        public DiscoveredSolution(VehicleRoutingProblemSolution solution, boolean accepted, String strategyId, double selectedSolutionCost, long computationTime) {
+            this(solution, accepted, strategyId);
+            this.selectedSolutionCost = selectedSolutionCost;
+            this.computationTime = computationTime;
+        }
+
         public VehicleRoutingProblemSolution getSolution() {
             return solution;
         }
@@ -60,6 +78,24 @@ public class SearchStrategy {
             return strategyId;
         }
 
+        /**
+         * Returns the costs of the solution the strategy selected and modified to discover this solution.
+         *
+         * @return costs of selected solution or NaN if unknown
+         */
+        public double getSelectedSolutionCost() {
+            return selectedSolutionCost;
+        }
+
+        /**
+         * Returns the time in nanoseconds the modules of the strategy took to discover this solution.
+         *
+         * @return computation time in nanoseconds or 0 if unknown
+         */
+        public long getComputationTime() {
+            return computationTime;
+        }
+
         @Override
         public String toString() {
             return "[strategyId=" + strategyId + "][solution=" + solution + "][accepted=" + accepted + "]";
@@ -80,6 +116,8 @@ public class SearchStrategy {
 
     private String name;
 
+    private AlgorithmMetrics metrics;
+
     public SearchStrategy(String id, SolutionSelector solutionSelector, SolutionAcceptor solutionAcceptor, SolutionCostCalculator solutionCostCalculator) {
         if (id == null) throw new IllegalStateException("strategy id cannot be null");
         this.solutionSelector = solutionSelector;
@@ -101,6 +139,16 @@ public class SearchStrategy {
         this.name = name;
     }
 
+    /**
+     * Sets the metrics the time spent in selection, objective evaluation and acceptance is added to. Each run is
+     * reported to the sink of the metrics when it is completed.
+     *
+     * @param metrics metrics of the search thread this strategy runs in, or null to switch off recording
+     */
+    public void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public Collection<SearchStrategyModule> getSearchStrategyModules() {
         return Collections.unmodifiableCollection(searchStrategyModules);
     }
@@ -135,16 +183,80 @@ public class SearchStrategy {
      */
     @SuppressWarnings("UnusedParameters")
     public DiscoveredSolution run(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        long selectionStart = startRun();
+        VehicleRoutingProblemSolution lastSolution = copyOfSelectedSolution(solutions);
+        double selectedSolutionCost = lastSolution.getCost();
+        long startTime = System.nanoTime();
+        lastSolution = runModulesAndEvaluate(lastSolution);
+        long acceptanceStart = System.nanoTime();
+        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
+        if (metrics != null) recordRun(selectionStart, startTime, acceptanceStart);
+        return new DiscoveredSolution(lastSolution, solutionAccepted, getId(), selectedSolutionCost, acceptanceStart - startTime);
+    }
+
+    /**
+     * Same as {@link #run(VehicleRoutingProblem, Collection)}, but selection and acceptance synchronize on solutions.
+     * Thus, strategies (with thread-confined modules) can run concurrently on the same collection of solutions.
+     * <p>
+     * <p>The selected solution is deep-copied rather than copied lazily. Modules and state updates write activity
+     * times outside the lock, thus the copy must not share activities with solutions other threads can access.
+     */
+    DiscoveredSolution runConcurrently(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        long selectionStart = startRun();
+        VehicleRoutingProblemSolution lastSolution;
+        synchronized (solutions) {
+            lastSolution = VehicleRoutingProblemSolution.copyOf(selectSolution(solutions));
+        }
+        double selectedSolutionCost = lastSolution.getCost();
+        long startTime = System.nanoTime();
+        lastSolution = runModulesAndEvaluate(lastSolution);
+        long acceptanceStart = System.nanoTime();
+        boolean solutionAccepted;
+        synchronized (solutions) {
+            solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
+        }
+        if (metrics != null) recordRun(selectionStart, startTime, acceptanceStart);
+        return new DiscoveredSolution(lastSolution, solutionAccepted, getId(), selectedSolutionCost, acceptanceStart - startTime);
+    }
+
+    /*
+    discards what has been recorded outside of strategy runs, e.g. while constructing the initial solution
+     */
+    private long startRun() {
+        if (metrics != null) metrics.reset();
+        return System.nanoTime();
+    }
+
+    /*
+    ruin, recreate and state updates are recorded by the modules and the state manager. time spent in modules that do
+    not record anything is not assigned to a phase, but it is contained in the total time of the run.
+     */
+    private void recordRun(long selectionStart, long modulesStart, long acceptanceStart) {
+        long end = System.nanoTime();
+        metrics.addTime(AlgorithmMetrics.Phase.SELECTION, modulesStart - selectionStart);
+        metrics.addTime(AlgorithmMetrics.Phase.ACCEPTANCE, end - acceptanceStart);
+        metrics.flush(getId(), end - selectionStart);
+    }
+
+    private VehicleRoutingProblemSolution copyOfSelectedSolution(Collection<VehicleRoutingProblemSolution> solutions) {
+        return VehicleRoutingProblemSolution.lazyCopyOf(selectSolution(solutions));
+    }
+
+    private VehicleRoutingProblemSolution selectSolution(Collection<VehicleRoutingProblemSolution> solutions) {
         VehicleRoutingProblemSolution solution = solutionSelector.selectSolution(solutions);
         if (solution == null) throw new IllegalStateException(getErrMsg());
-        VehicleRoutingProblemSolution lastSolution = VehicleRoutingProblemSolution.copyOf(solution);
+        return solution;
+    }
+
+    private VehicleRoutingProblemSolution runModulesAndEvaluate(VehicleRoutingProblemSolution solution) {
         for (SearchStrategyModule module : searchStrategyModules) {
-            lastSolution = module.runAndGetSolution(lastSolution);
+            solution = module.runAndGetSolution(solution);
         }
-        double costs = solutionCostCalculator.getCosts(lastSolution);
-        lastSolution.setCost(costs);
-        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
-        return new DiscoveredSolution(lastSolution, solutionAccepted, getId());
+        long objectiveStart = metrics != null ? System.nanoTime() : 0;
+        double costs = solutionCostCalculator.getCosts(solution);
+        solution.setCost(costs);
+        if (metrics != null) metrics.addTime(AlgorithmMetrics.Phase.OBJECTIVE, System.nanoTime() - objectiveStart);
+        return solution;
     }
 
     private String getErrMsg() {
@@ -0,0 +1,166 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects time and yield of each {@link SearchStrategy}, i.e. how often it ran, how much time its modules took and by
+ * how much it improved the solutions it started from.
+ * <p>
+ * <p>Add it to the algorithm with {@link VehicleRoutingAlgorithm#addListener(com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListener)}.
+ */
+public class SearchStrategyStatistics implements StrategySelectedListener {
+
+    /**
+     * Time and yield of a single search strategy.
+     */
+    public static class Statistics {
+
+        private final String strategyId;
+
+        private int nuOfRuns;
+
+        private int nuOfAcceptedSolutions;
+
+        private int nuOfImprovements;
+
+        private double improvement;
+
+        private long computationTime;
+
+        Statistics(String strategyId) {
+            this.strategyId = strategyId;
+        }
+
+        public String getStrategyId() {
+            return strategyId;
+        }
+
+        public int getNuOfRuns() {
+            return nuOfRuns;
+        }
+
+        public int getNuOfAcceptedSolutions() {
+            return nuOfAcceptedSolutions;
+        }
+
+        /**
+         * Returns how often the strategy discovered a solution that is cheaper than the solution it started from.
+         *
+         * @return number of improvements
+         */
+        public int getNuOfImprovements() {
+            return nuOfImprovements;
+        }
+
+        /**
+         * Returns the sum of cost reductions, i.e. costs of the selected solution minus costs of the discovered
+         * solution, over all improvements.
+         *
+         * @return total improvement
+         */
+        public double getImprovement() {
+            return improvement;
+        }
+
+        /**
+         * Returns the time in nanoseconds the modules of the strategy took in total.
+         *
+         * @return computation time in nanoseconds
+         */
+        public long getComputationTime() {
+            return computationTime;
+        }
+
+        /**
+         * Returns the yield of the strategy, i.e. the improvement per second of computation time.
+         *
+         * @return improvement per second or 0 if no time has been measured
+         */
+        public double getImprovementPerSecond() {
+            if (computationTime == 0) return 0.;
+            return improvement / (computationTime * 1e-9);
+        }
+
+        @Override
+        public String toString() {
+            return "[strategyId=" + strategyId + "][runs=" + nuOfRuns + "][accepted=" + nuOfAcceptedSolutions
+                + "][improvements=" + nuOfImprovements + "][improvement=" + improvement + "][time=" + computationTime * 1e-9 + "s]";
+        }
+    }
+
+    private final Map<String, Statistics> statistics = new LinkedHashMap<>();
+
+    @Override
+    public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+        add(discoveredSolution);
+    }
+
+    void add(SearchStrategy.DiscoveredSolution discoveredSolution) {
+        Statistics strategyStatistics = statistics.get(discoveredSolution.getStrategyId());
+        if (strategyStatistics == null) {
+            strategyStatistics = new Statistics(discoveredSolution.getStrategyId());
+            statistics.put(discoveredSolution.getStrategyId(), strategyStatistics);
+        }
+        strategyStatistics.nuOfRuns++;
+        if (discoveredSolution.isAccepted()) strategyStatistics.nuOfAcceptedSolutions++;
+        strategyStatistics.computationTime += discoveredSolution.getComputationTime();
+        double improvement = discoveredSolution.getSelectedSolutionCost() - discoveredSolution.getSolution().getCost();
+        //NaN (unknown costs) and infinite values fail this check
+        if (improvement > 0. && improvement < Double.POSITIVE_INFINITY) {
+            strategyStatistics.nuOfImprovements++;
+            strategyStatistics.improvement += improvement;
+        }
+    }
+
+    /**
+     * Returns the statistics of the specified strategy.
+     *
+     * @param strategyId id of strategy
+     * @return statistics or null if the strategy has not discovered any solution yet
+     */
+    public Statistics getStatistics(String strategyId) {
+        return statistics.get(strategyId);
+    }
+
+    /**
+     * Returns the statistics of all strategies that discovered at least one solution, in the order they first ran.
+     *
+     * @return statistics
+     */
+    public Collection<Statistics> getStatistics() {
+        return Collections.unmodifiableCollection(statistics.values());
+    }
+
+    /**
+     * Discards all statistics collected so far.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+}
@@ -18,6 +18,8 @@
 package com.graphhopper.jsprit.core.algorithm;
 
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy.DiscoveredSolution;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyListener;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
 import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListener;
@@ -35,8 +37,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
@@ -111,6 +119,21 @@ public class VehicleRoutingAlgorithm {
 
     private final SolutionCostCalculator objectiveFunction;
 
+    private final List<VehicleRoutingAlgorithm> workers = new ArrayList<>();
+
+    private final List<VehicleRoutingAlgorithm> islands = new ArrayList<>();
+
+    private int migrationInterval = 100;
+
+    //guarded by the collection of solutions while workers search concurrently, and by islands while islands search
+    private int noIterationsStarted;
+
+    //guarded by the collection of solutions while workers search concurrently, and by islands while islands search
+    private boolean terminated;
+
+    //best solution ever published by an island, guarded by islands
+    private VehicleRoutingProblemSolution migrant;
+
     public VehicleRoutingAlgorithm(VehicleRoutingProblem problem, SearchStrategyManager searchStrategyManager) {
         super();
         this.problem = problem;
@@ -232,23 +255,29 @@ public class VehicleRoutingAlgorithm {
             log(solutions);
         }
         logger.info("iterations start");
-        for (int i = 0; i < maxIterations; i++) {
-            iterationStarts(i + 1, problem, solutions);
-            logger.debug("start iteration: {}", i);
-            counter.incCounter();
-            SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
-            DiscoveredSolution discoveredSolution = strategy.run(problem, solutions);
-            if (logger.isTraceEnabled()) {
-                log(discoveredSolution);
-            }
-            memorizeIfBestEver(discoveredSolution);
-            selectedStrategy(discoveredSolution, problem, solutions);
-            if (terminationManager.isPrematureBreak(discoveredSolution)) {
-                logger.info("premature algorithm termination at iteration {}", (i + 1));
-                noIterationsThisAlgoIsRunning = (i + 1);
-                break;
+        if (!islands.isEmpty()) {
+            noIterationsThisAlgoIsRunning = searchOnIslands(solutions);
+        } else if (!workers.isEmpty()) {
+            noIterationsThisAlgoIsRunning = searchConcurrently(solutions);
+        } else {
+            for (int i = 0; i < maxIterations; i++) {
+                iterationStarts(i + 1, problem, solutions);
+                logger.debug("start iteration: {}", i);
+                counter.incCounter();
+                SearchStrategy strategy = searchStrategyManager.getRandomStrategy();
+                DiscoveredSolution discoveredSolution = strategy.run(problem, solutions);
+                if (logger.isTraceEnabled()) {
+                    log(discoveredSolution);
+                }
+                memorizeIfBestEver(discoveredSolution);
+                selectedStrategy(discoveredSolution, problem, solutions);
+                if (terminationManager.isPrematureBreak(discoveredSolution)) {
+                    logger.info("premature algorithm termination at iteration {}", (i + 1));
+                    noIterationsThisAlgoIsRunning = (i + 1);
+                    break;
+                }
+                iterationEnds(i + 1, problem, solutions);
             }
-            iterationEnds(i + 1, problem, solutions);
         }
         logger.info("iterations end at {} iterations", noIterationsThisAlgoIsRunning);
         addBestEver(solutions);
@@ -257,6 +286,287 @@ public class VehicleRoutingAlgorithm {
         return solutions;
     }
 
+    /**
+     * Adds a worker, i.e. an algorithm that solves the same problem with its own search strategies. If workers are
+     * added, this algorithm does not run its own strategies anymore. Instead, each worker runs its strategies in a
+     * separate thread, and all workers search concurrently on the solutions of this algorithm.
+     * <p>
+     * <p>Selecting and accepting solutions is synchronized on the collection of solutions, everything else (ruin,
+     * recreate and evaluating the new solution) is not. Thus, workers must not share any mutable state, i.e. each
+     * worker needs its own StateManager, ConstraintManager, VehicleFleetManager and strategies. Objective functions and
+     * acceptors shared by workers need to be thread-safe. The selected solution is deep-copied, so that workers never
+     * write into activities of solutions that are shared with other workers.
+     * <p>
+     * <p>Iterations, termination criteria and the best solution ever found are coordinated by this algorithm. Each
+     * worker runs at most maxIterations / number of workers iterations (its max iterations are set accordingly), and the
+     * algorithm terminates if the total number of iterations reaches maxIterations or if one of the termination criteria
+     * of this algorithm is met. Listeners of this algorithm are informed about every iteration of every worker (with the
+     * total number of iterations as iteration counter) while holding the lock. Listeners of a worker are only informed
+     * about its own iterations, and they are informed in the worker's thread without holding the lock. Thus, they must
+     * not iterate over the solutions they are passed, since other workers might modify them at the same time.
+     *
+     * @param worker the algorithm that searches concurrently
+     * @throws IllegalArgumentException if worker is this algorithm or solves another problem
+     */
+    public void addWorker(VehicleRoutingAlgorithm worker) {
+        if (worker == this) throw new IllegalArgumentException("algorithm cannot be its own worker");
+        if (worker.problem != problem)
+            throw new IllegalArgumentException("worker needs to solve the same vehicle routing problem");
+        if (!islands.isEmpty()) throw new IllegalStateException("algorithm cannot have both islands and workers");
+        workers.add(worker);
+    }
+
+    /**
+     * Returns the workers of this algorithm.
+     *
+     * @return workers
+     */
+    public Collection<VehicleRoutingAlgorithm> getWorkers() {
+        return Collections.unmodifiableList(workers);
+    }
+
+    /**
+     * Adds an island, i.e. an algorithm that solves the same problem independently with its own solutions. If islands
+     * are added, this algorithm does not run its own strategies anymore. Instead, each island runs its own search in a
+     * separate thread, and the solutions of all islands are returned.
+     * <p>
+     * <p>Islands do not share any solutions except for migrants. Every migrationInterval iterations (see
+     * {@link #setMigrationInterval(int)}), an island publishes its best solution if it is better than the best solution
+     * published so far, and it replaces its worst solution with a copy of the best published solution if that is better
+     * than its own best solution. Thus, like workers, islands must not share any mutable state.
+     * <p>
+     * <p>Each island runs at most maxIterations iterations (its max iterations are set accordingly). Termination
+     * criteria of this algorithm apply to all islands, and if one of them is met, all islands terminate. They are fed
+     * with the best solution discovered by all islands, which counts as accepted only if the island's discovered
+     * solution improved it, i.e. criteria such as {@link com.graphhopper.jsprit.core.algorithm.termination.IterationWithoutImprovementTermination}
+     * measure global improvement. Listeners of this algorithm are informed about every iteration of every island (with
+     * the total number of iterations as iteration counter) once the island has run its strategy, i.e. iteration starts,
+     * selected strategy and iteration ends are reported one after another under a lock. Thus, termination criteria that
+     * also need to listen to iterations, such as {@link com.graphhopper.jsprit.core.algorithm.termination.VariationCoefficientTermination},
+     * work as for a single search. Listeners of an island are informed about its own iterations.
+     * <p>
+     * <p>The island is equipped with listeners that manage migration and report its iterations, and with a
+     * termination criterion that checks the termination criteria of this algorithm. Thus, termination criteria of the
+     * island must not be overridden with {@link #setPrematureAlgorithmTermination(PrematureAlgorithmTermination)}
+     * after it has been added.
+     *
+     * @param island the algorithm that searches independently
+     * @throws IllegalArgumentException if island is this algorithm or solves another problem
+     */
+    public void addIsland(VehicleRoutingAlgorithm island) {
+        if (island == this) throw new IllegalArgumentException("algorithm cannot be its own island");
+        if (island.problem != problem)
+            throw new IllegalArgumentException("island needs to solve the same vehicle routing problem");
+        if (!workers.isEmpty()) throw new IllegalStateException("algorithm cannot have both islands and workers");
+        IslandCoordination coordination = new IslandCoordination();
+        island.addListener(new Migration(island));
+        island.addListener(coordination);
+        island.addTerminationCriterion(coordination);
+        islands.add(island);
+    }
+
+    /**
+     * Returns the islands of this algorithm.
+     *
+     * @return islands
+     */
+    public Collection<VehicleRoutingAlgorithm> getIslands() {
+        return Collections.unmodifiableList(islands);
+    }
+
+    /**
+     * Sets the number of iterations after which islands exchange their best solutions. Default is 100.
+     *
+     * @param migrationInterval number of iterations between two migrations
+     */
+    public void setMigrationInterval(int migrationInterval) {
+        if (migrationInterval < 1) throw new IllegalArgumentException("migration interval must be positive");
+        this.migrationInterval = migrationInterval;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    private class Migration implements IterationEndsListener {
+
+        private final VehicleRoutingAlgorithm island;
+
+        private Migration(VehicleRoutingAlgorithm island) {
+            this.island = island;
+        }
+
+        @Override
+        public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+            if (i % migrationInterval != 0 || solutions.isEmpty()) return;
+            VehicleRoutingProblemSolution islandBest = island.bestEver;
+            VehicleRoutingProblemSolution best;
+            synchronized (islands) {
+                //migrants are copied by the island that owns the solution, and they are never modified afterwards
+                if (islandBest != null && (migrant == null || islandBest.getCost() < migrant.getCost())) {
+                    migrant = VehicleRoutingProblemSolution.copyOf(islandBest);
+                }
+                best = migrant;
+            }
+            if (best == null || best.getCost() >= Solutions.bestOf(solutions).getCost()) return;
+            solutions.remove(getWorst(solutions));
+            solutions.add(VehicleRoutingProblemSolution.copyOf(best));
+        }
+
+        private VehicleRoutingProblemSolution getWorst(Collection<VehicleRoutingProblemSolution> solutions) {
+            VehicleRoutingProblemSolution worst = null;
+            for (VehicleRoutingProblemSolution solution : solutions) {
+                if (worst == null || solution.getCost() > worst.getCost()) worst = solution;
+            }
+            return worst;
+        }
+    }
+
+    /*
+     * reports every iteration of an island to this algorithm once the island has run its strategy. listeners and
+     * termination criteria of this algorithm are informed one after another under the islands lock, and termination
+     * criteria are fed with the global view, i.e. a discovered solution counts as accepted only if it improves the best
+     * solution discovered by all islands so far.
+     */
+    private class IslandCoordination implements AlgorithmStartsListener, PrematureAlgorithmTermination {
+
+        private Collection<VehicleRoutingProblemSolution> islandSolutions;
+
+        @Override
+        public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+            islandSolutions = solutions;
+        }
+
+        @Override
+        public boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+            synchronized (islands) {
+                if (terminated) return true;
+                int iteration = ++noIterationsStarted;
+                iterationStarts(iteration, problem, islandSolutions);
+                logger.debug("start iteration: {}", iteration);
+                counter.incCounter();
+                boolean improved = discoveredSolution != null && (bestEver == null || discoveredSolution.getSolution().getCost() < bestEver.getCost());
+                memorizeIfBestEver(discoveredSolution);
+                selectedStrategy(discoveredSolution, problem, islandSolutions);
+                String strategyId = discoveredSolution == null ? null : discoveredSolution.getStrategyId();
+                if (terminationManager.isPrematureBreak(new DiscoveredSolution(bestEver, improved, strategyId))) {
+                    logger.info("premature termination of all islands at iteration {}", iteration);
+                    terminated = true;
+                    return true;
+                }
+                iterationEnds(iteration, problem, islandSolutions);
+                return false;
+            }
+        }
+    }
+
+    private int searchOnIslands(Collection<VehicleRoutingProblemSolution> solutions) {
+        synchronized (islands) {
+            noIterationsStarted = 0;
+            terminated = false;
+            migrant = null;
+        }
+        for (VehicleRoutingAlgorithm island : islands) {
+            island.setMaxIterations(maxIterations);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+        List<VehicleRoutingProblemSolution> islandSolutions = new ArrayList<>();
+        try {
+            List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<>();
+            for (final VehicleRoutingAlgorithm island : islands) {
+                futures.add(executor.submit(island::searchSolutions));
+            }
+            for (Future<Collection<VehicleRoutingProblemSolution>> future : futures) {
+                islandSolutions.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("search on islands has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            synchronized (islands) {
+                terminated = true;
+            }
+            executor.shutdown();
+        }
+        solutions.clear();
+        solutions.addAll(islandSolutions);
+        bestEver = Solutions.bestOf(solutions);
+        synchronized (islands) {
+            return noIterationsStarted;
+        }
+    }
+
+    private int searchConcurrently(final Collection<VehicleRoutingProblemSolution> solutions) {
+        noIterationsStarted = 0;
+        terminated = false;
+        int noIterationsPerWorker = (maxIterations + workers.size() - 1) / workers.size();
+        for (VehicleRoutingAlgorithm worker : workers) {
+            worker.setMaxIterations(noIterationsPerWorker);
+            worker.algorithmStarts(problem, solutions);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final VehicleRoutingAlgorithm worker : workers) {
+                futures.add(executor.submit(() -> search(worker, solutions)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("concurrent search has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            synchronized (solutions) {
+                terminated = true;
+            }
+            executor.shutdown();
+        }
+        for (VehicleRoutingAlgorithm worker : workers) {
+            worker.algorithmEnds(problem, solutions);
+        }
+        return noIterationsStarted;
+    }
+
+    private void search(VehicleRoutingAlgorithm worker, Collection<VehicleRoutingProblemSolution> solutions) {
+        for (int i = 0; i < worker.maxIterations; i++) {
+            int iteration;
+            synchronized (solutions) {
+                if (terminated || noIterationsStarted >= maxIterations) return;
+                iteration = ++noIterationsStarted;
+                iterationStarts(iteration, problem, solutions);
+                logger.debug("start iteration: {}", iteration);
+                counter.incCounter();
+            }
+            //listeners of the worker belong to its thread, thus they are informed without holding the lock
+            worker.iterationStarts(i + 1, problem, solutions);
+            SearchStrategy strategy = worker.searchStrategyManager.getRandomStrategy();
+            DiscoveredSolution discoveredSolution = strategy.runConcurrently(problem, solutions);
+            worker.selectedStrategy(discoveredSolution, problem, solutions);
+            synchronized (solutions) {
+                if (logger.isTraceEnabled()) {
+                    log(discoveredSolution);
+                }
+                memorizeIfBestEver(discoveredSolution);
+                selectedStrategy(discoveredSolution, problem, solutions);
+                if (terminated) return;
+                if (terminationManager.isPrematureBreak(discoveredSolution)) {
+                    logger.info("premature algorithm termination at iteration {}", iteration);
+                    terminated = true;
+                    return;
+                }
+                iterationEnds(iteration, problem, solutions);
+            }
+            worker.iterationEnds(i + 1, problem, solutions);
+        }
+    }
+
     private void addBestEver(Collection<VehicleRoutingProblemSolution> solutions) {
         if (bestEver != null) {
             solutions.add(bestEver);
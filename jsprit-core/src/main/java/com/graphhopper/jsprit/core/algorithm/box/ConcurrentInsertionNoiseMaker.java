@@ -73,6 +73,13 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
         return 0;
     }
 
+    /**
+     * @return true if insertion costs are randomized in the current iteration
+     */
+    boolean isMakingNoise() {
+        return makeNoise;
+    }
+
     public void setRandom(Random random) {
         this.random = random;
     }
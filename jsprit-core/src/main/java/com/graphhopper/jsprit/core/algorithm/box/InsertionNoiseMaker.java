@@ -73,6 +73,13 @@ class InsertionNoiseMaker implements SoftActivityConstraint, IterationStartsList
         return 0;
     }
 
+    /**
+     * @return true if insertion costs are randomized in the current iteration
+     */
+    boolean isMakingNoise() {
+        return makeNoise;
+    }
+
     public void setRandom(Random random) {
         this.random = random;
     }
@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.AdaptiveStrategySelection;
 import com.graphhopper.jsprit.core.algorithm.PrettyAlgorithmBuilder;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategyModule;
@@ -26,6 +27,8 @@ import com.graphhopper.jsprit.core.algorithm.acceptor.SchrimpfAcceptance;
 import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
 import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmEndsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
+import com.graphhopper.jsprit.core.algorithm.metrics.MetricsSink;
 import com.graphhopper.jsprit.core.algorithm.module.RuinAndRecreateModule;
 import com.graphhopper.jsprit.core.algorithm.recreate.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.*;
@@ -35,6 +38,7 @@ import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.IncrementalSolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -49,6 +53,7 @@ import com.graphhopper.jsprit.core.util.Solutions;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 
 public class Jsprit {
@@ -100,6 +105,11 @@ public class Jsprit {
         FIXED_COST_PARAM("fixed_cost_param"), VEHICLE_SWITCH("vehicle_switch"), REGRET_TIME_WINDOW_SCORER("regret.tw_scorer"),
         REGRET_DISTANCE_SCORER("regret.distance_scorer"), INITIAL_THRESHOLD("initial_threshold"), ITERATIONS("iterations"),
         THREADS("threads"),
+        SEARCH_THREADS("search_threads"),
+        ISLANDS("islands"),
+        MIGRATION_INTERVAL("islands.migration_interval"),
+        ADAPTIVE_STRATEGY_SELECTION("strategy.adaptive"),
+        ADAPTIVE_STRATEGY_SEGMENT("strategy.adaptive.segment"),
         RANDOM_REGRET_MIN_SHARE("random_regret.min_share"),
         RANDOM_REGRET_MAX_SHARE("random_regret.max_share"),
         RANDOM_BEST_MIN_SHARE("random_best.min_share"),
@@ -118,6 +128,7 @@ public class Jsprit {
         RUIN_WORST_NOISE_LEVEL("worst.noise_level"),
         RUIN_WORST_NOISE_PROB("worst.noise_prob"),
         FAST_REGRET("regret.fast"),
+        INSERTION_COSTS_CACHE("insertion.costs_cache"),
         MAX_TRANSPORT_COSTS("max_transport_costs"),
         CONSTRUCTION("construction"),
         BREAK_SCHEDULING("break_scheduling"),
@@ -172,6 +183,8 @@ public class Jsprit {
 
         private ScoringFunction regretScorer = null;
 
+        private MetricsSink metricsSink = null;
+
         private Map<SearchStrategy, Double> customStrategies = new HashMap<>();
 
         private VehicleFleetManager fleetManager = null;
@@ -212,6 +225,11 @@ public class Jsprit {
             defaults.put(Parameter.REGRET_DISTANCE_SCORER.toString(), ".05");
             defaults.put(Parameter.REGRET_TIME_WINDOW_SCORER.toString(), "-.1");
             defaults.put(Parameter.THREADS.toString(), "1");
+            defaults.put(Parameter.SEARCH_THREADS.toString(), "1");
+            defaults.put(Parameter.ISLANDS.toString(), "1");
+            defaults.put(Parameter.MIGRATION_INTERVAL.toString(), "100");
+            defaults.put(Parameter.ADAPTIVE_STRATEGY_SELECTION.toString(), String.valueOf(false));
+            defaults.put(Parameter.ADAPTIVE_STRATEGY_SEGMENT.toString(), "100");
             int minShare = (int) Math.min(20, Math.max(3, vrp.getJobs().size() * 0.05));
             int maxShare = (int) Math.min(50, Math.max(5, vrp.getJobs().size() * 0.3));
             defaults.put(Parameter.RADIAL_MIN_SHARE.toString(), String.valueOf(minShare));
@@ -234,6 +252,7 @@ public class Jsprit {
             defaults.put(Parameter.RUIN_WORST_NOISE_PROB.toString(), String.valueOf(0.2));
             defaults.put(Parameter.VEHICLE_SWITCH.toString(), String.valueOf(true));
             defaults.put(Parameter.FAST_REGRET.toString(), String.valueOf(false));
+            defaults.put(Parameter.INSERTION_COSTS_CACHE.toString(), String.valueOf(false));
             defaults.put(Parameter.BREAK_SCHEDULING.toString(), String.valueOf(true));
             defaults.put(Parameter.CONSTRUCTION.toString(), Construction.REGRET_INSERTION.toString());
 
@@ -310,6 +329,19 @@ public class Jsprit {
             return this;
         }
 
+        /**
+         * Records timings and counters of each strategy run (see {@link AlgorithmMetrics}) and reports them to the
+         * specified sink, e.g. a {@link com.graphhopper.jsprit.core.algorithm.metrics.MetricsCollector}. If the
+         * search runs in several threads, they all report to this sink.
+         *
+         * @param metricsSink thread-safe sink
+         * @return builder
+         */
+        public Builder setMetricsSink(MetricsSink metricsSink) {
+            this.metricsSink = metricsSink;
+            return this;
+        }
+
         public VehicleRoutingAlgorithm buildAlgorithm() {
             return new Jsprit(this).create(vrp);
         }
@@ -372,12 +404,20 @@ public class Jsprit {
 
     private SolutionAcceptor acceptor;
 
+    private final SolutionAcceptor customAcceptor;
+
     private ScoringFunction regretScorer;
 
     private final Map<SearchStrategy, Double> customStrategies = new HashMap<>();
 
     private VehicleFleetManager vehicleFleetManager;
 
+    private final boolean hasCustomComponents;
+
+    private JobNeighborhoods jobNeighborhoods;
+
+    private final MetricsSink metricsSink;
+
     private Jsprit(Builder builder) {
         this.stateManager = builder.stateManager;
         this.constraintManager = builder.constraintManager;
@@ -389,9 +429,13 @@ public class Jsprit {
         this.random = builder.random;
         this.activityInsertion = builder.activityInsertionCalculator;
         this.acceptor = builder.solutionAcceptor;
+        this.customAcceptor = builder.solutionAcceptor;
         regretScorer = builder.regretScorer;
         customStrategies.putAll(builder.customStrategies);
         vehicleFleetManager = builder.fleetManager;
+        metricsSink = builder.metricsSink;
+        hasCustomComponents = stateManager != null || constraintManager != null || vehicleFleetManager != null
+            || activityInsertion != null || !customStrategies.isEmpty();
     }
 
     private void ini(VehicleRoutingProblem vrp) {
@@ -437,8 +481,11 @@ public class Jsprit {
         double noiseLevel = toDouble(getProperty(Parameter.INSERTION_NOISE_LEVEL.toString()));
         double noiseProbability = toDouble(getProperty(Parameter.INSERTION_NOISE_PROB.toString()));
 
-        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5));
-        jobNeighborhoods.initialise();
+        if (jobNeighborhoods == null) {
+            //transport costs are only called concurrently if insertion is concurrent as well
+            jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5), es, noThreads);
+            jobNeighborhoods.initialise();
+        }
 
         final double maxCosts;
         if(properties.containsKey(Parameter.MAX_TRANSPORT_COSTS.toString())){
@@ -449,18 +496,27 @@ public class Jsprit {
         }
 
         IterationStartsListener noiseConfigurator;
+        BooleanSupplier insertionNoise;
         if (noThreads > 1) {
             ConcurrentInsertionNoiseMaker noiseMaker = new ConcurrentInsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
+            insertionNoise = noiseMaker::isMakingNoise;
         } else {
             InsertionNoiseMaker noiseMaker = new InsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
+            insertionNoise = noiseMaker::isMakingNoise;
         }
 
+        //insertion costs depend on the solution completeness if fixed costs are considered, thus they cannot be cached
+        final InsertionCostsCache insertionCostsCache;
+        if (toBoolean(getProperty(Parameter.INSERTION_COSTS_CACHE.toString())) && fixedCostParam == 0d) {
+            insertionCostsCache = new InsertionCostsCache();
+        } else insertionCostsCache = null;
+
         RuinRadial radial = new RuinRadial(vrp, vrp.getJobs().size(), jobNeighborhoods);
         radial.setRandom(random);
         radial.setRuinShareFactory(new RuinShareFactoryImpl(
@@ -530,6 +586,7 @@ public class Jsprit {
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionCostsCache(insertionCostsCache)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -543,6 +600,7 @@ public class Jsprit {
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionCostsCache(insertionCostsCache)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -556,6 +614,7 @@ public class Jsprit {
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionCostsCache(insertionCostsCache)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -568,6 +627,7 @@ public class Jsprit {
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionCostsCache(insertionCostsCache)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -583,6 +643,7 @@ public class Jsprit {
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                 .setActivityInsertionCostCalculator(activityInsertion)
+                .setInsertionCostsCache(insertionCostsCache)
                 .build();
             best = bestInsertion;
         } else {
@@ -592,6 +653,7 @@ public class Jsprit {
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                 .setConcurrentMode(es, noThreads)
                 .setActivityInsertionCostCalculator(activityInsertion)
+                .setInsertionCostsCache(insertionCostsCache)
                 .build();
             best = bestInsertion;
         }
@@ -677,20 +739,117 @@ public class Jsprit {
             vra.addListener(schrimpfThreshold);
         }
         vra.addListener(noiseConfigurator);
+        if (insertionCostsCache != null) {
+            //noisy insertion costs are neither cached nor looked up
+            IterationStartsListener cacheConfigurator = (i, problem, solutions) -> insertionCostsCache.setEnabled(!insertionNoise.getAsBoolean());
+            vra.addListener(cacheConfigurator);
+        }
         vra.addListener(noise);
         vra.addListener(clusters);
         if (increasingAbsoluteFixedCosts != null) vra.addListener(increasingAbsoluteFixedCosts);
+        int noIslands = toInteger(getProperty(Parameter.ISLANDS.toString()));
+        int noSearchThreads = toInteger(getProperty(Parameter.SEARCH_THREADS.toString()));
+        //strategies are only drawn from the manager of an algorithm that searches itself, i.e. has neither islands nor workers
+        boolean searchesItself = noIslands <= 1 && noSearchThreads <= 1;
+        if (searchesItself && toBoolean(getProperty(Parameter.ADAPTIVE_STRATEGY_SELECTION.toString()))) {
+            vra.addListener(new AdaptiveStrategySelection(vra.getSearchStrategyManager(), toInteger(getProperty(Parameter.ADAPTIVE_STRATEGY_SEGMENT.toString()))));
+        }
 
         if(toBoolean(getProperty(Parameter.BREAK_SCHEDULING.toString()))) {
             vra.addListener(new BreakScheduling(vrp, stateManager, constraintManager));
         }
+        if (metricsSink != null) addMetrics(vra);
         handleExecutorShutdown(vra);
         vra.setMaxIterations(Integer.valueOf(properties.getProperty(Parameter.ITERATIONS.toString())));
 
+        if (noIslands > 1) {
+            addIslands(vra, vrp, noIslands);
+        } else if (noSearchThreads > 1) {
+            addWorkers(vra, vrp, noSearchThreads);
+        }
         return vra;
 
     }
 
+    /*
+     * hooks up the components of this search thread to its own metrics, which report to the (shared) sink
+     */
+    private void addMetrics(VehicleRoutingAlgorithm vra) {
+        AlgorithmMetrics metrics = new AlgorithmMetrics(metricsSink);
+        stateManager.setMetrics(metrics);
+        constraintManager.setMetrics(metrics);
+        for (SearchStrategy strategy : vra.getSearchStrategyManager().getStrategies()) {
+            strategy.setMetrics(metrics);
+            for (SearchStrategyModule module : strategy.getSearchStrategyModules()) {
+                if (module instanceof RuinAndRecreateModule) ((RuinAndRecreateModule) module).setMetrics(metrics);
+            }
+        }
+    }
+
+    /*
+     * each worker is built from scratch with the same properties (but its own random number generator), thus it gets its
+     * own states, constraints, fleet manager and strategies. only the problem, job neighborhoods and, if specified,
+     * objective function, acceptor and executor service are shared.
+     */
+    private void addWorkers(VehicleRoutingAlgorithm vra, VehicleRoutingProblem vrp, int noWorkers) {
+        assertNoCustomComponents(Parameter.SEARCH_THREADS);
+        for (int i = 0; i < noWorkers; i++) {
+            Builder workerBuilder = newReplicaBuilder(vrp);
+            workerBuilder.setProperty(Parameter.SEARCH_THREADS, "1");
+            vra.addWorker(createReplica(workerBuilder, vrp));
+        }
+    }
+
+    /*
+     * islands are built like workers, but they keep the number of search threads, i.e. each island can have workers
+     * itself. to diversify the search, strategy weights of all but the first island are randomly scaled by a factor
+     * between 0.5 and 1.5.
+     */
+    private void addIslands(VehicleRoutingAlgorithm vra, VehicleRoutingProblem vrp, int noIslands) {
+        assertNoCustomComponents(Parameter.ISLANDS);
+        vra.setMigrationInterval(toInteger(getProperty(Parameter.MIGRATION_INTERVAL.toString())));
+        for (int i = 0; i < noIslands; i++) {
+            Builder islandBuilder = newReplicaBuilder(vrp);
+            islandBuilder.setProperty(Parameter.ISLANDS, "1");
+            if (i > 0) {
+                for (Strategy strategy : Strategy.values()) {
+                    double weight = toDouble(getProperty(strategy.toString()));
+                    islandBuilder.setProperty(strategy, String.valueOf(weight * (0.5 + random.nextDouble())));
+                }
+            }
+            vra.addIsland(createReplica(islandBuilder, vrp));
+        }
+    }
+
+    private void assertNoCustomComponents(Parameter parameter) {
+        if (hasCustomComponents) {
+            throw new IllegalStateException("parallel search (" + parameter + " > 1) requires each search thread " +
+                "to build its own states, constraints, fleet manager and strategies. thus, custom StateManager, ConstraintManager, " +
+                "VehicleFleetManager, ActivityInsertionCostsCalculator and SearchStrategies are not supported.");
+        }
+    }
+
+    private Builder newReplicaBuilder(VehicleRoutingProblem vrp) {
+        Builder builder = Builder.newInstance(vrp);
+        for (String key : properties.stringPropertyNames()) {
+            builder.setProperty(key, properties.getProperty(key));
+        }
+        builder.setRandom(new Random(random.nextLong()));
+        builder.setObjectiveFunction(objectiveFunction);
+        builder.setRegretScorer(regretScorer);
+        builder.addCoreStateAndConstraintStuff(addCoreConstraints);
+        if (customAcceptor != null) builder.setCustomAcceptor(customAcceptor);
+        if (metricsSink != null) builder.setMetricsSink(metricsSink);
+        if (es != null && !setupExecutorInternally) builder.setExecutorService(es, noThreads);
+        return builder;
+    }
+
+    private VehicleRoutingAlgorithm createReplica(Builder builder, VehicleRoutingProblem vrp) {
+        Jsprit replica = new Jsprit(builder);
+        replica.jobNeighborhoods = jobNeighborhoods;
+        return replica.create(vrp);
+    }
+
     private SearchStrategyModule configureModule(RuinAndRecreateModule ruinAndRecreateModule) {
         ruinAndRecreateModule.setRandom(random);
         ruinAndRecreateModule.setMinUnassignedJobsToBeReinserted(Integer.valueOf(properties.getProperty(Parameter.MIN_UNASSIGNED.toString())));
@@ -759,36 +918,34 @@ public class Jsprit {
     private SolutionCostCalculator getObjectiveFunction(final VehicleRoutingProblem vrp, final double maxCosts) {
         if (objectiveFunction != null) return objectiveFunction;
 
-        SolutionCostCalculator solutionCostCalculator = new SolutionCostCalculator() {
+        SolutionCostCalculator solutionCostCalculator = new IncrementalSolutionCostCalculator(vrp) {
             @Override
-            public double getCosts(VehicleRoutingProblemSolution solution) {
-                double costs = 0.;
-
-                for (VehicleRoute route : solution.getRoutes()) {
-                    costs += route.getVehicle().getType().getVehicleCostParams().fix;
-                    boolean hasBreak = false;
-                    TourActivity prevAct = route.getStart();
-                    for (TourActivity act : route.getActivities()) {
-                        if (act instanceof BreakActivity) hasBreak = true;
-                        costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                        costs += vrp.getActivityCosts().getActivityCost(act, act.getArrTime(), route.getDriver(), route.getVehicle());
-                        prevAct = act;
-                    }
-                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                    if (route.getVehicle().getBreak() != null) {
-                        if (!hasBreak) {
-                            //break defined and required but not assigned penalty
-                            if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
-                                costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
-                            }
+            protected double getRouteCosts(VehicleRoute route) {
+                double costs = route.getVehicle().getType().getVehicleCostParams().fix;
+                boolean hasBreak = false;
+                TourActivity prevAct = route.getStart();
+                for (TourActivity act : route.getActivities()) {
+                    if (act instanceof BreakActivity) hasBreak = true;
+                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                    costs += vrp.getActivityCosts().getActivityCost(act, act.getArrTime(), route.getDriver(), route.getVehicle());
+                    prevAct = act;
+                }
+                costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                if (route.getVehicle().getBreak() != null) {
+                    if (!hasBreak) {
+                        //break defined and required but not assigned penalty
+                        if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
+                            costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
                         }
                     }
                 }
-                for(Job j : solution.getUnassignedJobs()){
-                    costs += maxCosts * 2 * (11 - j.getPriority());
-                }
                 return costs;
             }
+
+            @Override
+            protected double getUnassignedJobCosts(Job job) {
+                return maxCosts * 2 * (11 - job.getPriority());
+            }
         };
         return solutionCostCalculator;
     }
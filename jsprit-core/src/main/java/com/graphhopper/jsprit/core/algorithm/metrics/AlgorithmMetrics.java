@@ -0,0 +1,153 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.metrics;
+
+import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects timings and counters of the strategy runs of one search thread and reports them to a {@link MetricsSink}
+ * at the end of each run.
+ * <p>
+ * <p>It is fed by hooks in {@link com.graphhopper.jsprit.core.algorithm.SearchStrategy},
+ * {@link com.graphhopper.jsprit.core.algorithm.module.RuinAndRecreateModule},
+ * {@link com.graphhopper.jsprit.core.algorithm.state.StateManager} and
+ * {@link com.graphhopper.jsprit.core.problem.constraint.ConstraintManager} (and the insertion calculators that
+ * check its constraints). Hooks are only active if metrics are set, recording a sample costs a call to
+ * System.nanoTime() or an increment of a counter.
+ * <p>
+ * <p>Phase times are only recorded by the search thread, whereas counters can also be incremented by the threads of
+ * concurrent insertion strategies. Thus, each search thread needs its own instance, but instances can share a sink.
+ */
+public class AlgorithmMetrics {
+
+    /**
+     * Phases of a strategy run. Time spent in {@link #STATE_UPDATE} is not included in {@link #RUIN} and
+     * {@link #RECREATE}.
+     */
+    public enum Phase {
+        SELECTION, RUIN, RECREATE, STATE_UPDATE, OBJECTIVE, ACCEPTANCE
+    }
+
+    public enum Counter {
+        /**
+         * Evaluations of inserting a job into a route (with a certain vehicle).
+         */
+        INSERTION_EVALUATIONS,
+        /**
+         * Checks of single hard constraints.
+         */
+        CONSTRAINT_CHECKS
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final MetricsSink sink;
+
+    private final long[] times = new long[PHASES.length];
+
+    private final LongAdder insertionEvaluations = new LongAdder();
+
+    private final LongAdder constraintChecks = new LongAdder();
+
+    //rejections per constraint class, i.e. instances of the same class are counted together
+    private final Map<Class<?>, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    public AlgorithmMetrics(MetricsSink sink) {
+        if (sink == null) throw new IllegalArgumentException("sink must not be null");
+        this.sink = sink;
+    }
+
+    public MetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Adds time to a phase of the current strategy run.
+     *
+     * @param phase the phase
+     * @param nanos time in nanoseconds
+     */
+    public void addTime(Phase phase, long nanos) {
+        times[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Returns the time spent in a phase since the last flush or reset.
+     *
+     * @param phase the phase
+     * @return time in nanoseconds
+     */
+    public long getTime(Phase phase) {
+        return times[phase.ordinal()];
+    }
+
+    public void countInsertionEvaluation() {
+        insertionEvaluations.increment();
+    }
+
+    public void countConstraintChecks(int nuOfChecks) {
+        constraintChecks.add(nuOfChecks);
+    }
+
+    public void countRejection(HardConstraint constraint) {
+        Class<?> constraintType = constraint.getClass();
+        LongAdder counter = rejections.get(constraintType);
+        if (counter == null) counter = rejections.computeIfAbsent(constraintType, c -> new LongAdder());
+        counter.increment();
+    }
+
+    /**
+     * Discards everything recorded since the last flush, e.g. the state updates of the initial solution.
+     */
+    public void reset() {
+        for (int i = 0; i < times.length; i++) times[i] = 0;
+        insertionEvaluations.reset();
+        constraintChecks.reset();
+        for (LongAdder counter : rejections.values()) counter.reset();
+    }
+
+    /**
+     * Reports everything recorded since the last flush or reset as one run of the specified strategy, and resets the
+     * metrics.
+     *
+     * @param strategyId id of the strategy
+     * @param nanos      total time of the run in nanoseconds
+     */
+    public void flush(String strategyId, long nanos) {
+        for (Phase phase : PHASES) {
+            long time = times[phase.ordinal()];
+            if (time != 0) sink.recordTime(strategyId, phase, time);
+            times[phase.ordinal()] = 0;
+        }
+        long count = insertionEvaluations.sumThenReset();
+        if (count != 0) sink.recordCount(strategyId, Counter.INSERTION_EVALUATIONS, count);
+        count = constraintChecks.sumThenReset();
+        if (count != 0) sink.recordCount(strategyId, Counter.CONSTRAINT_CHECKS, count);
+        for (Map.Entry<Class<?>, LongAdder> rejection : rejections.entrySet()) {
+            count = rejection.getValue().sumThenReset();
+            if (count != 0) sink.recordRejections(strategyId, rejection.getKey().getName(), count);
+        }
+        sink.recordIteration(strategyId, nanos);
+    }
+
+}
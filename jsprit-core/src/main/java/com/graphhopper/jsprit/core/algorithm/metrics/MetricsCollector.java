@@ -0,0 +1,179 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.metrics;
+
+import java.util.*;
+
+/**
+ * Sink that sums up the metrics of each strategy over the entire search. It is thread-safe, i.e. it can be shared by
+ * all search threads of an algorithm.
+ */
+public class MetricsCollector implements MetricsSink {
+
+    private static class StrategyMetrics {
+
+        private final long[] times = new long[AlgorithmMetrics.Phase.values().length];
+
+        private final long[] counts = new long[AlgorithmMetrics.Counter.values().length];
+
+        private final Map<String, Long> rejections = new HashMap<>();
+
+        private long nuOfIterations;
+
+        private long time;
+
+    }
+
+    private final Map<String, StrategyMetrics> metrics = new LinkedHashMap<>();
+
+    private long firstIterationStart = Long.MAX_VALUE;
+
+    private long lastIterationEnd = Long.MIN_VALUE;
+
+    private StrategyMetrics get(String strategyId) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        if (strategyMetrics == null) {
+            strategyMetrics = new StrategyMetrics();
+            metrics.put(strategyId, strategyMetrics);
+        }
+        return strategyMetrics;
+    }
+
+    @Override
+    public synchronized void recordTime(String strategyId, AlgorithmMetrics.Phase phase, long nanos) {
+        get(strategyId).times[phase.ordinal()] += nanos;
+    }
+
+    @Override
+    public synchronized void recordCount(String strategyId, AlgorithmMetrics.Counter counter, long count) {
+        get(strategyId).counts[counter.ordinal()] += count;
+    }
+
+    @Override
+    public synchronized void recordRejections(String strategyId, String constraintName, long count) {
+        Map<String, Long> rejections = get(strategyId).rejections;
+        Long rejectionsSoFar = rejections.get(constraintName);
+        rejections.put(constraintName, rejectionsSoFar == null ? count : rejectionsSoFar + count);
+    }
+
+    @Override
+    public synchronized void recordIteration(String strategyId, long nanos) {
+        StrategyMetrics strategyMetrics = get(strategyId);
+        strategyMetrics.nuOfIterations++;
+        strategyMetrics.time += nanos;
+        long now = System.nanoTime();
+        firstIterationStart = Math.min(firstIterationStart, now - nanos);
+        lastIterationEnd = Math.max(lastIterationEnd, now);
+    }
+
+    /**
+     * Returns the ids of the strategies that have been run, in the order of their first run.
+     *
+     * @return strategy ids
+     */
+    public synchronized Collection<String> getStrategyIds() {
+        return new ArrayList<>(metrics.keySet());
+    }
+
+    /**
+     * @param strategyId id of the strategy
+     * @param phase      the phase
+     * @return time in nanoseconds the strategy spent in the phase
+     */
+    public synchronized long getTime(String strategyId, AlgorithmMetrics.Phase phase) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        return strategyMetrics == null ? 0 : strategyMetrics.times[phase.ordinal()];
+    }
+
+    /**
+     * @param strategyId id of the strategy
+     * @param counter    the counter
+     * @return events counted in the runs of the strategy
+     */
+    public synchronized long getCount(String strategyId, AlgorithmMetrics.Counter counter) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        return strategyMetrics == null ? 0 : strategyMetrics.counts[counter.ordinal()];
+    }
+
+    /**
+     * Returns the number of rejections per hard constraint (fully qualified class name) in the runs of the strategy.
+     *
+     * @param strategyId id of the strategy
+     * @return rejections per constraint
+     */
+    public synchronized Map<String, Long> getRejections(String strategyId) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        if (strategyMetrics == null) return Collections.emptyMap();
+        return new HashMap<>(strategyMetrics.rejections);
+    }
+
+    public synchronized long getNuOfIterations(String strategyId) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        return strategyMetrics == null ? 0 : strategyMetrics.nuOfIterations;
+    }
+
+    /**
+     * Returns the number of runs of the strategy per second of time spent in it.
+     *
+     * @param strategyId id of the strategy
+     * @return iterations per second
+     */
+    public synchronized double getIterationsPerSecond(String strategyId) {
+        StrategyMetrics strategyMetrics = metrics.get(strategyId);
+        if (strategyMetrics == null || strategyMetrics.time == 0) return 0.;
+        return strategyMetrics.nuOfIterations / (strategyMetrics.time * 1e-9);
+    }
+
+    /**
+     * Returns the number of iterations of all strategies (and search threads) per second of wall-clock time, measured
+     * from the start of the first to the end of the last recorded iteration.
+     *
+     * @return iterations per second
+     */
+    public synchronized double getIterationsPerSecond() {
+        if (lastIterationEnd <= firstIterationStart) return 0.;
+        long nuOfIterations = 0;
+        for (StrategyMetrics strategyMetrics : metrics.values()) nuOfIterations += strategyMetrics.nuOfIterations;
+        return nuOfIterations / ((lastIterationEnd - firstIterationStart) * 1e-9);
+    }
+
+    public synchronized void reset() {
+        metrics.clear();
+        firstIterationStart = Long.MAX_VALUE;
+        lastIterationEnd = Long.MIN_VALUE;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, StrategyMetrics> entry : metrics.entrySet()) {
+            StrategyMetrics strategyMetrics = entry.getValue();
+            sb.append("[strategy=").append(entry.getKey()).append("][iterations=").append(strategyMetrics.nuOfIterations);
+            for (AlgorithmMetrics.Phase phase : AlgorithmMetrics.Phase.values()) {
+                sb.append("][").append(phase.toString().toLowerCase()).append("Ms=").append(strategyMetrics.times[phase.ordinal()] / 1000000);
+            }
+            for (AlgorithmMetrics.Counter counter : AlgorithmMetrics.Counter.values()) {
+                sb.append("][").append(counter.toString().toLowerCase()).append("=").append(strategyMetrics.counts[counter.ordinal()]);
+            }
+            sb.append("][rejections=").append(strategyMetrics.rejections).append("]\n");
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.metrics;
+
+/**
+ * Receives the metrics collected by {@link AlgorithmMetrics}.
+ * <p>
+ * <p>Metrics are reported once per strategy run, i.e. once per iteration of a search thread: first the time spent in
+ * each phase, then the counters and the rejections per hard constraint, finally the iteration itself. Values that are
+ * 0 are not reported. If the algorithm runs several search threads, a sink is called from each of them, i.e.
+ * implementations must be thread-safe.
+ */
+public interface MetricsSink {
+
+    /**
+     * Records the time a strategy run spent in a phase.
+     *
+     * @param strategyId id of the strategy
+     * @param phase      the phase
+     * @param nanos      time in nanoseconds
+     */
+    void recordTime(String strategyId, AlgorithmMetrics.Phase phase, long nanos);
+
+    /**
+     * Records a counter of a strategy run.
+     *
+     * @param strategyId id of the strategy
+     * @param counter    the counter
+     * @param count      counted events
+     */
+    void recordCount(String strategyId, AlgorithmMetrics.Counter counter, long count);
+
+    /**
+     * Records how often a hard constraint rejected an insertion in a strategy run.
+     *
+     * @param strategyId     id of the strategy
+     * @param constraintName fully qualified class name of the constraint, i.e. constraint classes with the same simple
+     *                       name are reported separately
+     * @param count          number of rejections
+     */
+    void recordRejections(String strategyId, String constraintName, long count);
+
+    /**
+     * Records that a strategy run has been completed.
+     *
+     * @param strategyId id of the strategy
+     * @param nanos      total time of the run in nanoseconds
+     */
+    void recordIteration(String strategyId, long nanos);
+
+}
@@ -19,6 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.module;
 
 import com.graphhopper.jsprit.core.algorithm.SearchStrategyModule;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionStrategy;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.RuinStrategy;
@@ -43,6 +44,8 @@ public class RuinAndRecreateModule implements SearchStrategyModule {
 
     private double proportionOfUnassignedJobsToBeReinserted = 1d;
 
+    private AlgorithmMetrics metrics;
+
     public RuinAndRecreateModule(String moduleName, InsertionStrategy insertion, RuinStrategy ruin) {
         super();
         this.insertion = insertion;
@@ -77,8 +80,24 @@ public class RuinAndRecreateModule implements SearchStrategyModule {
         this.proportionOfUnassignedJobsToBeReinserted = proportionOfUnassignedJobsToBeReinserted;
     }
 
+    /**
+     * Sets the metrics the time spent in ruin and recreate is added to. State updates triggered by ruin and recreate
+     * are recorded by the state manager, thus their time is subtracted.
+     *
+     * @param metrics metrics of the search thread this module runs in, or null to switch off recording
+     */
+    public void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution previousVrpSolution) {
+        long ruinStart = 0;
+        long stateUpdateTime = 0;
+        if (metrics != null) {
+            stateUpdateTime = metrics.getTime(AlgorithmMetrics.Phase.STATE_UPDATE);
+            ruinStart = System.nanoTime();
+        }
         Collection<Job> ruinedJobs = ruin.ruin(previousVrpSolution.getRoutes());
         Set<Job> ruinedJobSet = new HashSet<>();
         ruinedJobSet.addAll(ruinedJobs);
@@ -96,7 +115,18 @@ public class RuinAndRecreateModule implements SearchStrategyModule {
                 stillUnassignedInThisIteration.add(jobList.get(i));
             }
         }
+        long recreateStart = 0;
+        if (metrics != null) {
+            recreateStart = System.nanoTime();
+            long ruinStateUpdateTime = metrics.getTime(AlgorithmMetrics.Phase.STATE_UPDATE) - stateUpdateTime;
+            metrics.addTime(AlgorithmMetrics.Phase.RUIN, recreateStart - ruinStart - ruinStateUpdateTime);
+            stateUpdateTime += ruinStateUpdateTime;
+        }
         Collection<Job> unassignedJobs = insertion.insertJobs(previousVrpSolution.getRoutes(), ruinedJobSet);
+        if (metrics != null) {
+            long recreateStateUpdateTime = metrics.getTime(AlgorithmMetrics.Phase.STATE_UPDATE) - stateUpdateTime;
+            metrics.addTime(AlgorithmMetrics.Phase.RECREATE, System.nanoTime() - recreateStart - recreateStateUpdateTime);
+        }
         previousVrpSolution.getUnassignedJobs().clear();
         previousVrpSolution.getUnassignedJobs().addAll(unassignedJobs);
         previousVrpSolution.getUnassignedJobs().addAll(stillUnassignedInThisIteration);
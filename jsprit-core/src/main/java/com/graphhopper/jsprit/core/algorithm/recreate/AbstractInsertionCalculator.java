@@ -18,79 +18,283 @@
 
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
 import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.HardRouteConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * Created by schroeder on 06/02/17.
+ * <p>
+ * <p>Insertion calculators evaluate each insertion position of a route. The objects needed to do so (start and end of
+ * the route, activity contexts and the list of failed constraints) are therefore not created per position, but are
+ * held in an {@link EvaluationContext} that is reused by all calls of the current thread. Constraint failures are
+ * counted by constraint id (see {@link ConstraintManager#getConstraintId(Class)}) and only copied to the insertion data
+ * if no insertion position has been found. Thus, checking a position does not allocate anything as long as the
+ * constraints and cost calculators involved do not.
+ * <p>
+ * <p>Optionally, the insertion positions can be restricted to the neighborhood of the job to be inserted (granular
+ * insertion, see {@link #setJobNeighborhoods(JobNeighborhoods, int)}).
  */
 abstract class AbstractInsertionCalculator implements JobInsertionCostsCalculator {
 
+    /**
+     * Objects that are reused by all insertion evaluations of one thread.
+     */
+    static final class EvaluationContext {
+
+        final Start start = new Start((Location) null, 0., Double.MAX_VALUE);
+
+        final End end = new End((Location) null, 0., Double.MAX_VALUE);
+
+        private final ActivityContext activityContext = new ActivityContext();
+
+        final ActivityContext relatedActivityContext = new ActivityContext();
+
+        final FailedConstraints failedActivityConstraints = new FailedConstraints();
+
+        //ids of the constraints of one priority level that have failed for the position currently evaluated
+        private int[] levelFailures = new int[0];
+
+        private boolean[] isNeighbor = new boolean[0];
+
+        private int[] neighborIndices = new int[0];
+
+        private boolean[] positions = new boolean[0];
+
+        private boolean allPositions = true;
+
+        private void reset(Vehicle newVehicle, double newVehicleDepartureTime, double latestStart) {
+            start.setLocation(newVehicle.getStartLocation());
+            start.setTheoreticalEarliestOperationStartTime(newVehicle.getEarliestDeparture());
+            start.setTheoreticalLatestOperationStartTime(latestStart);
+            start.setArrTime(0.);
+            start.setEndTime(newVehicleDepartureTime);
+            end.setLocation(newVehicle.getEndLocation());
+            end.setTheoreticalEarliestOperationStartTime(0.);
+            end.setTheoreticalLatestOperationStartTime(newVehicle.getLatestArrival());
+            end.setArrTime(0.);
+            end.setEndTime(newVehicle.getLatestArrival());
+            failedActivityConstraints.clear();
+            allPositions = true;
+        }
+
+        private int[] getLevelFailures(int nuOfConstraints) {
+            if (levelFailures.length < nuOfConstraints) levelFailures = new int[nuOfConstraints];
+            return levelFailures;
+        }
+
+        /**
+         * Returns true if the specified insertion index is to be evaluated.
+         *
+         * @param insertionIndex the insertion index
+         * @return true if insertion index is to be evaluated
+         */
+        boolean isEvaluated(int insertionIndex) {
+            return allPositions || positions[insertionIndex];
+        }
+
+        /*
+        marks the positions before and after each activity of a neighbor as well as the first and the last position.
+        returns true if the route contains at least one neighbor.
+         */
+        private boolean selectPositions(List<TourActivity> activities, Iterator<Job> neighbors, int nuOfNeighbors) {
+            int nuOfMarkedNeighbors = 0;
+            while (nuOfMarkedNeighbors < nuOfNeighbors && neighbors.hasNext()) {
+                int jobIndex = neighbors.next().getIndex();
+                if (jobIndex < 0) continue;
+                if (jobIndex >= isNeighbor.length) isNeighbor = Arrays.copyOf(isNeighbor, Math.max(jobIndex + 1, 2 * isNeighbor.length));
+                if (nuOfMarkedNeighbors == neighborIndices.length) neighborIndices = Arrays.copyOf(neighborIndices, 2 * nuOfMarkedNeighbors + 1);
+                isNeighbor[jobIndex] = true;
+                neighborIndices[nuOfMarkedNeighbors++] = jobIndex;
+            }
+            int nuOfPositions = activities.size() + 1;
+            if (positions.length < nuOfPositions) positions = new boolean[Math.max(nuOfPositions, 2 * positions.length)];
+            else Arrays.fill(positions, 0, nuOfPositions, false);
+            positions[0] = true;
+            positions[nuOfPositions - 1] = true;
+            boolean containsNeighbor = false;
+            for (int i = 0; i < activities.size(); i++) {
+                TourActivity activity = activities.get(i);
+                if (activity instanceof TourActivity.JobActivity) {
+                    int jobIndex = ((TourActivity.JobActivity) activity).getJob().getIndex();
+                    if (jobIndex >= 0 && jobIndex < isNeighbor.length && isNeighbor[jobIndex]) {
+                        positions[i] = true;
+                        positions[i + 1] = true;
+                        containsNeighbor = true;
+                    }
+                }
+            }
+            for (int i = 0; i < nuOfMarkedNeighbors; i++) {
+                isNeighbor[neighborIndices[i]] = false;
+            }
+            allPositions = false;
+            return containsNeighbor;
+        }
+
+        /**
+         * Returns the activity context, reset for the specified insertion index.
+         *
+         * @param insertionIndex the insertion index to be evaluated
+         * @return activity context
+         */
+        ActivityContext getActivityContext(int insertionIndex) {
+            activityContext.setArrivalTime(0.);
+            activityContext.setEndTime(0.);
+            activityContext.setInsertionIndex(insertionIndex);
+            return activityContext;
+        }
+    }
+
+    private final ThreadLocal<EvaluationContext> evaluationContext = new ThreadLocal<EvaluationContext>() {
+
+        @Override
+        protected EvaluationContext initialValue() {
+            return new EvaluationContext();
+        }
+
+    };
+
+    private JobNeighborhoods jobNeighborhoods;
+
+    private int nuOfNeighbors;
+
+    /**
+     * Restricts the insertion positions to be evaluated to those directly before and after the activities of the
+     * nuOfNeighbors nearest neighbors of the job to be inserted (granular insertion). The positions directly after
+     * the start and directly before the end of a route are always evaluated, routes without any neighbor (except
+     * empty routes) are not evaluated at all.
+     *
+     * @param jobNeighborhoods initialised job neighborhoods
+     * @param nuOfNeighbors    number of nearest neighbors to be considered
+     */
+    void setJobNeighborhoods(JobNeighborhoods jobNeighborhoods, int nuOfNeighbors) {
+        this.jobNeighborhoods = jobNeighborhoods;
+        this.nuOfNeighbors = nuOfNeighbors;
+    }
+
+    /**
+     * Determines the insertion positions of the specified route that are to be evaluated, i.e. all positions unless
+     * insertion positions are restricted to the neighborhood of the job (see {@link EvaluationContext#isEvaluated(int)}).
+     *
+     * @param evaluationContext the evaluation context of the current call
+     * @param route             the route to be evaluated
+     * @param job               the job to be inserted
+     * @return false if the route contains no neighbor of the job and need not be evaluated at all
+     */
+    boolean selectInsertionPositions(EvaluationContext evaluationContext, VehicleRoute route, Job job) {
+        if (jobNeighborhoods == null || route.isEmpty()) return true;
+        return evaluationContext.selectPositions(route.getActivities(), jobNeighborhoods.getNearestNeighborsIterator(nuOfNeighbors, job), nuOfNeighbors);
+    }
+
+    /*
+    each call is one insertion evaluation. if the constraint manager has metrics, evaluations, checks and rejections are
+    counted there.
+     */
     InsertionData checkRouteContraints(JobInsertionContext insertionContext, ConstraintManager constraintManager) {
+        AlgorithmMetrics metrics = constraintManager.getMetrics();
+        if (metrics != null) metrics.countInsertionEvaluation();
+        int nuOfChecks = 0;
         for (HardRouteConstraint hardRouteConstraint : constraintManager.getHardRouteConstraints()) {
+            nuOfChecks++;
             if (!hardRouteConstraint.fulfilled(insertionContext)) {
+                if (metrics != null) {
+                    metrics.countConstraintChecks(nuOfChecks);
+                    metrics.countRejection(hardRouteConstraint);
+                }
                 InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-                emptyInsertionData.addFailedConstrainName(hardRouteConstraint.getClass().getSimpleName());
+                emptyInsertionData.getFailedConstraints().add(ConstraintManager.getConstraintId(hardRouteConstraint.getClass()));
                 return emptyInsertionData;
             }
         }
+        if (metrics != null) metrics.countConstraintChecks(nuOfChecks);
         return null;
     }
 
-    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<HardConstraint> failedActivityConstraints, ConstraintManager constraintManager) {
-        ConstraintsStatus notFulfilled = null;
-        List<HardConstraint> failed = new ArrayList<>();
-        for (HardActivityConstraint c : constraintManager.getCriticalHardActivityConstraints()) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
-                failedActivityConstraints.add(c);
-                return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    failed.add(c);
-                    notFulfilled = status;
-                }
-            }
-        }
-        if (notFulfilled != null) {
-            failedActivityConstraints.addAll(failed);
-            return notFulfilled;
-        }
+    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, EvaluationContext evaluationContext, ConstraintManager constraintManager) {
+        AlgorithmMetrics metrics = constraintManager.getMetrics();
+        ConstraintsStatus status = fulfilled(constraintManager.getCriticalHardActivityConstraints(), iFacts, prevAct, newAct, nextAct, prevActDepTime, evaluationContext, true, metrics);
+        if (status != ConstraintsStatus.FULFILLED) return status;
+        status = fulfilled(constraintManager.getHighPrioHardActivityConstraints(), iFacts, prevAct, newAct, nextAct, prevActDepTime, evaluationContext, true, metrics);
+        if (status != ConstraintsStatus.FULFILLED) return status;
+        return fulfilled(constraintManager.getLowPrioHardActivityConstraints(), iFacts, prevAct, newAct, nextAct, prevActDepTime, evaluationContext, false, metrics);
+    }
 
-        for (HardActivityConstraint c : constraintManager.getHighPrioHardActivityConstraints()) {
+    /*
+    failed constraints of a priority level are memorized in the level failures and counted in the failed activity
+    constraints once all constraints of the level have been checked. if a constraint breaks, only the breaking constraint
+    is counted.
+     */
+    private static ConstraintsStatus fulfilled(List<HardActivityConstraint> constraints, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, EvaluationContext evaluationContext, boolean checkAll, AlgorithmMetrics metrics) {
+        ConstraintsStatus notFulfilled = ConstraintsStatus.FULFILLED;
+        FailedConstraints failedActivityConstraints = evaluationContext.failedActivityConstraints;
+        int[] levelFailures = evaluationContext.getLevelFailures(constraints.size());
+        int nuOfLevelFailures = 0;
+        for (int i = 0; i < constraints.size(); i++) {
+            HardActivityConstraint c = constraints.get(i);
             ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
-                failedActivityConstraints.add(c);
+                failedActivityConstraints.add(ConstraintManager.getConstraintId(c.getClass()));
+                if (metrics != null) record(metrics, i + 1, c);
                 return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    failed.add(c);
-                    notFulfilled = status;
+            } else if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                if (!checkAll) {
+                    failedActivityConstraints.add(ConstraintManager.getConstraintId(c.getClass()));
+                    if (metrics != null) record(metrics, i + 1, c);
+                    return status;
                 }
+                levelFailures[nuOfLevelFailures++] = ConstraintManager.getConstraintId(c.getClass());
+                if (metrics != null) metrics.countRejection(c);
+                notFulfilled = status;
             }
         }
-        if (notFulfilled != null) {
-            failedActivityConstraints.addAll(failed);
-            return notFulfilled;
+        for (int i = 0; i < nuOfLevelFailures; i++) {
+            failedActivityConstraints.add(levelFailures[i]);
         }
+        if (metrics != null) metrics.countConstraintChecks(constraints.size());
+        return notFulfilled;
+    }
 
-        for (HardActivityConstraint constraint : constraintManager.getLowPrioHardActivityConstraints()) {
-            ConstraintsStatus status = constraint.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK) || status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                failedActivityConstraints.add(constraint);
-                return status;
-            }
-        }
-        return ConstraintsStatus.FULFILLED;
+    private static void record(AlgorithmMetrics metrics, int nuOfChecks, HardConstraint rejectingConstraint) {
+        metrics.countConstraintChecks(nuOfChecks);
+        metrics.countRejection(rejectingConstraint);
+    }
+
+    static InsertionData noInsertionFound(FailedConstraints failedActivityConstraints) {
+        InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
+        emptyInsertionData.getFailedConstraints().addAll(failedActivityConstraints);
+        return emptyInsertionData;
+    }
+
+    /**
+     * Returns the evaluation context of the current thread, reset for a new call of getInsertionData(...).
+     *
+     * @param newVehicle              the vehicle the job is to be inserted with
+     * @param newVehicleDepartureTime departure time of the new vehicle
+     * @param latestStart             theoretical latest operation start time of the start activity
+     * @return evaluation context of the current thread
+     */
+    EvaluationContext getEvaluationContext(Vehicle newVehicle, double newVehicleDepartureTime, double latestStart) {
+        EvaluationContext context = evaluationContext.get();
+        context.reset(newVehicle, newVehicleDepartureTime, latestStart);
+        return context;
     }
 
 }
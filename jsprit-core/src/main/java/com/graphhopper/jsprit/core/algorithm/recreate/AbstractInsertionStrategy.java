@@ -22,6 +22,7 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -97,6 +98,10 @@ public abstract class AbstractInsertionStrategy implements InsertionStrategy {
         insertionsListeners.informJobUnassignedListeners(unassigned, reasons);
     }
 
+    public void markUnassigned(Job unassigned, FailedConstraints failedConstraints) {
+        insertionsListeners.informJobUnassignedListeners(unassigned, failedConstraints);
+    }
+
     public abstract Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs);
 
     @Override
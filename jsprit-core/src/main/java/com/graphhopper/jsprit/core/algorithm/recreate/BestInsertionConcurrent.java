@@ -20,6 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData.NoInsertionFound;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -104,9 +105,9 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
         Collections.shuffle(unassignedJobList, random);
         Collections.sort(unassignedJobList, new AccordingToPriorities());
         List<Batch> batches = distributeRoutes(vehicleRoutes, nuOfBatches);
-        List<String> failedConstraintNames = new ArrayList<>();
         for (final Job unassignedJob : unassignedJobList) {
             Insertion bestInsertion = null;
+            FailedConstraints failedConstraints = new FailedConstraints();
             double bestInsertionCost = Double.MAX_VALUE;
             for (final Batch batch : batches) {
                 completionService.submit(new Callable<Insertion>() {
@@ -123,7 +124,7 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
                     Future<Insertion> futureIData = completionService.take();
                     Insertion insertion = futureIData.get();
                     if (insertion.insertionData instanceof NoInsertionFound) {
-                        failedConstraintNames.addAll(insertion.getInsertionData().getFailedConstraintNames());
+                        failedConstraints.addAll(insertion.getInsertionData().getFailedConstraints());
                         continue;
                     }
                     if (insertion.getInsertionData().getInsertionCost() < bestInsertionCost) {
@@ -145,7 +146,7 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
             }
             if (bestInsertion == null) {
                 badJobs.add(unassignedJob);
-                markUnassigned(unassignedJob, failedConstraintNames);
+                markUnassigned(unassignedJob, failedConstraints);
             }
             else insertJob(unassignedJob, bestInsertion.getInsertionData(), bestInsertion.getRoute());
         }
@@ -160,7 +161,7 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
         for (VehicleRoute vehicleRoute : batch.routes) {
             InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
             if (iData instanceof NoInsertionFound) {
-                empty.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
+                empty.getFailedConstraints().addAll(iData.getFailedConstraints());
                 continue;
             }
             if (iData.getInsertionCost() < bestInsertionCost) {
@@ -0,0 +1,390 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData.NoInsertionFound;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+/**
+ * Concurrent best insertion with persistent workers that each own a route partition.
+ * <p>
+ * <p>Unlike {@link BestInsertionConcurrent}, which submits one task per batch of routes for every single job, this
+ * strategy keeps its workers between calls of {@link #insertUnassignedJobs(Collection, Collection)}. Routes are
+ * distributed to a fixed number of partitions, partition 0 is evaluated by the calling thread and every other partition
+ * by its own worker. In each round, the calling thread publishes the jobs to be evaluated and signals the workers
+ * through a {@link Phaser}. Each worker then determines the best insertion of every job of the round into the routes of
+ * its partition. The calling thread takes over partitions whose worker has not picked them up by the time it is done
+ * with its own partition, thus a round never waits for a worker that has not been scheduled (yet) by the executor.
+ * Workers that have not been signalled for {@link #WORKER_KEEP_ALIVE_MILLIS} milliseconds end, and they are submitted
+ * again by the next call, i.e. idle workers neither block the executor nor prevent it from shutting down.
+ * <p>
+ * <p>Several jobs can be evaluated per round (see {@link #setNuOfJobsPerRound(int)}). Jobs are still inserted one after
+ * another. Routes that have been changed in this round are evaluated again for every subsequent job of the round. If
+ * the best insertion a partition found for a job is not valid anymore, i.e. it is in a changed route or it takes a
+ * vehicle from the fleet after another vehicle has been taken in this round, the unchanged routes of this partition are
+ * evaluated again as well. Only if an insertion switches the vehicle of a route, and thus returns a vehicle to the fleet
+ * that might improve the insertion into any route, the remaining jobs are postponed to the next round. Thus, the result
+ * is the same as evaluating one job per round as long as constraints only depend on the route the job is inserted into.
+ */
+public final class BestInsertionConcurrentPartitioned extends AbstractInsertionStrategy {
+
+    private static Logger logger = LoggerFactory.getLogger(BestInsertionConcurrentPartitioned.class);
+
+    /**
+     * Time in milliseconds a worker waits for the next round before it ends.
+     */
+    public static final long WORKER_KEEP_ALIVE_MILLIS = 1000;
+
+    private final JobInsertionCostsCalculator bestInsertionCostCalculator;
+
+    private final ExecutorService executorService;
+
+    private final int nuOfPartitions;
+
+    private final Rounds rounds;
+
+    private int nuOfJobsPerRound = 1;
+
+    private int nuOfRounds;
+
+    public BestInsertionConcurrentPartitioned(JobInsertionCostsCalculator jobInsertionCalculator, ExecutorService executorService, int nuOfPartitions, VehicleRoutingProblem vehicleRoutingProblem) {
+        super(vehicleRoutingProblem);
+        if (nuOfPartitions < 1) throw new IllegalArgumentException("number of partitions must be positive");
+        this.bestInsertionCostCalculator = jobInsertionCalculator;
+        this.executorService = executorService;
+        this.nuOfPartitions = nuOfPartitions;
+        this.rounds = new Rounds(nuOfPartitions);
+        logger.debug("initialise {}", this);
+    }
+
+    /**
+     * Sets the number of jobs that are evaluated per round, i.e. per synchronization of workers. Default is 1.
+     *
+     * @param nuOfJobsPerRound number of jobs evaluated per round
+     */
+    public void setNuOfJobsPerRound(int nuOfJobsPerRound) {
+        if (nuOfJobsPerRound < 1) throw new IllegalArgumentException("number of jobs per round must be positive");
+        this.nuOfJobsPerRound = nuOfJobsPerRound;
+    }
+
+    /*
+     * number of rounds of the last call of insertUnassignedJobs
+     */
+    int getNuOfRounds() {
+        return nuOfRounds;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=bestInsertion]";
+    }
+
+    @Override
+    public Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+        List<Job> badJobs = new ArrayList<Job>(unassignedJobs.size());
+        List<Job> unassignedJobList = new ArrayList<Job>(unassignedJobs);
+        Collections.shuffle(unassignedJobList, random);
+        Collections.sort(unassignedJobList, new AccordingToPriorities());
+        List<List<VehicleRoute>> partitions = distributeRoutes(vehicleRoutes);
+        rounds.startWorkers();
+        nuOfRounds = 0;
+        int nuOfInsertedJobs = 0;
+        while (nuOfInsertedJobs < unassignedJobList.size()) {
+            List<Job> jobs = unassignedJobList.subList(nuOfInsertedJobs, Math.min(nuOfInsertedJobs + nuOfJobsPerRound, unassignedJobList.size()));
+            PartitionInsertion[][] bestInsertions = rounds.evaluate(jobs, partitions);
+            nuOfRounds++;
+            nuOfInsertedJobs += insert(jobs, bestInsertions, vehicleRoutes, partitions, badJobs);
+        }
+        return badJobs;
+    }
+
+    /*
+     * inserts jobs as long as the evaluation of the round can be made valid again, and returns the number of inserted
+     * jobs (including jobs that cannot be inserted at all)
+     */
+    private int insert(List<Job> jobs, PartitionInsertion[][] bestInsertions, Collection<VehicleRoute> vehicleRoutes, List<List<VehicleRoute>> partitions, List<Job> badJobs) {
+        Set<VehicleRoute> changedRoutes = Collections.newSetFromMap(new IdentityHashMap<VehicleRoute, Boolean>());
+        boolean vehicleTaken = false;
+        for (int j = 0; j < jobs.size(); j++) {
+            Job unassignedJob = jobs.get(j);
+            Insertion bestInsertion = null;
+            double bestInsertionCost = Double.MAX_VALUE;
+            FailedConstraints failedConstraints = new FailedConstraints();
+            for (int partition = 0; partition < bestInsertions[j].length; partition++) {
+                PartitionInsertion partitionInsertion = bestInsertions[j][partition];
+                Insertion insertion = partitionInsertion.bestInsertion;
+                if (insertion == null) {
+                    for (Insertion noInsertion : partitionInsertion.noInsertions) {
+                        //changed routes are evaluated again below
+                        if (changedRoutes.contains(noInsertion.getRoute())) continue;
+                        failedConstraints.addAll(noInsertion.getInsertionData().getFailedConstraints());
+                    }
+                    continue;
+                }
+                if (changedRoutes.contains(insertion.getRoute()) || (vehicleTaken && takesVehicle(insertion))) {
+                    insertion = getBestInsertion(partitions.get(partition), changedRoutes, unassignedJob, bestInsertionCost, failedConstraints);
+                    if (insertion == null) continue;
+                }
+                if (insertion.getInsertionData().getInsertionCost() < bestInsertionCost) {
+                    bestInsertion = insertion;
+                    bestInsertionCost = insertion.getInsertionData().getInsertionCost();
+                }
+            }
+            for (VehicleRoute changedRoute : changedRoutes) {
+                InsertionData iData = bestInsertionCostCalculator.getInsertionData(changedRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
+                if (iData instanceof NoInsertionFound) {
+                    failedConstraints.addAll(iData.getFailedConstraints());
+                    continue;
+                }
+                if (iData.getInsertionCost() < bestInsertionCost) {
+                    bestInsertion = new Insertion(changedRoute, iData);
+                    bestInsertionCost = iData.getInsertionCost();
+                }
+            }
+            VehicleRoute newRoute = VehicleRoute.emptyRoute();
+            InsertionData newIData = bestInsertionCostCalculator.getInsertionData(newRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
+            if (newIData instanceof NoInsertionFound) {
+                failedConstraints.addAll(newIData.getFailedConstraints());
+            } else if (newIData.getInsertionCost() < bestInsertionCost) {
+                bestInsertion = new Insertion(newRoute, newIData);
+                vehicleRoutes.add(newRoute);
+                partitions.get(random.nextInt(partitions.size())).add(newRoute);
+            }
+            if (bestInsertion == null) {
+                badJobs.add(unassignedJob);
+                markUnassigned(unassignedJob, failedConstraints);
+                continue;
+            }
+            VehicleRoute route = bestInsertion.getRoute();
+            boolean vehicleReturned = takesVehicle(bestInsertion) && !(route.getVehicle() instanceof VehicleImpl.NoVehicle);
+            vehicleTaken |= takesVehicle(bestInsertion);
+            insertJob(unassignedJob, bestInsertion.getInsertionData(), route);
+            changedRoutes.add(route);
+            //a vehicle returned to the fleet might improve the insertion into any route
+            if (vehicleReturned) return j + 1;
+        }
+        return jobs.size();
+    }
+
+    private static boolean takesVehicle(Insertion insertion) {
+        return !insertion.getRoute().getVehicle().getId().equals(insertion.getInsertionData().getSelectedVehicle().getId());
+    }
+
+    /*
+     * evaluates the unchanged routes of a partition again, changed routes are evaluated separately
+     */
+    private Insertion getBestInsertion(List<VehicleRoute> routes, Set<VehicleRoute> changedRoutes, Job unassignedJob, double bestKnownCost, FailedConstraints failedConstraints) {
+        Insertion bestInsertion = null;
+        double bestInsertionCost = bestKnownCost;
+        for (VehicleRoute vehicleRoute : routes) {
+            if (changedRoutes.contains(vehicleRoute)) continue;
+            InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
+            if (iData instanceof NoInsertionFound) {
+                failedConstraints.addAll(iData.getFailedConstraints());
+                continue;
+            }
+            if (iData.getInsertionCost() < bestInsertionCost) {
+                bestInsertion = new Insertion(vehicleRoute, iData);
+                bestInsertionCost = iData.getInsertionCost();
+            }
+        }
+        return bestInsertion;
+    }
+
+    private PartitionInsertion getBestInsertion(List<VehicleRoute> routes, Job unassignedJob) {
+        PartitionInsertion partitionInsertion = new PartitionInsertion();
+        double bestInsertionCost = Double.MAX_VALUE;
+        for (VehicleRoute vehicleRoute : routes) {
+            InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
+            if (iData instanceof NoInsertionFound) {
+                if (partitionInsertion.bestInsertion == null) partitionInsertion.addNoInsertion(new Insertion(vehicleRoute, iData));
+                continue;
+            }
+            if (iData.getInsertionCost() < bestInsertionCost) {
+                partitionInsertion.bestInsertion = new Insertion(vehicleRoute, iData);
+                bestInsertionCost = iData.getInsertionCost();
+            }
+        }
+        return partitionInsertion;
+    }
+
+    /*
+     * best insertion into the routes of a partition. failures are kept per route as long as no insertion has been found,
+     * since failures of routes that are changed within a round must not be counted twice.
+     */
+    private class PartitionInsertion {
+
+        private Insertion bestInsertion;
+
+        private List<Insertion> noInsertions = Collections.emptyList();
+
+        private void addNoInsertion(Insertion noInsertion) {
+            if (noInsertions.isEmpty()) noInsertions = new ArrayList<Insertion>();
+            noInsertions.add(noInsertion);
+        }
+    }
+
+    private List<List<VehicleRoute>> distributeRoutes(Collection<VehicleRoute> vehicleRoutes) {
+        List<List<VehicleRoute>> partitions = new ArrayList<>();
+        for (int i = 0; i < nuOfPartitions; i++) partitions.add(new ArrayList<VehicleRoute>());
+        /*
+         * if route.size < nuOfPartitions add as much routes as empty partitions are available
+         * else add one empty route anyway
+         */
+        if (vehicleRoutes.size() < nuOfPartitions) {
+            int nOfNewRoutes = nuOfPartitions - vehicleRoutes.size();
+            for (int i = 0; i < nOfNewRoutes; i++) {
+                vehicleRoutes.add(VehicleRoute.emptyRoute());
+            }
+        } else {
+            vehicleRoutes.add(VehicleRoute.emptyRoute());
+        }
+        int count = 0;
+        for (VehicleRoute route : vehicleRoutes) {
+            if (count == nuOfPartitions) count = 0;
+            partitions.get(count).add(route);
+            count++;
+        }
+        return partitions;
+    }
+
+    /*
+     * the calling thread is the only registered party of the phaser, i.e. each arrival starts a new round and wakes up
+     * all workers. routes are only changed by the calling thread in between rounds.
+     */
+    private class Rounds {
+
+        private final Phaser phaser = new Phaser(1);
+
+        //whether the worker of a partition is submitted and has not ended yet
+        private final AtomicIntegerArray running;
+
+        private volatile Round currentRound;
+
+        private Rounds(int nuOfPartitions) {
+            this.running = new AtomicIntegerArray(nuOfPartitions);
+        }
+
+        void startWorkers() {
+            for (int partition = 1; partition < running.length(); partition++) {
+                if (running.compareAndSet(partition, 0, 1)) executorService.execute(new Worker(partition));
+            }
+        }
+
+        PartitionInsertion[][] evaluate(List<Job> jobs, List<List<VehicleRoute>> partitions) {
+            Round round = new Round(jobs, partitions);
+            currentRound = round;
+            phaser.arrive();
+            for (int partition = 0; partition < partitions.size(); partition++) {
+                round.evaluatePartition(partition);
+            }
+            try {
+                round.evaluated.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (round.failure != null) throw new RuntimeException(round.failure);
+            return round.bestInsertions;
+        }
+
+        private class Worker implements Runnable {
+
+            private final int partition;
+
+            private Worker(int partition) {
+                this.partition = partition;
+            }
+
+            @Override
+            public void run() {
+                int phase = phaser.getPhase();
+                try {
+                    while (true) {
+                        phase = phaser.awaitAdvanceInterruptibly(phase, WORKER_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+                        currentRound.evaluatePartition(partition);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (TimeoutException e) {
+                    //idle, the next call submits the worker again
+                } finally {
+                    running.set(partition, 0);
+                }
+            }
+        }
+    }
+
+    private class Round {
+
+        private final List<Job> jobs;
+
+        private final List<List<VehicleRoute>> partitions;
+
+        private final PartitionInsertion[][] bestInsertions;
+
+        //partitions are evaluated by whoever claims them first, usually the worker that owns them
+        private final AtomicIntegerArray claimed;
+
+        private final CountDownLatch evaluated;
+
+        private volatile Throwable failure;
+
+        private Round(List<Job> jobs, List<List<VehicleRoute>> partitions) {
+            this.jobs = jobs;
+            this.partitions = partitions;
+            this.bestInsertions = new PartitionInsertion[jobs.size()][partitions.size()];
+            this.claimed = new AtomicIntegerArray(partitions.size());
+            this.evaluated = new CountDownLatch(partitions.size());
+        }
+
+        void evaluatePartition(int partition) {
+            if (!claimed.compareAndSet(partition, 0, 1)) return;
+            try {
+                for (int j = 0; j < jobs.size(); j++) {
+                    bestInsertions[j][partition] = getBestInsertion(partitions.get(partition), jobs.get(j));
+                }
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                evaluated.countDown();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.BeforeJobInsertionListener;
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches insertion data by job, version of the route's activity sequence (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}) and vehicle. Since
+ * inserting a job changes only one route, evaluating the remaining jobs on the other routes becomes a lookup. Since
+ * copies of a route share its version, this also holds for routes that are not touched by ruin in the next iteration.
+ * <p>
+ * <p>Insertion data is thus assumed to depend on nothing but the job, the activities of the route, its vehicle and the
+ * new vehicle, driver and departure time. It is only applied to jobs without dependency type (see
+ * {@link #setDependencyTypes(DependencyType[])}) and can be switched off temporarily, e.g. in iterations that
+ * randomize insertion costs (see {@link #setEnabled(boolean)}). It can be shared by insertion strategies whose
+ * calculators are configured equally. Evaluations are thread-safe, listeners need to be informed by the thread that
+ * runs the insertion.
+ * <p>
+ * <p>Only versions of the routes at insertion start are kept, versions that are created during an insertion are
+ * dropped before the route is modified again.
+ */
+public class InsertionCostsCache implements InsertionStartsListener, BeforeJobInsertionListener {
+
+    private static class Key {
+
+        private final Job job;
+
+        private final Vehicle newVehicle;
+
+        private final Vehicle routeVehicle;
+
+        private final Driver newDriver;
+
+        private final double departureTime;
+
+        private final double costsContext;
+
+        private final int hashCode;
+
+        Key(Job job, Vehicle newVehicle, Vehicle routeVehicle, Driver newDriver, double departureTime, double costsContext) {
+            this.job = job;
+            this.newVehicle = newVehicle;
+            this.routeVehicle = routeVehicle;
+            this.newDriver = newDriver;
+            this.departureTime = departureTime;
+            this.costsContext = costsContext;
+            int result = job.hashCode();
+            result = 31 * result + System.identityHashCode(newVehicle);
+            result = 31 * result + System.identityHashCode(routeVehicle);
+            result = 31 * result + Double.hashCode(departureTime);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return job.equals(key.job) && newVehicle == key.newVehicle && routeVehicle == key.routeVehicle
+                && sameDriver(newDriver, key.newDriver) && Double.compare(departureTime, key.departureTime) == 0
+                && Double.compare(costsContext, key.costsContext) == 0;
+        }
+
+        //drivers are not unique, e.g. each route without driver gets its own DriverImpl.noDriver()
+        private static boolean sameDriver(Driver driver, Driver otherDriver) {
+            if (driver == otherDriver) return true;
+            if (driver == null || otherDriver == null) return false;
+            return driver.getClass() == otherDriver.getClass() && driver.getId().equals(otherDriver.getId());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Entry {
+
+        private final InsertionData insertionData;
+
+        //bestKnownCosts insertionData has been calculated with; only relevant if no insertion has been found
+        private final double bestKnownCosts;
+
+        Entry(InsertionData insertionData, double bestKnownCosts) {
+            this.insertionData = insertionData;
+            this.bestKnownCosts = bestKnownCosts;
+        }
+    }
+
+    private final Map<Object, Map<Key, Entry>> entriesByVersion = new ConcurrentHashMap<>();
+
+    private Set<Object> versionsAtInsertionStart = new HashSet<>();
+
+    private DependencyType[] dependencyTypes;
+
+    private volatile boolean enabled = true;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Sets the dependency types of jobs (indexed by job index). Insertion costs of jobs with dependency type depend on
+     * other routes, thus they are not cached.
+     *
+     * @param dependencyTypes dependency types, e.g. {@link com.graphhopper.jsprit.core.problem.constraint.ConstraintManager#getDependencyTypes()}
+     */
+    public void setDependencyTypes(DependencyType[] dependencyTypes) {
+        this.dependencyTypes = dependencyTypes;
+    }
+
+    /**
+     * Switches the cache on or off. If it is off, insertion data is neither looked up nor cached. Cached entries are
+     * kept, i.e. they are used again once the cache is switched on.
+     *
+     * @param enabled true if the cache is to be used
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of evaluations answered from the cache
+     */
+    public long getNuOfHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of evaluations that have been calculated (while the cache was switched on)
+     */
+    public long getNuOfMisses() {
+        return misses.sum();
+    }
+
+    InsertionData getInsertionData(JobInsertionCostsCalculator calculator, double costsContext, VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+        if (!enabled || hasDependencyType(newJob)) {
+            return calculator.getInsertionData(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts);
+        }
+        Object version = currentRoute.getTourActivities().getVersion();
+        Map<Key, Entry> entries = entriesByVersion.get(version);
+        if (entries == null) entries = entriesByVersion.computeIfAbsent(version, v -> new ConcurrentHashMap<>());
+        Key key = new Key(newJob, newVehicle, currentRoute.getVehicle(), newDriver, newVehicleDepartureTime, costsContext);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            InsertionData cached = entry.insertionData;
+            if (!(cached instanceof InsertionData.NoInsertionFound)) {
+                hits.increment();
+                if (cached.getInsertionCost() < bestKnownCosts) return copy(cached, currentRoute);
+                return new InsertionData.NoInsertionFound();
+            }
+            if (bestKnownCosts <= entry.bestKnownCosts) {
+                hits.increment();
+                InsertionData noInsertion = new InsertionData.NoInsertionFound();
+                noInsertion.getFailedConstraints().addAll(cached.getFailedConstraints());
+                return noInsertion;
+            }
+        }
+        misses.increment();
+        InsertionData iData = calculator.getInsertionData(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts);
+        entries.put(key, new Entry(iData, bestKnownCosts));
+        return iData;
+    }
+
+    private boolean hasDependencyType(Job job) {
+        if (dependencyTypes == null) return false;
+        DependencyType dependencyType = dependencyTypes[job.getIndex()];
+        return dependencyType != null && dependencyType != DependencyType.NO_TYPE;
+    }
+
+    /*
+     * the cached insertion data has been handed out by the call that calculated it, thus its activities might have
+     * been inserted. copies get duplicates of them and refer to the route they are requested for.
+     */
+    private static InsertionData copy(InsertionData insertionData, VehicleRoute route) {
+        InsertionData copy = new InsertionData(insertionData.getInsertionCost(), insertionData.getPickupInsertionIndex(),
+            insertionData.getDeliveryInsertionIndex(), insertionData.getSelectedVehicle(), insertionData.getSelectedDriver());
+        copy.setVehicleDepartureTime(insertionData.getVehicleDepartureTime());
+        copy.setAdditionalTime(insertionData.getAdditionalTime());
+        for (Event event : insertionData.getEvents()) {
+            if (event instanceof InsertActivity) {
+                InsertActivity insertActivity = (InsertActivity) event;
+                copy.getEvents().add(new InsertActivity(route, insertActivity.getNewVehicle(), insertActivity.getActivity().duplicate(), insertActivity.getIndex()));
+            } else if (event instanceof InsertBreak) {
+                InsertBreak insertBreak = (InsertBreak) event;
+                copy.getEvents().add(new InsertBreak(route, insertBreak.getNewVehicle(), insertBreak.getActivity().duplicate(), insertBreak.getIndex()));
+            } else if (event instanceof SwitchVehicle) {
+                SwitchVehicle switchVehicle = (SwitchVehicle) event;
+                copy.getEvents().add(new SwitchVehicle(route, switchVehicle.getVehicle(), switchVehicle.getDepartureTime()));
+            } else {
+                throw new IllegalStateException("cannot copy event " + event.getClass());
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+        Set<Object> versions = new HashSet<>();
+        for (VehicleRoute route : vehicleRoutes) versions.add(route.getTourActivities().getVersion());
+        versions.add(new TourActivities().getVersion());
+        entriesByVersion.keySet().retainAll(versions);
+        versionsAtInsertionStart = versions;
+    }
+
+    @Override
+    public void informBeforeJobInsertion(Job job, InsertionData data, VehicleRoute route) {
+        Object version = route.getTourActivities().getVersion();
+        if (!versionsAtInsertionStart.contains(version)) entriesByVersion.remove(version);
+    }
+
+}
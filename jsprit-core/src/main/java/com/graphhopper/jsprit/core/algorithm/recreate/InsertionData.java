@@ -17,6 +17,8 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
@@ -70,13 +72,15 @@ public class InsertionData {
 
     private double additionalTime;
 
-    private List<Event> events = new ArrayList<Event>();
+    //events and failed constraints are created lazily since most insertion data created during insertion is discarded right away
+    private List<Event> events;
 
     List<Event> getEvents() {
+        if (events == null) events = new ArrayList<Event>();
         return events;
     }
 
-    private List<String> reasons = new ArrayList<>();
+    private FailedConstraints failedConstraints;
 
     /**
      * @return the additionalTime
@@ -86,11 +90,30 @@ public class InsertionData {
     }
 
     public void addFailedConstrainName(String name) {
-        reasons.add(name);
+        getFailedConstraints().add(ConstraintManager.getConstraintId(name));
     }
 
+    /**
+     * Returns the constraints that prevented an insertion and how often they failed.
+     *
+     * @return failed constraints
+     */
+    public FailedConstraints getFailedConstraints() {
+        if (failedConstraints == null) failedConstraints = new FailedConstraints();
+        return failedConstraints;
+    }
+
+    /**
+     * Returns the names of the constraints that prevented an insertion. The list is a view of
+     * {@link #getFailedConstraints()} (see {@link FailedConstraints#getConstraintNames()}), i.e. adding a name is the
+     * same as {@link #addFailedConstrainName(String)}.
+     *
+     * @return names of failed constraints
+     * @deprecated use {@link #getFailedConstraints()}
+     */
+    @Deprecated
     public List<String> getFailedConstraintNames() {
-        return reasons;
+        return getFailedConstraints().getConstraintNames();
     }
 
     /**
@@ -0,0 +1,166 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertion data of one unassigned job, indexed by route slot (see {@link RouteSlots}). Each slot holds the feasible
+ * insertions into the route (one per vehicle considered) in ascending order of insertion costs. Updating a route
+ * replaces its insertions, thus there are no outdated entries.
+ * <p>
+ * <p>The two slots with the cheapest insertions are maintained on update. They only need to be determined from
+ * scratch if one of them is updated. Among equally expensive insertions, the one that has been updated earlier comes
+ * first.
+ */
+class InsertionDataTable {
+
+    /**
+     * Assigns a slot to each route of an insertion run. Routes are to be added by the thread that runs the insertion,
+     * slots can then be looked up concurrently.
+     */
+    static class RouteSlots {
+
+        private final Map<VehicleRoute, Integer> slots = new HashMap<>();
+
+        private final List<VehicleRoute> routes = new ArrayList<>();
+
+        void add(VehicleRoute route) {
+            if (slots.containsKey(route)) return;
+            slots.put(route, routes.size());
+            routes.add(route);
+        }
+
+        int getSlot(VehicleRoute route) {
+            Integer slot = slots.get(route);
+            if (slot == null) throw new IllegalStateException("route has no slot. add it first.");
+            return slot;
+        }
+
+        VehicleRoute getRoute(int slot) {
+            return routes.get(slot);
+        }
+
+    }
+
+    private static final InsertionData[] NO_INSERTION = new InsertionData[0];
+
+    private InsertionData[][] insertionData = new InsertionData[8][];
+
+    private long[] updateSequence = new long[8];
+
+    private long nextUpdateSequence = 0;
+
+    private int nuOfSlots = 0;
+
+    private int bestSlot = -1;
+
+    private int secondBestSlot = -1;
+
+    /**
+     * Replaces the insertions into the route with the specified slot.
+     *
+     * @param slot             slot of the route
+     * @param sortedInsertions feasible insertions in ascending order of insertion costs
+     */
+    void update(int slot, InsertionData[] sortedInsertions) {
+        if (slot >= insertionData.length) {
+            int newLength = Math.max(slot + 1, 2 * insertionData.length);
+            insertionData = Arrays.copyOf(insertionData, newLength);
+            updateSequence = Arrays.copyOf(updateSequence, newLength);
+        }
+        if (slot >= nuOfSlots) {
+            for (int i = nuOfSlots; i < slot; i++) insertionData[i] = NO_INSERTION;
+            nuOfSlots = slot + 1;
+        }
+        insertionData[slot] = sortedInsertions;
+        updateSequence[slot] = nextUpdateSequence++;
+        if (slot == bestSlot || slot == secondBestSlot) {
+            determineBestSlots();
+        } else if (sortedInsertions.length > 0) {
+            if (bestSlot < 0 || isCheaper(slot, bestSlot)) {
+                secondBestSlot = bestSlot;
+                bestSlot = slot;
+            } else if (secondBestSlot < 0 || isCheaper(slot, secondBestSlot)) {
+                secondBestSlot = slot;
+            }
+        }
+    }
+
+    private void determineBestSlots() {
+        bestSlot = -1;
+        secondBestSlot = -1;
+        for (int slot = 0; slot < nuOfSlots; slot++) {
+            if (insertionData[slot].length == 0) continue;
+            if (bestSlot < 0 || isCheaper(slot, bestSlot)) {
+                secondBestSlot = bestSlot;
+                bestSlot = slot;
+            } else if (secondBestSlot < 0 || isCheaper(slot, secondBestSlot)) {
+                secondBestSlot = slot;
+            }
+        }
+    }
+
+    private boolean isCheaper(int slot, int otherSlot) {
+        double costs = insertionData[slot][0].getInsertionCost();
+        double otherCosts = insertionData[otherSlot][0].getInsertionCost();
+        return costs < otherCosts || (costs == otherCosts && updateSequence[slot] < updateSequence[otherSlot]);
+    }
+
+    /**
+     * @return slot with the cheapest insertion or -1 if there is no insertion at all
+     */
+    int getBestSlot() {
+        return bestSlot;
+    }
+
+    /**
+     * @return slot with the cheapest insertion into another route than the best one or -1 if there is none
+     */
+    int getSecondBestSlot() {
+        return secondBestSlot;
+    }
+
+    int getNuOfSlots() {
+        return nuOfSlots;
+    }
+
+    /**
+     * @param slot slot of the route
+     * @return feasible insertions into the route in ascending order of insertion costs
+     */
+    InsertionData[] getInsertionData(int slot) {
+        if (slot >= nuOfSlots || insertionData[slot] == null) return NO_INSERTION;
+        return insertionData[slot];
+    }
+
+    /**
+     * @return sequence number of the last update of the slot, i.e. a lower number means an earlier update
+     */
+    long getUpdateSequence(int slot) {
+        return updateSequence[slot];
+    }
+
+}
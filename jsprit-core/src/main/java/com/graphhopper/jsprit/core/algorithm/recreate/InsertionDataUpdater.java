@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -28,10 +29,19 @@ import java.util.*;
 
 /**
  * Created by schroeder on 15/10/15.
+ * <p>
+ * <p>Keeps the {@link InsertionDataTable}s of the unassigned jobs up to date and determines the job to be inserted
+ * next based on them.
  */
 class InsertionDataUpdater {
 
-    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, TreeSet<VersionedInsertionData> insertionDataSet, int updateRound, Job unassignedJob, Collection<VehicleRoute> routes) {
+    private static final Comparator<InsertionData> INSERTION_COSTS_COMPARATOR = Comparator.comparingDouble(InsertionData::getInsertionCost);
+
+    /*
+    replaces the insertion data of the job for each of the specified routes. only the job's table is modified, thus
+    tables of different jobs can be updated concurrently.
+     */
+    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, InsertionDataTable insertionDataTable, InsertionDataTable.RouteSlots routeSlots, Job unassignedJob, Collection<VehicleRoute> routes) {
         for(VehicleRoute route : routes) {
             Collection<Vehicle> relevantVehicles = new ArrayList<>();
             if (!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
@@ -40,19 +50,28 @@ class InsertionDataUpdater {
                     relevantVehicles.addAll(fleetManager.getAvailableVehicles(route.getVehicle()));
                 }
             } else relevantVehicles.addAll(fleetManager.getAvailableVehicles());
+            List<InsertionData> insertions = new ArrayList<>(relevantVehicles.size());
             for (Vehicle v : relevantVehicles) {
                 double depTime = v.getEarliestDeparture();
                 InsertionData iData = insertionCostsCalculator.getInsertionData(route, unassignedJob, v, depTime, route.getDriver(), Double.MAX_VALUE);
                 if (iData instanceof InsertionData.NoInsertionFound) {
                     continue;
                 }
-                insertionDataSet.add(new VersionedInsertionData(iData, updateRound, route));
+                if (!isSwitchAllowed(addAllAvailable, initialVehicleIds, iData, route)) continue;
+                insertions.add(iData);
             }
+            //stable, i.e. equally expensive insertions keep the order of vehicles
+            insertions.sort(INSERTION_COSTS_COMPARATOR);
+            insertionDataTable.update(routeSlots.getSlot(route), insertions.toArray(new InsertionData[insertions.size()]));
         }
         return true;
     }
 
-
+    private static boolean isSwitchAllowed(boolean switchAllowed, Set<String> initialVehicleIds, InsertionData iData, VehicleRoute route) {
+        if (route.getVehicle() instanceof VehicleImpl.NoVehicle) return true;
+        if (iData.getSelectedVehicle() == route.getVehicle()) return true;
+        return switchAllowed && !initialVehicleIds.contains(route.getVehicle().getId());
+    }
 
     static VehicleRoute findRoute(Collection<VehicleRoute> routes, Job job) {
         for(VehicleRoute r : routes){
@@ -61,69 +80,83 @@ class InsertionDataUpdater {
         return null;
     }
 
-    static Comparator<VersionedInsertionData> getComparator(){
-        return (o1, o2) -> {
-            if (o1.getiData().getInsertionCost() < o2.getiData().getInsertionCost()) return -1;
-            return 1;
-        };
+    /*
+    insertions with another vehicle than the route's one are only possible if that vehicle is still available. if it
+    has been locked meanwhile, another available vehicle of the same type is taken. returns null if there is none.
+     */
+    private static InsertionData getAvailable(VehicleFleetManager fleetManager, InsertionData iData, VehicleRoute route) {
+        if (iData.getSelectedVehicle() == route.getVehicle()) return iData;
+        if (!fleetManager.isLocked(iData.getSelectedVehicle())) return iData;
+        Vehicle available = fleetManager.getAvailableVehicle(iData.getSelectedVehicle().getVehicleTypeIdentifier());
+        if (available == null) return null;
+        InsertionData newData = new InsertionData(iData.getInsertionCost(), iData.getPickupInsertionIndex(),
+            iData.getDeliveryInsertionIndex(), available, iData.getSelectedDriver());
+        newData.setVehicleDepartureTime(iData.getVehicleDepartureTime());
+        for(Event e : iData.getEvents()){
+            if(e instanceof SwitchVehicle){
+                newData.getEvents().add(new SwitchVehicle(route,available,iData.getVehicleDepartureTime()));
+            }
+            else newData.getEvents().add(e);
+        }
+        return newData;
     }
 
-    static ScoredJob getBest(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, TreeSet<VersionedInsertionData>[] priorityQueues, Map<VehicleRoute, Integer> updates, List<Job> unassignedJobList, List<ScoredJob> badJobs) {
+    /*
+    returns the cheapest insertion into the route that is still available, or null
+     */
+    private static InsertionData getBestAvailable(VehicleFleetManager fleetManager, InsertionData[] sortedInsertions, VehicleRoute route) {
+        for (InsertionData iData : sortedInsertions) {
+            InsertionData available = getAvailable(fleetManager, iData, route);
+            if (available != null) return available;
+        }
+        return null;
+    }
+
+    static ScoredJob getBest(VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, InsertionDataTable[] insertionDataTables, InsertionDataTable.RouteSlots routeSlots, List<Job> unassignedJobList, List<ScoredJob> badJobs) {
         ScoredJob bestScoredJob = null;
         for(Job j : unassignedJobList){
             VehicleRoute bestRoute = null;
             InsertionData best = null;
             InsertionData secondBest = null;
-            TreeSet<VersionedInsertionData> priorityQueue = priorityQueues[j.getIndex()];
-            Iterator<VersionedInsertionData> iterator = priorityQueue.iterator();
-            List<String> failedConstraintNames = new ArrayList<>();
-            while(iterator.hasNext()){
-                VersionedInsertionData versionedIData = iterator.next();
-                if(bestRoute != null){
-                    if(versionedIData.getRoute() == bestRoute){
-                        continue;
-                    }
-                }
-                if (versionedIData.getiData() instanceof InsertionData.NoInsertionFound) {
-                    failedConstraintNames.addAll(versionedIData.getiData().getFailedConstraintNames());
-                    continue;
-                }
-                if(!(versionedIData.getRoute().getVehicle() instanceof VehicleImpl.NoVehicle)) {
-                    if (versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                        if (!switchAllowed) continue;
-                        if (initialVehicleIds.contains(versionedIData.getRoute().getVehicle().getId())) continue;
-                    }
-                }
-                if(versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                    if (fleetManager.isLocked(versionedIData.getiData().getSelectedVehicle())) {
-                        Vehicle available = fleetManager.getAvailableVehicle(versionedIData.getiData().getSelectedVehicle().getVehicleTypeIdentifier());
-                        if (available != null) {
-                            InsertionData oldData = versionedIData.getiData();
-                            InsertionData newData = new InsertionData(oldData.getInsertionCost(), oldData.getPickupInsertionIndex(),
-                                oldData.getDeliveryInsertionIndex(), available, oldData.getSelectedDriver());
-                            newData.setVehicleDepartureTime(oldData.getVehicleDepartureTime());
-                            for(Event e : oldData.getEvents()){
-                                if(e instanceof SwitchVehicle){
-                                    newData.getEvents().add(new SwitchVehicle(versionedIData.getRoute(),available,oldData.getVehicleDepartureTime()));
-                                }
-                                else newData.getEvents().add(e);
-                            }
-                            versionedIData = new VersionedInsertionData(newData, versionedIData.getVersion(), versionedIData.getRoute());
-                        } else continue;
-                    }
-                }
-                int currentDataVersion = updates.get(versionedIData.getRoute());
-                if(versionedIData.getVersion() == currentDataVersion){
-                    if(best == null) {
-                        best = versionedIData.getiData();
-                        bestRoute = versionedIData.getRoute();
-                    }
-                    else {
-                        secondBest = versionedIData.getiData();
-                        break;
+            InsertionDataTable insertionDataTable = insertionDataTables[j.getIndex()];
+            int bestSlot = insertionDataTable.getBestSlot();
+            int secondBestSlot = insertionDataTable.getSecondBestSlot();
+            if (bestSlot >= 0) {
+                bestRoute = routeSlots.getRoute(bestSlot);
+                best = getAvailable(fleetManager, insertionDataTable.getInsertionData(bestSlot)[0], bestRoute);
+            }
+            if (secondBestSlot >= 0) {
+                secondBest = getAvailable(fleetManager, insertionDataTable.getInsertionData(secondBestSlot)[0], routeSlots.getRoute(secondBestSlot));
+            }
+            /*
+            if an insertion of the two best slots is not available anymore, the two best slots with available insertions
+            need to be determined. since vehicles only become unavailable, but insertion costs remain, this is not
+            necessary otherwise.
+             */
+            if ((bestSlot >= 0 && best == null) || (secondBestSlot >= 0 && secondBest == null)) {
+                best = null;
+                secondBest = null;
+                bestRoute = null;
+                long bestUpdateSequence = 0;
+                long secondBestUpdateSequence = 0;
+                for (int slot = 0; slot < insertionDataTable.getNuOfSlots(); slot++) {
+                    VehicleRoute route = routeSlots.getRoute(slot);
+                    InsertionData iData = getBestAvailable(fleetManager, insertionDataTable.getInsertionData(slot), route);
+                    if (iData == null) continue;
+                    long updateSequence = insertionDataTable.getUpdateSequence(slot);
+                    if (best == null || isCheaper(iData, updateSequence, best, bestUpdateSequence)) {
+                        secondBest = best;
+                        secondBestUpdateSequence = bestUpdateSequence;
+                        best = iData;
+                        bestUpdateSequence = updateSequence;
+                        bestRoute = route;
+                    } else if (secondBest == null || isCheaper(iData, updateSequence, secondBest, secondBestUpdateSequence)) {
+                        secondBest = iData;
+                        secondBestUpdateSequence = updateSequence;
                     }
                 }
             }
+            FailedConstraints failedConstraints = new FailedConstraints();
             VehicleRoute emptyRoute = VehicleRoute.emptyRoute();
             InsertionData iData = insertionCostsCalculator.getInsertionData(emptyRoute, j, null, -1, null, Double.MAX_VALUE);
             if(!(iData instanceof InsertionData.NoInsertionFound)){
@@ -137,9 +170,9 @@ class InsertionDataUpdater {
                 } else if (secondBest == null || (iData.getInsertionCost() < secondBest.getInsertionCost())) {
                     secondBest = iData;
                 }
-            } else failedConstraintNames.addAll(iData.getFailedConstraintNames());
+            } else failedConstraints.addAll(iData.getFailedConstraints());
             if (best == null) {
-                badJobs.add(new ScoredJob.BadJob(j, failedConstraintNames));
+                badJobs.add(new ScoredJob.BadJob(j, failedConstraints));
                 continue;
             }
             double score = score(j, best, secondBest, scoringFunction);
@@ -158,6 +191,11 @@ class InsertionDataUpdater {
         return bestScoredJob;
     }
 
+    private static boolean isCheaper(InsertionData iData, long updateSequence, InsertionData other, long otherUpdateSequence) {
+        return iData.getInsertionCost() < other.getInsertionCost()
+            || (iData.getInsertionCost() == other.getInsertionCost() && updateSequence < otherUpdateSequence);
+    }
+
     private static double score(Job unassignedJob, InsertionData best, InsertionData secondBest, ScoringFunction scoringFunction) {
         return Scorer.score(unassignedJob,best,secondBest,scoringFunction);
     }
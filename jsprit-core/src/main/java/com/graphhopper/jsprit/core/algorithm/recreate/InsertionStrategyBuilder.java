@@ -19,6 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListeners;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListener;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
@@ -62,12 +63,20 @@ public class InsertionStrategyBuilder {
 
     private int nuOfThreads;
 
+    private int nuOfJobsPerRound;
+
+    private boolean partitionedWorkers = false;
+
     private double timeSlice;
 
     private int nNeighbors;
 
     private boolean timeScheduling = false;
 
+    private JobNeighborhoods jobNeighborhoods;
+
+    private int nuOfGranularNeighbors;
+
     private boolean allowVehicleSwitch = true;
 
     private boolean addDefaultCostCalc = true;
@@ -82,6 +91,8 @@ public class InsertionStrategyBuilder {
 
     private JobInsertionCostsCalculatorFactory breakInsertionCalculatorFactory;
 
+    private InsertionCostsCache insertionCostsCache;
+
     public InsertionStrategyBuilder(VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, StateManager stateManager, ConstraintManager constraintManager) {
         super();
         this.vrp = vrp;
@@ -163,9 +174,56 @@ public class InsertionStrategyBuilder {
     public InsertionStrategyBuilder setConcurrentMode(ExecutorService executor, int nuOfThreads) {
         this.executor = executor;
         this.nuOfThreads = nuOfThreads;
+        this.partitionedWorkers = false;
+        return this;
+    }
+
+    /**
+     * Sets concurrent mode with partitioned workers, i.e. best insertion is done by
+     * {@link BestInsertionConcurrentPartitioned} which evaluates nuOfJobsPerRound jobs per synchronization of its
+     * workers (instead of submitting tasks for every single job). Workers are kept between recreates as long as they
+     * are busy, and each of them evaluates its own route partition. Regret insertion is the same as with
+     * {@link #setConcurrentMode(ExecutorService, int)}.
+     *
+     * @param executor         the executor that runs the workers
+     * @param nuOfThreads      number of route partitions, i.e. number of threads evaluating insertions
+     * @param nuOfJobsPerRound number of jobs evaluated per round
+     * @return builder
+     */
+    public InsertionStrategyBuilder setConcurrentMode(ExecutorService executor, int nuOfThreads, int nuOfJobsPerRound) {
+        this.executor = executor;
+        this.nuOfThreads = nuOfThreads;
+        this.nuOfJobsPerRound = nuOfJobsPerRound;
+        this.partitionedWorkers = true;
         return this;
     }
 
+    /**
+     * Sets granular insertion, i.e. only insertion positions adjacent to the nuOfNeighbors nearest neighbors of a job
+     * are evaluated (see {@link JobInsertionCostsCalculatorBuilder#setGranularInsertion(JobNeighborhoods, int)}).
+     *
+     * @param jobNeighborhoods initialised job neighborhoods
+     * @param nuOfNeighbors    number of nearest neighbors to be considered
+     * @return builder
+     */
+    public InsertionStrategyBuilder setGranularInsertion(JobNeighborhoods jobNeighborhoods, int nuOfNeighbors) {
+        this.jobNeighborhoods = jobNeighborhoods;
+        this.nuOfGranularNeighbors = nuOfNeighbors;
+        return this;
+    }
+
+    /**
+     * Sets a cache of insertion data that is kept between insertion runs (see {@link InsertionCostsCache}). It can be
+     * shared by strategies built with the same configuration. Jobs with a dependency type in the constraint manager
+     * are not cached.
+     *
+     * @param insertionCostsCache the cache or null if insertion data is always to be calculated
+     * @return builder
+     */
+    public InsertionStrategyBuilder setInsertionCostsCache(InsertionCostsCache insertionCostsCache) {
+        this.insertionCostsCache = insertionCostsCache;
+        return this;
+    }
 
     public InsertionStrategy build() {
         List<InsertionListener> iListeners = new ArrayList<InsertionListener>();
@@ -193,6 +251,13 @@ public class InsertionStrategyBuilder {
         if (timeScheduling) {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
+        if (jobNeighborhoods != null) {
+            calcBuilder.setGranularInsertion(jobNeighborhoods, nuOfGranularNeighbors);
+        }
+        if (insertionCostsCache != null) {
+            if (constraintManager != null) insertionCostsCache.setDependencyTypes(constraintManager.getDependencyTypes());
+            calcBuilder.setInsertionCostsCache(insertionCostsCache);
+        }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
         JobInsertionCostsCalculator costCalculator = calcBuilder.build();
 
@@ -200,6 +265,10 @@ public class InsertionStrategyBuilder {
         if (strategy.equals(Strategy.BEST)) {
             if (executor == null) {
                 insertion = new BestInsertion(costCalculator, vrp);
+            } else if (partitionedWorkers) {
+                BestInsertionConcurrentPartitioned bestInsertion = new BestInsertionConcurrentPartitioned(costCalculator, executor, nuOfThreads, vrp);
+                bestInsertion.setNuOfJobsPerRound(nuOfJobsPerRound);
+                insertion = bestInsertion;
             } else {
                 insertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
             }
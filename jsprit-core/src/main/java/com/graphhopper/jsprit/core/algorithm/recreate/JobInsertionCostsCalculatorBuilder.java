@@ -19,18 +19,25 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListeners.PrioritizedVRAListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListener;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
 import com.graphhopper.jsprit.core.problem.AbstractActivity;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardRouteConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.HardSkillConstraint;
+import com.graphhopper.jsprit.core.problem.cost.WaitingTimeCosts;
 import com.graphhopper.jsprit.core.problem.job.*;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleSupplier;
 
 
 public class JobInsertionCostsCalculatorBuilder {
@@ -86,6 +93,10 @@ public class JobInsertionCostsCalculatorBuilder {
 
     private int neighbors;
 
+    private JobNeighborhoods jobNeighborhoods;
+
+    private int nuOfGranularNeighbors;
+
     private ConstraintManager constraintManager;
 
     private ActivityInsertionCostsCalculator activityInsertionCostCalculator = null;
@@ -100,6 +111,10 @@ public class JobInsertionCostsCalculatorBuilder {
 
     private JobInsertionCostsCalculatorFactory breakCalculatorFactory = new BreakInsertionCalculatorFactory();
 
+    private InsertionCostsCache insertionCostsCache;
+
+    private LocalActivityInsertionCostsCalculator defaultLocalCostsCalculator;
+
     /**
      * Constructs the builder.
      * <p>
@@ -217,11 +232,47 @@ public class JobInsertionCostsCalculatorBuilder {
         return this;
     }
 
+    /**
+     * Restricts the insertion positions to be evaluated to those directly before and after the activities of the
+     * nuOfNeighbors nearest neighbors of the job to be inserted (granular insertion). Positions directly after the start
+     * and directly before the end of a route are always evaluated. Non-empty routes that do not contain any neighbor are
+     * skipped entirely. This reduces the number of positions to be evaluated from the length of a route to about
+     * 2 * nuOfNeighbors, at the expense of not finding the best insertion position if it is not adjacent to a neighbor.
+     * <p>
+     * <p>It is only available on local level and applies to calculators that extend the default service and shipment
+     * calculators. Breaks are always evaluated at each position.
+     *
+     * @param jobNeighborhoods initialised job neighborhoods, e.g. the neighborhoods used by radial ruin
+     * @param nuOfNeighbors    number of nearest neighbors to be considered
+     * @return this builder
+     * @throws IllegalArgumentException if nuOfNeighbors &lt; 1
+     */
+    public JobInsertionCostsCalculatorBuilder setGranularInsertion(JobNeighborhoods jobNeighborhoods, int nuOfNeighbors) {
+        if (nuOfNeighbors < 1) throw new IllegalArgumentException("number of neighbors must be at least 1, but is " + nuOfNeighbors);
+        this.jobNeighborhoods = jobNeighborhoods;
+        this.nuOfGranularNeighbors = nuOfNeighbors;
+        return this;
+    }
+
+    /**
+     * Looks up insertion data in the specified cache before calculating it (see {@link InsertionCostsCache}). The
+     * cache is informed as insertion listener. If the default local activity insertion costs calculator is used and
+     * there are activity costs, its solution completeness ratio is part of the cache key.
+     *
+     * @param insertionCostsCache the cache, possibly shared with other insertion strategies
+     * @return this builder
+     */
+    public JobInsertionCostsCalculatorBuilder setInsertionCostsCache(InsertionCostsCache insertionCostsCache) {
+        this.insertionCostsCache = insertionCostsCache;
+        return this;
+    }
+
     /**
      * Builds the jobInsertionCalculator.
      *
      * @return jobInsertionCalculator.
-     * @throws IllegalStateException if vrp == null or activityStates == null or fleetManager == null.
+     * @throws IllegalStateException if vrp == null or activityStates == null or fleetManager == null or if granular
+     *                               insertion is combined with route level.
      */
     public JobInsertionCostsCalculator build() {
         if (vrp == null)
@@ -230,6 +281,8 @@ public class JobInsertionCostsCalculatorBuilder {
             throw new IllegalStateException("states is null, but is must be set (this.setStateManager(states))");
         if (fleetManager == null)
             throw new IllegalStateException("fleetManager is null, but it must be set (this.setVehicleFleetManager(fleetManager))");
+        if (!local && jobNeighborhoods != null)
+            throw new IllegalStateException("granular insertion is only available on local level");
         JobInsertionCostsCalculator baseCalculator = null;
         CalculatorPlusListeners standardLocal = null;
         if (local) {
@@ -247,6 +300,14 @@ public class JobInsertionCostsCalculatorBuilder {
 //            addAlgorithmListeners(withFixed.getAlgorithmListener());
 //            addInsertionListeners(withFixed.getInsertionListener());
         }
+        if (insertionCostsCache != null) {
+            DoubleSupplier costsContext = null;
+            if (defaultLocalCostsCalculator != null && hasActivityCosts()) {
+                costsContext = defaultLocalCostsCalculator::getSolutionCompletenessRatio;
+            }
+            baseCalculator = new CachedJobInsertionCostsCalculator(baseCalculator, insertionCostsCache, costsContext);
+            insertionListeners.add(insertionCostsCache);
+        }
         if (timeScheduling) {
 //			baseCalculator = new CalculatesServiceInsertionWithTimeSchedulingInSlices(baseCalculator,timeSlice,neighbors);
             CalculatesServiceInsertionWithTimeScheduling wts = new CalculatesServiceInsertionWithTimeScheduling(baseCalculator, timeSlice, neighbors);
@@ -258,6 +319,15 @@ public class JobInsertionCostsCalculatorBuilder {
         return createFinalInsertion(fleetManager, baseCalculator, states);
     }
 
+    private boolean hasActivityCosts() {
+        if (!(vrp.getActivityCosts() instanceof WaitingTimeCosts)) return true;
+        for (VehicleType type : vrp.getTypes()) {
+            VehicleTypeImpl.VehicleCostParams costParams = type.getVehicleCostParams();
+            if (costParams.perWaitingTimeUnit != 0. || costParams.perServiceTimeUnit != 0.) return true;
+        }
+        return false;
+    }
+
     private void checkServicesOnly() {
         for (Job j : vrp.getJobs().values()) {
             if (j instanceof Shipment) {
@@ -289,6 +359,7 @@ public class JobInsertionCostsCalculatorBuilder {
         if (activityInsertionCostCalculator == null && addDefaultCostCalc) {
             actInsertionCalc = new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), statesManager);
             configLocal = new ConfigureLocalActivityInsertionCalculator(vrp, (LocalActivityInsertionCostsCalculator) actInsertionCalc);
+            defaultLocalCostsCalculator = (LocalActivityInsertionCostsCalculator) actInsertionCalc;
         } else if (activityInsertionCostCalculator == null && !addDefaultCostCalc) {
             actInsertionCalc = new ActivityInsertionCostsCalculator() {
 
@@ -315,6 +386,10 @@ public class JobInsertionCostsCalculatorBuilder {
         JobInsertionCostsCalculator shipmentInsertion = shipmentCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
         JobInsertionCostsCalculator serviceInsertion = serviceCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
         JobInsertionCostsCalculator breakInsertion = breakCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
+        if (jobNeighborhoods != null) {
+            restrictToNeighborhood(shipmentInsertion);
+            restrictToNeighborhood(serviceInsertion);
+        }
 
         JobCalculatorSwitcher switcher = new JobCalculatorSwitcher();
         switcher.put(Shipment.class, shipmentInsertion);
@@ -330,6 +405,12 @@ public class JobInsertionCostsCalculatorBuilder {
         return calculatorPlusListeners;
     }
 
+    private void restrictToNeighborhood(JobInsertionCostsCalculator calculator) {
+        if (calculator instanceof AbstractInsertionCalculator) {
+            ((AbstractInsertionCalculator) calculator).setJobNeighborhoods(jobNeighborhoods, nuOfGranularNeighbors);
+        }
+    }
+
     private CalculatorPlusListeners createStandardRoute(final VehicleRoutingProblem vrp, RouteAndActivityStateGetter activityStates2, int forwardLooking, int solutionMemory) {
         ActivityInsertionCostsCalculator routeLevelCostEstimator;
         if (activityInsertionCostCalculator == null && addDefaultCostCalc) {
@@ -367,9 +448,20 @@ public class JobInsertionCostsCalculatorBuilder {
     private JobInsertionCostsCalculator createFinalInsertion(VehicleFleetManager fleetManager, JobInsertionCostsCalculator baseCalc, RouteAndActivityStateGetter activityStates2) {
         VehicleTypeDependentJobInsertionCalculator vehicleTypeDependentJobInsertionCalculator = new VehicleTypeDependentJobInsertionCalculator(vrp, fleetManager, baseCalc);
         vehicleTypeDependentJobInsertionCalculator.setVehicleSwitchAllowed(allowVehicleSwitch);
+        if (isSkillConstraintSet()) {
+            vehicleTypeDependentJobInsertionCalculator.setSkillIndex(vrp.getSkillIndex());
+        }
         return vehicleTypeDependentJobInsertionCalculator;
     }
 
+    private boolean isSkillConstraintSet() {
+        if (constraintManager == null) return false;
+        for (HardRouteConstraint constraint : constraintManager.getHardRouteConstraints()) {
+            if (constraint.getClass() == HardSkillConstraint.class) return true;
+        }
+        return false;
+    }
+
     public JobInsertionCostsCalculatorBuilder setConstraintManager(ConstraintManager constraintManager) {
         this.constraintManager = constraintManager;
         return this;
@@ -128,7 +128,7 @@ public class RegretInsertionConcurrent extends AbstractInsertionStrategy {
                 Job unassigned = bad.getJob();
                 jobs.remove(unassigned);
                 badJobs.add(unassigned);
-                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraintNames());
+                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraints());
             }
         }
         return badJobs;
@@ -137,19 +137,21 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
         }
 
         List<Job> jobs = new ArrayList<>(unassignedJobs);
-        TreeSet<VersionedInsertionData>[] priorityQueues = new TreeSet[vrp.getJobs().values().size() + 2];
+        InsertionDataTable[] insertionDataTables = new InsertionDataTable[vrp.getJobs().values().size() + 2];
+        InsertionDataTable.RouteSlots routeSlots = new InsertionDataTable.RouteSlots();
         VehicleRoute lastModified = null;
         boolean firstRun = true;
-        int updateRound = 0;
-        Map<VehicleRoute, Integer> updates = new HashMap<>();
         while (!jobs.isEmpty()) {
             List<Job> unassignedJobList = new ArrayList<>(jobs);
             List<ScoredJob> badJobList = new ArrayList<>();
             if(!firstRun && lastModified == null) throw new IllegalStateException("ho. this must not be.");
-            updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound,firstRun,lastModified,updates);
+            //slots are assigned before tasks look them up
+            if (firstRun) {
+                for (VehicleRoute route : routes) routeSlots.add(route);
+            } else routeSlots.add(lastModified);
+            updateInsertionData(insertionDataTables, routeSlots, routes, unassignedJobList, firstRun, lastModified);
             if(firstRun) firstRun = false;
-            updateRound++;
-            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(switchAllowed,initialVehicleIds,fleetManager, insertionCostsCalculator, scoringFunction, priorityQueues, updates, unassignedJobList, badJobList);
+            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(fleetManager, insertionCostsCalculator, scoringFunction, insertionDataTables, routeSlots, unassignedJobList, badJobList);
             if (bestScoredJob != null) {
                 if (bestScoredJob.isNewRoute()) {
                     routes.add(bestScoredJob.getRoute());
@@ -163,44 +165,36 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
                 Job unassigned = bad.getJob();
                 jobs.remove(unassigned);
                 badJobs.add(unassigned);
-                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraintNames());
+                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraints());
             }
         }
         return badJobs;
     }
 
-    private void updateInsertionData(final TreeSet<VersionedInsertionData>[] priorityQueues, final Collection<VehicleRoute> routes, List<Job> unassignedJobList, final int updateRound, final boolean firstRun, final VehicleRoute lastModified, Map<VehicleRoute, Integer> updates) {
+    private void updateInsertionData(final InsertionDataTable[] insertionDataTables, final InsertionDataTable.RouteSlots routeSlots, final Collection<VehicleRoute> routes, List<Job> unassignedJobList, final boolean firstRun, final VehicleRoute lastModified) {
         List<Callable<Boolean>> tasks = new ArrayList<>();
-        boolean updatedAllRoutes = false;
         for (final Job unassignedJob : unassignedJobList) {
-            if(priorityQueues[unassignedJob.getIndex()] == null){
-                priorityQueues[unassignedJob.getIndex()] = new TreeSet<>(InsertionDataUpdater.getComparator());
+            if(insertionDataTables[unassignedJob.getIndex()] == null){
+                insertionDataTables[unassignedJob.getIndex()] = new InsertionDataTable();
             }
+            InsertionDataTable insertionDataTable = insertionDataTables[unassignedJob.getIndex()];
             if(firstRun) {
-                updatedAllRoutes = true;
-                makeCallables(tasks, true, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+                makeCallables(tasks, true, insertionDataTable, routeSlots, unassignedJob, routes, lastModified);
             }
             else{
                 if(dependencyTypes == null || dependencyTypes[unassignedJob.getIndex()] == null){
-                    makeCallables(tasks, updatedAllRoutes, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+                    makeCallables(tasks, false, insertionDataTable, routeSlots, unassignedJob, routes, lastModified);
                 }
                 else {
                     DependencyType dependencyType = dependencyTypes[unassignedJob.getIndex()];
                     if (dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE)) {
-                        updatedAllRoutes = true;
-                        makeCallables(tasks, true, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+                        makeCallables(tasks, true, insertionDataTable, routeSlots, unassignedJob, routes, lastModified);
                     } else {
-                        makeCallables(tasks, updatedAllRoutes, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes, lastModified);
+                        makeCallables(tasks, false, insertionDataTable, routeSlots, unassignedJob, routes, lastModified);
                     }
                 }
             }
         }
-        if(updatedAllRoutes){
-            for(VehicleRoute r : routes) updates.put(r,updateRound);
-        }
-        else{
-            updates.put(lastModified,updateRound);
-        }
         try {
             executor.invokeAll(tasks);
         } catch (InterruptedException e) {
@@ -209,12 +203,12 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
         }
     }
 
-    private void makeCallables(List<Callable<Boolean>> tasks, boolean updateAll, final TreeSet<VersionedInsertionData> priorityQueue, final int updateRound, final Job unassignedJob, final Collection<VehicleRoute> routes, final VehicleRoute lastModified) {
+    private void makeCallables(List<Callable<Boolean>> tasks, boolean updateAll, final InsertionDataTable insertionDataTable, final InsertionDataTable.RouteSlots routeSlots, final Job unassignedJob, final Collection<VehicleRoute> routes, final VehicleRoute lastModified) {
         if(updateAll) {
-            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, routes));
+            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, routes));
         }
         else {
-            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, Arrays.asList(lastModified)));
+            tasks.add(() -> InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, Arrays.asList(lastModified)));
         }
     }
 
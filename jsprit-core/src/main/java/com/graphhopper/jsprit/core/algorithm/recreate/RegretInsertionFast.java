@@ -127,26 +127,21 @@ public class RegretInsertionFast extends AbstractInsertionStrategy {
 //        }
 
         List<Job> jobs = new ArrayList<Job>(unassignedJobs);
-        TreeSet<VersionedInsertionData>[] priorityQueues = new TreeSet[vrp.getJobs().values().size() + 2];
+        InsertionDataTable[] insertionDataTables = new InsertionDataTable[vrp.getJobs().values().size() + 2];
+        InsertionDataTable.RouteSlots routeSlots = new InsertionDataTable.RouteSlots();
         VehicleRoute lastModified = null;
         boolean firstRun = true;
-        int updateRound = 0;
-        Map<VehicleRoute, Integer> updates = new HashMap<>();
         while (!jobs.isEmpty()) {
             List<Job> unassignedJobList = new ArrayList<>(jobs);
             List<ScoredJob> badJobList = new ArrayList<>();
             if(!firstRun && lastModified == null) throw new IllegalStateException("last modified route is null. this should not be.");
-            if(firstRun){
-                updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound, firstRun, lastModified, updates);
-                firstRun = false;
-            }
-            else{
-                //update for all routes || remove history and only update modified route
-                updateInsertionData(priorityQueues, routes, unassignedJobList, updateRound, firstRun, lastModified, updates);
-//                updates.put(lastModified,updateRound);
-            }
-            updateRound++;
-            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(switchAllowed,initialVehicleIds,fleetManager,insertionCostsCalculator,scoringFunction,priorityQueues,updates,unassignedJobList,badJobList);
+            if (firstRun) {
+                for (VehicleRoute route : routes) routeSlots.add(route);
+            } else routeSlots.add(lastModified);
+            //update for all routes || only update modified route
+            updateInsertionData(insertionDataTables, routeSlots, routes, unassignedJobList, firstRun, lastModified);
+            firstRun = false;
+            ScoredJob bestScoredJob = InsertionDataUpdater.getBest(fleetManager,insertionCostsCalculator,scoringFunction,insertionDataTables,routeSlots,unassignedJobList,badJobList);
             if (bestScoredJob != null) {
                 if (bestScoredJob.isNewRoute()) {
                     routes.add(bestScoredJob.getRoute());
@@ -160,34 +155,31 @@ public class RegretInsertionFast extends AbstractInsertionStrategy {
                 Job unassigned = bad.getJob();
                 jobs.remove(unassigned);
                 badJobs.add(unassigned);
-                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraintNames());
+                markUnassigned(unassigned, bad.getInsertionData().getFailedConstraints());
             }
         }
         return badJobs;
     }
 
-    private void updateInsertionData(TreeSet<VersionedInsertionData>[] priorityQueues, Collection<VehicleRoute> routes, List<Job> unassignedJobList, int updateRound, boolean firstRun, VehicleRoute lastModified, Map<VehicleRoute, Integer> updates) {
+    private void updateInsertionData(InsertionDataTable[] insertionDataTables, InsertionDataTable.RouteSlots routeSlots, Collection<VehicleRoute> routes, List<Job> unassignedJobList, boolean firstRun, VehicleRoute lastModified) {
         for (Job unassignedJob : unassignedJobList) {
-            if(priorityQueues[unassignedJob.getIndex()] == null){
-                priorityQueues[unassignedJob.getIndex()] = new TreeSet<>(InsertionDataUpdater.getComparator());
+            if(insertionDataTables[unassignedJob.getIndex()] == null){
+                insertionDataTables[unassignedJob.getIndex()] = new InsertionDataTable();
             }
+            InsertionDataTable insertionDataTable = insertionDataTables[unassignedJob.getIndex()];
             if(firstRun) {
-                InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes);
-                for(VehicleRoute r : routes) updates.put(r,updateRound);
+                InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, routes);
             }
             else{
                 if(dependencyTypes == null || dependencyTypes[unassignedJob.getIndex()] == null){
-                    InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, Arrays.asList(lastModified));
-                    updates.put(lastModified,updateRound);
+                    InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, Arrays.asList(lastModified));
                 }
                 else {
                     DependencyType dependencyType = dependencyTypes[unassignedJob.getIndex()];
                     if (dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE)) {
-                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, routes);
-                        for(VehicleRoute r : routes) updates.put(r,updateRound);
+                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, routes);
                     } else {
-                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueues[unassignedJob.getIndex()], updateRound, unassignedJob, Arrays.asList(lastModified));
-                        updates.put(lastModified,updateRound);
+                        InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, insertionDataTable, routeSlots, unassignedJob, Arrays.asList(lastModified));
                     }
                 }
             }
@@ -18,11 +18,10 @@
 
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 
-import java.util.List;
-
 /**
  * Created by schroeder on 15/10/15.
  */
@@ -30,13 +29,13 @@ class ScoredJob {
 
     static class BadJob extends ScoredJob {
 
-        BadJob(Job job, List<String> failedConstraintNames) {
-            super(job, 0., getEmptyInsertion(failedConstraintNames), null, false);
+        BadJob(Job job, FailedConstraints failedConstraints) {
+            super(job, 0., getEmptyInsertion(failedConstraints), null, false);
         }
 
-        private static InsertionData getEmptyInsertion(List<String> failedConstraintNames) {
+        private static InsertionData getEmptyInsertion(FailedConstraints failedConstraints) {
             InsertionData empty = new InsertionData.NoInsertionFound();
-            empty.getFailedConstraintNames().addAll(failedConstraintNames);
+            empty.getFailedConstraints().addAll(failedConstraints);
             return empty;
         }
     }
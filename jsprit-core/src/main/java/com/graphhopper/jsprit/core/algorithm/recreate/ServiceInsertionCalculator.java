@@ -20,7 +20,6 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
-import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftRouteConstraint;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
@@ -28,7 +27,6 @@ import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
-import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
@@ -39,8 +37,6 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
 
 /**
@@ -105,7 +101,8 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         InsertionData noInsertion = checkRouteContraints(insertionContext, constraintManager);
         if (noInsertion != null) return noInsertion;
 
-        Collection<HardConstraint> failedActivityConstraints = new ArrayList<>();
+        EvaluationContext evaluationContext = getEvaluationContext(newVehicle, newVehicleDepartureTime, Double.MAX_VALUE);
+        if (!selectInsertionPositions(evaluationContext, currentRoute, jobToInsert)) return new InsertionData.NoInsertionFound();
 
         /*
         check soft constraints at route level
@@ -115,13 +112,13 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         double bestCost = bestKnownCosts;
         additionalICostsAtRouteLevel += additionalAccessEgressCalculator.getCosts(insertionContext);
 		TimeWindow bestTimeWindow = null;
+        TimeWindow[] timeWindows = service.getTimeWindows().toArray(new TimeWindow[0]);
 
         /*
-        generate new start and end for new vehicle
+        start and end for new vehicle
          */
-        Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), Double.MAX_VALUE);
-        start.setEndTime(newVehicleDepartureTime);
-        End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
+        Start start = evaluationContext.start;
+        End end = evaluationContext.end;
 
         TourActivity prevAct = start;
         double prevActStartTime = newVehicleDepartureTime;
@@ -135,39 +132,35 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
                 nextAct = end;
                 tourEnd = true;
             }
-            boolean not_fulfilled_break = true;
-			for(TimeWindow timeWindow : service.getTimeWindows()) {
-                deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
-                deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
-                ActivityContext activityContext = new ActivityContext();
-                activityContext.setInsertionIndex(actIndex);
-                insertionContext.setActivityContext(activityContext);
-                ConstraintsStatus status = fulfilled(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime, failedActivityConstraints, constraintManager);
-                if (status.equals(ConstraintsStatus.FULFILLED)) {
-                    double additionalICostsAtActLevel = softActivityConstraint.getCosts(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime);
-                    double additionalTransportationCosts = activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, nextAct, deliveryAct2Insert, prevActStartTime);
-                    if (additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts < bestCost) {
-                        bestCost = additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts;
-                        insertionIndex = actIndex;
-                        bestTimeWindow = timeWindow;
+            if (evaluationContext.isEvaluated(actIndex)) {
+                boolean not_fulfilled_break = true;
+                for (TimeWindow timeWindow : timeWindows) {
+                    deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
+                    deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
+                    insertionContext.setActivityContext(evaluationContext.getActivityContext(actIndex));
+                    ConstraintsStatus status = fulfilled(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime, evaluationContext, constraintManager);
+                    if (status.equals(ConstraintsStatus.FULFILLED)) {
+                        double additionalICostsAtActLevel = softActivityConstraint.getCosts(insertionContext, prevAct, deliveryAct2Insert, nextAct, prevActStartTime);
+                        double additionalTransportationCosts = activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, nextAct, deliveryAct2Insert, prevActStartTime);
+                        if (additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts < bestCost) {
+                            bestCost = additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts;
+                            insertionIndex = actIndex;
+                            bestTimeWindow = timeWindow;
+                        }
+                        not_fulfilled_break = false;
+                    } else if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                        not_fulfilled_break = false;
                     }
-                    not_fulfilled_break = false;
-                } else if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    not_fulfilled_break = false;
                 }
-			}
-            if(not_fulfilled_break) break;
+                if(not_fulfilled_break) break;
+            }
             double nextActArrTime = prevActStartTime + transportCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActStartTime, newDriver, newVehicle);
             prevActStartTime = Math.max(nextActArrTime, nextAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct,nextActArrTime,newDriver,newVehicle);
             prevAct = nextAct;
             actIndex++;
         }
         if(insertionIndex == InsertionData.NO_INDEX) {
-            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-            for (HardConstraint c : failedActivityConstraints) {
-                emptyInsertionData.addFailedConstrainName(c.getClass().getSimpleName());
-            }
-            return emptyInsertionData;
+            return noInsertionFound(evaluationContext.failedActivityConstraints);
         }
         InsertionData insertionData = new InsertionData(bestCost, InsertionData.NO_INDEX, insertionIndex, newVehicle, newDriver);
         deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(bestTimeWindow.getStart());
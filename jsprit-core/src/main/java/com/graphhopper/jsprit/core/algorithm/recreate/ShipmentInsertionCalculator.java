@@ -20,7 +20,6 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
-import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftRouteConstraint;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
@@ -39,7 +38,6 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
 
 
@@ -113,12 +111,13 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
         TimeWindow bestPickupTimeWindow = null;
         TimeWindow bestDeliveryTimeWindow = null;
 
-        Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
-        start.setEndTime(newVehicleDepartureTime);
-
-        End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
-
-        ActivityContext pickupContext = new ActivityContext();
+        EvaluationContext evaluationContext = getEvaluationContext(newVehicle, newVehicleDepartureTime, newVehicle.getLatestArrival());
+        if (!selectInsertionPositions(evaluationContext, currentRoute, jobToInsert)) return new InsertionData.NoInsertionFound();
+        Start start = evaluationContext.start;
+        End end = evaluationContext.end;
+        ActivityContext pickupContext = evaluationContext.relatedActivityContext;
+        TimeWindow[] pickupTimeWindows = shipment.getPickupTimeWindows().toArray(new TimeWindow[0]);
+        TimeWindow[] deliveryTimeWindows = shipment.getDeliveryTimeWindows().toArray(new TimeWindow[0]);
 
         TourActivity prevAct = start;
         double prevActEndTime = newVehicleDepartureTime;
@@ -129,7 +128,6 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
         //pickupShipmentLoop
         List<TourActivity> activities = currentRoute.getTourActivities().getActivities();
 
-        List<HardConstraint> failedActivityConstraints = new ArrayList<>();
         while (!tourEnd) {
             TourActivity nextAct;
             if (i < activities.size()) {
@@ -139,87 +137,87 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
                 tourEnd = true;
             }
 
-            boolean pickupInsertionNotFulfilledBreak = true;
-            for(TimeWindow pickupTimeWindow : shipment.getPickupTimeWindows()) {
-                pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
-                pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
-                ActivityContext activityContext = new ActivityContext();
-                activityContext.setInsertionIndex(i);
-                insertionContext.setActivityContext(activityContext);
-                ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime, failedActivityConstraints, constraintManager);
-                if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    pickupInsertionNotFulfilledBreak = false;
-                    continue;
-                } else if(pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
-                    continue;
-                }
-                else if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
-                    pickupInsertionNotFulfilledBreak = false;
-                }
-                double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
-                double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
-
-                TourActivity prevAct_deliveryLoop = pickupShipment;
-                double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
-                double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
-
-                pickupContext.setArrivalTime(shipmentPickupArrTime);
-                pickupContext.setEndTime(shipmentPickupEndTime);
-                pickupContext.setInsertionIndex(i);
-                insertionContext.setRelatedActivityContext(pickupContext);
-
-                double prevActEndTime_deliveryLoop = shipmentPickupEndTime;
-
-			/*
-            --------------------------------
-			 */
-                //deliverShipmentLoop
-                int j = i;
-                boolean tourEnd_deliveryLoop = false;
-                while (!tourEnd_deliveryLoop) {
-                    TourActivity nextAct_deliveryLoop;
-                    if (j < activities.size()) {
-                        nextAct_deliveryLoop = activities.get(j);
-                    } else {
-                        nextAct_deliveryLoop = end;
-                        tourEnd_deliveryLoop = true;
+            if (evaluationContext.isEvaluated(i)) {
+                boolean pickupInsertionNotFulfilledBreak = true;
+                for (TimeWindow pickupTimeWindow : pickupTimeWindows) {
+                    pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
+                    pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
+                    insertionContext.setActivityContext(evaluationContext.getActivityContext(i));
+                    ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime, evaluationContext, constraintManager);
+                    if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
+                        continue;
+                    } else if(pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+                        continue;
+                    }
+                    else if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
                     }
+                    double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
+                    double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
+
+                    TourActivity prevAct_deliveryLoop = pickupShipment;
+                    double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
+                    double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
+
+                    pickupContext.setArrivalTime(shipmentPickupArrTime);
+                    pickupContext.setEndTime(shipmentPickupEndTime);
+                    pickupContext.setInsertionIndex(i);
+                    insertionContext.setRelatedActivityContext(pickupContext);
+
+                    double prevActEndTime_deliveryLoop = shipmentPickupEndTime;
+
+                /*
+                --------------------------------
+                 */
+                    //deliverShipmentLoop
+                    int j = i;
+                    boolean tourEnd_deliveryLoop = false;
+                    while (!tourEnd_deliveryLoop) {
+                        TourActivity nextAct_deliveryLoop;
+                        if (j < activities.size()) {
+                            nextAct_deliveryLoop = activities.get(j);
+                        } else {
+                            nextAct_deliveryLoop = end;
+                            tourEnd_deliveryLoop = true;
+                        }
 
-                    boolean deliveryInsertionNotFulfilledBreak = true;
-                    for (TimeWindow deliveryTimeWindow : shipment.getDeliveryTimeWindows()) {
-                        deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
-                        deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
-                        ActivityContext activityContext_ = new ActivityContext();
-                        activityContext_.setInsertionIndex(j);
-                        insertionContext.setActivityContext(activityContext_);
-                        ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop, failedActivityConstraints, constraintManager);
-                        if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
-                            double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
-                            double deliveryAIC = calculate(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
-                            double totalActivityInsertionCosts = pickupAIC + deliveryAIC
-                                + additionalICostsAtRouteLevel + additionalPickupICosts + additionalDeliveryICosts;
-                            if (totalActivityInsertionCosts < bestCost) {
-                                bestCost = totalActivityInsertionCosts;
-                                pickupInsertionIndex = i;
-                                deliveryInsertionIndex = j;
-                                bestPickupTimeWindow = pickupTimeWindow;
-                                bestDeliveryTimeWindow = deliveryTimeWindow;
+                        if (j == i || evaluationContext.isEvaluated(j)) {
+                            boolean deliveryInsertionNotFulfilledBreak = true;
+                            for (TimeWindow deliveryTimeWindow : deliveryTimeWindows) {
+                                deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
+                                deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
+                                insertionContext.setActivityContext(evaluationContext.getActivityContext(j));
+                                ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop, evaluationContext, constraintManager);
+                                if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                                    double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
+                                    double deliveryAIC = calculate(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
+                                    double totalActivityInsertionCosts = pickupAIC + deliveryAIC
+                                        + additionalICostsAtRouteLevel + additionalPickupICosts + additionalDeliveryICosts;
+                                    if (totalActivityInsertionCosts < bestCost) {
+                                        bestCost = totalActivityInsertionCosts;
+                                        pickupInsertionIndex = i;
+                                        deliveryInsertionIndex = j;
+                                        bestPickupTimeWindow = pickupTimeWindow;
+                                        bestDeliveryTimeWindow = deliveryTimeWindow;
+                                    }
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                } else if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                }
                             }
-                            deliveryInsertionNotFulfilledBreak = false;
-                        } else if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                            deliveryInsertionNotFulfilledBreak = false;
+                            if (deliveryInsertionNotFulfilledBreak) break;
                         }
+                        //update prevAct and endTime
+                        double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), nextAct_deliveryLoop.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
+                        prevActEndTime_deliveryLoop = Math.max(nextActArrTime, nextAct_deliveryLoop.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct_deliveryLoop,nextActArrTime,newDriver,newVehicle);
+                        prevAct_deliveryLoop = nextAct_deliveryLoop;
+                        j++;
                     }
-                    if (deliveryInsertionNotFulfilledBreak) break;
-                    //update prevAct and endTime
-                    double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), nextAct_deliveryLoop.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
-                    prevActEndTime_deliveryLoop = Math.max(nextActArrTime, nextAct_deliveryLoop.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct_deliveryLoop,nextActArrTime,newDriver,newVehicle);
-                    prevAct_deliveryLoop = nextAct_deliveryLoop;
-                    j++;
                 }
-            }
-            if(pickupInsertionNotFulfilledBreak){
-                break;
+                if(pickupInsertionNotFulfilledBreak){
+                    break;
+                }
             }
             //update prevAct and endTime
             double nextActArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActEndTime, newDriver, newVehicle);
@@ -228,11 +226,7 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
             i++;
         }
         if (pickupInsertionIndex == InsertionData.NO_INDEX) {
-            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-            for (HardConstraint failed : failedActivityConstraints) {
-                emptyInsertionData.addFailedConstrainName(failed.getClass().getSimpleName());
-            }
-            return emptyInsertionData;
+            return noInsertionFound(evaluationContext.failedActivityConstraints);
         }
         InsertionData insertionData = new InsertionData(bestCost, pickupInsertionIndex, deliveryInsertionIndex, newVehicle, newDriver);
         pickupShipment.setTheoreticalEarliestOperationStartTime(bestPickupTimeWindow.getStart());
@@ -20,7 +20,6 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
-import com.graphhopper.jsprit.core.problem.constraint.HardConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.SoftRouteConstraint;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
@@ -39,7 +38,6 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
 
 
@@ -134,10 +132,13 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
         TimeWindow bestDeliveryTimeWindow = null;
 
 
-        Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
-        start.setEndTime(newVehicleDepartureTime);
-        End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
-        ActivityContext pickupContext = new ActivityContext();
+        EvaluationContext evaluationContext = getEvaluationContext(newVehicle, newVehicleDepartureTime, newVehicle.getLatestArrival());
+        if (!selectInsertionPositions(evaluationContext, currentRoute, jobToInsert)) return new InsertionData.NoInsertionFound();
+        Start start = evaluationContext.start;
+        End end = evaluationContext.end;
+        ActivityContext pickupContext = evaluationContext.relatedActivityContext;
+        TimeWindow[] pickupTimeWindows = shipment.getPickupTimeWindows().toArray(new TimeWindow[0]);
+        TimeWindow[] deliveryTimeWindows = shipment.getDeliveryTimeWindows().toArray(new TimeWindow[0]);
         TourActivity prevAct = start;
         double prevActEndTime = newVehicleDepartureTime;
 
@@ -147,7 +148,6 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
         //pickupShipmentLoop
         List<TourActivity> activities = currentRoute.getTourActivities().getActivities();
 
-        List<HardConstraint> failedActivityConstraints = new ArrayList<>();
         while (!tourEnd) {
             TourActivity nextAct;
             if (i < activities.size()) {
@@ -157,15 +157,13 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
                 tourEnd = true;
             }
             if (i > evalIndexPickup) break;
-            if (i == evalIndexPickup || evalIndexPickup == Integer.MAX_VALUE) {
+            if ((i == evalIndexPickup || evalIndexPickup == Integer.MAX_VALUE) && evaluationContext.isEvaluated(i)) {
                 boolean pickupInsertionNotFulfilledBreak = true;
-                for (TimeWindow pickupTimeWindow : shipment.getPickupTimeWindows()) {
+                for (TimeWindow pickupTimeWindow : pickupTimeWindows) {
                     pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
                     pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
-                    ActivityContext activityContext = new ActivityContext();
-                    activityContext.setInsertionIndex(i);
-                    insertionContext.setActivityContext(activityContext);
-                    ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime, failedActivityConstraints, constraintManager);
+                    insertionContext.setActivityContext(evaluationContext.getActivityContext(i));
+                    ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime, evaluationContext, constraintManager);
                     if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
                         pickupInsertionNotFulfilledBreak = false;
                         continue;
@@ -203,15 +201,13 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
                             tourEndInDeliveryLoop = true;
                         }
                         if (j > evalIndexDelivery) break;
-                        if (j == evalIndexDelivery || evalIndexDelivery == Integer.MAX_VALUE) {
+                        if ((j == evalIndexDelivery || evalIndexDelivery == Integer.MAX_VALUE) && (j == i || evaluationContext.isEvaluated(j))) {
                             boolean deliveryInsertionNotFulfilledBreak = true;
-                            for (TimeWindow deliveryTimeWindow : shipment.getDeliveryTimeWindows()) {
+                            for (TimeWindow deliveryTimeWindow : deliveryTimeWindows) {
                                 deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
                                 deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
-                                ActivityContext activityContext_ = new ActivityContext();
-                                activityContext_.setInsertionIndex(j);
-                                insertionContext.setActivityContext(activityContext_);
-                                ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevActForDeliveryLoop, deliverShipment, nextActForDeliveryLoop, prevActEndTimeForDeliveryLoop, failedActivityConstraints, constraintManager);
+                                insertionContext.setActivityContext(evaluationContext.getActivityContext(j));
+                                ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevActForDeliveryLoop, deliverShipment, nextActForDeliveryLoop, prevActEndTimeForDeliveryLoop, evaluationContext, constraintManager);
                                 if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
                                     double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevActForDeliveryLoop, deliverShipment, nextActForDeliveryLoop, prevActEndTimeForDeliveryLoop);
                                     double deliveryAIC = calculate(insertionContext, prevActForDeliveryLoop, deliverShipment, nextActForDeliveryLoop, prevActEndTimeForDeliveryLoop);
@@ -252,11 +248,7 @@ public final class ShipmentInsertionCalculatorFlex extends AbstractInsertionCalc
 
 
         if (pickupInsertionIndex == InsertionData.NO_INDEX) {
-            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-            for (HardConstraint failed : failedActivityConstraints) {
-                emptyInsertionData.addFailedConstrainName(failed.getClass().getSimpleName());
-            }
-            return emptyInsertionData;
+            return noInsertionFound(evaluationContext.failedActivityConstraints);
         }
         InsertionData insertionData = new InsertionData(bestCost, pickupInsertionIndex, deliveryInsertionIndex, newVehicle, newDriver);
         pickupShipment.setTheoreticalEarliestOperationStartTime(bestPickupTimeWindow.getStart());
@@ -0,0 +1,307 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.JobActivityFactory;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
+import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.SoftRouteConstraint;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Calculator that calculates the best insertion positions for a {@link Shipment} like {@link ShipmentInsertionCalculator},
+ * but that does not evaluate delivery positions which cannot improve the best insertion found so far.
+ * <p>
+ * <p>The additional costs of inserting the delivery between two activities are bounded from below by its additional
+ * transport costs. These detours are calculated once per route. If the costs of the pickup plus the smallest detour of
+ * the remaining delivery positions cannot beat the best costs found so far, the remaining delivery positions are
+ * skipped. This reduces the number of evaluated (pickup, delivery) pairs considerably, especially for long routes.
+ * <p>
+ * <p>The calculator finds the same best insertion as {@link ShipmentInsertionCalculator} if
+ * <ul>
+ * <li>activity insertion costs are calculated with {@link LocalActivityInsertionCostsCalculator}
+ * (otherwise no delivery position is skipped),</li>
+ * <li>transport costs do not depend on time, and</li>
+ * <li>activity costs and soft activity constraints do not reduce the costs of inserting the delivery, e.g. there are
+ * no waiting costs.</li>
+ * </ul>
+ * Since skipped positions are not evaluated, constraints that fail there are not reported as reasons for not
+ * finding an insertion.
+ */
+final class ShipmentInsertionCalculatorPruned extends AbstractInsertionCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentInsertionCalculatorPruned.class);
+
+    private final ConstraintManager constraintManager;
+
+    private final SoftRouteConstraint softRouteConstraint;
+
+    private final SoftActivityConstraint softActivityConstraint;
+
+    private final ActivityInsertionCostsCalculator activityInsertionCostsCalculator;
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final VehicleRoutingActivityCosts activityCosts;
+
+    private final JobActivityFactory activityFactory;
+
+    private final AdditionalAccessEgressCalculator additionalAccessEgressCalculator;
+
+    private final boolean skipDeliveryPositions;
+
+    public ShipmentInsertionCalculatorPruned(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts activityCosts, ActivityInsertionCostsCalculator activityInsertionCostsCalculator, ConstraintManager constraintManager, JobActivityFactory jobActivityFactory) {
+        super();
+        this.activityInsertionCostsCalculator = activityInsertionCostsCalculator;
+        this.constraintManager = constraintManager;
+        this.softActivityConstraint = constraintManager;
+        this.softRouteConstraint = constraintManager;
+        this.transportCosts = routingCosts;
+        this.activityCosts = activityCosts;
+        additionalAccessEgressCalculator = new AdditionalAccessEgressCalculator(routingCosts);
+        this.activityFactory = jobActivityFactory;
+        skipDeliveryPositions = activityInsertionCostsCalculator instanceof LocalActivityInsertionCostsCalculator;
+        logger.debug("initialise {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return "[name=calculatesPrunedShipmentInsertion]";
+    }
+
+    /**
+     * Calculates the marginal cost of inserting job i locally. This is based on the
+     * assumption that cost changes can entirely covered by only looking at the predecessor i-1 and its successor i+1.
+     */
+    @Override
+    public InsertionData getInsertionData(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle newVehicle, double newVehicleDepartureTime, final Driver newDriver, final double bestKnownCosts) {
+        JobInsertionContext insertionContext = new JobInsertionContext(currentRoute, jobToInsert, newVehicle, newDriver, newVehicleDepartureTime);
+        Shipment shipment = (Shipment) jobToInsert;
+        TourActivity pickupShipment = activityFactory.createActivities(shipment).get(0);
+        TourActivity deliverShipment = activityFactory.createActivities(shipment).get(1);
+        insertionContext.getAssociatedActivities().add(pickupShipment);
+        insertionContext.getAssociatedActivities().add(deliverShipment);
+
+        /*
+        check hard route constraints
+         */
+        InsertionData noInsertion = checkRouteContraints(insertionContext, constraintManager);
+        if (noInsertion != null) return noInsertion;
+        /*
+        check soft route constraints
+         */
+        double additionalICostsAtRouteLevel = softRouteConstraint.getCosts(insertionContext);
+
+        double bestCost = bestKnownCosts;
+        additionalICostsAtRouteLevel += additionalAccessEgressCalculator.getCosts(insertionContext);
+
+        int pickupInsertionIndex = InsertionData.NO_INDEX;
+        int deliveryInsertionIndex = InsertionData.NO_INDEX;
+
+        TimeWindow bestPickupTimeWindow = null;
+        TimeWindow bestDeliveryTimeWindow = null;
+
+        EvaluationContext evaluationContext = getEvaluationContext(newVehicle, newVehicleDepartureTime, newVehicle.getLatestArrival());
+        if (!selectInsertionPositions(evaluationContext, currentRoute, jobToInsert)) return new InsertionData.NoInsertionFound();
+        Start start = evaluationContext.start;
+        End end = evaluationContext.end;
+        ActivityContext pickupContext = evaluationContext.relatedActivityContext;
+        TimeWindow[] pickupTimeWindows = shipment.getPickupTimeWindows().toArray(new TimeWindow[0]);
+        TimeWindow[] deliveryTimeWindows = shipment.getDeliveryTimeWindows().toArray(new TimeWindow[0]);
+
+        TourActivity prevAct = start;
+        double prevActEndTime = newVehicleDepartureTime;
+
+        //loops
+        int i = 0;
+        boolean tourEnd = false;
+        //pickupShipmentLoop
+        List<TourActivity> activities = currentRoute.getTourActivities().getActivities();
+
+        double[] deliveryDetours = null;
+        double[] minDeliveryDetours = null;
+        if (skipDeliveryPositions && !activities.isEmpty()) {
+            deliveryDetours = new double[activities.size() + 1];
+            minDeliveryDetours = new double[activities.size() + 2];
+            calculateDeliveryDetours(insertionContext, activities, deliverShipment, end, deliveryDetours, minDeliveryDetours);
+        }
+        while (!tourEnd) {
+            TourActivity nextAct;
+            if (i < activities.size()) {
+                nextAct = activities.get(i);
+            } else {
+                nextAct = end;
+                tourEnd = true;
+            }
+
+            if (evaluationContext.isEvaluated(i)) {
+                boolean pickupInsertionNotFulfilledBreak = true;
+                for (TimeWindow pickupTimeWindow : pickupTimeWindows) {
+                    pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
+                    pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
+                    insertionContext.setActivityContext(evaluationContext.getActivityContext(i));
+                    ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime, evaluationContext, constraintManager);
+                    if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
+                        continue;
+                    } else if(pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+                        continue;
+                    }
+                    else if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
+                    }
+                    double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
+                    double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextAct, prevActEndTime);
+                    double pickupCosts = pickupAIC + additionalICostsAtRouteLevel + additionalPickupICosts;
+
+                    TourActivity prevAct_deliveryLoop = pickupShipment;
+                    double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
+                    double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
+
+                    pickupContext.setArrivalTime(shipmentPickupArrTime);
+                    pickupContext.setEndTime(shipmentPickupEndTime);
+                    pickupContext.setInsertionIndex(i);
+                    insertionContext.setRelatedActivityContext(pickupContext);
+
+                    double prevActEndTime_deliveryLoop = shipmentPickupEndTime;
+
+                /*
+                --------------------------------
+                 */
+                    //deliverShipmentLoop
+                    int j = i;
+                    boolean tourEnd_deliveryLoop = false;
+                    while (!tourEnd_deliveryLoop) {
+                        //none of the remaining delivery positions can beat bestCost
+                        if (j > i && deliveryDetours != null && exceeds(pickupCosts + minDeliveryDetours[j], bestCost)) break;
+                        TourActivity nextAct_deliveryLoop;
+                        if (j < activities.size()) {
+                            nextAct_deliveryLoop = activities.get(j);
+                        } else {
+                            nextAct_deliveryLoop = end;
+                            tourEnd_deliveryLoop = true;
+                        }
+
+                        if (j == i || evaluationContext.isEvaluated(j)) {
+                            boolean deliveryInsertionNotFulfilledBreak = true;
+                            for (TimeWindow deliveryTimeWindow : deliveryTimeWindows) {
+                                deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
+                                deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
+                                insertionContext.setActivityContext(evaluationContext.getActivityContext(j));
+                                ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop, evaluationContext, constraintManager);
+                                if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                    if (j > i && deliveryDetours != null && exceeds(pickupCosts + deliveryDetours[j], bestCost)) continue;
+                                    double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
+                                    double deliveryAIC = calculate(insertionContext, prevAct_deliveryLoop, deliverShipment, nextAct_deliveryLoop, prevActEndTime_deliveryLoop);
+                                    double totalActivityInsertionCosts = pickupAIC + deliveryAIC
+                                        + additionalICostsAtRouteLevel + additionalPickupICosts + additionalDeliveryICosts;
+                                    if (totalActivityInsertionCosts < bestCost) {
+                                        bestCost = totalActivityInsertionCosts;
+                                        pickupInsertionIndex = i;
+                                        deliveryInsertionIndex = j;
+                                        bestPickupTimeWindow = pickupTimeWindow;
+                                        bestDeliveryTimeWindow = deliveryTimeWindow;
+                                    }
+                                } else if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                }
+                            }
+                            if (deliveryInsertionNotFulfilledBreak) break;
+                        }
+                        //update prevAct and endTime
+                        double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), nextAct_deliveryLoop.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
+                        prevActEndTime_deliveryLoop = Math.max(nextActArrTime, nextAct_deliveryLoop.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct_deliveryLoop,nextActArrTime,newDriver,newVehicle);
+                        prevAct_deliveryLoop = nextAct_deliveryLoop;
+                        j++;
+                    }
+                }
+                if(pickupInsertionNotFulfilledBreak){
+                    break;
+                }
+            }
+            //update prevAct and endTime
+            double nextActArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActEndTime, newDriver, newVehicle);
+            prevActEndTime = Math.max(nextActArrTime, nextAct.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct,nextActArrTime,newDriver,newVehicle);
+            prevAct = nextAct;
+            i++;
+        }
+        if (pickupInsertionIndex == InsertionData.NO_INDEX) {
+            return noInsertionFound(evaluationContext.failedActivityConstraints);
+        }
+        InsertionData insertionData = new InsertionData(bestCost, pickupInsertionIndex, deliveryInsertionIndex, newVehicle, newDriver);
+        pickupShipment.setTheoreticalEarliestOperationStartTime(bestPickupTimeWindow.getStart());
+        pickupShipment.setTheoreticalLatestOperationStartTime(bestPickupTimeWindow.getEnd());
+        deliverShipment.setTheoreticalEarliestOperationStartTime(bestDeliveryTimeWindow.getStart());
+        deliverShipment.setTheoreticalLatestOperationStartTime(bestDeliveryTimeWindow.getEnd());
+        insertionData.setVehicleDepartureTime(newVehicleDepartureTime);
+        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliverShipment, deliveryInsertionIndex));
+        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, pickupShipment, pickupInsertionIndex));
+        insertionData.getEvents().add(new SwitchVehicle(currentRoute, newVehicle, newVehicleDepartureTime));
+        return insertionData;
+    }
+
+    /*
+    deliveryDetours[j] are the additional transport costs of inserting the delivery between activity j-1 and j (or end),
+    calculated as LocalActivityInsertionCostsCalculator does. minDeliveryDetours[j] is the minimum of deliveryDetours[j..].
+     */
+    private void calculateDeliveryDetours(JobInsertionContext iFacts, List<TourActivity> activities, TourActivity deliverShipment, End end, double[] deliveryDetours, double[] minDeliveryDetours) {
+        Vehicle newVehicle = iFacts.getNewVehicle();
+        Driver newDriver = iFacts.getNewDriver();
+        VehicleRoute route = iFacts.getRoute();
+        minDeliveryDetours[activities.size() + 1] = Double.MAX_VALUE;
+        for (int j = activities.size(); j > 0; j--) {
+            TourActivity prevAct = activities.get(j - 1);
+            TourActivity nextAct = j < activities.size() ? activities.get(j) : end;
+            double detour = transportCosts.getTransportCost(prevAct.getLocation(), deliverShipment.getLocation(), prevAct.getEndTime(), newDriver, newVehicle);
+            if (nextAct != end || newVehicle.isReturnToDepot()) {
+                detour += transportCosts.getTransportCost(deliverShipment.getLocation(), nextAct.getLocation(), prevAct.getEndTime(), newDriver, newVehicle);
+                detour -= transportCosts.getTransportCost(prevAct.getLocation(), nextAct.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+            }
+            deliveryDetours[j] = detour;
+            minDeliveryDetours[j] = Math.min(detour, minDeliveryDetours[j + 1]);
+        }
+    }
+
+    //tolerates rounding errors, since lower bound and actual costs are summed up differently
+    private static boolean exceeds(double lowerBound, double bestCost) {
+        return lowerBound > bestCost + Math.abs(bestCost) * 1e-10 + 1e-10;
+    }
+
+    private double calculate(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double departureTimeAtPrevAct) {
+        return activityInsertionCostsCalculator.getCosts(iFacts, prevAct, nextAct, newAct, departureTimeAtPrevAct);
+
+    }
+}
@@ -17,7 +17,10 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.SkillIndex;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardSkillConstraint;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -54,6 +57,8 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
      */
     private boolean vehicleSwitchAllowed = false;
 
+    private SkillIndex skillIndex;
+
     public VehicleTypeDependentJobInsertionCalculator(final VehicleRoutingProblem vrp, final VehicleFleetManager fleetManager, final JobInsertionCostsCalculator jobInsertionCalc) {
         this.fleetManager = fleetManager;
         this.insertionCalculator = jobInsertionCalc;
@@ -92,6 +97,16 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
         this.vehicleSwitchAllowed = vehicleSwitchAllowed;
     }
 
+    /**
+     * Sets the skill index that is used to skip vehicles that lack skills required by the job to be inserted before
+     * any insertion costs are calculated. It must only be set if skills are a hard constraint.
+     *
+     * @param skillIndex the skill index of the problem
+     */
+    public void setSkillIndex(SkillIndex skillIndex) {
+        this.skillIndex = skillIndex;
+    }
+
     public InsertionData getInsertionData(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle vehicle, double newVehicleDepartureTime, final Driver driver, final double bestKnownCost) {
         if(vehicle != null){
             return insertionCalculator.getInsertionData(currentRoute, jobToInsert, vehicle, newVehicleDepartureTime, driver, bestKnownCost);
@@ -110,12 +125,16 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
             relevantVehicles.addAll(fleetManager.getAvailableVehicles());
         }
         for (Vehicle v : relevantVehicles) {
+            if (skillIndex != null && !skillIndex.isCompatible(jobToInsert, v)) {
+                bestIData.getFailedConstraints().add(ConstraintManager.getConstraintId(HardSkillConstraint.class));
+                continue;
+            }
             double depTime;
             if (v == selectedVehicle) depTime = currentRoute.getDepartureTime();
             else depTime = v.getEarliestDeparture();
             InsertionData iData = insertionCalculator.getInsertionData(currentRoute, jobToInsert, v, depTime, selectedDriver, bestKnownCost_);
             if (iData instanceof InsertionData.NoInsertionFound) {
-                bestIData.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
+                bestIData.getFailedConstraints().addAll(iData.getFailedConstraints());
                 continue;
             }
             if (iData.getInsertionCost() < bestKnownCost_) {
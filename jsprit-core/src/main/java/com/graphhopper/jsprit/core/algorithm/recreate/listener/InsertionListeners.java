@@ -18,6 +18,7 @@
 package com.graphhopper.jsprit.core.algorithm.recreate.listener;
 
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -83,6 +84,14 @@ public class InsertionListeners {
         }
     }
 
+    public void informJobUnassignedListeners(Job unassigned, FailedConstraints failedConstraints) {
+        for (InsertionListener l : listeners) {
+            if (l instanceof JobUnassignedListener) {
+                ((JobUnassignedListener) l).informJobUnassigned(unassigned, failedConstraints);
+            }
+        }
+    }
+
     public void addListener(InsertionListener insertionListener) {
         listeners.add(insertionListener);
     }
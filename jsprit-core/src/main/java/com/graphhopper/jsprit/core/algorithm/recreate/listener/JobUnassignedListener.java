@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.algorithm.recreate.listener;
 
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.job.Job;
 
 import java.util.Collection;
@@ -29,4 +30,15 @@ public interface JobUnassignedListener extends InsertionListener {
 
     void informJobUnassigned(Job unassigned, Collection<String> failedConstraintNames);
 
+    /**
+     * Informs the listener about a job that could not be inserted. By default, the failed constraints are turned into
+     * their names, listeners that can deal with constraint ids should override this method.
+     *
+     * @param unassigned        the job that could not be inserted
+     * @param failedConstraints the constraints that prevented its insertion
+     */
+    default void informJobUnassigned(Job unassigned, FailedConstraints failedConstraints) {
+        informJobUnassigned(unassigned, failedConstraints.getConstraintNames());
+    }
+
 }
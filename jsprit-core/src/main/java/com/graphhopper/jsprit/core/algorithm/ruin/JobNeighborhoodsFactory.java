@@ -21,6 +21,8 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Created by schroeder on 05/03/15.
  */
@@ -35,4 +37,19 @@ public class JobNeighborhoodsFactory {
         return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
     }
 
+    /**
+     * Creates neighborhoods that are pre-processed concurrently by nuOfThreads tasks of the specified executor, i.e.
+     * jobDistance needs to be thread-safe. If executor is null or nuOfThreads is 1, they are pre-processed sequentially.
+     *
+     * @param vrp         the problem
+     * @param jobDistance the distance between two jobs
+     * @param capacity    the number of neighbors memorized per job
+     * @param executor    the executor that pre-processes the neighborhoods
+     * @param nuOfThreads the number of concurrent tasks
+     * @return job neighborhoods
+     */
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, ExecutorService executor, int nuOfThreads) {
+        return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity, executor, nuOfThreads);
+    }
+
 }
@@ -18,14 +18,23 @@
 
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.EuclideanServiceDistance;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Job;
-import com.graphhopper.jsprit.core.util.StopWatch;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
 /**
  * Created by schroeder on 07/01/15.
@@ -71,6 +80,12 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsOptimized.class);
 
+    //the k-d tree is used if there are at least that many jobs per neighbor
+    static final int MIN_JOBS_PER_NEIGHBOR = 8;
+
+    //relative and absolute tolerance of distances in the k-d tree, covers rounding errors of jobDistance
+    private static final double SLACK = 1e-7;
+
     private VehicleRoutingProblem vrp;
 
     private int[][] neighbors;
@@ -83,12 +98,34 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private double maxDistance = 0.;
 
+    private ExecutorService executorService;
+
+    private int nuOfThreads = 1;
+
     public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        this(vrp, jobDistance, capacity, null, 1);
+    }
+
+    /**
+     * Constructs neighborhoods that are pre-processed concurrently by nuOfThreads tasks of the specified executorService
+     * if nuOfThreads is greater than 1. Then jobDistance is called by several threads, i.e. it needs to be thread-safe.
+     *
+     * @param vrp             the problem
+     * @param jobDistance     the distance between two jobs
+     * @param capacity        the number of neighbors memorized per job
+     * @param executorService the executor that pre-processes neighborhoods, or null to pre-process them sequentially
+     * @param nuOfThreads     the number of concurrent tasks
+     */
+    public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, ExecutorService executorService, int nuOfThreads) {
         super();
         this.vrp = vrp;
         this.jobDistance = jobDistance;
         this.capacity = capacity;
-        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][capacity];
+        if (executorService != null && nuOfThreads > 1) {
+            this.executorService = executorService;
+            this.nuOfThreads = nuOfThreads;
+        }
+        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][];
         jobs = new Job[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1];
         logger.debug("initialize {}", this);
     }
@@ -115,43 +152,184 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         return maxDistance;
     }
 
+    /*
+     * neighbors are the capacity nearest jobs, ties are broken by the position in the job collection of the problem.
+     * jobs are processed concurrently if an executor has been specified.
+     */
     private void calculateDistancesFromJob2Job() {
         logger.debug("pre-process distances between locations ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        for (Job job_i : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-            jobs[job_i.getIndex()] = job_i;
-            List<ReferencedJob> jobList = new ArrayList<ReferencedJob>(vrp.getJobsInclusiveInitialJobsInRoutes().values().size());
-            for (Job job_j : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-                if (job_i == job_j) continue;
-                double distance = jobDistance.getDistance(job_i, job_j);
-                if (distance > maxDistance) maxDistance = distance;
-                ReferencedJob referencedJob = new ReferencedJob(job_j, distance);
-                jobList.add(referencedJob);
-            }
-            Collections.sort(jobList,getComparator());
-            int[] jobIndices = new int[capacity];
-            for(int index=0;index<capacity;index++){
-                jobIndices[index] = jobList.get(index).getJob().getIndex();
-            }
-            neighbors[job_i.getIndex()-1] = jobIndices;
+        final Job[] jobsByPosition = vrp.getJobsInclusiveInitialJobsInRoutes().values().toArray(new Job[0]);
+        for (Job job : jobsByPosition) jobs[job.getIndex()] = job;
+        final int nuOfNeighbors = Math.max(0, Math.min(capacity, jobsByPosition.length - 1));
+        final double[] maxDistances = new double[jobsByPosition.length];
+        final double[][] points = getPoints(jobsByPosition, nuOfNeighbors);
+        if (points == null) {
+            forEachJob(jobsByPosition.length, i -> {
+                int[] positions = new int[jobsByPosition.length - 1];
+                double[] distances = new double[jobsByPosition.length - 1];
+                int size = 0;
+                for (int j = 0; j < jobsByPosition.length; j++) {
+                    if (i == j) continue;
+                    double distance = jobDistance.getDistance(jobsByPosition[i], jobsByPosition[j]);
+                    if (distance > maxDistances[i]) maxDistances[i] = distance;
+                    positions[size] = j;
+                    distances[size++] = distance;
+                }
+                neighbors[jobsByPosition[i].getIndex() - 1] = getNearest(jobsByPosition, positions, distances, size, nuOfNeighbors);
+            });
+        } else {
+            final KdTree kdTree = new KdTree(points);
+            forEachJob(jobsByPosition.length, i -> {
+                double radius = Math.sqrt(kdTree.kthNearestSquaredDistance(points[i], nuOfNeighbors, i)) * (1. + SLACK) + SLACK;
+                int[] positions = kdTree.withinSquaredDistance(points[i], radius * radius, i);
+                double[] distances = new double[positions.length];
+                for (int c = 0; c < positions.length; c++) {
+                    distances[c] = jobDistance.getDistance(jobsByPosition[i], jobsByPosition[positions[c]]);
+                }
+                neighbors[jobsByPosition[i].getIndex() - 1] = getNearest(jobsByPosition, positions, distances, positions.length, nuOfNeighbors);
+                double farthest = Math.max(0., Math.sqrt(kdTree.farthestSquaredDistance(points[i])) * (1. - SLACK) - SLACK);
+                for (int j : kdTree.beyondSquaredDistance(points[i], farthest * farthest)) {
+                    if (i == j) continue;
+                    maxDistances[i] = Math.max(maxDistances[i], jobDistance.getDistance(jobsByPosition[i], jobsByPosition[j]));
+                }
+            });
+        }
+        for (double distance : maxDistances) {
+            if (distance > maxDistance) maxDistance = distance;
         }
         stopWatch.stop();
         logger.debug("pre-processing comp-time: {}", stopWatch);
     }
 
-    private Comparator<ReferencedJob> getComparator(){
-        return new Comparator<ReferencedJob>() {
-            @Override
-            public int compare(ReferencedJob o1, ReferencedJob o2) {
-                if (o1.getDistance() < o2.getDistance()) {
-                    return -1;
-                } else if (o1.getDistance() > o2.getDistance()){
-                    return 1;
+    /*
+     * each task processes a contiguous block of job positions, i.e. tasks never write to the same array elements
+     */
+    private void forEachJob(final int nuOfJobs, final IntConsumer action) {
+        if (executorService == null) {
+            for (int i = 0; i < nuOfJobs; i++) action.accept(i);
+            return;
+        }
+        List<Future<Void>> futures = new ArrayList<>(nuOfThreads);
+        int blockSize = (nuOfJobs + nuOfThreads - 1) / nuOfThreads;
+        for (int from = 0; from < nuOfJobs; from += blockSize) {
+            final int start = from;
+            final int end = Math.min(nuOfJobs, from + blockSize);
+            futures.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = start; i < end; i++) action.accept(i);
+                    return null;
                 }
-                else return 0;
+            }));
+        }
+        try {
+            for (Future<Void> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     * if jobDistance is known to be a monotone function of the distance between points, i.e. the euclidean distance
+     * of plane coordinates or the great circle distance of coordinates on earth, candidates for the nearest neighbors
+     * are determined with a k-d tree. this only pays off if there are considerably less neighbors than jobs.
+     */
+    private double[][] getPoints(Job[] jobsByPosition, int nuOfNeighbors) {
+        if (nuOfNeighbors > jobsByPosition.length / MIN_JOBS_PER_NEIGHBOR) return null;
+        boolean spherical;
+        if (jobDistance.getClass() == EuclideanServiceDistance.class) {
+            spherical = false;
+        } else if (jobDistance.getClass() == AvgServiceAndShipmentDistance.class) {
+            VehicleRoutingTransportCosts costs = ((AvgServiceAndShipmentDistance) jobDistance).getTransportCosts();
+            if (costs == null) return null;
+            if ((costs.getClass() == EuclideanCosts.class || costs.getClass() == CrowFlyCosts.class) && ((EuclideanCosts) costs).detourFactor > 0) {
+                spherical = false;
+            } else if (costs.getClass() == GreatCircleCosts.class && ((GreatCircleCosts) costs).getDetour() > 0) {
+                spherical = true;
+            } else return null;
+        } else return null;
+        double[][] points = new double[jobsByPosition.length][];
+        for (int i = 0; i < jobsByPosition.length; i++) {
+            if (!(jobsByPosition[i] instanceof Service)) return null;
+            Coordinate coordinate = ((Service) jobsByPosition[i]).getLocation().getCoordinate();
+            if (coordinate == null) return null;
+            if (spherical) {
+                //the chord between two points on the unit sphere grows with their great circle distance
+                double lon = Math.toRadians(coordinate.getX());
+                double lat = Math.toRadians(coordinate.getY());
+                points[i] = new double[]{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+            } else {
+                points[i] = new double[]{coordinate.getX(), coordinate.getY()};
             }
-        };
+        }
+        return points;
+    }
+
+    private static int[] getNearest(Job[] jobsByPosition, int[] positions, double[] distances, int size, int nuOfNeighbors) {
+        int k = Math.min(nuOfNeighbors, size);
+        if (k == 0) return new int[0];
+        if (k < size) select(positions, distances, 0, size - 1, k - 1);
+        sort(positions, distances, 0, k - 1);
+        int[] jobIndices = new int[k];
+        for (int index = 0; index < k; index++) {
+            jobIndices[index] = jobsByPosition[positions[index]].getIndex();
+        }
+        return jobIndices;
+    }
+
+    private static boolean isLess(int[] positions, double[] distances, int i, int j) {
+        return distances[i] < distances[j] || (distances[i] == distances[j] && positions[i] < positions[j]);
+    }
+
+    private static void swap(int[] positions, double[] distances, int i, int j) {
+        int position = positions[i];
+        positions[i] = positions[j];
+        positions[j] = position;
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+
+    //moves the entry with position to pivotIndex, the smaller ones left and the greater ones right of it
+    private static int partition(int[] positions, double[] distances, int left, int right, int pivotIndex) {
+        swap(positions, distances, pivotIndex, right);
+        int store = left;
+        for (int i = left; i < right; i++) {
+            if (isLess(positions, distances, i, right)) swap(positions, distances, i, store++);
+        }
+        swap(positions, distances, store, right);
+        return store;
+    }
+
+    //partial selection: afterwards, entries left..k are the k-left+1 smallest ones
+    private static void select(int[] positions, double[] distances, int left, int right, int k) {
+        while (left < right) {
+            int pivot = partition(positions, distances, left, right, (left + right) >>> 1);
+            if (pivot == k) return;
+            if (k < pivot) right = pivot - 1;
+            else left = pivot + 1;
+        }
+    }
+
+    private static void sort(int[] positions, double[] distances, int left, int right) {
+        while (right - left > 16) {
+            int pivot = partition(positions, distances, left, right, (left + right) >>> 1);
+            if (pivot - left < right - pivot) {
+                sort(positions, distances, left, pivot - 1);
+                left = pivot + 1;
+            } else {
+                sort(positions, distances, pivot + 1, right);
+                right = pivot - 1;
+            }
+        }
+        for (int i = left + 1; i <= right; i++) {
+            for (int j = i; j > left && isLess(positions, distances, j, j - 1); j--) swap(positions, distances, j, j - 1);
+        }
     }
 
     @Override
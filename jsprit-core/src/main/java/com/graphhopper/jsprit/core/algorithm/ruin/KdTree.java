@@ -0,0 +1,276 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree over points with an arbitrary number of dimensions. Points are referred to by their index in the
+ * array the tree is built from, distances are euclidean and all queries return squared distances.
+ * <p>
+ * <p>The tree is balanced, i.e. building it takes O(n log n) and a nearest neighbor query about O(k log n). Once built,
+ * it can be queried concurrently.
+ */
+final class KdTree {
+
+    private final double[][] points;
+
+    private final int dimensions;
+
+    //points in tree order: the node of range [from,to) is the point at (from+to)>>>1, its children are the ranges left and right of it
+    private final int[] order;
+
+    //bounding box of each node, indexed by node position * dimensions
+    private final double[] boxMin;
+
+    private final double[] boxMax;
+
+    KdTree(double[][] points) {
+        this.points = points;
+        this.dimensions = points.length == 0 ? 0 : points[0].length;
+        order = new int[points.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        boxMin = new double[points.length * dimensions];
+        boxMax = new double[points.length * dimensions];
+        build(0, points.length, 0);
+    }
+
+    private void build(int from, int to, int depth) {
+        if (from >= to) return;
+        int node = (from + to) >>> 1;
+        int axis = depth % dimensions;
+        select(from, to - 1, node, axis);
+        for (int d = 0; d < dimensions; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = points[order[i]][d];
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            boxMin[node * dimensions + d] = min;
+            boxMax[node * dimensions + d] = max;
+        }
+        build(from, node, depth + 1);
+        build(node + 1, to, depth + 1);
+    }
+
+    //partitions order[left..right] such that order[k] holds the point with the k-th smallest value on the axis
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points[order[(left + right) >>> 1]][axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[order[i]][axis] < pivot) i++;
+                while (points[order[j]][axis] > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+
+    int size() {
+        return points.length;
+    }
+
+    double squaredDistance(int point, double[] query) {
+        double[] p = points[point];
+        double sum = 0.;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = p[d] - query[d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double minSquaredDistance(int node, double[] query) {
+        double sum = 0.;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = 0.;
+            if (query[d] < boxMin[node * dimensions + d]) diff = boxMin[node * dimensions + d] - query[d];
+            else if (query[d] > boxMax[node * dimensions + d]) diff = query[d] - boxMax[node * dimensions + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double maxSquaredDistance(int node, double[] query) {
+        double sum = 0.;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = Math.max(Math.abs(query[d] - boxMin[node * dimensions + d]), Math.abs(query[d] - boxMax[node * dimensions + d]));
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the squared distance of the k-th nearest point to the query point, not counting the excluded point.
+     *
+     * @param query    the query point
+     * @param k        number of neighbors
+     * @param excluded index of the point to be ignored, e.g. the query point itself
+     * @return squared distance of the k-th nearest point or infinity if there are not more than k points
+     */
+    double kthNearestSquaredDistance(double[] query, int k, int excluded) {
+        if (k <= 0) return 0.;
+        //bounded max-heap of the k smallest squared distances found so far
+        double[] heap = new double[k];
+        int[] heapSize = {0};
+        nearest(0, points.length, query, excluded, heap, heapSize);
+        if (heapSize[0] < k) return Double.POSITIVE_INFINITY;
+        return heap[0];
+    }
+
+    private void nearest(int from, int to, double[] query, int excluded, double[] heap, int[] heapSize) {
+        if (from >= to) return;
+        int node = (from + to) >>> 1;
+        boolean full = heapSize[0] == heap.length;
+        if (full && minSquaredDistance(node, query) > heap[0]) return;
+        int point = order[node];
+        if (point != excluded) {
+            double distance = squaredDistance(point, query);
+            if (!full) {
+                heap[heapSize[0]] = distance;
+                siftUp(heap, heapSize[0]++);
+            } else if (distance < heap[0]) {
+                heap[0] = distance;
+                siftDown(heap, heapSize[0]);
+            }
+        }
+        int leftNode = (from + node) >>> 1;
+        int rightNode = (node + 1 + to) >>> 1;
+        boolean leftFirst = from >= node || (node + 1 < to && minSquaredDistance(leftNode, query) <= minSquaredDistance(rightNode, query));
+        if (leftFirst) {
+            nearest(from, node, query, excluded, heap, heapSize);
+            nearest(node + 1, to, query, excluded, heap, heapSize);
+        } else {
+            nearest(node + 1, to, query, excluded, heap, heapSize);
+            nearest(from, node, query, excluded, heap, heapSize);
+        }
+    }
+
+    private static void siftUp(double[] heap, int index) {
+        double value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= value) break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private static void siftDown(double[] heap, int size) {
+        double value = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= value) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Returns the indices of all points whose squared distance to the query point is at most the specified one.
+     *
+     * @param query             the query point
+     * @param maxSquaredDistance max squared distance
+     * @param excluded          index of the point to be ignored
+     * @return indices of the points
+     */
+    int[] withinSquaredDistance(double[] query, double maxSquaredDistance, int excluded) {
+        int[][] result = {new int[16]};
+        int size = within(0, points.length, query, maxSquaredDistance, excluded, result, 0);
+        return Arrays.copyOf(result[0], size);
+    }
+
+    private int within(int from, int to, double[] query, double maxSquaredDistance, int excluded, int[][] result, int size) {
+        if (from >= to) return size;
+        int node = (from + to) >>> 1;
+        if (minSquaredDistance(node, query) > maxSquaredDistance) return size;
+        int point = order[node];
+        if (point != excluded && squaredDistance(point, query) <= maxSquaredDistance) {
+            if (size == result[0].length) result[0] = Arrays.copyOf(result[0], 2 * size);
+            result[0][size++] = point;
+        }
+        size = within(from, node, query, maxSquaredDistance, excluded, result, size);
+        return within(node + 1, to, query, maxSquaredDistance, excluded, result, size);
+    }
+
+    /**
+     * @param query the query point
+     * @return squared distance of the farthest point to the query point
+     */
+    double farthestSquaredDistance(double[] query) {
+        return farthest(0, points.length, query, 0.);
+    }
+
+    private double farthest(int from, int to, double[] query, double farthest) {
+        if (from >= to) return farthest;
+        int node = (from + to) >>> 1;
+        if (maxSquaredDistance(node, query) <= farthest) return farthest;
+        farthest = Math.max(farthest, squaredDistance(order[node], query));
+        farthest = farthest(from, node, query, farthest);
+        return farthest(node + 1, to, query, farthest);
+    }
+
+    /**
+     * Returns the indices of all points whose squared distance to the query point is at least the specified one.
+     *
+     * @param query              the query point
+     * @param minSquaredDistance min squared distance
+     * @return indices of the points
+     */
+    int[] beyondSquaredDistance(double[] query, double minSquaredDistance) {
+        int[][] result = {new int[16]};
+        int size = beyond(0, points.length, query, minSquaredDistance, result, 0);
+        return Arrays.copyOf(result[0], size);
+    }
+
+    private int beyond(int from, int to, double[] query, double minSquaredDistance, int[][] result, int size) {
+        if (from >= to) return size;
+        int node = (from + to) >>> 1;
+        if (maxSquaredDistance(node, query) < minSquaredDistance) return size;
+        int point = order[node];
+        if (squaredDistance(point, query) >= minSquaredDistance) {
+            if (size == result[0].length) result[0] = Arrays.copyOf(result[0], 2 * size);
+            result[0][size++] = point;
+        }
+        size = beyond(from, node, query, minSquaredDistance, result, size);
+        return beyond(node + 1, to, query, minSquaredDistance, result, size);
+    }
+
+}
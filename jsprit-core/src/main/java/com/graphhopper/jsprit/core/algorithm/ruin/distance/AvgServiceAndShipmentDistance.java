@@ -42,6 +42,13 @@ public class AvgServiceAndShipmentDistance implements JobDistance {
 
     }
 
+    /**
+     * @return transport costs distances are based on
+     */
+    public VehicleRoutingTransportCosts getTransportCosts() {
+        return costs;
+    }
+
     /**
      * Calculates and returns the average distance between two jobs based on the input-transport costs.
      * <p>
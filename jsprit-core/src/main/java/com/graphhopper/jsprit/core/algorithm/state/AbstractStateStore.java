@@ -0,0 +1,220 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class of the typed state stores. It owns the layout of the flat state arrays, i.e. the index arithmetic and
+ * how the arrays grow, whereas subclasses only define the array type and the value that represents a missing state.
+ * <p>
+ * <p>Activity states are laid out as [activityIndex][slot] and vehicle-dependent activity states as
+ * [activityIndex][vehicleTypeKey][slot], each in one contiguous array.
+ * <p>
+ * <p>Route states are either mapped to the route itself or, if each vehicle serves at most one route, stored in
+ * arrays indexed by vehicle index.
+ *
+ * @param <A> the array type, e.g. double[]
+ */
+abstract class AbstractStateStore<A> {
+
+    private final int nuActivities;
+
+    private final int nuVehicleTypeKeys;
+
+    private int nuSlots;
+
+    A activityStates;
+
+    A vehicleDependentActivityStates;
+
+    private Map<VehicleRoute, A> routeStates = new HashMap<VehicleRoute, A>();
+
+    private Map<VehicleRoute, A> vehicleDependentRouteStates = new HashMap<VehicleRoute, A>();
+
+    private Object[] indexedRouteStates;
+
+    private Object[] indexedVehicleDependentRouteStates;
+
+    /**
+     * Constructs a store whose route states are indexed by vehicle index if nuVehicleIndices is greater than 0.
+     *
+     * @param nuActivities      number of activity indices
+     * @param nuVehicleTypeKeys number of vehicle type keys
+     * @param nuSlots           number of slots, i.e. states per activity or route
+     * @param nuVehicleIndices  number of vehicle indices, or 0 if route states are mapped to the route itself
+     */
+    AbstractStateStore(int nuActivities, int nuVehicleTypeKeys, int nuSlots, int nuVehicleIndices) {
+        this.nuActivities = nuActivities;
+        this.nuVehicleTypeKeys = nuVehicleTypeKeys;
+        this.nuSlots = nuSlots;
+        activityStates = newArray(nuActivities * nuSlots);
+        vehicleDependentActivityStates = newArray(nuActivities * nuVehicleTypeKeys * nuSlots);
+        if (nuVehicleIndices > 0) {
+            indexedRouteStates = new Object[nuVehicleIndices];
+            indexedVehicleDependentRouteStates = new Object[nuVehicleIndices];
+        }
+    }
+
+    /**
+     * Creates an array of the specified length whose elements are all set to the missing state. This is called from
+     * the constructor, thus it must not depend on instance fields of subclasses.
+     *
+     * @param length the length of the array
+     * @return the new array
+     */
+    abstract A newArray(int length);
+
+    /**
+     * Sets all elements of the specified array to the missing state.
+     *
+     * @param states the array to be reset
+     */
+    abstract void fill(A states);
+
+    int getNuSlots() {
+        return nuSlots;
+    }
+
+    /**
+     * Increases the number of slots to the specified number. States that have already been memorized are kept.
+     *
+     * @param newNuSlots the new number of slots
+     */
+    void ensureNuSlots(int newNuSlots) {
+        if (newNuSlots <= nuSlots) return;
+        activityStates = resize(activityStates, nuActivities, newNuSlots);
+        vehicleDependentActivityStates = resize(vehicleDependentActivityStates, nuActivities * nuVehicleTypeKeys, newNuSlots);
+        for (Map.Entry<VehicleRoute, A> e : routeStates.entrySet()) {
+            e.setValue(resize(e.getValue(), 1, newNuSlots));
+        }
+        for (Map.Entry<VehicleRoute, A> e : vehicleDependentRouteStates.entrySet()) {
+            e.setValue(resize(e.getValue(), nuVehicleTypeKeys, newNuSlots));
+        }
+        if (indexedRouteStates != null) {
+            for (int i = 0; i < indexedRouteStates.length; i++) {
+                if (indexedRouteStates[i] != null) indexedRouteStates[i] = resize(cast(indexedRouteStates[i]), 1, newNuSlots);
+                if (indexedVehicleDependentRouteStates[i] != null) {
+                    indexedVehicleDependentRouteStates[i] = resize(cast(indexedVehicleDependentRouteStates[i]), nuVehicleTypeKeys, newNuSlots);
+                }
+            }
+        }
+        nuSlots = newNuSlots;
+    }
+
+    private A resize(A states, int nuRows, int newNuSlots) {
+        A resized = newArray(nuRows * newNuSlots);
+        for (int row = 0; row < nuRows; row++) {
+            System.arraycopy(states, row * nuSlots, resized, row * newNuSlots, nuSlots);
+        }
+        return resized;
+    }
+
+    final int activityOffset(int activityIndex, int slot) {
+        return activityIndex * nuSlots + slot;
+    }
+
+    final int activityOffset(int activityIndex, int vehicleTypeKey, int slot) {
+        return (activityIndex * nuVehicleTypeKeys + vehicleTypeKey) * nuSlots + slot;
+    }
+
+    final int routeOffset(int vehicleTypeKey, int slot) {
+        return vehicleTypeKey * nuSlots + slot;
+    }
+
+    A getRouteStates(VehicleRoute route) {
+        if (indexedRouteStates != null) return cast(indexedRouteStates[route.getVehicle().getIndex()]);
+        return routeStates.get(route);
+    }
+
+    A getOrCreateRouteStates(VehicleRoute route) {
+        A states = getRouteStates(route);
+        if (states == null) {
+            states = newArray(nuSlots);
+            if (indexedRouteStates != null) indexedRouteStates[route.getVehicle().getIndex()] = states;
+            else routeStates.put(route, states);
+        }
+        return states;
+    }
+
+    A getVehicleDependentRouteStates(VehicleRoute route) {
+        if (indexedVehicleDependentRouteStates != null) return cast(indexedVehicleDependentRouteStates[route.getVehicle().getIndex()]);
+        return vehicleDependentRouteStates.get(route);
+    }
+
+    A getOrCreateVehicleDependentRouteStates(VehicleRoute route) {
+        A states = getVehicleDependentRouteStates(route);
+        if (states == null) {
+            states = newArray(nuVehicleTypeKeys * nuSlots);
+            if (indexedVehicleDependentRouteStates != null) indexedVehicleDependentRouteStates[route.getVehicle().getIndex()] = states;
+            else vehicleDependentRouteStates.put(route, states);
+        }
+        return states;
+    }
+
+    /**
+     * Copies the route states of one vehicle index to another. Only applicable if route states are indexed by
+     * vehicle index.
+     *
+     * @param fromVehicleIndex the vehicle index whose route states are copied
+     * @param toVehicleIndex   the vehicle index the route states are copied to
+     */
+    void copyRouteStates(int fromVehicleIndex, int toVehicleIndex) {
+        indexedRouteStates[toVehicleIndex] = copy(cast(indexedRouteStates[fromVehicleIndex]), nuSlots);
+        indexedVehicleDependentRouteStates[toVehicleIndex] = copy(cast(indexedVehicleDependentRouteStates[fromVehicleIndex]), nuVehicleTypeKeys * nuSlots);
+    }
+
+    /**
+     * Removes the route states of the specified vehicle index. Only applicable if route states are indexed by
+     * vehicle index.
+     *
+     * @param vehicleIndex the vehicle index whose route states are removed
+     */
+    void clearRouteStates(int vehicleIndex) {
+        indexedRouteStates[vehicleIndex] = null;
+        indexedVehicleDependentRouteStates[vehicleIndex] = null;
+    }
+
+    private A copy(A states, int length) {
+        if (states == null) return null;
+        A copy = newArray(length);
+        System.arraycopy(states, 0, copy, 0, length);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private A cast(Object states) {
+        return (A) states;
+    }
+
+    void clear() {
+        fill(activityStates);
+        fill(vehicleDependentActivityStates);
+        routeStates.clear();
+        vehicleDependentRouteStates.clear();
+        if (indexedRouteStates != null) {
+            Arrays.fill(indexedRouteStates, null);
+            Arrays.fill(indexedVehicleDependentRouteStates, null);
+        }
+    }
+
+}
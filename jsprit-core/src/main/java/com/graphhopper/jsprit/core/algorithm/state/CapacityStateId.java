@@ -15,37 +15,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
-package com.graphhopper.jsprit.core.algorithm.recreate;
-
-import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+package com.graphhopper.jsprit.core.algorithm.state;
 
 /**
- * Created by schroeder on 15/10/15.
+ * StateId of a state whose value is a {@link com.graphhopper.jsprit.core.problem.Capacity}.
+ * <p>
+ * <p>Such states are stored in flat typed arrays of the StateManager, i.e. they are neither boxed nor cast when
+ * they are put or retrieved. Use <code>stateManager.createCapacityStateId(name)</code> to create one.
  */
-class VersionedInsertionData {
-
-    private InsertionData iData;
-
-    private VehicleRoute route;
-
-    private int version;
-
-    public VersionedInsertionData(InsertionData iData, int version, VehicleRoute route) {
-        this.iData = iData;
-        this.version = version;
-        this.route = route;
-    }
-
-    public InsertionData getiData() {
-        return iData;
-    }
-
-    public int getVersion() {
-        return version;
-    }
+public interface CapacityStateId extends StateId {
 
-    public VehicleRoute getRoute() {
-        return route;
-    }
 }
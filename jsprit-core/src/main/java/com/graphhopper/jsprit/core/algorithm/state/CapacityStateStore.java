@@ -0,0 +1,95 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.Arrays;
+
+/**
+ * Stores capacity states in flat typed arrays, i.e. without casting. A missing value is represented by
+ * null.
+ *
+ * @see AbstractStateStore
+ */
+class CapacityStateStore extends AbstractStateStore<Capacity[]> {
+
+    static final Capacity NO_STATE = null;
+
+    CapacityStateStore(int nuActivities, int nuVehicleTypeKeys, int nuSlots) {
+        this(nuActivities, nuVehicleTypeKeys, nuSlots, 0);
+    }
+
+    CapacityStateStore(int nuActivities, int nuVehicleTypeKeys, int nuSlots, int nuVehicleIndices) {
+        super(nuActivities, nuVehicleTypeKeys, nuSlots, nuVehicleIndices);
+    }
+
+    @Override
+    Capacity[] newArray(int length) {
+        Capacity[] arr = new Capacity[length];
+        fill(arr);
+        return arr;
+    }
+
+    @Override
+    void fill(Capacity[] states) {
+        Arrays.fill(states, NO_STATE);
+    }
+
+    Capacity getActivityState(int activityIndex, int slot) {
+        return activityStates[activityOffset(activityIndex, slot)];
+    }
+
+    void putActivityState(int activityIndex, int slot, Capacity state) {
+        activityStates[activityOffset(activityIndex, slot)] = state;
+    }
+
+    Capacity getActivityState(int activityIndex, int vehicleTypeKey, int slot) {
+        return vehicleDependentActivityStates[activityOffset(activityIndex, vehicleTypeKey, slot)];
+    }
+
+    void putActivityState(int activityIndex, int vehicleTypeKey, int slot, Capacity state) {
+        vehicleDependentActivityStates[activityOffset(activityIndex, vehicleTypeKey, slot)] = state;
+    }
+
+    Capacity getRouteState(VehicleRoute route, int slot) {
+        Capacity[] states = getRouteStates(route);
+        if (states == null) return NO_STATE;
+        return states[slot];
+    }
+
+    void putRouteState(VehicleRoute route, int slot, Capacity state) {
+        getOrCreateRouteStates(route)[slot] = state;
+    }
+
+    Capacity getRouteState(VehicleRoute route, int vehicleTypeKey, int slot) {
+        Capacity[] states = getVehicleDependentRouteStates(route);
+        if (states == null) return NO_STATE;
+        return states[routeOffset(vehicleTypeKey, slot)];
+    }
+
+    void putRouteState(VehicleRoute route, int vehicleTypeKey, int slot, Capacity state) {
+        getOrCreateVehicleDependentRouteStates(route)[routeOffset(vehicleTypeKey, slot)] = state;
+    }
+
+    static boolean isState(Capacity state) {
+        return state != null;
+    }
+
+}
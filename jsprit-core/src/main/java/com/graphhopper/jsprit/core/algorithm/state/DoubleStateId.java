@@ -0,0 +1,28 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+/**
+ * StateId of a state whose value is a primitive double.
+ * <p>
+ * <p>Such states are stored in flat typed arrays of the StateManager, i.e. they are neither boxed nor cast when
+ * they are put or retrieved. Use <code>stateManager.createDoubleStateId(name)</code> to create one.
+ */
+public interface DoubleStateId extends StateId {
+
+}
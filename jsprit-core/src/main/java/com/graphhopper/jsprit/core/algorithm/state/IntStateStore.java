@@ -0,0 +1,94 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.Arrays;
+
+/**
+ * Stores int states in flat primitive arrays, i.e. without boxing. A missing value is represented by
+ * {@link Integer#MIN_VALUE}, thus this value cannot be memorized as state.
+ *
+ * @see AbstractStateStore
+ */
+class IntStateStore extends AbstractStateStore<int[]> {
+
+    static final int NO_STATE = Integer.MIN_VALUE;
+
+    IntStateStore(int nuActivities, int nuVehicleTypeKeys, int nuSlots) {
+        this(nuActivities, nuVehicleTypeKeys, nuSlots, 0);
+    }
+
+    IntStateStore(int nuActivities, int nuVehicleTypeKeys, int nuSlots, int nuVehicleIndices) {
+        super(nuActivities, nuVehicleTypeKeys, nuSlots, nuVehicleIndices);
+    }
+
+    @Override
+    int[] newArray(int length) {
+        int[] arr = new int[length];
+        fill(arr);
+        return arr;
+    }
+
+    @Override
+    void fill(int[] states) {
+        Arrays.fill(states, NO_STATE);
+    }
+
+    int getActivityState(int activityIndex, int slot) {
+        return activityStates[activityOffset(activityIndex, slot)];
+    }
+
+    void putActivityState(int activityIndex, int slot, int state) {
+        activityStates[activityOffset(activityIndex, slot)] = state;
+    }
+
+    int getActivityState(int activityIndex, int vehicleTypeKey, int slot) {
+        return vehicleDependentActivityStates[activityOffset(activityIndex, vehicleTypeKey, slot)];
+    }
+
+    void putActivityState(int activityIndex, int vehicleTypeKey, int slot, int state) {
+        vehicleDependentActivityStates[activityOffset(activityIndex, vehicleTypeKey, slot)] = state;
+    }
+
+    int getRouteState(VehicleRoute route, int slot) {
+        int[] states = getRouteStates(route);
+        if (states == null) return NO_STATE;
+        return states[slot];
+    }
+
+    void putRouteState(VehicleRoute route, int slot, int state) {
+        getOrCreateRouteStates(route)[slot] = state;
+    }
+
+    int getRouteState(VehicleRoute route, int vehicleTypeKey, int slot) {
+        int[] states = getVehicleDependentRouteStates(route);
+        if (states == null) return NO_STATE;
+        return states[routeOffset(vehicleTypeKey, slot)];
+    }
+
+    void putRouteState(VehicleRoute route, int vehicleTypeKey, int slot, int state) {
+        getOrCreateVehicleDependentRouteStates(route)[routeOffset(vehicleTypeKey, slot)] = state;
+    }
+
+    static boolean isState(int state) {
+        return state != NO_STATE;
+    }
+
+}
@@ -21,25 +21,25 @@ package com.graphhopper.jsprit.core.algorithm.state;
 public class InternalStates {
 
 
-    public final static StateId MAXLOAD = new StateFactory.StateIdImpl("max_load", 0);
+    public final static CapacityStateId MAXLOAD = new StateFactory.CapacityStateIdImpl("max_load", 0);
 
-    public final static StateId LOAD = new StateFactory.StateIdImpl("load", 1);
+    public final static CapacityStateId LOAD = new StateFactory.CapacityStateIdImpl("load", 1);
 
-    public final static StateId COSTS = new StateFactory.StateIdImpl("costs", 2);
+    public final static DoubleStateId COSTS = new StateFactory.DoubleStateIdImpl("costs", 0);
 
-    public final static StateId LOAD_AT_BEGINNING = new StateFactory.StateIdImpl("load_at_beginning", 3);
+    public final static CapacityStateId LOAD_AT_BEGINNING = new StateFactory.CapacityStateIdImpl("load_at_beginning", 2);
 
-    public final static StateId LOAD_AT_END = new StateFactory.StateIdImpl("load_at_end", 4);
+    public final static CapacityStateId LOAD_AT_END = new StateFactory.CapacityStateIdImpl("load_at_end", 3);
 
     public final static StateId DURATION = new StateFactory.StateIdImpl("duration", 5);
 
-    public final static StateId LATEST_OPERATION_START_TIME = new StateFactory.StateIdImpl("latest_operation_start_time", 6);
+    public final static DoubleStateId LATEST_OPERATION_START_TIME = new StateFactory.DoubleStateIdImpl("latest_operation_start_time", 1);
 
     public final static StateId EARLIEST_OPERATION_START_TIME = new StateFactory.StateIdImpl("earliest_operation_start_time", 7);
 
-    public final static StateId FUTURE_MAXLOAD = new StateFactory.StateIdImpl("future_max_load", 8);
+    public final static CapacityStateId FUTURE_MAXLOAD = new StateFactory.CapacityStateIdImpl("future_max_load", 4);
 
-    public final static StateId PAST_MAXLOAD = new StateFactory.StateIdImpl("past_max_load", 9);
+    public final static CapacityStateId PAST_MAXLOAD = new StateFactory.CapacityStateIdImpl("past_max_load", 5);
 
     public static final StateId SKILLS = new StateFactory.StateIdImpl("skills", 10);
 
@@ -47,9 +47,11 @@ public class InternalStates {
 
     public static final StateId TIME_SLACK = new StateFactory.StateIdImpl("time_slack", 12);
 
-    public static final StateId FUTURE_WAITING = new StateFactory.StateIdImpl("future_waiting", 13);
+    public static final DoubleStateId FUTURE_WAITING = new StateFactory.DoubleStateIdImpl("future_waiting", 2);
 
     public static final StateId EARLIEST_WITHOUT_WAITING = new StateFactory.StateIdImpl("earliest_without_waiting", 14);
 
     public static final StateId SWITCH_NOT_FEASIBLE = new StateFactory.StateIdImpl("switch_not_feasible", 15);
+
+    public static final StateId SKILL_SET = new StateFactory.StateIdImpl("skill_set", 16);
 }
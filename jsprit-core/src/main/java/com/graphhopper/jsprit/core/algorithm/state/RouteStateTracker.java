@@ -0,0 +1,131 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks for which routes the memorized states are still up-to-date.
+ * <p>
+ * <p>It assumes that each vehicle serves at most one route (finite fleet), i.e. route states can be indexed by
+ * vehicle index. Whenever the states of a route have been (re)calculated, the route is memorized, i.e. its vehicle,
+ * its departure time, its end location and the version of its activity sequence (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}). Since copies of a
+ * route share this version, a route (or any copy of it) is up-to-date if it has the memorized version and the vehicle
+ * has not been marked dirty since. Checking this is O(1) per route.
+ * <p>
+ * <p>Vehicles are marked dirty if their routes are modified by ruin or insertion, and if one of their activities has
+ * been recalculated in another route, since activity states are indexed by activity index.
+ */
+class RouteStateTracker {
+
+    private static final int NO_VEHICLE = -1;
+
+    private final int[] activityVehicles;
+
+    private final boolean[] upToDate;
+
+    private final Object[] versions;
+
+    private final double[] departureTimes;
+
+    private final Location[] endLocations;
+
+    RouteStateTracker(int nuActivities, int nuVehicles) {
+        activityVehicles = new int[nuActivities];
+        Arrays.fill(activityVehicles, NO_VEHICLE);
+        upToDate = new boolean[nuVehicles];
+        versions = new Object[nuVehicles];
+        departureTimes = new double[nuVehicles];
+        endLocations = new Location[nuVehicles];
+    }
+
+    /**
+     * Returns true if the states memorized for the vehicle of this route still correspond to this route.
+     *
+     * @param route the route to be checked
+     * @return true if states of route are up-to-date, false otherwise
+     */
+    boolean isUpToDate(VehicleRoute route) {
+        int vehicleIndex = route.getVehicle().getIndex();
+        if (!isTracked(vehicleIndex) || !upToDate[vehicleIndex]) return false;
+        if (route.getTourActivities().getVersion() != versions[vehicleIndex]) return false;
+        if (route.getDepartureTime() != departureTimes[vehicleIndex]) return false;
+        return sameLocation(route.getEnd().getLocation(), endLocations[vehicleIndex]);
+    }
+
+    /**
+     * Memorizes the route, i.e. states of this route have just been calculated. Vehicles whose memorized routes
+     * contained one of the activities of this route are marked dirty.
+     *
+     * @param route the route whose states have been calculated
+     */
+    void memorize(VehicleRoute route) {
+        int vehicleIndex = route.getVehicle().getIndex();
+        if (!isTracked(vehicleIndex)) return;
+        List<TourActivity> activities = route.getActivities();
+        for (int position = 0; position < activities.size(); position++) {
+            int actIndex = activities.get(position).getIndex();
+            if (actIndex <= 0 || actIndex >= activityVehicles.length) {
+                invalidate(vehicleIndex);
+                return;
+            }
+            int previousVehicle = activityVehicles[actIndex];
+            if (previousVehicle != vehicleIndex) {
+                if (previousVehicle != NO_VEHICLE) invalidate(previousVehicle);
+                activityVehicles[actIndex] = vehicleIndex;
+            }
+        }
+        versions[vehicleIndex] = route.getTourActivities().getVersion();
+        departureTimes[vehicleIndex] = route.getDepartureTime();
+        endLocations[vehicleIndex] = route.getEnd().getLocation();
+        upToDate[vehicleIndex] = true;
+    }
+
+    /**
+     * Marks the vehicle dirty, i.e. the states memorized for it are not up-to-date anymore.
+     *
+     * @param vehicleIndex the index of the vehicle
+     */
+    void invalidate(int vehicleIndex) {
+        if (!isTracked(vehicleIndex)) return;
+        upToDate[vehicleIndex] = false;
+        versions[vehicleIndex] = null;
+    }
+
+    void invalidateAll() {
+        for (int vehicleIndex = 0; vehicleIndex < upToDate.length; vehicleIndex++) {
+            invalidate(vehicleIndex);
+        }
+    }
+
+    private boolean isTracked(int vehicleIndex) {
+        return vehicleIndex > 0 && vehicleIndex < upToDate.length;
+    }
+
+    private static boolean sameLocation(Location location, Location other) {
+        if (location == other) return true;
+        return location != null && location.equals(other);
+    }
+
+}
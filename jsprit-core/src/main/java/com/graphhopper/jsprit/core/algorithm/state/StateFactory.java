@@ -44,6 +44,21 @@ class StateFactory {
     }
 
 
+    static DoubleStateId createDoubleId(String name, int index) {
+        if (reservedIds.contains(name)) throwReservedIdException(name);
+        return new DoubleStateIdImpl(name, index);
+    }
+
+    static IntStateId createIntId(String name, int index) {
+        if (reservedIds.contains(name)) throwReservedIdException(name);
+        return new IntStateIdImpl(name, index);
+    }
+
+    static CapacityStateId createCapacityId(String name, int index) {
+        if (reservedIds.contains(name)) throwReservedIdException(name);
+        return new CapacityStateIdImpl(name, index);
+    }
+
     static boolean isReservedId(String stateId) {
         return reservedIds.contains(stateId);
     }
@@ -108,4 +123,25 @@ class StateFactory {
             return name;
         }
     }
+
+    static class DoubleStateIdImpl extends StateIdImpl implements DoubleStateId {
+
+        public DoubleStateIdImpl(String name, int index) {
+            super(name, index);
+        }
+    }
+
+    static class IntStateIdImpl extends StateIdImpl implements IntStateId {
+
+        public IntStateIdImpl(String name, int index) {
+            super(name, index);
+        }
+    }
+
+    static class CapacityStateIdImpl extends StateIdImpl implements CapacityStateId {
+
+        public CapacityStateIdImpl(String name, int index) {
+            super(name, index);
+        }
+    }
 }
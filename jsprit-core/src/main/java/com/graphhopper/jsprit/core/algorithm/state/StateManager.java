@@ -18,9 +18,11 @@
 package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
+import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
@@ -41,10 +43,16 @@ import java.util.*;
  * <p>
  * <p>Some condition, rules or constraints are stateful. This StateManager manages these states, i.e. it offers
  * methods to add, store and retrieve states based on the problem, vehicle-routes and tour-activities.
+ * <p>
+ * <p>If the fleet is finite, each vehicle serves at most one route. Then route states are indexed by vehicle index
+ * and states are not cleared at the beginning of each iteration. Instead, only routes that have been modified since
+ * their states were calculated last, are recalculated. State updaters whose states depend on more than the route
+ * itself, e.g. on problem states or external data, need to be added with
+ * {@link #addStateUpdater(StateUpdater, boolean)} to be run on unchanged routes as well.
  *
  * @author schroeder
  */
-public class StateManager implements RouteAndActivityStateGetter, IterationStartsListener, RuinListener, InsertionStartsListener, JobInsertedListener, InsertionEndsListener {
+public class StateManager implements RouteAndActivityStateGetter, IterationStartsListener, RuinListener, InsertionStartsListener, JobInsertedListener, InsertionEndsListener, VehicleSwitchedListener {
 
     private RouteActivityVisitor routeActivityVisitor = new RouteActivityVisitor();
 
@@ -52,6 +60,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private Collection<RouteVisitor> routeVisitors = new ArrayList<RouteVisitor>();
 
+    private RouteActivityVisitor unchangedRouteActivityVisitor = new RouteActivityVisitor();
+
+    private ReverseRouteActivityVisitor unchangedRevRouteActivityVisitor = new ReverseRouteActivityVisitor();
+
+    private Collection<RouteVisitor> unchangedRouteVisitors = new ArrayList<RouteVisitor>();
+
+    private boolean visitUnchangedRoutes = false;
+
     private RuinListeners ruinListeners = new RuinListeners();
 
     private InsertionListeners insertionListeners = new InsertionListeners();
@@ -62,10 +78,26 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private boolean updateTWs = false;
 
+    private boolean skillsRequired = false;
+
+    private final List<UpdateSkills> skillUpdaters = new ArrayList<UpdateSkills>();
+
     private final int initialNoStates = 21;
 
+    private final int initialNoDoubleStates = 3;
+
+    private final int initialNoIntStates = 0;
+
+    private final int initialNoCapacityStates = 6;
+
     private int stateIndexCounter;
 
+    private int doubleStateIndexCounter;
+
+    private int intStateIndexCounter;
+
+    private int capacityStateIndexCounter;
+
     private Map<String, StateId> createdStateIds = new HashMap<String, StateId>();
 
     private int nuActivities;
@@ -86,10 +118,20 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private Object[][][] vehicleDependentRouteStatesArr;
 
+    private DoubleStateStore doubleStates;
+
+    private IntStateStore intStates;
+
+    private CapacityStateStore capacityStates;
+
+    private RouteStateTracker routeStateTracker;
+
     private VehicleRoutingProblem vrp;
 
     private final boolean isIndexedBased;
 
+    private AlgorithmMetrics metrics;
+
     int getMaxIndexOfVehicleTypeIdentifiers() {
         return nuVehicleTypeKeys;
     }
@@ -109,8 +151,11 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         if (stateIndexCounter >= activityStates[0].length) {
             activityStates = new Object[nuActivities][stateIndexCounter + 1];
             vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][stateIndexCounter + 1];
-            routeStatesArr = new Object[vrp.getVehicles().size() + 2][stateIndexCounter+1];
-            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][stateIndexCounter+1];
+            if (isIndexedBased) {
+                routeStatesArr = new Object[routeStatesArr.length][stateIndexCounter + 1];
+                vehicleDependentRouteStatesArr = new Object[routeStatesArr.length][nuVehicleTypeKeys][stateIndexCounter + 1];
+                routeStateTracker.invalidateAll();
+            }
             problemStates = new Object[stateIndexCounter+1];
         }
         StateId id = StateFactory.createId(name, stateIndexCounter);
@@ -123,6 +168,72 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         stateIndexCounter++;
     }
 
+    /**
+     * Creates and returns a stateId whose state values are primitive doubles. These states are memorized in flat
+     * primitive arrays, i.e. neither boxing nor casting is required to put or get them.
+     * <p>
+     * <p>If a stateId with the specified name has already been created, it returns the created stateId.</p>
+     *
+     * @param name the specified name of the state
+     * @return the stateId with which a double state can be identified
+     * @throws java.lang.IllegalStateException if name of state is already used internally or if a stateId with this
+     *                                         name but another type has already been created
+     */
+    public DoubleStateId createDoubleStateId(String name) {
+        if (createdStateIds.containsKey(name)) return getCreatedStateId(name, DoubleStateId.class);
+        doubleStates.ensureNuSlots(doubleStateIndexCounter + 1);
+        DoubleStateId id = StateFactory.createDoubleId(name, doubleStateIndexCounter);
+        doubleStateIndexCounter++;
+        createdStateIds.put(name, id);
+        return id;
+    }
+
+    /**
+     * Creates and returns a stateId whose state values are primitive ints. These states are memorized in flat
+     * primitive arrays, i.e. neither boxing nor casting is required to put or get them.
+     * <p>
+     * <p>Note that <code>Integer.MIN_VALUE</code> indicates that no state is set, thus it cannot be memorized.</p>
+     *
+     * @param name the specified name of the state
+     * @return the stateId with which an int state can be identified
+     * @throws java.lang.IllegalStateException if name of state is already used internally or if a stateId with this
+     *                                         name but another type has already been created
+     */
+    public IntStateId createIntStateId(String name) {
+        if (createdStateIds.containsKey(name)) return getCreatedStateId(name, IntStateId.class);
+        intStates.ensureNuSlots(intStateIndexCounter + 1);
+        IntStateId id = StateFactory.createIntId(name, intStateIndexCounter);
+        intStateIndexCounter++;
+        createdStateIds.put(name, id);
+        return id;
+    }
+
+    /**
+     * Creates and returns a stateId whose state values are capacities. These states are memorized in flat
+     * typed arrays, i.e. no casting is required to put or get them.
+     *
+     * @param name the specified name of the state
+     * @return the stateId with which a capacity state can be identified
+     * @throws java.lang.IllegalStateException if name of state is already used internally or if a stateId with this
+     *                                         name but another type has already been created
+     */
+    public CapacityStateId createCapacityStateId(String name) {
+        if (createdStateIds.containsKey(name)) return getCreatedStateId(name, CapacityStateId.class);
+        capacityStates.ensureNuSlots(capacityStateIndexCounter + 1);
+        CapacityStateId id = StateFactory.createCapacityId(name, capacityStateIndexCounter);
+        capacityStateIndexCounter++;
+        createdStateIds.put(name, id);
+        return id;
+    }
+
+    private <T extends StateId> T getCreatedStateId(String name, Class<T> type) {
+        StateId stateId = createdStateIds.get(name);
+        if (!type.isInstance(stateId)) {
+            throw new IllegalStateException("state-id with name '" + name + "' has already been created, but it is not a " + type.getSimpleName() + ".");
+        }
+        return type.cast(stateId);
+    }
+
 
     /**
      * Constructs the stateManager with the specified VehicleRoutingProblem.
@@ -137,17 +248,25 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         nuVehicleTypeKeys = Math.max(3, getNuVehicleTypes(vrp) + 2);
         activityStates = new Object[nuActivities][initialStateArrayLength];
         vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][initialStateArrayLength];
-//        if(vehicleRoutingProblem.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)){
-//            isIndexedBased = true;
-//            routeStatesArr = new Object[vrp.getVehicles().size() + 2][initialStateArrayLength];
-//            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][initialStateArrayLength];
-//        }
-//        else {
+        int nuVehicleIndices = 0;
+        if (VehicleRoutingProblem.FleetSize.FINITE.equals(vehicleRoutingProblem.getFleetSize())) {
+            isIndexedBased = true;
+            nuVehicleIndices = vrp.getVehicles().size() + 2;
+            routeStatesArr = new Object[nuVehicleIndices][initialStateArrayLength];
+            vehicleDependentRouteStatesArr = new Object[nuVehicleIndices][nuVehicleTypeKeys][initialStateArrayLength];
+            routeStateTracker = new RouteStateTracker(nuActivities, nuVehicleIndices);
+        } else {
             isIndexedBased = false;
             routeStateMap = new HashMap<VehicleRoute, Object[]>();
             vehicleDependentRouteStateMap = new HashMap<VehicleRoute, Object[][]>();
-//        }
+        }
         problemStates = new Object[initialStateArrayLength];
+        doubleStateIndexCounter = initialNoDoubleStates;
+        intStateIndexCounter = initialNoIntStates;
+        capacityStateIndexCounter = initialNoCapacityStates;
+        doubleStates = new DoubleStateStore(nuActivities, nuVehicleTypeKeys, initialNoDoubleStates + 5, nuVehicleIndices);
+        intStates = new IntStateStore(nuActivities, nuVehicleTypeKeys, initialNoIntStates + 5, nuVehicleIndices);
+        capacityStates = new CapacityStateStore(nuActivities, nuVehicleTypeKeys, initialNoCapacityStates + 5, nuVehicleIndices);
     }
 
     private int getNuVehicleTypes(VehicleRoutingProblem vrp) {
@@ -166,8 +285,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @param type    the type of the problem state
      * @param state   the actual state value
      * @param <T>     the type of the state value
+     * @throws IllegalStateException if stateId is a typed state id, since typed state ids are activity and route states only
      */
     public <T> void putProblemState(StateId stateId, Class<T> type, T state) {
+        if (isTyped(stateId)) throw new IllegalStateException(typedProblemStateMessage(stateId));
         problemStates[stateId.getIndex()] = state;
 //         problemStates.putState(stateId, type, state);
     }
@@ -180,8 +301,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @param type    the type class of the state value
      * @param <T>     the type
      * @return the state value that is associated to the specified stateId or null if no value is associated
+     * @throws IllegalStateException if stateId is a typed state id, since typed state ids are activity and route states only
      */
     public <T> T getProblemState(StateId stateId, Class<T> type) {
+        if (isTyped(stateId)) throw new IllegalStateException(typedProblemStateMessage(stateId));
         return type.cast(problemStates[stateId.getIndex()]);
     }
 
@@ -189,6 +312,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * Clears all states, i.e. set all value to null.
      */
     public void clear() {
+        if (isIndexedBased) routeStateTracker.invalidateAll();
         fill_twoDimArr(activityStates, null);
         fill_threeDimArr(vehicleDependentActivityStates, null);
         if(isIndexedBased) {
@@ -200,6 +324,9 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
             vehicleDependentRouteStateMap.clear();
         }
         Arrays.fill(problemStates,null);
+        doubleStates.clear();
+        intStates.clear();
+        capacityStates.clear();
     }
 
     private void fill_threeDimArr(Object[][][] states, Object o) {
@@ -232,13 +359,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public <T> T getActivityState(TourActivity act, StateId stateId, Class<T> type) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null;
-        T state;
+        Object state;
+        if (isTyped(stateId)) state = getTypedActivityState(act, stateId);
+        else state = activityStates[act.getIndex()][stateId.getIndex()];
         try {
-            state = type.cast(activityStates[act.getIndex()][stateId.getIndex()]);
+            return type.cast(state);
         } catch (ClassCastException e) {
-            throw getClassCastException(e, stateId, type.toString(), activityStates[act.getIndex()][stateId.getIndex()].getClass().toString());
+            throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
         }
-        return state;
     }
 
     /**
@@ -252,6 +380,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public boolean hasActivityState(TourActivity act, Vehicle vehicle, StateId stateId) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (isTyped(stateId)) return getTypedActivityState(act, vehicle, stateId) != null;
         return vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
     }
 
@@ -273,14 +402,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public <T> T getActivityState(TourActivity act, Vehicle vehicle, StateId stateId, Class<T> type) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null; //act.getIndex() < 0 indicates that act is either Start (-1) or End (-2)
-        T state;
+        Object state;
+        if (isTyped(stateId)) state = getTypedActivityState(act, vehicle, stateId);
+        else state = vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
         try {
-            state = type.cast(vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
+            return type.cast(state);
         } catch (ClassCastException e) {
-            Object state_class = vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
-            throw getClassCastException(e, stateId, type.toString(), state_class.getClass().toString());
+            throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
         }
-        return state;
     }
 
     private ClassCastException getClassCastException(ClassCastException e, StateId stateId, String requestedTypeClass, String memorizedTypeClass) {
@@ -302,6 +431,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     @Override
     public <T> T getRouteState(VehicleRoute route, StateId stateId, Class<T> type) {
         if (route == null) return null;
+        if (isTyped(stateId)) {
+            Object state = getTypedRouteState(route, stateId);
+            try {
+                return type.cast(state);
+            } catch (ClassCastException e) {
+                throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
+            }
+        }
         T state = null;
         if(isIndexedBased){
             try {
@@ -332,6 +469,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     @SuppressWarnings("UnusedDeclaration")
     public boolean hasRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId) {
+        if (isTyped(stateId)) return getTypedRouteState(route, vehicle, stateId) != null;
+        if (isIndexedBased) {
+            return vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
+        }
         if (!vehicleDependentRouteStateMap.containsKey(route)) return false;
         return vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
 //        return vehicle_dependent_route_states[route.getActivities().get(0).getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
@@ -352,6 +493,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type) {
 //        if (route.isEmpty()) return null;
+        if (isTyped(stateId)) {
+            Object state = getTypedRouteState(route, vehicle, stateId);
+            try {
+                return type.cast(state);
+            } catch (ClassCastException e) {
+                throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
+            }
+        }
         T state = null;
         if(isIndexedBased){
             try {
@@ -385,7 +534,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public <T> void putActivityState(TourActivity act, StateId stateId, T state) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
-        if (stateId.getIndex() < initialNoStates)
+        if (isReserved(stateId))
             throw new IllegalStateException("either you use a reserved stateId that is applied\n" +
                 "internally or your stateId has been created without index, e.g. StateFactory.createId(stateName)\n" +
                 " does not assign indeces thus do not use it anymore, but use\n " +
@@ -408,7 +557,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public <T> void putActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
-        if (stateId.getIndex() < initialNoStates)
+        if (isReserved(stateId))
             throw new IllegalStateException("either you use a reserved stateId that is applied\n" +
                 "internally or your stateId has been created without index, e.g. StateFactory.createId(stateName)\n" +
                 " does not assign indeces thus do not use it anymore, but use\n " +
@@ -418,11 +567,13 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, StateId stateId, T state) {
-        activityStates[act.getIndex()][stateId.getIndex()] = state;
+        if (isTyped(stateId)) putTypedActivityState(act, stateId, state);
+        else activityStates[act.getIndex()][stateId.getIndex()] = state;
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
-        vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
+        if (isTyped(stateId)) putTypedActivityState(act, vehicle, stateId, state);
+        else vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
     }
 
     /**
@@ -436,7 +587,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @throws java.lang.IllegalStateException if stateId is equal to a stateId that is already used internally.
      */
     public <T> void putRouteState(VehicleRoute route, StateId stateId, T state) {
-        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
         putTypedInternalRouteState(route, stateId, state);
     }
 
@@ -453,12 +604,16 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public <T> void putRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, T state) {
         if (vehicle.getIndex() == 0) throw new IllegalStateException("vehicle index is 0. this should not be.");
-        if (stateId.getIndex() < initialNoStates) StateFactory.throwReservedIdException(stateId.toString());
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
         putTypedInternalRouteState(route, vehicle, stateId, state);
     }
 
     <T> void putTypedInternalRouteState(VehicleRoute route, StateId stateId, T state) {
 //        if (route.isEmpty()) return;
+        if (isTyped(stateId)) {
+            putTypedRouteState(route, stateId, state);
+            return;
+        }
         if(isIndexedBased){
             routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()] = state;
         }
@@ -472,6 +627,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     <T> void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, T state) {
 //        if (route.isEmpty()) return;
+        if (isTyped(stateId)) {
+            putTypedRouteState(route, vehicle, stateId, state);
+            return;
+        }
         if(isIndexedBased){
             vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
         }
@@ -484,6 +643,470 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     }
 
+    /**
+     * Returns the double state that is associated to the specified activity and stateId, or the specified default
+     * value if no state is associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the activity state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public double getActivityState(TourActivity act, DoubleStateId stateId, double defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        double state = doubleStates.getActivityState(act.getIndex(), stateId.getIndex());
+        if (DoubleStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the double state that is associated to the specified activity, vehicle and stateId, or the specified
+     * default value if no state is associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the activity state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public double getActivityState(TourActivity act, Vehicle vehicle, DoubleStateId stateId, double defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        double state = doubleStates.getActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+        if (DoubleStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the double state that is associated to the specified route and stateId, or the specified default
+     * value if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the route state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     */
+    @Override
+    public double getRouteState(VehicleRoute route, DoubleStateId stateId, double defaultValue) {
+        if (route == null) return defaultValue;
+        double state = doubleStates.getRouteState(route, stateId.getIndex());
+        if (DoubleStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the double state that is associated to the specified route, vehicle and stateId, or the specified
+     * default value if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the route state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     */
+    @Override
+    public double getRouteState(VehicleRoute route, Vehicle vehicle, DoubleStateId stateId, double defaultValue) {
+        if (route == null) return defaultValue;
+        double state = doubleStates.getRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+        if (DoubleStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the int state that is associated to the specified activity and stateId, or the specified default
+     * value if no state is associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the activity state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public int getActivityState(TourActivity act, IntStateId stateId, int defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        int state = intStates.getActivityState(act.getIndex(), stateId.getIndex());
+        if (IntStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the int state that is associated to the specified activity, vehicle and stateId, or the specified
+     * default value if no state is associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the activity state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public int getActivityState(TourActivity act, Vehicle vehicle, IntStateId stateId, int defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        int state = intStates.getActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+        if (IntStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the int state that is associated to the specified route and stateId, or the specified default
+     * value if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the route state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     */
+    @Override
+    public int getRouteState(VehicleRoute route, IntStateId stateId, int defaultValue) {
+        if (route == null) return defaultValue;
+        int state = intStates.getRouteState(route, stateId.getIndex());
+        if (IntStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the int state that is associated to the specified route, vehicle and stateId, or the specified
+     * default value if no state is associated.
+     *
+     * @param route        the route for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId which is the associated key to the route state
+     * @param defaultValue the value that is returned if no state is associated
+     * @return the associated state value or defaultValue
+     */
+    @Override
+    public int getRouteState(VehicleRoute route, Vehicle vehicle, IntStateId stateId, int defaultValue) {
+        if (route == null) return defaultValue;
+        int state = intStates.getRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+        if (IntStateStore.isState(state)) return state;
+        return defaultValue;
+    }
+
+    /**
+     * Returns the capacity state that is associated to the specified activity and stateId, or null if no state is
+     * associated.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @return the associated capacity or null
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public Capacity getActivityState(TourActivity act, CapacityStateId stateId) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return null;
+        return capacityStates.getActivityState(act.getIndex(), stateId.getIndex());
+    }
+
+    /**
+     * Returns the capacity state that is associated to the specified activity, vehicle and stateId, or null if no
+     * state is associated.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @return the associated capacity or null
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    @Override
+    public Capacity getActivityState(TourActivity act, Vehicle vehicle, CapacityStateId stateId) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return null;
+        return capacityStates.getActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+    }
+
+    /**
+     * Returns the capacity state that is associated to the specified route and stateId, or null if no state is
+     * associated.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @return the associated capacity or null
+     */
+    @Override
+    public Capacity getRouteState(VehicleRoute route, CapacityStateId stateId) {
+        if (route == null) return null;
+        return capacityStates.getRouteState(route, stateId.getIndex());
+    }
+
+    /**
+     * Returns the capacity state that is associated to the specified route, vehicle and stateId, or null if no
+     * state is associated.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @return the associated capacity or null
+     */
+    @Override
+    public Capacity getRouteState(VehicleRoute route, Vehicle vehicle, CapacityStateId stateId) {
+        if (route == null) return null;
+        return capacityStates.getRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex());
+    }
+
+    /**
+     * Associates the specified activity and double stateId to the state value.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putActivityState(TourActivity act, DoubleStateId stateId, double state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalTypedActivityState(act, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity, vehicle and double stateId to the state value.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putActivityState(TourActivity act, Vehicle vehicle, DoubleStateId stateId, double state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalTypedActivityState(act, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified route and double stateId to the state value.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route and stateId
+     * @throws java.lang.IllegalStateException if stateId is used internally
+     */
+    public void putRouteState(VehicleRoute route, DoubleStateId stateId, double state) {
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putTypedInternalRouteState(route, stateId, state);
+    }
+
+    /**
+     * Associates the specified route, vehicle and double stateId to the state value.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route and stateId
+     * @throws java.lang.IllegalStateException if <code>vehicle.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putRouteState(VehicleRoute route, Vehicle vehicle, DoubleStateId stateId, double state) {
+        if (vehicle.getIndex() == 0) throw new IllegalStateException("vehicle index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putTypedInternalRouteState(route, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity and int stateId to the state value.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putActivityState(TourActivity act, IntStateId stateId, int state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalTypedActivityState(act, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity, vehicle and int stateId to the state value.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putActivityState(TourActivity act, Vehicle vehicle, IntStateId stateId, int state) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putInternalTypedActivityState(act, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified route and int stateId to the state value.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route and stateId
+     * @throws java.lang.IllegalStateException if stateId is used internally
+     */
+    public void putRouteState(VehicleRoute route, IntStateId stateId, int state) {
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putTypedInternalRouteState(route, stateId, state);
+    }
+
+    /**
+     * Associates the specified route, vehicle and int stateId to the state value.
+     *
+     * @param route   the route for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the route state
+     * @param state   the state that is associated to the route and stateId
+     * @throws java.lang.IllegalStateException if <code>vehicle.getIndex() == 0</code> or if stateId is used internally
+     */
+    public void putRouteState(VehicleRoute route, Vehicle vehicle, IntStateId stateId, int state) {
+        if (vehicle.getIndex() == 0) throw new IllegalStateException("vehicle index is 0. this should not be.");
+        if (isReserved(stateId)) StateFactory.throwReservedIdException(stateId.toString());
+        putTypedInternalRouteState(route, vehicle, stateId, state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, DoubleStateId stateId, double state) {
+        doubleStates.putActivityState(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, DoubleStateId stateId, double state) {
+        doubleStates.putActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, DoubleStateId stateId, double state) {
+        doubleStates.putRouteState(route, stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, DoubleStateId stateId, double state) {
+        doubleStates.putRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, IntStateId stateId, int state) {
+        intStates.putActivityState(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, IntStateId stateId, int state) {
+        intStates.putActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, IntStateId stateId, int state) {
+        intStates.putRouteState(route, stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, IntStateId stateId, int state) {
+        intStates.putRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, CapacityStateId stateId, Capacity state) {
+        capacityStates.putActivityState(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, CapacityStateId stateId, Capacity state) {
+        capacityStates.putActivityState(act.getIndex(), vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, CapacityStateId stateId, Capacity state) {
+        capacityStates.putRouteState(route, stateId.getIndex(), state);
+    }
+
+    void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, CapacityStateId stateId, Capacity state) {
+        capacityStates.putRouteState(route, vehicle.getVehicleTypeIdentifier().getIndex(), stateId.getIndex(), state);
+    }
+
+    private static String typedProblemStateMessage(StateId stateId) {
+        return "stateId '" + stateId + "' is a " + stateId.getClass().getSimpleName() + ". it cannot be used as problem state. "
+            + "use a state id created with createStateId(name) instead.";
+    }
+
+    private static boolean isTyped(StateId stateId) {
+        return stateId instanceof DoubleStateId || stateId instanceof IntStateId || stateId instanceof CapacityStateId;
+    }
+
+    private boolean isReserved(StateId stateId) {
+        if (stateId instanceof DoubleStateId) return stateId.getIndex() < initialNoDoubleStates;
+        if (stateId instanceof IntStateId) return stateId.getIndex() < initialNoIntStates;
+        if (stateId instanceof CapacityStateId) return stateId.getIndex() < initialNoCapacityStates;
+        return stateId.getIndex() < initialNoStates;
+    }
+
+    /*
+     * the following methods bridge the generic, object-based api to the typed state stores. they box and unbox, and
+     * are thus only used if typed stateIds are put or requested with the generic methods.
+     */
+    private Object getTypedActivityState(TourActivity act, StateId stateId) {
+        if (stateId instanceof DoubleStateId) return box(doubleStates.getActivityState(act.getIndex(), stateId.getIndex()));
+        if (stateId instanceof IntStateId) return box(intStates.getActivityState(act.getIndex(), stateId.getIndex()));
+        return capacityStates.getActivityState(act.getIndex(), stateId.getIndex());
+    }
+
+    private Object getTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId) {
+        int vehicleTypeKey = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (stateId instanceof DoubleStateId) return box(doubleStates.getActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex()));
+        if (stateId instanceof IntStateId) return box(intStates.getActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex()));
+        return capacityStates.getActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex());
+    }
+
+    private Object getTypedRouteState(VehicleRoute route, StateId stateId) {
+        if (stateId instanceof DoubleStateId) return box(doubleStates.getRouteState(route, stateId.getIndex()));
+        if (stateId instanceof IntStateId) return box(intStates.getRouteState(route, stateId.getIndex()));
+        return capacityStates.getRouteState(route, stateId.getIndex());
+    }
+
+    private Object getTypedRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId) {
+        int vehicleTypeKey = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (stateId instanceof DoubleStateId) return box(doubleStates.getRouteState(route, vehicleTypeKey, stateId.getIndex()));
+        if (stateId instanceof IntStateId) return box(intStates.getRouteState(route, vehicleTypeKey, stateId.getIndex()));
+        return capacityStates.getRouteState(route, vehicleTypeKey, stateId.getIndex());
+    }
+
+    private void putTypedActivityState(TourActivity act, StateId stateId, Object state) {
+        if (stateId instanceof DoubleStateId) doubleStates.putActivityState(act.getIndex(), stateId.getIndex(), unboxDouble(state));
+        else if (stateId instanceof IntStateId) intStates.putActivityState(act.getIndex(), stateId.getIndex(), unboxInt(state));
+        else capacityStates.putActivityState(act.getIndex(), stateId.getIndex(), (Capacity) state);
+    }
+
+    private void putTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId, Object state) {
+        int vehicleTypeKey = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (stateId instanceof DoubleStateId) doubleStates.putActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex(), unboxDouble(state));
+        else if (stateId instanceof IntStateId) intStates.putActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex(), unboxInt(state));
+        else capacityStates.putActivityState(act.getIndex(), vehicleTypeKey, stateId.getIndex(), (Capacity) state);
+    }
+
+    private void putTypedRouteState(VehicleRoute route, StateId stateId, Object state) {
+        if (stateId instanceof DoubleStateId) doubleStates.putRouteState(route, stateId.getIndex(), unboxDouble(state));
+        else if (stateId instanceof IntStateId) intStates.putRouteState(route, stateId.getIndex(), unboxInt(state));
+        else capacityStates.putRouteState(route, stateId.getIndex(), (Capacity) state);
+    }
+
+    private void putTypedRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Object state) {
+        int vehicleTypeKey = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (stateId instanceof DoubleStateId) doubleStates.putRouteState(route, vehicleTypeKey, stateId.getIndex(), unboxDouble(state));
+        else if (stateId instanceof IntStateId) intStates.putRouteState(route, vehicleTypeKey, stateId.getIndex(), unboxInt(state));
+        else capacityStates.putRouteState(route, vehicleTypeKey, stateId.getIndex(), (Capacity) state);
+    }
+
+    private static Double box(double state) {
+        if (DoubleStateStore.isState(state)) return state;
+        return null;
+    }
+
+    private static Integer box(int state) {
+        if (IntStateStore.isState(state)) return state;
+        return null;
+    }
+
+    private static double unboxDouble(Object state) {
+        if (state == null) return DoubleStateStore.NO_STATE;
+        return ((Number) state).doubleValue();
+    }
+
+    private static int unboxInt(Object state) {
+        if (state == null) return IntStateStore.NO_STATE;
+        return ((Number) state).intValue();
+    }
+
     /**
      * Adds state updater.
      * <p>
@@ -493,15 +1116,40 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * <p>
      * <p>The following rule pertain for activity/route visitors:These visitors visits all activities/route in a route subsequently in two cases. First, if insertionStart (after ruinStrategies have removed activities from routes)
      * and, second, if a job has been inserted and thus if a route has changed.
+     * <p>
+     * <p>If the fleet is finite, routes that have not changed since their states were calculated last, are not
+     * visited again at insertionStart. Use {@link #addStateUpdater(StateUpdater, boolean)} if the updater needs to
+     * visit these routes as well.
      *
      * @param updater the update to be added
      */
     public void addStateUpdater(StateUpdater updater) {
+        addStateUpdater(updater, false);
+    }
+
+    /**
+     * Adds state updater.
+     * <p>
+     * <p>If visitUnchangedRoutes is true, the updater visits routes at insertionStart even if they have not changed
+     * since their states were calculated last. This is required if the states it calculates do not only depend on
+     * the route itself, but also on problem states or external data. It only makes a difference if the fleet is
+     * finite, since otherwise all routes are visited anyway.
+     *
+     * @param updater              the update to be added
+     * @param visitUnchangedRoutes true if the updater needs to visit unchanged routes as well
+     */
+    public void addStateUpdater(StateUpdater updater, boolean visitUnchangedRoutes) {
         if (updater instanceof ActivityVisitor) addActivityVisitor((ActivityVisitor) updater);
         if (updater instanceof ReverseActivityVisitor) addActivityVisitor((ReverseActivityVisitor) updater);
         if (updater instanceof RouteVisitor) addRouteVisitor((RouteVisitor) updater);
         if (updater instanceof InsertionListener) addListener((InsertionListener) updater);
         if (updater instanceof RuinListener) addListener((RuinListener) updater);
+        if (visitUnchangedRoutes) {
+            if (updater instanceof ActivityVisitor) unchangedRouteActivityVisitor.addActivityVisitor((ActivityVisitor) updater);
+            if (updater instanceof ReverseActivityVisitor) unchangedRevRouteActivityVisitor.addActivityVisitor((ReverseActivityVisitor) updater);
+            if (updater instanceof RouteVisitor) unchangedRouteVisitors.add((RouteVisitor) updater);
+            this.visitUnchangedRoutes = true;
+        }
         updaters.add(updater);
     }
 
@@ -553,36 +1201,79 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         insertionListeners.addListener(insertionListener);
     }
 
+    /**
+     * Sets the metrics the time spent in state updates, i.e. in informing insertion listeners and (re)calculating
+     * route states, is added to.
+     *
+     * @param metrics metrics of the search thread this state manager is used in, or null to switch off recording
+     */
+    public void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
 //		log.debug("insert " + job2insert + " in " + inRoute);
+        long start = metrics != null ? System.nanoTime() : 0;
         insertionListeners.informJobInserted(job2insert, inRoute, additionalCosts, additionalTime);
-        for (RouteVisitor v : routeVisitors) {
-            v.visit(inRoute);
-        }
-        routeActivityVisitor.visit(inRoute);
-        revRouteActivityVisitor.visit(inRoute);
+        update(inRoute);
+        if (metrics != null) metrics.addTime(AlgorithmMetrics.Phase.STATE_UPDATE, System.nanoTime() - start);
     }
 
+    /**
+     * Informs insertion listeners and (re)calculates states of routes.
+     * <p>
+     * <p>If route states are indexed by vehicle index (finite fleet), only routes that have been changed since their
+     * states were calculated last, are visited by all state updaters. Unchanged routes are only visited by updaters
+     * that have been added with {@link #addStateUpdater(StateUpdater, boolean)}.
+     *
+     * @param vehicleRoutes  the routes of the solution
+     * @param unassignedJobs the unassigned jobs
+     */
     @Override
     public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+        long start = metrics != null ? System.nanoTime() : 0;
         insertionListeners.informInsertionStarts(vehicleRoutes, unassignedJobs);
         for (VehicleRoute route : vehicleRoutes) {
-            for (RouteVisitor v : routeVisitors) {
-                v.visit(route);
+            if (isIndexedBased && routeStateTracker.isUpToDate(route)) {
+                if (visitUnchangedRoutes) updateUnchanged(route);
+                continue;
             }
-            routeActivityVisitor.visit(route);
-            revRouteActivityVisitor.visit(route);
+            update(route);
+        }
+        if (metrics != null) metrics.addTime(AlgorithmMetrics.Phase.STATE_UPDATE, System.nanoTime() - start);
+    }
+
+    private void update(VehicleRoute route) {
+        for (RouteVisitor v : routeVisitors) {
+            v.visit(route);
         }
+        routeActivityVisitor.visit(route);
+        revRouteActivityVisitor.visit(route);
+        if (isIndexedBased) routeStateTracker.memorize(route);
+    }
+
+    private void updateUnchanged(VehicleRoute route) {
+        for (RouteVisitor v : unchangedRouteVisitors) {
+            v.visit(route);
+        }
+        unchangedRouteActivityVisitor.visit(route);
+        unchangedRevRouteActivityVisitor.visit(route);
     }
 
     public void reCalculateStates(VehicleRoute route){
+        if (isIndexedBased) routeStateTracker.invalidate(route.getVehicle().getIndex());
         informInsertionStarts(Arrays.asList(route),Collections.<Job>emptyList());
     }
 
+    /**
+     * Clears states at the beginning of each iteration. If route states are indexed by vehicle index, only problem
+     * states are cleared, route and activity states are kept and recalculated on demand.
+     */
     @Override
     public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
-        clear();
+        if (isIndexedBased) Arrays.fill(problemStates, null);
+        else clear();
     }
 
     @Override
@@ -598,9 +1289,38 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     @Override
     public void removed(Job job, VehicleRoute fromRoute) {
+        if (isIndexedBased) routeStateTracker.invalidate(fromRoute.getVehicle().getIndex());
         ruinListeners.removed(job, fromRoute);
     }
 
+    /**
+     * Moves route states to the new vehicle if route states are indexed by vehicle index. A route that had no vehicle
+     * before starts without route states.
+     */
+    @Override
+    public void vehicleSwitched(VehicleRoute vehicleRoute, Vehicle oldVehicle, Vehicle newVehicle) {
+        if (!isIndexedBased) return;
+        int from = oldVehicle.getIndex();
+        int to = newVehicle.getIndex();
+        routeStateTracker.invalidate(from);
+        routeStateTracker.invalidate(to);
+        if (from == 0) {
+            Arrays.fill(routeStatesArr[to], null);
+            fill_twoDimArr(vehicleDependentRouteStatesArr[to], null);
+            doubleStates.clearRouteStates(to);
+            intStates.clearRouteStates(to);
+            capacityStates.clearRouteStates(to);
+        } else {
+            System.arraycopy(routeStatesArr[from], 0, routeStatesArr[to], 0, routeStatesArr[to].length);
+            for (int typeKey = 0; typeKey < nuVehicleTypeKeys; typeKey++) {
+                System.arraycopy(vehicleDependentRouteStatesArr[from][typeKey], 0, vehicleDependentRouteStatesArr[to][typeKey], 0, vehicleDependentRouteStatesArr[to][typeKey].length);
+            }
+            doubleStates.copyRouteStates(from, to);
+            intStates.copyRouteStates(from, to);
+            capacityStates.copyRouteStates(from, to);
+        }
+    }
+
     @Override
     public void informInsertionEnds(Collection<VehicleRoute> vehicleRoutes, Collection<Job> badJobs) {
         insertionListeners.informInsertionEndsListeners(vehicleRoutes, badJobs);
@@ -636,7 +1356,22 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * Updates skill states.
      */
     public void updateSkillStates() {
-        addActivityVisitor(new UpdateSkills(this));
+        UpdateSkills skillUpdater = new UpdateSkills(this, vrp.getSkillIndex());
+        skillUpdater.setSkillsRequired(skillsRequired);
+        skillUpdaters.add(skillUpdater);
+        addActivityVisitor(skillUpdater);
+    }
+
+    /**
+     * Memorizes the required skills of every route as {@link com.graphhopper.jsprit.core.problem.Skills} (see
+     * {@link InternalStates#SKILLS}) if skill states are updated. If the problem has a skill index, only their bitset
+     * is memorized by default (see {@link InternalStates#SKILL_SET}). Thus, call it if required skills are read without
+     * index, e.g. by a {@link com.graphhopper.jsprit.core.problem.constraint.HardSkillConstraint} without index (which
+     * calls it itself).
+     */
+    public void requireSkillsState() {
+        skillsRequired = true;
+        for (UpdateSkills skillUpdater : skillUpdaters) skillUpdater.setSkillsRequired(true);
     }
 
 }
@@ -62,7 +62,7 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
 
     @Override
     public void begin(VehicleRoute route) {
-        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING);
         if (currentLoad == null) currentLoad = defaultValue;
         this.route = route;
     }
@@ -104,11 +104,11 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
     @Override
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
         if (job2insert instanceof Delivery) {
-            Capacity loadAtDepot = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+            Capacity loadAtDepot = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_BEGINNING);
             if (loadAtDepot == null) loadAtDepot = defaultValue;
             stateManager.putTypedInternalRouteState(inRoute, InternalStates.LOAD_AT_BEGINNING, Capacity.addup(loadAtDepot, job2insert.getSize()));
         } else if (job2insert instanceof Pickup || job2insert instanceof Service) {
-            Capacity loadAtEnd = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_END, Capacity.class);
+            Capacity loadAtEnd = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_END);
             if (loadAtEnd == null) loadAtEnd = defaultValue;
             stateManager.putTypedInternalRouteState(inRoute, InternalStates.LOAD_AT_END, Capacity.addup(loadAtEnd, job2insert.getSize()));
         }
@@ -46,13 +46,13 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implement
     @Override
     public void begin(VehicleRoute route) {
         this.route = route;
-        maxLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        maxLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING);
         if (maxLoad == null) maxLoad = defaultValue;
     }
 
     @Override
     public void visit(TourActivity act) {
-        maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
+        maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD));
         stateManager.putInternalTypedActivityState(act, InternalStates.PAST_MAXLOAD, maxLoad);
 //		assert maxLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "maxLoad can never be smaller than 0";
 //		assert maxLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "maxLoad can never be bigger than vehicleCap";
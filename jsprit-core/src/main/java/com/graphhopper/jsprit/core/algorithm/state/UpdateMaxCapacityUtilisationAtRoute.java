@@ -52,7 +52,7 @@ class UpdateMaxCapacityUtilisationAtRoute implements ActivityVisitor, StateUpdat
 
     @Override
     public void begin(VehicleRoute route) {
-        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING);
         if (currentLoad == null) currentLoad = defaultValue;
         maxLoad = currentLoad;
         this.route = route;
@@ -18,13 +18,18 @@
 
 package com.graphhopper.jsprit.core.algorithm.state;
 
+import com.graphhopper.jsprit.core.problem.SkillIndex;
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
- * Update to update required skills on route
+ * Update to update required skills on route.
+ * <p>
+ * <p>Besides the required skills, it memorizes their bitset (see {@link SkillIndex}) if all jobs with required skills
+ * are indexed. With an index, the required skills themselves are only memorized if they are required (see
+ * {@link #setSkillsRequired(boolean)}) or if the route contains jobs that are not indexed.
  */
 public class UpdateSkills implements StateUpdater, ActivityVisitor {
 
@@ -34,27 +39,68 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
 
     private VehicleRoute route;
 
+    private final SkillIndex skillIndex;
+
+    private long[] skillSet;
+
+    private boolean skillsRequired;
+
     public UpdateSkills(StateManager statesManager) {
+        this(statesManager, null);
+    }
+
+    public UpdateSkills(StateManager statesManager, SkillIndex skillIndex) {
         this.statesManager = statesManager;
+        this.skillIndex = skillIndex;
+        this.skillsRequired = skillIndex == null;
+    }
+
+    /**
+     * Sets whether required skills are memorized as {@link Skills} (see {@link InternalStates#SKILLS}) for every
+     * route, e.g. for constraints that do not use the skill index. Without index, they are always memorized.
+     *
+     * @param skillsRequired true if required skills are to be memorized for every route
+     */
+    public void setSkillsRequired(boolean skillsRequired) {
+        this.skillsRequired = skillsRequired || skillIndex == null;
     }
 
     @Override
     public void begin(VehicleRoute route) {
         this.route = route;
-        skillBuilder = Skills.Builder.newInstance();
+        skillBuilder = skillsRequired ? Skills.Builder.newInstance() : null;
+        if (skillIndex != null) skillSet = new long[skillIndex.getNuOfWords()];
     }
 
     @Override
     public void visit(TourActivity activity) {
         if (activity instanceof TourActivity.JobActivity) {
             Skills skills = ((TourActivity.JobActivity) activity).getJob().getRequiredSkills();
-            skillBuilder.addAllSkills(skills.values());
+            if (skills.values().isEmpty()) return;
+            if (skillBuilder != null) skillBuilder.addAllSkills(skills.values());
+            if (skillSet != null) {
+                long[] requiredSkills = skillIndex.getRequiredSkills(((TourActivity.JobActivity) activity).getJob());
+                if (requiredSkills == null) skillSet = null;
+                else SkillIndex.addAll(skillSet, requiredSkills);
+            }
         }
     }
 
     @Override
     public void finish() {
-        Skills skills = skillBuilder.build();
-        statesManager.putTypedInternalRouteState(route, InternalStates.SKILLS, skills);
+        //without bitset, constraints fall back to skills, i.e. they are collected even if they are not required
+        if (skillBuilder == null && skillSet == null) skillBuilder = collectSkills(route);
+        if (skillBuilder != null) statesManager.putTypedInternalRouteState(route, InternalStates.SKILLS, skillBuilder.build());
+        if (skillIndex != null) statesManager.putTypedInternalRouteState(route, InternalStates.SKILL_SET, skillSet);
+    }
+
+    private static Skills.Builder collectSkills(VehicleRoute route) {
+        Skills.Builder skillBuilder = Skills.Builder.newInstance();
+        for (TourActivity activity : route.getActivities()) {
+            if (activity instanceof TourActivity.JobActivity) {
+                skillBuilder.addAllSkills(((TourActivity.JobActivity) activity).getJob().getRequiredSkills().values());
+            }
+        }
+        return skillBuilder;
     }
 }
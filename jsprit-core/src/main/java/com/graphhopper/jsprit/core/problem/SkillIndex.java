@@ -0,0 +1,217 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.problem;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Skills of a {@link VehicleRoutingProblem} interned to integer ids.
+ * <p>
+ * <p>When the problem is built, each skill required by a job or provided by a vehicle gets an id. The skills of jobs
+ * (by job index) and vehicles (by index of their vehicle type key) are then represented as bitsets, i.e. skill i is
+ * contained if bit i % 64 of word i / 64 is set. Additionally, it is precomputed for each job and vehicle type key
+ * whether the vehicle type provides all skills the job requires, such that checking it is a single array lookup.
+ * <p>
+ * <p>Jobs and vehicles that are not part of the problem are not indexed. For them, skills are compared by name.
+ */
+public final class SkillIndex {
+
+    private final Map<String, Integer> skillIds = new HashMap<>();
+
+    private final int nuOfWords;
+
+    private final long[][] requiredSkills;
+
+    private final long[][] vehicleSkills;
+
+    private final long[][] compatibleVehicleTypes;
+
+    SkillIndex(Collection<Job> jobs, Collection<Vehicle> vehicles) {
+        int maxJobIndex = 0;
+        for (Job job : jobs) {
+            for (String skill : job.getRequiredSkills().values()) intern(skill);
+            maxJobIndex = Math.max(maxJobIndex, job.getIndex());
+        }
+        int maxTypeIndex = 0;
+        for (Vehicle vehicle : vehicles) {
+            for (String skill : vehicle.getSkills().values()) intern(skill);
+            maxTypeIndex = Math.max(maxTypeIndex, vehicle.getVehicleTypeIdentifier().getIndex());
+        }
+        nuOfWords = (skillIds.size() + 63) >>> 6;
+        requiredSkills = new long[maxJobIndex + 1][];
+        for (Job job : jobs) {
+            requiredSkills[job.getIndex()] = toBitSet(job.getRequiredSkills());
+        }
+        vehicleSkills = new long[maxTypeIndex + 1][];
+        for (Vehicle vehicle : vehicles) {
+            vehicleSkills[vehicle.getVehicleTypeIdentifier().getIndex()] = toBitSet(vehicle.getSkills());
+        }
+        compatibleVehicleTypes = new long[maxJobIndex + 1][];
+        for (int jobIndex = 0; jobIndex <= maxJobIndex; jobIndex++) {
+            if (requiredSkills[jobIndex] == null) continue;
+            long[] compatibleTypes = new long[(maxTypeIndex + 64) >>> 6];
+            for (int typeIndex = 0; typeIndex <= maxTypeIndex; typeIndex++) {
+                if (vehicleSkills[typeIndex] != null && containsAll(vehicleSkills[typeIndex], requiredSkills[jobIndex])) {
+                    compatibleTypes[typeIndex >>> 6] |= 1L << typeIndex;
+                }
+            }
+            compatibleVehicleTypes[jobIndex] = compatibleTypes;
+        }
+    }
+
+    private void intern(String skill) {
+        if (!skillIds.containsKey(skill)) skillIds.put(skill, skillIds.size());
+    }
+
+    private long[] toBitSet(Skills skills) {
+        long[] bitSet = new long[nuOfWords];
+        for (String skill : skills.values()) {
+            int skillId = skillIds.get(skill);
+            bitSet[skillId >>> 6] |= 1L << skillId;
+        }
+        return bitSet;
+    }
+
+    /**
+     * Returns the number of distinct skills of the problem.
+     *
+     * @return number of skills
+     */
+    public int getNuOfSkills() {
+        return skillIds.size();
+    }
+
+    /**
+     * Returns the number of words of the bitsets of this index, i.e. all bitsets have this length.
+     *
+     * @return number of words
+     */
+    public int getNuOfWords() {
+        return nuOfWords;
+    }
+
+    /**
+     * Returns the id of the specified skill. Like in {@link Skills}, skills are not case sensitive.
+     *
+     * @param skill the skill
+     * @return skill id or -1 if no job and no vehicle of the problem has the skill
+     */
+    public int getSkillId(String skill) {
+        Integer skillId = skillIds.get(skill.trim().toLowerCase());
+        if (skillId == null) return -1;
+        return skillId;
+    }
+
+    /**
+     * Returns the skills required by the specified job as bitset. Do not modify it.
+     *
+     * @param job the job
+     * @return bitset of required skills or null if job is not indexed
+     */
+    public long[] getRequiredSkills(Job job) {
+        int jobIndex = job.getIndex();
+        if (jobIndex < 1 || jobIndex >= requiredSkills.length) return null;
+        return requiredSkills[jobIndex];
+    }
+
+    /**
+     * Returns the skills of the specified vehicle as bitset. Do not modify it.
+     *
+     * @param vehicle the vehicle
+     * @return bitset of skills or null if the vehicle type key of vehicle is not indexed
+     */
+    public long[] getSkills(Vehicle vehicle) {
+        if (vehicle.getVehicleTypeIdentifier() == null) return null;
+        int typeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (typeIndex < 1 || typeIndex >= vehicleSkills.length) return null;
+        return vehicleSkills[typeIndex];
+    }
+
+    /**
+     * Returns true if the specified vehicle has all skills the specified job requires.
+     *
+     * @param job     the job
+     * @param vehicle the vehicle
+     * @return true if vehicle has all required skills of job
+     */
+    public boolean isCompatible(Job job, Vehicle vehicle) {
+        int jobIndex = job.getIndex();
+        if (getSkills(vehicle) != null && jobIndex >= 1 && jobIndex < compatibleVehicleTypes.length && compatibleVehicleTypes[jobIndex] != null) {
+            int typeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+            return (compatibleVehicleTypes[jobIndex][typeIndex >>> 6] & (1L << typeIndex)) != 0;
+        }
+        for (String skill : job.getRequiredSkills().values()) {
+            if (!vehicle.getSkills().containsSkill(skill)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the specified vehicle has all skills of requiredSkills. Unlike {@link #getSkills(Vehicle)}, it
+     * also works if the vehicle type key of vehicle is not indexed.
+     *
+     * @param vehicle        the vehicle
+     * @param requiredSkills bitset of required skills
+     * @return true if vehicle has all skills of requiredSkills
+     */
+    public boolean containsAll(Vehicle vehicle, long[] requiredSkills) {
+        long[] skills = getSkills(vehicle);
+        if (skills == null) {
+            skills = new long[nuOfWords];
+            for (String skill : vehicle.getSkills().values()) {
+                Integer skillId = skillIds.get(skill);
+                if (skillId != null) skills[skillId >>> 6] |= 1L << skillId;
+            }
+        }
+        return containsAll(skills, requiredSkills);
+    }
+
+    /**
+     * Returns true if skills contains all requiredSkills. Both bitsets need to stem from the same index.
+     *
+     * @param skills         bitset of skills
+     * @param requiredSkills bitset of required skills
+     * @return true if all bits of requiredSkills are set in skills
+     */
+    public static boolean containsAll(long[] skills, long[] requiredSkills) {
+        for (int i = 0; i < requiredSkills.length; i++) {
+            if ((requiredSkills[i] & ~skills[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds all skills to target, i.e. target becomes the union of both bitsets. Both bitsets need to stem from the
+     * same index.
+     *
+     * @param target bitset to be extended
+     * @param skills bitset of skills to be added
+     */
+    public static void addAll(long[] target, long[] skills) {
+        for (int i = 0; i < skills.length; i++) {
+            target[i] |= skills[i];
+        }
+    }
+
+}
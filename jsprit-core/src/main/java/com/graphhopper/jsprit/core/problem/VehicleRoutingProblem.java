@@ -554,6 +554,8 @@ public class VehicleRoutingProblem {
 
     private final JobActivityFactory jobActivityFactory = job -> copyAndGetActivities(job);
 
+    private final SkillIndex skillIndex;
+
     private VehicleRoutingProblem(Builder builder) {
         this.jobs = builder.jobs;
         this.fleetSize = builder.fleetSize;
@@ -567,6 +569,7 @@ public class VehicleRoutingProblem {
         this.allLocations = builder.allLocations;
         this.allJobs = new HashMap<>(jobs);
         this.allJobs.putAll(builder.jobsInInitialRoutes);
+        this.skillIndex = new SkillIndex(allJobs.values(), vehicles);
         logger.info("setup problem: {}", this);
     }
 
@@ -671,6 +674,16 @@ public class VehicleRoutingProblem {
         return nuActivities;
     }
 
+    /**
+     * Returns the skills of jobs and vehicles interned to integer ids, as well as the precomputed compatibility of
+     * jobs and vehicle types.
+     *
+     * @return skill index
+     */
+    public SkillIndex getSkillIndex() {
+        return skillIndex;
+    }
+
     /**
      * @return factory that creates the activities associated to a job
      */
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
@@ -25,13 +26,14 @@ import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivity
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Manager that manage hard- and soft constraints, both on route and activity level.
+ * <p>
+ * <p>Hard constraints receive an integer id when they are registered (see {@link #getConstraintId(Class)}). Insertion
+ * calculators record failed constraints by id in {@link FailedConstraints}, i.e. reasons of unassigned jobs are
+ * counted without creating a constraint name per failure.
  *
  * @author schroeder
  */
@@ -44,6 +46,98 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
 
     private static Logger log = LoggerFactory.getLogger(ConstraintManager.class);
 
+    /**
+     * Maximum number of names failures can be reported with (see {@link #getConstraintId(String)}). Ids are never
+     * released, thus further names share one id to bound the number of ids.
+     */
+    public static final int MAX_NO_CONSTRAINT_NAMES = 1024;
+
+    /**
+     * Name of the id that is shared by the names beyond {@link #MAX_NO_CONSTRAINT_NAMES}.
+     */
+    public static final String OTHER_CONSTRAINTS = "OtherConstraints";
+
+    //ids of failures that are reported by name only, e.g. via InsertionData.addFailedConstrainName(String)
+    private static final Map<String, Integer> constraintIdsByName = new HashMap<>();
+
+    private static int otherConstraintsId = -1;
+
+    private static volatile String[] constraintNames = new String[0];
+
+    private static final ClassValue<Integer> constraintIdsByType = new ClassValue<Integer>() {
+
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return newConstraintId(type.getSimpleName());
+        }
+
+    };
+
+    private static synchronized int newConstraintId(String constraintName) {
+        int constraintId = constraintNames.length;
+        String[] names = Arrays.copyOf(constraintNames, constraintId + 1);
+        names[constraintId] = constraintName;
+        constraintNames = names;
+        return constraintId;
+    }
+
+    /**
+     * Returns the id of failures that are only known by name, i.e. that are not reported by a constraint class.
+     * Such ids are distinct from the ids of constraint classes, even if a class has the same simple name (see
+     * {@link #getConstraintName(int)} to aggregate failures by name). Since ids are assigned for the lifetime of the
+     * JVM, only {@link #MAX_NO_CONSTRAINT_NAMES} names get their own id, failures with further names are reported as
+     * {@link #OTHER_CONSTRAINTS}.
+     *
+     * @param constraintName name of the constraint
+     * @return constraint id
+     */
+    public static int getConstraintId(String constraintName) {
+        return getConstraintId(constraintName, MAX_NO_CONSTRAINT_NAMES);
+    }
+
+    static synchronized int getConstraintId(String constraintName, int maxNoConstraintNames) {
+        Integer constraintId = constraintIdsByName.get(constraintName);
+        if (constraintId == null) {
+            if (constraintIdsByName.size() >= maxNoConstraintNames) {
+                if (otherConstraintsId < 0) {
+                    log.warn("failures have been reported with more than " + maxNoConstraintNames + " constraint names. further names are reported as " + OTHER_CONSTRAINTS + ".");
+                    otherConstraintsId = newConstraintId(OTHER_CONSTRAINTS);
+                }
+                return otherConstraintsId;
+            }
+            constraintId = newConstraintId(constraintName);
+            constraintIdsByName.put(constraintName, constraintId);
+        }
+        return constraintId;
+    }
+
+    /**
+     * Returns the id of constraints of the specified type. Ids are assigned consecutively, starting with 0, when a
+     * type is looked up for the first time, and are the same for all constraint managers. Each type gets its own id,
+     * i.e. the number of ids is bounded by the number of constraint classes rather than by the number of problems or
+     * constraint instances. Looking up an id does not involve the type's name except for the first time.
+     *
+     * @param constraintType the constraint's class
+     * @return constraint id
+     */
+    public static int getConstraintId(Class<?> constraintType) {
+        return constraintIdsByType.get(constraintType);
+    }
+
+    /**
+     * Returns the name of the constraint with the specified id.
+     *
+     * @param constraintId constraint id
+     * @return simple name of the constraint's class, or the name failures were reported with
+     * @throws IllegalArgumentException if no constraint has the id
+     */
+    public static String getConstraintName(int constraintId) {
+        String[] names = constraintNames;
+        if (constraintId < 0 || constraintId >= names.length)
+            throw new IllegalArgumentException("there is no constraint with id " + constraintId);
+        return names[constraintId];
+    }
+
     private HardActivityLevelConstraintManager actLevelConstraintManager = new HardActivityLevelConstraintManager();
 
     private HardRouteLevelConstraintManager hardRouteConstraintManager = new HardRouteLevelConstraintManager();
@@ -64,6 +158,8 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
 
     private final DependencyType[] dependencyTypes;
 
+    private AlgorithmMetrics metrics;
+
     public ConstraintManager(VehicleRoutingProblem vrp, RouteAndActivityStateGetter stateManager) {
         this.vrp = vrp;
         this.stateManager = stateManager;
@@ -77,19 +173,36 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
         resolveConstraints(constraints);
     }
 
+    /**
+     * Sets the metrics constraint checks and rejections (per hard constraint) are counted in. Checking route level
+     * constraints counts as insertion evaluation. Insertion calculators that check the constraints one by one, record
+     * them in the metrics returned by {@link #getMetrics()}.
+     *
+     * @param metrics metrics of the search thread this constraint manager is used in, or null to switch off recording
+     */
+    public void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+        actLevelConstraintManager.setMetrics(metrics);
+        hardRouteConstraintManager.setMetrics(metrics);
+    }
+
+    public AlgorithmMetrics getMetrics() {
+        return metrics;
+    }
+
     public Collection<HardRouteConstraint> getHardRouteConstraints() {
         return hardRouteConstraintManager.getConstraints();
     }
 
-    public Collection<HardActivityConstraint> getCriticalHardActivityConstraints() {
+    public List<HardActivityConstraint> getCriticalHardActivityConstraints() {
         return actLevelConstraintManager.getCriticalConstraints();
     }
 
-    public Collection<HardActivityConstraint> getHighPrioHardActivityConstraints() {
+    public List<HardActivityConstraint> getHighPrioHardActivityConstraints() {
         return actLevelConstraintManager.getHighPrioConstraints();
     }
 
-    public Collection<HardActivityConstraint> getLowPrioHardActivityConstraints() {
+    public List<HardActivityConstraint> getLowPrioHardActivityConstraints() {
         return actLevelConstraintManager.getLowPrioConstraints();
     }
 //    public Collection<HardActivityConstraint> getHardActivityConstraints() {
@@ -118,6 +231,7 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
     private void resolveConstraints(Collection<Constraint> constraints) {
         for (Constraint c : constraints) {
             boolean constraintTypeKnown = false;
+            if (c instanceof HardConstraint) getConstraintId(c.getClass());
             if (c instanceof HardActivityConstraint) {
                 actLevelConstraintManager.addConstraint((HardActivityConstraint) c, Priority.HIGH);
                 constraintTypeKnown = true;
@@ -160,7 +274,7 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
 
     public void addSkillsConstraint() {
         if (!skillconstraintSet) {
-            addConstraint(new HardSkillConstraint(stateManager));
+            addConstraint(new HardSkillConstraint(stateManager, vrp.getSkillIndex()));
             skillconstraintSet = true;
         }
     }
@@ -168,10 +282,12 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
 //	public void add
 
     public void addConstraint(HardActivityConstraint actLevelConstraint, Priority priority) {
+        getConstraintId(actLevelConstraint.getClass());
         actLevelConstraintManager.addConstraint(actLevelConstraint, priority);
     }
 
     public void addConstraint(HardRouteConstraint routeLevelConstraint) {
+        getConstraintId(routeLevelConstraint.getClass());
         hardRouteConstraintManager.addConstraint(routeLevelConstraint);
     }
 
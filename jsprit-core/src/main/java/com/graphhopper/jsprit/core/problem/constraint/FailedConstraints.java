@@ -0,0 +1,182 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Counts how often hard constraints failed, e.g. while evaluating the insertion positions of a job in several routes.
+ * Constraints are identified by the ids {@link ConstraintManager} assigns to them (see
+ * {@link ConstraintManager#getConstraintId(Class)}), thus recording a failure only increments a counter. Constraint
+ * names are only looked up if they are asked for.
+ */
+public class FailedConstraints {
+
+    private static final int[] NO_COUNTS = new int[0];
+
+    //number of failures indexed by constraint id
+    private int[] counts = NO_COUNTS;
+
+    /**
+     * Records one failure of the specified constraint.
+     *
+     * @param constraintId id of failed constraint
+     */
+    public void add(int constraintId) {
+        add(constraintId, 1);
+    }
+
+    /**
+     * Records count failures of the specified constraint.
+     *
+     * @param constraintId id of failed constraint
+     * @param count        number of failures
+     */
+    public void add(int constraintId, int count) {
+        if (constraintId >= counts.length) counts = Arrays.copyOf(counts, Math.max(constraintId + 1, 2 * counts.length));
+        counts[constraintId] += count;
+    }
+
+    /**
+     * Adds the failures recorded in failedConstraints.
+     *
+     * @param failedConstraints failures to be added
+     */
+    public void addAll(FailedConstraints failedConstraints) {
+        int[] otherCounts = failedConstraints.counts;
+        for (int constraintId = otherCounts.length - 1; constraintId >= 0; constraintId--) {
+            if (otherCounts[constraintId] != 0) add(constraintId, otherCounts[constraintId]);
+        }
+    }
+
+    /**
+     * Returns the number of failures of the specified constraint.
+     *
+     * @param constraintId id of constraint
+     * @return number of failures
+     */
+    public int getCount(int constraintId) {
+        if (constraintId >= counts.length) return 0;
+        return counts[constraintId];
+    }
+
+    /**
+     * Returns an upper bound of the ids of the failed constraints, i.e. all failed constraints have a smaller id.
+     *
+     * @return upper bound of constraint ids
+     */
+    public int getConstraintIdBound() {
+        return counts.length;
+    }
+
+    public boolean isEmpty() {
+        for (int count : counts) {
+            if (count != 0) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Returns the names of the failed constraints, i.e. the simple names of their classes. Each name is contained as
+     * often as the constraint failed. The list is a view of the failure counts, i.e. it is not created name by name and
+     * it reflects later failures. Adding a name records a failure of the constraint with this name (see
+     * {@link ConstraintManager#getConstraintId(String)}), names are grouped by constraint though, i.e. it is not
+     * necessarily the last element afterwards. Names cannot be removed.
+     *
+     * @return names of failed constraints
+     */
+    public List<String> getConstraintNames() {
+        return new ConstraintNames();
+    }
+
+    private class ConstraintNames extends AbstractList<String> {
+
+        @Override
+        public String get(int index) {
+            int i = index;
+            if (i >= 0) {
+                for (int constraintId = 0; constraintId < counts.length; constraintId++) {
+                    if (i < counts[constraintId]) return ConstraintManager.getConstraintName(constraintId);
+                    i -= counts[constraintId];
+                }
+            }
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int count : counts) size += count;
+            return size;
+        }
+
+        @Override
+        public boolean add(String constraintName) {
+            FailedConstraints.this.add(ConstraintManager.getConstraintId(constraintName));
+            return true;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int constraintId = -1;
+
+                private int remaining = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (remaining == 0 && constraintId + 1 < counts.length) {
+                        constraintId++;
+                        remaining = counts[constraintId];
+                    }
+                    return remaining > 0;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    remaining--;
+                    return ConstraintManager.getConstraintName(constraintId);
+                }
+
+            };
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int constraintId = 0; constraintId < counts.length; constraintId++) {
+            if (counts[constraintId] == 0) continue;
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(ConstraintManager.getConstraintName(constraintId)).append("=").append(counts[constraintId]);
+        }
+        return sb.append("]").toString();
+    }
+
+}
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
@@ -28,11 +29,24 @@ import java.util.List;
 
 class HardActivityLevelConstraintManager implements HardActivityConstraint {
 
-    private Collection<HardActivityConstraint> criticalConstraints = new ArrayList<HardActivityConstraint>();
+    //constraints are evaluated for each insertion position, thus they are iterated by index and the unmodifiable views are created once
+    private final List<HardActivityConstraint> criticalConstraints = new ArrayList<HardActivityConstraint>();
 
-    private Collection<HardActivityConstraint> highPrioConstraints = new ArrayList<HardActivityConstraint>();
+    private final List<HardActivityConstraint> highPrioConstraints = new ArrayList<HardActivityConstraint>();
 
-    private Collection<HardActivityConstraint> lowPrioConstraints = new ArrayList<HardActivityConstraint>();
+    private final List<HardActivityConstraint> lowPrioConstraints = new ArrayList<HardActivityConstraint>();
+
+    private final List<HardActivityConstraint> unmodifiableCriticalConstraints = Collections.unmodifiableList(criticalConstraints);
+
+    private final List<HardActivityConstraint> unmodifiableHighPrioConstraints = Collections.unmodifiableList(highPrioConstraints);
+
+    private final List<HardActivityConstraint> unmodifiableLowPrioConstraints = Collections.unmodifiableList(lowPrioConstraints);
+
+    private AlgorithmMetrics metrics;
+
+    void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public void addConstraint(HardActivityConstraint constraint, ConstraintManager.Priority priority) {
         if (priority.equals(ConstraintManager.Priority.CRITICAL)) {
@@ -44,16 +58,16 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         }
     }
 
-    Collection<HardActivityConstraint> getCriticalConstraints() {
-        return Collections.unmodifiableCollection(criticalConstraints);
+    List<HardActivityConstraint> getCriticalConstraints() {
+        return unmodifiableCriticalConstraints;
     }
 
-    Collection<HardActivityConstraint> getHighPrioConstraints() {
-        return Collections.unmodifiableCollection(highPrioConstraints);
+    List<HardActivityConstraint> getHighPrioConstraints() {
+        return unmodifiableHighPrioConstraints;
     }
 
-    Collection<HardActivityConstraint> getLowPrioConstraints() {
-        return Collections.unmodifiableCollection(lowPrioConstraints);
+    List<HardActivityConstraint> getLowPrioConstraints() {
+        return unmodifiableLowPrioConstraints;
     }
 
     Collection<HardActivityConstraint> getAllConstraints() {
@@ -66,9 +80,10 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
 
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+        if (metrics != null) return fulfilledAndRecorded(iFacts, prevAct, newAct, nextAct, prevActDepTime);
         ConstraintsStatus notFulfilled = null;
-        for (HardActivityConstraint c : criticalConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        for (int i = 0; i < criticalConstraints.size(); i++) {
+            ConstraintsStatus status = criticalConstraints.get(i).fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
                 return status;
             } else {
@@ -79,8 +94,8 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         }
         if (notFulfilled != null) return notFulfilled;
 
-        for (HardActivityConstraint c : highPrioConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        for (int i = 0; i < highPrioConstraints.size(); i++) {
+            ConstraintsStatus status = highPrioConstraints.get(i).fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
                 return status;
             } else {
@@ -91,8 +106,8 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         }
         if (notFulfilled != null) return notFulfilled;
 
-        for (HardActivityConstraint constraint : lowPrioConstraints) {
-            ConstraintsStatus status = constraint.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        for (int i = 0; i < lowPrioConstraints.size(); i++) {
+            ConstraintsStatus status = lowPrioConstraints.get(i).fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
             if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK) || status.equals(ConstraintsStatus.NOT_FULFILLED)) {
                 return status;
             }
@@ -101,4 +116,31 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         return ConstraintsStatus.FULFILLED;
     }
 
+    /*
+    same as fulfilled(...), but counts constraint checks and rejections
+     */
+    private ConstraintsStatus fulfilledAndRecorded(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+        ConstraintsStatus status = fulfilledAndRecorded(criticalConstraints, iFacts, prevAct, newAct, nextAct, prevActDepTime, true);
+        if (!status.equals(ConstraintsStatus.FULFILLED)) return status;
+        status = fulfilledAndRecorded(highPrioConstraints, iFacts, prevAct, newAct, nextAct, prevActDepTime, true);
+        if (!status.equals(ConstraintsStatus.FULFILLED)) return status;
+        return fulfilledAndRecorded(lowPrioConstraints, iFacts, prevAct, newAct, nextAct, prevActDepTime, false);
+    }
+
+    private ConstraintsStatus fulfilledAndRecorded(List<HardActivityConstraint> constraints, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, boolean checkAll) {
+        ConstraintsStatus notFulfilled = ConstraintsStatus.FULFILLED;
+        int nuOfChecks = 0;
+        while (nuOfChecks < constraints.size()) {
+            HardActivityConstraint constraint = constraints.get(nuOfChecks++);
+            ConstraintsStatus status = constraint.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            if (!status.equals(ConstraintsStatus.FULFILLED)) {
+                metrics.countRejection(constraint);
+                notFulfilled = status;
+                if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK) || !checkAll) break;
+            }
+        }
+        metrics.countConstraintChecks(nuOfChecks);
+        return notFulfilled;
+    }
+
 }
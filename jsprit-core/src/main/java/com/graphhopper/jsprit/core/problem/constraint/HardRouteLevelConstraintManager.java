@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.metrics.AlgorithmMetrics;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 
 import java.util.ArrayList;
@@ -28,6 +29,12 @@ class HardRouteLevelConstraintManager implements HardRouteConstraint {
 
     private Collection<HardRouteConstraint> hardConstraints = new ArrayList<HardRouteConstraint>();
 
+    private AlgorithmMetrics metrics;
+
+    void setMetrics(AlgorithmMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void addConstraint(HardRouteConstraint constraint) {
         hardConstraints.add(constraint);
     }
@@ -38,11 +45,27 @@ class HardRouteLevelConstraintManager implements HardRouteConstraint {
 
     @Override
     public boolean fulfilled(JobInsertionContext insertionContext) {
+        if (metrics != null) return fulfilledAndRecorded(insertionContext);
+        for (HardRouteConstraint constraint : hardConstraints) {
+            if (!constraint.fulfilled(insertionContext)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fulfilledAndRecorded(JobInsertionContext insertionContext) {
+        metrics.countInsertionEvaluation();
+        int nuOfChecks = 0;
         for (HardRouteConstraint constraint : hardConstraints) {
+            nuOfChecks++;
             if (!constraint.fulfilled(insertionContext)) {
+                metrics.countConstraintChecks(nuOfChecks);
+                metrics.countRejection(constraint);
                 return false;
             }
         }
+        metrics.countConstraintChecks(nuOfChecks);
         return true;
     }
 
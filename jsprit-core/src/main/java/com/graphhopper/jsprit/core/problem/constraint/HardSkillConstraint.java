@@ -19,34 +19,68 @@
 package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.SkillIndex;
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
 /**
  * SkillConstraint that ensures that only vehicles with according skills can serve route and job to be inserted.
+ * <p>
+ * <p>If a {@link SkillIndex} is specified, skills of indexed jobs, vehicles and routes are compared as bitsets.
+ * Without index, required skills of routes are read as {@link Skills}, which are only memorized for all routes if
+ * {@link StateManager#requireSkillsState()} has been called. Thus, the constraint calls it if it has no index and its
+ * states are provided by a {@link StateManager}.
  */
 public class HardSkillConstraint implements HardRouteConstraint {
 
-    private static final Skills defaultSkills = Skills.Builder.newInstance().build();
-
     private RouteAndActivityStateGetter states;
 
+    private final SkillIndex skillIndex;
+
     public HardSkillConstraint(RouteAndActivityStateGetter states) {
+        this(states, null);
+    }
+
+    public HardSkillConstraint(RouteAndActivityStateGetter states, SkillIndex skillIndex) {
         this.states = states;
+        this.skillIndex = skillIndex;
+        if (skillIndex == null && states instanceof StateManager) ((StateManager) states).requireSkillsState();
     }
 
     @Override
     public boolean fulfilled(JobInsertionContext insertionContext) {
-        for (String skill : insertionContext.getJob().getRequiredSkills().values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
-                return false;
-            }
+        if (skillIndex != null) {
+            Vehicle newVehicle = insertionContext.getNewVehicle();
+            if (!skillIndex.isCompatible(insertionContext.getJob(), newVehicle)) return false;
+            long[] requiredSkillsForRoute = states.getRouteState(insertionContext.getRoute(), InternalStates.SKILL_SET, long[].class);
+            if (requiredSkillsForRoute != null) return skillIndex.containsAll(newVehicle, requiredSkillsForRoute);
+            return routeSkillsFulfilled(insertionContext);
         }
+        if (!hasSkills(insertionContext.getNewVehicle(), insertionContext.getJob().getRequiredSkills())) return false;
+        return routeSkillsFulfilled(insertionContext);
+    }
+
+    private boolean routeSkillsFulfilled(JobInsertionContext insertionContext) {
         Skills requiredSkillsForRoute = states.getRouteState(insertionContext.getRoute(), InternalStates.SKILLS, Skills.class);
-        if (requiredSkillsForRoute == null) requiredSkillsForRoute = defaultSkills;
-        for (String skill : requiredSkillsForRoute.values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
+        if (requiredSkillsForRoute == null) {
+            //skills have not been memorized (yet), e.g. since the route has not been updated after creating this constraint
+            for (TourActivity act : insertionContext.getRoute().getActivities()) {
+                if (act instanceof TourActivity.JobActivity && !hasSkills(insertionContext.getNewVehicle(), ((TourActivity.JobActivity) act).getJob().getRequiredSkills())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return hasSkills(insertionContext.getNewVehicle(), requiredSkillsForRoute);
+    }
+
+    private static boolean hasSkills(Vehicle vehicle, Skills requiredSkills) {
+        for (String skill : requiredSkills.values()) {
+            if (!vehicle.getSkills().containsSkill(skill)) {
                 return false;
             }
         }
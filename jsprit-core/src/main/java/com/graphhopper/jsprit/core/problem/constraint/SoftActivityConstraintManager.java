@@ -23,10 +23,11 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 class SoftActivityConstraintManager implements SoftActivityConstraint {
 
-    private Collection<SoftActivityConstraint> softConstraints = new ArrayList<SoftActivityConstraint>();
+    private final List<SoftActivityConstraint> softConstraints = new ArrayList<SoftActivityConstraint>();
 
     public void addConstraint(SoftActivityConstraint constraint) {
         softConstraints.add(constraint);
@@ -39,8 +40,8 @@ class SoftActivityConstraintManager implements SoftActivityConstraint {
     @Override
     public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
         double sumCosts = 0.0;
-        for (SoftActivityConstraint c : softConstraints) {
-            sumCosts += c.getCosts(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        for (int i = 0; i < softConstraints.size(); i++) {
+            sumCosts += softConstraints.get(i).getCosts(iFacts, prevAct, newAct, nextAct, prevActDepTime);
         }
         return sumCosts;
     }
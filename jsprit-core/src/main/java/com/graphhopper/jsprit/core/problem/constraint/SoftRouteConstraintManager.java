@@ -22,10 +22,11 @@ import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 class SoftRouteConstraintManager implements SoftRouteConstraint {
 
-    private Collection<SoftRouteConstraint> softConstraints = new ArrayList<SoftRouteConstraint>();
+    private final List<SoftRouteConstraint> softConstraints = new ArrayList<SoftRouteConstraint>();
 
     public void addConstraint(SoftRouteConstraint constraint) {
         softConstraints.add(constraint);
@@ -38,8 +39,8 @@ class SoftRouteConstraintManager implements SoftRouteConstraint {
     @Override
     public double getCosts(JobInsertionContext insertionContext) {
         double sumCosts = 0.0;
-        for (SoftRouteConstraint c : softConstraints) {
-            sumCosts += c.getCosts(insertionContext);
+        for (int i = 0; i < softConstraints.size(); i++) {
+            sumCosts += softConstraints.get(i).getCosts(insertionContext);
         }
         return sumCosts;
     }
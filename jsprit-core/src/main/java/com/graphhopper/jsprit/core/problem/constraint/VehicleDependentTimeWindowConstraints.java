@@ -49,7 +49,7 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
         double latestVehicleArrival = iFacts.getNewVehicle().getLatestArrival();
-        Double latestArrTimeAtNextAct;
+        double latestArrTimeAtNextAct;
         Location nextActLocation;
         if (nextAct instanceof End) {
             latestArrTimeAtNextAct = latestVehicleArrival;
@@ -58,10 +58,8 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
                 nextActLocation = newAct.getLocation();
             }
         } else {
-            latestArrTimeAtNextAct = states.getActivityState(nextAct, iFacts.getNewVehicle(), InternalStates.LATEST_OPERATION_START_TIME, Double.class);
-            if (latestArrTimeAtNextAct == null) {//otherwise set it to theoretical_latest_operation_startTime
-                latestArrTimeAtNextAct = nextAct.getTheoreticalLatestOperationStartTime();
-            }
+            //if no state is available, it is set to theoretical_latest_operation_startTime
+            latestArrTimeAtNextAct = states.getActivityState(nextAct, iFacts.getNewVehicle(), InternalStates.LATEST_OPERATION_START_TIME, nextAct.getTheoreticalLatestOperationStartTime());
             nextActLocation = nextAct.getLocation();
         }
 
@@ -0,0 +1,134 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * SolutionCostCalculator that sums up route costs and costs of unassigned jobs, and that does not re-evaluate routes
+ * which have not changed since they were last evaluated.
+ * <p>
+ * <p>Since the search copies solutions before ruin and recreate, routes cannot be recognized by identity. Instead, the
+ * costs of a route are memorized together with the version of its activities (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}), which is shared by
+ * copies and renewed whenever activities are added or removed, its vehicle, its driver, its end location, the end time
+ * of its start and the arrival time at its end. If all this is unchanged when a route (or any copy of it) is evaluated
+ * again, the memorized costs are returned. Checking this is O(1) per route, thus routes untouched by ruin and recreate
+ * are neither re-evaluated nor traversed.
+ * <p>
+ * <p>Route costs must therefore only depend on the properties listed above and on activity times that are derived from
+ * them (which is the case if they are calculated from transport and activity costs and times are updated by the
+ * StateManager). Recalculated times are recognized by the start and end times of the route.
+ */
+public abstract class IncrementalSolutionCostCalculator implements SolutionCostCalculator {
+
+    private static class RouteCosts {
+
+        private final Object version;
+
+        private final Vehicle vehicle;
+
+        private final Driver driver;
+
+        private final Location endLocation;
+
+        private final double startEndTime;
+
+        private final double endArrTime;
+
+        private final double costs;
+
+        private RouteCosts(VehicleRoute route, double costs) {
+            this.version = route.getTourActivities().getVersion();
+            this.vehicle = route.getVehicle();
+            this.driver = route.getDriver();
+            this.endLocation = route.getEnd().getLocation();
+            this.startEndTime = route.getStart().getEndTime();
+            this.endArrTime = route.getEnd().getArrTime();
+            this.costs = costs;
+        }
+
+        private boolean isValidFor(VehicleRoute route) {
+            if (route.getTourActivities().getVersion() != version) return false;
+            if (route.getVehicle() != vehicle || !sameDriver(route.getDriver(), driver)) return false;
+            if (route.getStart().getEndTime() != startEndTime) return false;
+            if (route.getEnd().getArrTime() != endArrTime) return false;
+            Location location = route.getEnd().getLocation();
+            return location == endLocation || (location != null && location.equals(endLocation));
+        }
+
+        //drivers are not unique objects, e.g. each new route gets its own instance of NoDriver
+        private static boolean sameDriver(Driver driver, Driver other) {
+            if (driver == other) return true;
+            if (driver == null || other == null) return false;
+            return driver.getClass() == other.getClass() && driver.getId().equals(other.getId());
+        }
+    }
+
+    //memorized route costs indexed by the index of the route's first activity
+    private final RouteCosts[] routeCosts;
+
+    public IncrementalSolutionCostCalculator(VehicleRoutingProblem vrp) {
+        this.routeCosts = new RouteCosts[vrp.getNuActivities()];
+    }
+
+    @Override
+    public double getCosts(VehicleRoutingProblemSolution solution) {
+        double costs = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            costs += getCachedRouteCosts(route);
+        }
+        for (Job job : solution.getUnassignedJobs()) {
+            costs += getUnassignedJobCosts(job);
+        }
+        return costs;
+    }
+
+    private double getCachedRouteCosts(VehicleRoute route) {
+        if (route.isEmpty()) return getRouteCosts(route);
+        int index = route.getActivities().get(0).getIndex();
+        if (index <= 0 || index >= routeCosts.length) return getRouteCosts(route);
+        RouteCosts memorized = routeCosts[index];
+        if (memorized != null && memorized.isValidFor(route)) return memorized.costs;
+        double costs = getRouteCosts(route);
+        routeCosts[index] = new RouteCosts(route, costs);
+        return costs;
+    }
+
+    /**
+     * Returns the costs of the specified route.
+     *
+     * @param route the route to be evaluated
+     * @return route costs
+     */
+    protected abstract double getRouteCosts(VehicleRoute route);
+
+    /**
+     * Returns the penalty for not assigning the specified job.
+     *
+     * @param job the unassigned job
+     * @return costs of the unassigned job
+     */
+    protected abstract double getUnassignedJobCosts(Job job);
+
+}
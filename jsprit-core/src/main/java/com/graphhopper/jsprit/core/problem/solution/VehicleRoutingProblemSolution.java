@@ -38,7 +38,22 @@ public class VehicleRoutingProblemSolution {
      * @return solution
      */
     public static VehicleRoutingProblemSolution copyOf(VehicleRoutingProblemSolution solution2copy) {
-        return new VehicleRoutingProblemSolution(solution2copy);
+        return new VehicleRoutingProblemSolution(solution2copy, false);
+    }
+
+    /**
+     * Makes a copy of the solution whose routes are copied lazily, i.e. activities of a route are not copied before
+     * the route (or the route it has been copied from) is modified (see {@link VehicleRoute#lazyCopyOf(VehicleRoute)}).
+     * <p>
+     * <p>Use this if only a few routes are modified afterwards, e.g. in ruin and recreate. Since unmodified routes share
+     * activities with the specified solution, the copy must be confined to the thread that owns this solution. Use
+     * {@link #copyOf(VehicleRoutingProblemSolution)} if solutions are accessed by several threads.
+     *
+     * @param solution2copy solution to be copied
+     * @return solution
+     */
+    public static VehicleRoutingProblemSolution lazyCopyOf(VehicleRoutingProblemSolution solution2copy) {
+        return new VehicleRoutingProblemSolution(solution2copy, true);
     }
 
     private final Collection<VehicleRoute> routes;
@@ -47,10 +62,10 @@ public class VehicleRoutingProblemSolution {
 
     private double cost;
 
-    private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution) {
+    private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution, boolean lazy) {
         routes = new ArrayList<VehicleRoute>();
         for (VehicleRoute r : solution.getRoutes()) {
-            VehicleRoute route = VehicleRoute.copyOf(r);
+            VehicleRoute route = lazy ? VehicleRoute.lazyCopyOf(r) : VehicleRoute.copyOf(r);
             routes.add(route);
         }
         this.cost = solution.getCost();
@@ -48,6 +48,22 @@ public class VehicleRoute {
         return new VehicleRoute(route);
     }
 
+    /**
+     * Returns a copy of this vehicleRoute whose activities are copied lazily, i.e. not before the activity sequence of
+     * either route is modified (see {@link TourActivities#lazyCopyOf(TourActivities)}). Start and end are copied
+     * immediately.
+     * <p>
+     * <p>The copy must be confined to the thread that owns the specified route, since both share activities.
+     *
+     * @param route route to copy
+     * @return copied route
+     * @throws IllegalArgumentException if route is null
+     */
+    public static VehicleRoute lazyCopyOf(VehicleRoute route) {
+        if (route == null) throw new IllegalArgumentException("route must not be null");
+        return new VehicleRoute(route, TourActivities.lazyCopyOf(route.getTourActivities()));
+    }
+
     /**
      * Returns an empty route.
      * <p>
@@ -341,9 +357,13 @@ public class VehicleRoute {
      * @param route to copy
      */
     private VehicleRoute(VehicleRoute route) {
+        this(route, TourActivities.copyOf(route.getTourActivities()));
+    }
+
+    private VehicleRoute(VehicleRoute route, TourActivities tourActivities) {
         this.start = Start.copyOf(route.getStart());
         this.end = End.copyOf(route.getEnd());
-        this.tourActivities = TourActivities.copyOf(route.getTourActivities());
+        this.tourActivities = tourActivities;
         this.vehicle = route.getVehicle();
         this.driver = route.getDriver();
     }
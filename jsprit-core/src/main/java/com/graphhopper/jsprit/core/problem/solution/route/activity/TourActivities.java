@@ -33,6 +33,29 @@ public class TourActivities {
         return new TourActivities(tourActivities);
     }
 
+    /**
+     * Returns a copy that shares activities (and jobs) with the specified tourActivities until one of both is modified.
+     * The first modification of either of them then duplicates its activities, i.e. it is a copy-on-write copy.
+     * <p>
+     * <p>This is cheap if only a few copies get modified afterwards (as it is the case in ruin and recreate).
+     * <p>
+     * <p>Note that unmodified copies share activity objects, thus state updates of one copy write arrival and end
+     * times into activities of the other. A lazy copy and the sequence it has been copied from must therefore be
+     * confined to the same thread. Use {@link #copyOf(TourActivities)} to hand a copy over to another thread.
+     *
+     * @param tourActivities to be copied
+     * @return copy-on-write copy of tourActivities
+     */
+    public static TourActivities lazyCopyOf(TourActivities tourActivities) {
+        TourActivities copy = new TourActivities();
+        copy.tourActivities.addAll(tourActivities.tourActivities);
+        copy.jobs = tourActivities.jobs;
+        copy.version = tourActivities.version;
+        copy.shared = true;
+        tourActivities.shared = true;
+        return copy;
+    }
+
     public static class ReverseActivityIterator implements Iterator<TourActivity> {
 
         private List<TourActivity> acts;
@@ -68,16 +91,25 @@ public class TourActivities {
 
     private final ArrayList<TourActivity> tourActivities = new ArrayList<>();
 
-    private final Set<Job> jobs = new HashSet<>();
+    private Set<Job> jobs = new HashSet<>();
+
+    //true if activities and jobs might be shared with a lazy copy
+    private boolean shared = false;
 
     private ReverseActivityIterator backward;
 
+    private static final Object EMPTY = new Object();
+
+    //identifies the activity sequence, i.e. it is renewed on each modification and shared by copies
+    private Object version = EMPTY;
+
     private TourActivities(TourActivities tour2copy) {
         for (TourActivity tourAct : tour2copy.getActivities()) {
             TourActivity newAct = tourAct.duplicate();
             this.tourActivities.add(newAct);
             addJob(newAct);
         }
+        version = tour2copy.version;
     }
 
     public TourActivities() {
@@ -108,7 +140,9 @@ public class TourActivities {
                     throw new IllegalStateException("Cannot remove JobActivities via iterator. "
                         + "Use TourActivities.removeActivity(), or alternatively, consider TourActivities.removeJob()");
                 } else {
+                    unshare();
                     iterator.remove();
+                    modified();
                 }
             }
         };
@@ -118,6 +152,21 @@ public class TourActivities {
         return (tourActivities.size() == 0);
     }
 
+    /**
+     * Returns the version of this activity sequence. A new version is created on each modification, whereas copies
+     * (lazy or not) share the version of the sequence they have been copied from. Thus, activity sequences with the
+     * same version consist of equal activities in the same order. All empty sequences share the same version.
+     *
+     * @return the version, only to be compared by identity
+     */
+    public Object getVersion() {
+        return version;
+    }
+
+    private void modified() {
+        version = tourActivities.isEmpty() ? EMPTY : new Object();
+    }
+
     public Collection<Job> getJobs() {
         return Collections.unmodifiableSet(jobs);
     }
@@ -148,6 +197,7 @@ public class TourActivities {
         if (!jobs.contains(job)) {
             return false;
         } else {
+            unshare();
             jobRemoved = jobs.remove(job);
         }
         boolean activityRemoved = false;
@@ -163,6 +213,7 @@ public class TourActivities {
             }
         }
         assert jobRemoved == activityRemoved : "job removed, but belonging activity not.";
+        if (activityRemoved) modified();
         return activityRemoved;
     }
 
@@ -176,9 +227,17 @@ public class TourActivities {
      * @return true if activity has been removed, false otherwise
      */
     public boolean removeActivity(TourActivity activity) {
+        if (shared) {
+            int position = indexOf(activity);
+            if (position < 0) return false;
+            unshare();
+            activity = tourActivities.get(position);
+        }
         if (!(activity instanceof JobActivity)) {
             //assumes that an activity can be added only once to tourActivities
-            return tourActivities.remove(activity);
+            boolean removed = tourActivities.remove(activity);
+            if (removed) modified();
+            return removed;
         }
 
         Job job = ((JobActivity) activity).getJob();
@@ -187,6 +246,7 @@ public class TourActivities {
         for (TourActivity act : new ArrayList<>(tourActivities)) {
             if (act == activity) {
                 tourActivities.remove(act);
+                modified();
                 if (jobIsAlsoAssociateToOtherActs) {
                     // other activities also refer to job --> do not remove job
                     // thus no need to iterate any further
@@ -224,6 +284,7 @@ public class TourActivities {
     public void addActivity(int insertionIndex, TourActivity act) {
 
         assert insertionIndex >= 0 : "insertionIndex < 0, this cannot be";
+        unshare();
 
 		/*
          * if 1 --> between start and act(0) --> act(0)
@@ -238,6 +299,7 @@ public class TourActivities {
             tourActivities.add(act);
         }
         addJob(act);
+        modified();
     }
 
     /**
@@ -250,8 +312,30 @@ public class TourActivities {
     public void addActivity(TourActivity act) {
         if (tourActivities.contains(act))
             throw new IllegalArgumentException("act " + act + " already in tour. cannot add act twice.");
+        unshare();
         tourActivities.add(act);
         addJob(act);
+        modified();
+    }
+
+    /**
+     * Duplicates shared activities and jobs before this activity sequence is modified. Activities are replaced in place,
+     * i.e. lists returned by getActivities() remain valid.
+     */
+    private void unshare() {
+        if (!shared) return;
+        for (int i = 0; i < tourActivities.size(); i++) {
+            tourActivities.set(i, tourActivities.get(i).duplicate());
+        }
+        jobs = new HashSet<>(jobs);
+        shared = false;
+    }
+
+    private int indexOf(TourActivity activity) {
+        for (int i = 0; i < tourActivities.size(); i++) {
+            if (tourActivities.get(i) == activity) return i;
+        }
+        return -1;
     }
 
     private void addJob(TourActivity act) {
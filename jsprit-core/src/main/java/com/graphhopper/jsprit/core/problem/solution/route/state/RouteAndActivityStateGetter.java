@@ -17,7 +17,11 @@
  */
 package com.graphhopper.jsprit.core.problem.solution.route.state;
 
+import com.graphhopper.jsprit.core.algorithm.state.CapacityStateId;
+import com.graphhopper.jsprit.core.algorithm.state.DoubleStateId;
+import com.graphhopper.jsprit.core.algorithm.state.IntStateId;
 import com.graphhopper.jsprit.core.algorithm.state.StateId;
+import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -33,4 +37,65 @@ public interface RouteAndActivityStateGetter {
 
     public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type);
 
+    /*
+     * The typed getters below fall back to the generic lookups by default. Implementations that store typed states
+     * in primitive form, such as the StateManager, override them to avoid boxing.
+     */
+
+    default double getActivityState(TourActivity act, DoubleStateId stateId, double defaultValue) {
+        Double state = getActivityState(act, stateId, Double.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default double getActivityState(TourActivity act, Vehicle vehicle, DoubleStateId stateId, double defaultValue) {
+        Double state = getActivityState(act, vehicle, stateId, Double.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default double getRouteState(VehicleRoute route, DoubleStateId stateId, double defaultValue) {
+        Double state = getRouteState(route, stateId, Double.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default double getRouteState(VehicleRoute route, Vehicle vehicle, DoubleStateId stateId, double defaultValue) {
+        Double state = getRouteState(route, vehicle, stateId, Double.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default int getActivityState(TourActivity act, IntStateId stateId, int defaultValue) {
+        Integer state = getActivityState(act, stateId, Integer.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default int getActivityState(TourActivity act, Vehicle vehicle, IntStateId stateId, int defaultValue) {
+        Integer state = getActivityState(act, vehicle, stateId, Integer.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default int getRouteState(VehicleRoute route, IntStateId stateId, int defaultValue) {
+        Integer state = getRouteState(route, stateId, Integer.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default int getRouteState(VehicleRoute route, Vehicle vehicle, IntStateId stateId, int defaultValue) {
+        Integer state = getRouteState(route, vehicle, stateId, Integer.class);
+        return state == null ? defaultValue : state;
+    }
+
+    default Capacity getActivityState(TourActivity act, CapacityStateId stateId) {
+        return getActivityState(act, stateId, Capacity.class);
+    }
+
+    default Capacity getActivityState(TourActivity act, Vehicle vehicle, CapacityStateId stateId) {
+        return getActivityState(act, vehicle, stateId, Capacity.class);
+    }
+
+    default Capacity getRouteState(VehicleRoute route, CapacityStateId stateId) {
+        return getRouteState(route, stateId, Capacity.class);
+    }
+
+    default Capacity getRouteState(VehicleRoute route, Vehicle vehicle, CapacityStateId stateId) {
+        return getRouteState(route, vehicle, stateId, Capacity.class);
+    }
+
 }
@@ -0,0 +1,341 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+
+/**
+ * Memory efficient alternative to {@link FastVehicleRoutingTransportCostsMatrix}. Like the latter, values are looked up
+ * by {@link Location#getIndex()}.
+ * <p>
+ * <p>Distances and times are each memorized in one contiguous primitive array. If the matrix is symmetric, only the
+ * upper triangle (including the diagonal) is memorized, i.e. n*(n+1)/2 instead of n*n values. To further reduce the
+ * memory footprint, values can be memorized as floats or as quantized ints (see {@link StorageType}).
+ * <p>
+ * <p>Since arrays are indexed by int, the number of memorized values per metric must not exceed Integer.MAX_VALUE, i.e.
+ * about 46k locations for asymmetric and 65k locations for symmetric matrices.
+ */
+public class CompactVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+
+    /**
+     * Type of primitive values the matrix is memorized with.
+     */
+    public enum StorageType {
+
+        /**
+         * 8 bytes per value, no loss of precision.
+         */
+        DOUBLE,
+
+        /**
+         * 4 bytes per value, about 7 significant digits.
+         */
+        FLOAT,
+
+        /**
+         * 4 bytes per value, values are rounded to a multiple of the specified resolution (see
+         * {@link Builder#setResolution(double)}).
+         */
+        INT
+    }
+
+    /**
+     * Builder that builds the matrix.
+     */
+    public static class Builder {
+
+        private final int noLocations;
+
+        private final boolean isSymmetric;
+
+        private StorageType storageType = StorageType.DOUBLE;
+
+        private double resolution = 1.;
+
+        private Values distances;
+
+        private Values times;
+
+        /**
+         * Creates a new builder returning the matrix-builder.
+         * <p>If you want to consider symmetric matrices, set isSymmetric to true.
+         *
+         * @param noLocations number of locations, i.e. location indices go from 0 to noLocations - 1
+         * @param isSymmetric true if matrix is symmetric, false otherwise
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations, boolean isSymmetric) {
+            return new Builder(noLocations, isSymmetric);
+        }
+
+        private Builder(int noLocations, boolean isSymmetric) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            if (getNoValues(noLocations, isSymmetric) > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("too many locations (" + noLocations + "). matrix cannot be memorized in one array.");
+            }
+            this.noLocations = noLocations;
+            this.isSymmetric = isSymmetric;
+        }
+
+        /**
+         * Sets the type of primitive values the matrix is memorized with. Default is {@link StorageType#DOUBLE}.
+         * <p>It needs to be set before any value is added.
+         *
+         * @param storageType the storage type
+         * @return builder
+         */
+        public Builder setStorageType(StorageType storageType) {
+            if (distances != null || times != null)
+                throw new IllegalStateException("storage type must be set before values are added");
+            this.storageType = storageType;
+            return this;
+        }
+
+        /**
+         * Sets the resolution of values if they are memorized as ints, e.g. 0.1 memorizes values with one decimal place.
+         * Default is 1.0. Values then need to be smaller than Integer.MAX_VALUE * resolution.
+         * <p>It needs to be set before any value is added.
+         *
+         * @param resolution the resolution of int values
+         * @return builder
+         */
+        public Builder setResolution(double resolution) {
+            if (resolution <= 0.) throw new IllegalArgumentException("resolution must be positive");
+            if (distances != null || times != null)
+                throw new IllegalStateException("resolution must be set before values are added");
+            this.resolution = resolution;
+            return this;
+        }
+
+        /**
+         * Adds a transport-distance for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param distance  the distance to be added
+         * @return builder
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            if (distances == null) distances = newValues();
+            distances.set(index(fromIndex, toIndex, noLocations, isSymmetric), distance);
+            return this;
+        }
+
+        /**
+         * Adds transport-time for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param time      the time to be added
+         * @return builder
+         */
+        public Builder addTransportTime(int fromIndex, int toIndex, double time) {
+            if (times == null) times = newValues();
+            times.set(index(fromIndex, toIndex, noLocations, isSymmetric), time);
+            return this;
+        }
+
+        public Builder addTransportTimeAndDistance(int fromIndex, int toIndex, double time, double distance) {
+            addTransportTime(fromIndex, toIndex, time);
+            addTransportDistance(fromIndex, toIndex, distance);
+            return this;
+        }
+
+        private Values newValues() {
+            int noValues = (int) getNoValues(noLocations, isSymmetric);
+            if (storageType == StorageType.FLOAT) return new FloatValues(noValues);
+            if (storageType == StorageType.INT) return new IntValues(noValues, resolution);
+            return new DoubleValues(noValues);
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         */
+        public CompactVehicleRoutingTransportCostsMatrix build() {
+            return new CompactVehicleRoutingTransportCostsMatrix(this);
+        }
+
+    }
+
+    private static abstract class Values {
+
+        abstract double get(int index);
+
+        abstract void set(int index, double value);
+
+    }
+
+    private static class DoubleValues extends Values {
+
+        private final double[] values;
+
+        DoubleValues(int noValues) {
+            values = new double[noValues];
+        }
+
+        @Override
+        double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, double value) {
+            values[index] = value;
+        }
+    }
+
+    private static class FloatValues extends Values {
+
+        private final float[] values;
+
+        FloatValues(int noValues) {
+            values = new float[noValues];
+        }
+
+        @Override
+        double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, double value) {
+            values[index] = (float) value;
+        }
+    }
+
+    private static class IntValues extends Values {
+
+        private final int[] values;
+
+        private final double resolution;
+
+        IntValues(int noValues, double resolution) {
+            values = new int[noValues];
+            this.resolution = resolution;
+        }
+
+        @Override
+        double get(int index) {
+            return values[index] * resolution;
+        }
+
+        @Override
+        void set(int index, double value) {
+            long quantized = Math.round(value / resolution);
+            if (quantized > Integer.MAX_VALUE || quantized < Integer.MIN_VALUE) {
+                throw new IllegalArgumentException("value " + value + " cannot be memorized as int with resolution " + resolution);
+            }
+            values[index] = (int) quantized;
+        }
+    }
+
+    static long getNoValues(int noLocations, boolean isSymmetric) {
+        if (isSymmetric) return (long) noLocations * (noLocations + 1) / 2;
+        return (long) noLocations * noLocations;
+    }
+
+    /**
+     * Returns the position of the relation in a flat array. Symmetric matrices are packed row by row as upper
+     * triangle including the diagonal.
+     */
+    static int index(int from, int to, int noLocations, boolean isSymmetric) {
+        if (!isSymmetric) return from * noLocations + to;
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        return (int) ((long) from * noLocations - (long) from * (from + 1) / 2 + to);
+    }
+
+    private final int noLocations;
+
+    private final boolean isSymmetric;
+
+    private final Values distances;
+
+    private final Values times;
+
+    private CompactVehicleRoutingTransportCostsMatrix(Builder builder) {
+        noLocations = builder.noLocations;
+        isSymmetric = builder.isSymmetric;
+        distances = builder.distances;
+        times = builder.times;
+    }
+
+    /**
+     * Returns the distance from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        if (distances == null) return 0.;
+        return distances.get(index(fromIndex, toIndex, noLocations, isSymmetric));
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        if (times == null) return 0.;
+        return times.get(index(fromIndex, toIndex, noLocations, isSymmetric));
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+}
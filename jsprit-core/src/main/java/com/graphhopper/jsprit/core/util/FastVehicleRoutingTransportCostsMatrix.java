@@ -165,6 +165,18 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
         return get(fromIndex, toIndex, distanceIndex);
     }
 
+    /**
+     * Returns the transport time from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        int timeIndex = 1;
+        return get(fromIndex, toIndex, timeIndex);
+    }
+
     @Override
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
         return getDistance(from.getIndex(), to.getIndex());
@@ -183,5 +195,9 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
         return noLocations;
     }
 
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
 
 }
@@ -49,6 +49,10 @@ public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCost
         this.detour = detour;
     }
 
+    public double getDetour() {
+        return detour;
+    }
+
     private DistanceUnit distanceUnit = DistanceUnit.Kilometer;
 
    public GreatCircleCosts() {
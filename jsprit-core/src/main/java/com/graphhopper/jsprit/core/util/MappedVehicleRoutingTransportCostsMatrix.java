@@ -0,0 +1,416 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.CompactVehicleRoutingTransportCostsMatrix.StorageType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Transport costs matrix that is read from a binary file which is memory-mapped, i.e. values are kept off-heap and
+ * loaded lazily by the operating system. Several JVMs reading the same file share the OS page cache. Like
+ * {@link FastVehicleRoutingTransportCostsMatrix}, values are looked up by {@link Location#getIndex()}.
+ * <p>
+ * <p>Files are written with {@link Writer}. The file format is (big-endian):
+ * <pre>
+ * offset  type    content
+ * 0       int     magic number 0x4A4D5458 ("JMTX")
+ * 4       int     format version (1)
+ * 8       int     number of locations n
+ * 12      int     flags, bit 0 is set if matrix is symmetric
+ * 16      int     storage type, 0 = double (8 bytes), 1 = float (4 bytes), 2 = int (4 bytes)
+ * 20      int     reserved (0)
+ * 24      double  resolution of int values, i.e. value = storedInt * resolution
+ * 32      ...     distances
+ * ...     ...     times
+ * </pre>
+ * Distances and times are each one block of values. If the matrix is asymmetric, a block contains n*n values row by
+ * row (from-index major). If it is symmetric, it contains n*(n+1)/2 values, i.e. the upper triangle including the
+ * diagonal row by row.
+ */
+public class MappedVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+
+    static final int MAGIC_NUMBER = 0x4A4D5458;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    private static final int SEGMENT_BITS = 30;
+
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Writes a matrix file that can be read by {@link MappedVehicleRoutingTransportCostsMatrix#newInstance(File)}.
+     * Values are directly written to the memory-mapped file, i.e. a matrix does not need to fit into heap to be
+     * written. Relations that are not added are 0.
+     */
+    public static class Writer implements Closeable {
+
+        /**
+         * Creates a new writer.
+         * <p>If you want to consider symmetric matrices, set isSymmetric to true.
+         *
+         * @param file        the file to be written, an existing file is overwritten
+         * @param noLocations number of locations, i.e. location indices go from 0 to noLocations - 1
+         * @param isSymmetric true if matrix is symmetric, false otherwise
+         * @return writer
+         */
+        public static Writer newInstance(File file, int noLocations, boolean isSymmetric) {
+            return new Writer(file, noLocations, isSymmetric);
+        }
+
+        private final File file;
+
+        private final int noLocations;
+
+        private final boolean isSymmetric;
+
+        private StorageType storageType = StorageType.DOUBLE;
+
+        private double resolution = 1.;
+
+        private MappedByteBuffer[] segments;
+
+        private long noValues;
+
+        private Writer(File file, int noLocations, boolean isSymmetric) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            this.file = file;
+            this.noLocations = noLocations;
+            this.isSymmetric = isSymmetric;
+        }
+
+        /**
+         * Sets the type of values in file. Default is {@link StorageType#DOUBLE}.
+         * <p>It needs to be set before any value is added.
+         *
+         * @param storageType the storage type
+         * @return writer
+         */
+        public Writer setStorageType(StorageType storageType) {
+            if (segments != null) throw new IllegalStateException("storage type must be set before values are added");
+            this.storageType = storageType;
+            return this;
+        }
+
+        /**
+         * Sets the resolution of values if they are memorized as ints, e.g. 0.1 memorizes values with one decimal place.
+         * Default is 1.0.
+         * <p>It needs to be set before any value is added.
+         *
+         * @param resolution the resolution of int values
+         * @return writer
+         */
+        public Writer setResolution(double resolution) {
+            if (resolution <= 0.) throw new IllegalArgumentException("resolution must be positive");
+            if (segments != null) throw new IllegalStateException("resolution must be set before values are added");
+            this.resolution = resolution;
+            return this;
+        }
+
+        /**
+         * Adds a transport-distance for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param distance  the distance to be added
+         * @return writer
+         * @throws IOException if file cannot be created
+         */
+        public Writer addTransportDistance(int fromIndex, int toIndex, double distance) throws IOException {
+            put(0, fromIndex, toIndex, distance);
+            return this;
+        }
+
+        /**
+         * Adds transport-time for a particular relation.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param time      the time to be added
+         * @return writer
+         * @throws IOException if file cannot be created
+         */
+        public Writer addTransportTime(int fromIndex, int toIndex, double time) throws IOException {
+            put(1, fromIndex, toIndex, time);
+            return this;
+        }
+
+        public Writer addTransportTimeAndDistance(int fromIndex, int toIndex, double time, double distance) throws IOException {
+            addTransportTime(fromIndex, toIndex, time);
+            addTransportDistance(fromIndex, toIndex, distance);
+            return this;
+        }
+
+        private void put(int block, int fromIndex, int toIndex, double value) throws IOException {
+            if (segments == null) createFile();
+            long offset = offset(block, index(fromIndex, toIndex, noLocations, isSymmetric), noValues, storageType);
+            MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+            int position = (int) (offset & SEGMENT_MASK);
+            if (storageType == StorageType.DOUBLE) segment.putDouble(position, value);
+            else if (storageType == StorageType.FLOAT) segment.putFloat(position, (float) value);
+            else {
+                long quantized = Math.round(value / resolution);
+                if (quantized > Integer.MAX_VALUE || quantized < Integer.MIN_VALUE) {
+                    throw new IllegalArgumentException("value " + value + " cannot be memorized as int with resolution " + resolution);
+                }
+                segment.putInt(position, (int) quantized);
+            }
+        }
+
+        private void createFile() throws IOException {
+            noValues = CompactVehicleRoutingTransportCostsMatrix.getNoValues(noLocations, isSymmetric);
+            long fileSize = HEADER_SIZE + 2 * noValues * getBytesPerValue(storageType);
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                randomAccessFile.setLength(0);
+                randomAccessFile.setLength(fileSize);
+                segments = map(randomAccessFile.getChannel(), FileChannel.MapMode.READ_WRITE, fileSize);
+            } finally {
+                randomAccessFile.close();
+            }
+            ByteBuffer header = segments[0];
+            header.putInt(0, MAGIC_NUMBER);
+            header.putInt(4, VERSION);
+            header.putInt(8, noLocations);
+            header.putInt(12, isSymmetric ? 1 : 0);
+            header.putInt(16, getCode(storageType));
+            header.putInt(20, 0);
+            header.putDouble(24, resolution);
+        }
+
+        /**
+         * Flushes all values to the file. The writer cannot be used afterwards.
+         *
+         * @throws IOException if file cannot be created
+         */
+        @Override
+        public void close() throws IOException {
+            if (segments == null) createFile();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        /**
+         * Writes the specified matrix to file.
+         *
+         * @param matrix the matrix to be written
+         * @param file   the file to be written
+         * @throws IOException if file cannot be written
+         */
+        public static void write(FastVehicleRoutingTransportCostsMatrix matrix, File file) throws IOException {
+            Writer writer = newInstance(file, matrix.getNoLocations(), matrix.isSymmetric());
+            double[][][] values = matrix.getMatrix();
+            for (int from = 0; from < matrix.getNoLocations(); from++) {
+                for (int to = matrix.isSymmetric() ? from : 0; to < matrix.getNoLocations(); to++) {
+                    writer.addTransportTimeAndDistance(from, to, values[from][to][1], values[from][to][0]);
+                }
+            }
+            writer.close();
+        }
+
+        /**
+         * Writes the specified matrix to file, values are written with double precision.
+         *
+         * @param matrix the matrix to be written
+         * @param file   the file to be written
+         * @throws IOException if file cannot be written
+         */
+        public static void write(CompactVehicleRoutingTransportCostsMatrix matrix, File file) throws IOException {
+            Writer writer = newInstance(file, matrix.getNoLocations(), matrix.isSymmetric());
+            for (int from = 0; from < matrix.getNoLocations(); from++) {
+                for (int to = matrix.isSymmetric() ? from : 0; to < matrix.getNoLocations(); to++) {
+                    writer.addTransportTimeAndDistance(from, to, matrix.getTransportTime(from, to), matrix.getDistance(from, to));
+                }
+            }
+            writer.close();
+        }
+
+    }
+
+    /**
+     * Maps the specified matrix file into memory.
+     *
+     * @param file the matrix file written by {@link Writer}
+     * @return the matrix
+     * @throws IOException              if file cannot be read
+     * @throws IllegalArgumentException if file is not a valid matrix file
+     */
+    public static MappedVehicleRoutingTransportCostsMatrix newInstance(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            long fileSize = randomAccessFile.length();
+            if (fileSize < HEADER_SIZE) throw new IllegalArgumentException(file + " is not a matrix file");
+            MappedByteBuffer[] segments = map(randomAccessFile.getChannel(), FileChannel.MapMode.READ_ONLY, fileSize);
+            return new MappedVehicleRoutingTransportCostsMatrix(file, segments, fileSize);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int noSegments = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        MappedByteBuffer[] segments = new MappedByteBuffer[Math.max(1, noSegments)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = i * SEGMENT_SIZE;
+            segments[i] = channel.map(mode, position, Math.min(SEGMENT_SIZE, size - position));
+        }
+        return segments;
+    }
+
+    private static long index(int from, int to, int noLocations, boolean isSymmetric) {
+        if (!isSymmetric) return (long) from * noLocations + to;
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        return (long) from * noLocations - (long) from * (from + 1) / 2 + to;
+    }
+
+    private static long offset(int block, long index, long noValues, StorageType storageType) {
+        int bytesPerValue = getBytesPerValue(storageType);
+        return HEADER_SIZE + (block * noValues + index) * bytesPerValue;
+    }
+
+    private static int getBytesPerValue(StorageType storageType) {
+        if (storageType == StorageType.DOUBLE) return 8;
+        return 4;
+    }
+
+    private static int getCode(StorageType storageType) {
+        if (storageType == StorageType.DOUBLE) return 0;
+        if (storageType == StorageType.FLOAT) return 1;
+        return 2;
+    }
+
+    private static StorageType getStorageType(int code) {
+        if (code == 0) return StorageType.DOUBLE;
+        if (code == 1) return StorageType.FLOAT;
+        if (code == 2) return StorageType.INT;
+        throw new IllegalArgumentException("unknown storage type " + code);
+    }
+
+    private final MappedByteBuffer[] segments;
+
+    private final int noLocations;
+
+    private final boolean isSymmetric;
+
+    private final StorageType storageType;
+
+    private final double resolution;
+
+    private final long noValues;
+
+    private MappedVehicleRoutingTransportCostsMatrix(File file, MappedByteBuffer[] segments, long fileSize) {
+        this.segments = segments;
+        ByteBuffer header = segments[0];
+        if (header.getInt(0) != MAGIC_NUMBER) throw new IllegalArgumentException(file + " is not a matrix file");
+        if (header.getInt(4) != VERSION)
+            throw new IllegalArgumentException("version " + header.getInt(4) + " of " + file + " is not supported");
+        noLocations = header.getInt(8);
+        isSymmetric = (header.getInt(12) & 1) != 0;
+        storageType = getStorageType(header.getInt(16));
+        resolution = header.getDouble(24);
+        noValues = CompactVehicleRoutingTransportCostsMatrix.getNoValues(noLocations, isSymmetric);
+        if (fileSize < HEADER_SIZE + 2 * noValues * getBytesPerValue(storageType))
+            throw new IllegalArgumentException(file + " is truncated");
+    }
+
+    private double get(int block, int from, int to) {
+        long offset = offset(block, index(from, to, noLocations, isSymmetric), noValues, storageType);
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int position = (int) (offset & SEGMENT_MASK);
+        if (storageType == StorageType.DOUBLE) return segment.getDouble(position);
+        if (storageType == StorageType.FLOAT) return segment.getFloat(position);
+        return segment.getInt(position) * resolution;
+    }
+
+    /**
+     * Returns the distance from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return get(0, fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return get(1, fromIndex, toIndex);
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Time-dependent speed of a relation relative to its free flow speed, e.g. 0.5 during rush hour means that traveling
+ * takes twice as long as without traffic. The speed factor is constant between two successive interval starts and 1.0
+ * before the first interval, i.e. travel times are piecewise-linear functions of the departure time.
+ * <p>
+ * <p>Travel times are computed by integrating the speed over time (like Ichoua, Gendreau and Potvin 2003) and not by
+ * multiplying the free flow time with the speed factor at departure. Thus, they respect the FIFO property, i.e. leaving
+ * later never means arriving earlier.
+ * <p>
+ * <p>The profile memorizes the free flow time that can be covered up to each interval start. Arrival and departure times
+ * are then looked up by binary search over the intervals, i.e. in O(log k) for k intervals. Profiles are immutable and
+ * are meant to be shared by many relations.
+ */
+public class SpeedProfile {
+
+    /**
+     * Builder that builds the profile.
+     */
+    public static class Builder {
+
+        /**
+         * Creates a new builder.
+         *
+         * @return builder
+         */
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        private final TreeMap<Double, Double> speedFactors = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the speed factor from the specified time on until the start of the next interval.
+         *
+         * @param start       start of interval
+         * @param speedFactor speed relative to free flow speed
+         * @return builder
+         * @throws IllegalArgumentException if speed factor is not positive
+         */
+        public Builder addSpeedFactor(double start, double speedFactor) {
+            if (!(speedFactor > 0.) || Double.isInfinite(speedFactor))
+                throw new IllegalArgumentException("speed factor must be positive and finite, but is " + speedFactor);
+            if (Double.isNaN(start) || Double.isInfinite(start))
+                throw new IllegalArgumentException("start of interval must be finite");
+            speedFactors.put(start, speedFactor);
+            return this;
+        }
+
+        /**
+         * Builds the profile.
+         *
+         * @return profile
+         */
+        public SpeedProfile build() {
+            return new SpeedProfile(this);
+        }
+
+    }
+
+    /**
+     * Profile with speed factor 1.0 at any time.
+     */
+    public static final SpeedProfile FREE_FLOW = Builder.newInstance().build();
+
+    private final double[] starts;
+
+    private final double[] speedFactors;
+
+    //free flow time covered until interval start, counted such that it equals the time before the first interval
+    private final double[] freeFlowTimes;
+
+    private SpeedProfile(Builder builder) {
+        int noIntervals = builder.speedFactors.size();
+        starts = new double[noIntervals];
+        speedFactors = new double[noIntervals];
+        freeFlowTimes = new double[noIntervals];
+        int i = 0;
+        for (Map.Entry<Double, Double> interval : builder.speedFactors.entrySet()) {
+            starts[i] = interval.getKey();
+            speedFactors[i] = interval.getValue();
+            if (i == 0) freeFlowTimes[i] = starts[i];
+            else freeFlowTimes[i] = freeFlowTimes[i - 1] + (starts[i] - starts[i - 1]) * speedFactors[i - 1];
+            i++;
+        }
+    }
+
+    /**
+     * Returns the travel time of a trip that departs at departureTime and takes freeFlowTime without traffic.
+     *
+     * @param departureTime departure time
+     * @param freeFlowTime  travel time without traffic
+     * @return travel time
+     */
+    public double getTravelTime(double departureTime, double freeFlowTime) {
+        int last = starts.length - 1;
+        if (last < 0) return freeFlowTime;
+        //trips that are entirely in the first or last interval are computed directly, i.e. also for huge times
+        if (departureTime >= starts[last]) return freeFlowTime / speedFactors[last];
+        if (departureTime + freeFlowTime <= starts[0]) return freeFlowTime;
+        return getTime(getFreeFlowTime(departureTime) + freeFlowTime) - departureTime;
+    }
+
+    /**
+     * Returns the travel time of a trip that arrives at arrivalTime and takes freeFlowTime without traffic. Since
+     * profiles are FIFO, the trip that departs at arrivalTime minus the returned time arrives at arrivalTime.
+     *
+     * @param arrivalTime  arrival time
+     * @param freeFlowTime travel time without traffic
+     * @return travel time
+     */
+    public double getBackwardTravelTime(double arrivalTime, double freeFlowTime) {
+        int last = starts.length - 1;
+        if (last < 0) return freeFlowTime;
+        if (arrivalTime <= starts[0]) return freeFlowTime;
+        double lastIntervalTravelTime = freeFlowTime / speedFactors[last];
+        if (arrivalTime - lastIntervalTravelTime >= starts[last]) return lastIntervalTravelTime;
+        return arrivalTime - getTime(getFreeFlowTime(arrivalTime) - freeFlowTime);
+    }
+
+    /**
+     * Returns the speed factor at the specified time.
+     *
+     * @param time the time
+     * @return speed relative to free flow speed
+     */
+    public double getSpeedFactor(double time) {
+        int interval = lastIndexNotGreaterThan(starts, time);
+        if (interval < 0) return 1.;
+        return speedFactors[interval];
+    }
+
+    //free flow time covered until time
+    private double getFreeFlowTime(double time) {
+        int interval = lastIndexNotGreaterThan(starts, time);
+        if (interval < 0) return time;
+        return freeFlowTimes[interval] + (time - starts[interval]) * speedFactors[interval];
+    }
+
+    //inverse of getFreeFlowTime
+    private double getTime(double freeFlowTime) {
+        int interval = lastIndexNotGreaterThan(freeFlowTimes, freeFlowTime);
+        if (interval < 0) return freeFlowTime;
+        return starts[interval] + (freeFlowTime - freeFlowTimes[interval]) / speedFactors[interval];
+    }
+
+    private static int lastIndexNotGreaterThan(double[] values, double value) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /**
+     * @return number of intervals
+     */
+    public int getNoIntervals() {
+        return starts.length;
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Transport costs matrix whose transport times depend on the departure time. Distances and free flow times, i.e. times
+ * without traffic, are taken from a {@link CompactVehicleRoutingTransportCostsMatrix}, the time-dependency is modelled
+ * with {@link SpeedProfile}s. Like the underlying matrix, values are looked up by {@link Location#getIndex()}.
+ * <p>
+ * <p>Every relation has a speed profile, the default profile unless another one is set. Relations with the same traffic
+ * pattern, e.g. relations within the city center, should share one profile. Relations refer to their profile by a one
+ * byte id, i.e. there can be up to 256 distinct profiles and the relation-to-profile table takes one byte per relation
+ * (none if all relations have the default profile).
+ * <p>
+ * <p>Forward times answer when one arrives if departing at departureTime, backward times answer when one needs to depart
+ * to arrive at arrivalTime. Both are looked up in O(log k) for profiles with k intervals.
+ */
+public class TimeDependentVehicleRoutingTransportCostsMatrix implements VehicleRoutingTransportCosts {
+
+    private static final int MAX_NO_PROFILES = 256;
+
+    /**
+     * Builder that builds the matrix.
+     */
+    public static class Builder {
+
+        /**
+         * Creates a new builder returning the matrix-builder.
+         *
+         * @param freeFlowMatrix matrix with distances and travel times without traffic
+         * @return builder
+         */
+        public static Builder newInstance(CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix) {
+            return new Builder(freeFlowMatrix);
+        }
+
+        private final CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix;
+
+        private final List<SpeedProfile> profiles = new ArrayList<>();
+
+        private byte[] profileIds;
+
+        private Builder(CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix) {
+            this.freeFlowMatrix = freeFlowMatrix;
+            profiles.add(SpeedProfile.FREE_FLOW);
+        }
+
+        /**
+         * Sets the profile of all relations that do not have another one. Default is {@link SpeedProfile#FREE_FLOW}.
+         *
+         * @param profile the default profile
+         * @return builder
+         */
+        public Builder setDefaultSpeedProfile(SpeedProfile profile) {
+            if (profile == null) throw new IllegalArgumentException("speed profile must not be null");
+            profiles.set(0, profile);
+            return this;
+        }
+
+        /**
+         * Sets the profile of a particular relation. If the matrix is symmetric, it is the profile of both directions.
+         *
+         * @param fromIndex from location index
+         * @param toIndex   to location index
+         * @param profile   the profile
+         * @return builder
+         * @throws IllegalArgumentException if there are more than 256 distinct profiles
+         */
+        public Builder setSpeedProfile(int fromIndex, int toIndex, SpeedProfile profile) {
+            if (profile == null) throw new IllegalArgumentException("speed profile must not be null");
+            int profileId = getProfileId(profile);
+            if (profileIds == null) {
+                if (profileId == 0) return this;
+                profileIds = new byte[(int) CompactVehicleRoutingTransportCostsMatrix.getNoValues(freeFlowMatrix.getNoLocations(), freeFlowMatrix.isSymmetric())];
+            }
+            profileIds[CompactVehicleRoutingTransportCostsMatrix.index(fromIndex, toIndex, freeFlowMatrix.getNoLocations(), freeFlowMatrix.isSymmetric())] = (byte) profileId;
+            return this;
+        }
+
+        private int getProfileId(SpeedProfile profile) {
+            for (int id = 0; id < profiles.size(); id++) {
+                if (profiles.get(id) == profile) return id;
+            }
+            if (profiles.size() == MAX_NO_PROFILES)
+                throw new IllegalArgumentException("there must not be more than " + MAX_NO_PROFILES + " distinct speed profiles");
+            profiles.add(profile);
+            return profiles.size() - 1;
+        }
+
+        /**
+         * Builds the matrix.
+         *
+         * @return matrix
+         */
+        public TimeDependentVehicleRoutingTransportCostsMatrix build() {
+            return new TimeDependentVehicleRoutingTransportCostsMatrix(this);
+        }
+
+    }
+
+    private final CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix;
+
+    private final SpeedProfile[] profiles;
+
+    private final byte[] profileIds;
+
+    private final int noLocations;
+
+    private final boolean isSymmetric;
+
+    private TimeDependentVehicleRoutingTransportCostsMatrix(Builder builder) {
+        freeFlowMatrix = builder.freeFlowMatrix;
+        profiles = builder.profiles.toArray(new SpeedProfile[0]);
+        profileIds = builder.profileIds;
+        noLocations = freeFlowMatrix.getNoLocations();
+        isSymmetric = freeFlowMatrix.isSymmetric();
+    }
+
+    /**
+     * Returns the speed profile of the relation from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the speed profile
+     */
+    public SpeedProfile getSpeedProfile(int fromIndex, int toIndex) {
+        if (profileIds == null) return profiles[0];
+        return profiles[profileIds[CompactVehicleRoutingTransportCostsMatrix.index(fromIndex, toIndex, noLocations, isSymmetric)] & 0xFF];
+    }
+
+    /**
+     * Returns the distance from fromIndex to toIndex.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return freeFlowMatrix.getDistance(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex if departing at departureTime.
+     *
+     * @param fromIndex     from location index
+     * @param toIndex       to location index
+     * @param departureTime departure time at fromIndex
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex, double departureTime) {
+        return getSpeedProfile(fromIndex, toIndex).getTravelTime(departureTime, freeFlowMatrix.getTransportTime(fromIndex, toIndex));
+    }
+
+    /**
+     * Returns the transport time from fromIndex to toIndex if arriving at arrivalTime.
+     *
+     * @param fromIndex   from location index
+     * @param toIndex     to location index
+     * @param arrivalTime arrival time at toIndex
+     * @return the transport time
+     */
+    public double getBackwardTransportTime(int fromIndex, int toIndex, double arrivalTime) {
+        return getSpeedProfile(fromIndex, toIndex).getBackwardTravelTime(arrivalTime, freeFlowMatrix.getTransportTime(fromIndex, toIndex));
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return getTransportTime(from.getIndex(), to.getIndex(), departureTime);
+    }
+
+    @Override
+    public double getBackwardTransportTime(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        return getBackwardTransportTime(from.getIndex(), to.getIndex(), arrivalTime);
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex(), departureTime);
+    }
+
+    @Override
+    public double getBackwardTransportCost(Location from, Location to, double arrivalTime, Driver driver, Vehicle vehicle) {
+        if (from.getIndex() < 0 || to.getIndex() < 0)
+            throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getBackwardTransportTime(from.getIndex(), to.getIndex(), arrivalTime);
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+}
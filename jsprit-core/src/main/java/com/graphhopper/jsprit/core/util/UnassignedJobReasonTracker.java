@@ -19,6 +19,8 @@
 package com.graphhopper.jsprit.core.util;
 
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobUnassignedListener;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import org.apache.commons.math3.stat.Frequency;
 
@@ -26,6 +28,10 @@ import java.util.*;
 
 /**
  * Created by schroeder on 06/02/17.
+ * <p>
+ * <p>Failed constraints are counted per job and constraint id (see {@link ConstraintManager#getConstraintId(Class)}).
+ * Constraint names and frequency distributions are only created if they are asked for. Reasons are reported by name,
+ * i.e. failures of constraints with the same name are summed up.
  */
 public class UnassignedJobReasonTracker implements JobUnassignedListener {
 
@@ -48,7 +54,40 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
         return mostLikely;
     }
 
-    Map<String, Frequency> failedConstraintNamesFrequencyMapping = new HashMap<>();
+    /*
+    same as getMostLikelyFailedConstraintName(Frequency), i.e. ties are resolved in favour of the lexicographically
+    smaller name
+     */
+    private static String getMostLikelyFailedConstraintName(long[] failedConstraintCounts) {
+        long maxCount = 0;
+        String mostLikely = NO_REASON;
+        for (Map.Entry<String, Long> entry : getCountsByName(failedConstraintCounts).entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                mostLikely = entry.getKey();
+            }
+        }
+        return mostLikely;
+    }
+
+    /*
+    different constraint ids can have the same name (e.g. classes with the same simple name), thus counts are summed up
+    by name
+     */
+    private static Map<String, Long> getCountsByName(long[] failedConstraintCounts) {
+        Map<String, Long> countsByName = new TreeMap<>();
+        for (int constraintId = 0; constraintId < failedConstraintCounts.length; constraintId++) {
+            long count = failedConstraintCounts[constraintId];
+            if (count == 0) continue;
+            String name = ConstraintManager.getConstraintName(constraintId);
+            Long countOfName = countsByName.get(name);
+            countsByName.put(name, countOfName == null ? count : countOfName + count);
+        }
+        return countsByName;
+    }
+
+    //number of failures per job id, indexed by constraint id
+    Map<String, long[]> failedConstraintCounts = new HashMap<>();
 
     Map<Integer, String> codesToHumanReadableReason = new HashMap<>();
 
@@ -77,13 +116,39 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
 
     @Override
     public void informJobUnassigned(Job unassigned, Collection<String> failedConstraintNames) {
-        if (!this.failedConstraintNamesFrequencyMapping.containsKey(unassigned.getId())) {
-            this.failedConstraintNamesFrequencyMapping.put(unassigned.getId(), new Frequency());
-        }
+        long[] counts = getFailedConstraintCounts(unassigned.getId(), 0);
         for (String r : failedConstraintNames) {
             if (failedConstraintNamesToBeIgnored.contains(r)) continue;
-            this.failedConstraintNamesFrequencyMapping.get(unassigned.getId()).addValue(r);
+            int constraintId = ConstraintManager.getConstraintId(r);
+            counts = getFailedConstraintCounts(unassigned.getId(), constraintId + 1);
+            counts[constraintId]++;
+        }
+    }
+
+    @Override
+    public void informJobUnassigned(Job unassigned, FailedConstraints failedConstraints) {
+        long[] counts = getFailedConstraintCounts(unassigned.getId(), failedConstraints.getConstraintIdBound());
+        for (int constraintId = 0; constraintId < failedConstraints.getConstraintIdBound(); constraintId++) {
+            int count = failedConstraints.getCount(constraintId);
+            if (count == 0 || isIgnored(constraintId)) continue;
+            counts[constraintId] += count;
+        }
+    }
+
+    private long[] getFailedConstraintCounts(String jobId, int constraintIdBound) {
+        long[] counts = failedConstraintCounts.get(jobId);
+        if (counts == null) {
+            counts = new long[constraintIdBound];
+            failedConstraintCounts.put(jobId, counts);
+        } else if (counts.length < constraintIdBound) {
+            counts = Arrays.copyOf(counts, constraintIdBound);
+            failedConstraintCounts.put(jobId, counts);
         }
+        return counts;
+    }
+
+    private boolean isIgnored(int constraintId) {
+        return !failedConstraintNamesToBeIgnored.isEmpty() && failedConstraintNamesToBeIgnored.contains(ConstraintManager.getConstraintName(constraintId));
     }
 
     public void put(String simpleNameOfFailedConstraint, int code, String reason) {
@@ -102,7 +167,7 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
      */
     @Deprecated
     public Map<String, Frequency> getReasons() {
-        return Collections.unmodifiableMap(failedConstraintNamesFrequencyMapping);
+        return getFailedConstraintNamesFrequencyMapping();
     }
 
     /**
@@ -111,9 +176,33 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
      * @return
      */
     public Map<String, Frequency> getFailedConstraintNamesFrequencyMapping() {
+        Map<String, Frequency> failedConstraintNamesFrequencyMapping = new HashMap<>();
+        for (Map.Entry<String, long[]> jobCounts : failedConstraintCounts.entrySet()) {
+            Frequency frequency = new Frequency();
+            long[] counts = jobCounts.getValue();
+            for (int constraintId = 0; constraintId < counts.length; constraintId++) {
+                if (counts[constraintId] != 0)
+                    frequency.incrementValue(ConstraintManager.getConstraintName(constraintId), counts[constraintId]);
+            }
+            failedConstraintNamesFrequencyMapping.put(jobCounts.getKey(), frequency);
+        }
         return Collections.unmodifiableMap(failedConstraintNamesFrequencyMapping);
     }
 
+    /**
+     * Returns how often the specified constraint has prevented the insertion of the specified job.
+     *
+     * @param jobId          id of job
+     * @param constraintName simple name of constraint
+     * @return number of failures
+     */
+    public long getFailedConstraintCount(String jobId, String constraintName) {
+        long[] counts = failedConstraintCounts.get(jobId);
+        if (counts == null) return 0;
+        Long count = getCountsByName(counts).get(constraintName);
+        return count == null ? 0 : count;
+    }
+
     /**
      * Returns an unmodifiable map of codes and reason pairs.
      *
@@ -156,10 +245,9 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
      * @return
      */
     public int getMostLikelyReasonCode(String jobId) {
-        if (!this.failedConstraintNamesFrequencyMapping.containsKey(jobId)) return -1;
-        Frequency reasons = this.failedConstraintNamesFrequencyMapping.get(jobId);
-        String mostLikelyReason = getMostLikelyFailedConstraintName(reasons);
-        return toCode(mostLikelyReason);
+        long[] counts = failedConstraintCounts.get(jobId);
+        if (counts == null) return -1;
+        return toCode(getMostLikelyFailedConstraintName(counts));
     }
 
     /**
@@ -169,10 +257,9 @@ public class UnassignedJobReasonTracker implements JobUnassignedListener {
      * @return
      */
     public String getMostLikelyReason(String jobId) {
-        if (!this.failedConstraintNamesFrequencyMapping.containsKey(jobId)) return codesToHumanReadableReason.get(-1);
-        Frequency reasons = this.failedConstraintNamesFrequencyMapping.get(jobId);
-
-        String mostLikelyReason = getMostLikelyFailedConstraintName(reasons);
+        long[] counts = failedConstraintCounts.get(jobId);
+        if (counts == null) return codesToHumanReadableReason.get(-1);
+        String mostLikelyReason = getMostLikelyFailedConstraintName(counts);
         int code = toCode(mostLikelyReason);
         if (code == -1) return mostLikelyReason;
         else return codesToHumanReadableReason.get(code);
@@ -25,6 +25,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostPa
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,6 +37,9 @@ import java.util.Map;
  * you set a particular distance, this expects distance-entries for all relations. This counts also
  * for a particular time. If the method getTransportCosts(...) is then invoked for a relation, where no distance can be found, an
  * IllegalStateException will be thrown. Thus if you want to only use distances only, do not use addTransportTime(...).
+ * <p>When the matrix is built, location ids are mapped to dense indices and values are memorized in primitive arrays,
+ * i.e. a lookup neither creates a key object nor boxes values. The arrays are dense, i.e. they occupy
+ * noLocations * noLocations values per metric, no matter how many relations have been added.
  *
  * @author schroeder
  */
@@ -184,9 +188,11 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
 
     }
 
-    private Map<RelationKey, Double> distances = new HashMap<RelationKey, Double>();
+    private final Map<String, Integer> locationIndices = new HashMap<String, Integer>();
 
-    private Map<RelationKey, Double> times = new HashMap<RelationKey, Double>();
+    private double[][] distances;
+
+    private double[][] times;
 
     private boolean isSymmetric;
 
@@ -196,12 +202,51 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
 
     private VehicleRoutingTransportCostsMatrix(Builder builder) {
         this.isSymmetric = builder.isSymmetric;
-        distances.putAll(builder.distances);
-        times.putAll(builder.times);
         timesSet = builder.timesSet;
         distancesSet = builder.distancesSet;
+        indexLocations(builder.distances);
+        indexLocations(builder.times);
+        if (distancesSet) distances = toArray(builder.distances);
+        if (timesSet) times = toArray(builder.times);
+    }
+
+    private void indexLocations(Map<RelationKey, Double> values) {
+        for (RelationKey key : values.keySet()) {
+            if (!locationIndices.containsKey(key.from)) locationIndices.put(key.from, locationIndices.size());
+            if (!locationIndices.containsKey(key.to)) locationIndices.put(key.to, locationIndices.size());
+        }
+    }
+
+    /*
+     * memorizes values in a dense [from][to] array, missing relations are NaN. if the matrix is symmetric, the reverse
+     * relation is set as well unless it has been specified explicitly.
+     */
+    private double[][] toArray(Map<RelationKey, Double> values) {
+        int noLocations = locationIndices.size();
+        double[][] arr = new double[noLocations][noLocations];
+        for (double[] row : arr) Arrays.fill(row, Double.NaN);
+        for (Map.Entry<RelationKey, Double> e : values.entrySet()) {
+            arr[locationIndices.get(e.getKey().from)][locationIndices.get(e.getKey().to)] = e.getValue();
+        }
+        if (isSymmetric) {
+            for (Map.Entry<RelationKey, Double> e : values.entrySet()) {
+                int from = locationIndices.get(e.getKey().from);
+                int to = locationIndices.get(e.getKey().to);
+                if (Double.isNaN(arr[to][from])) arr[to][from] = e.getValue();
+            }
+        }
+        return arr;
     }
 
+    private double get(double[][] values, String fromId, String toId, String valueName) {
+        Integer from = locationIndices.get(fromId);
+        Integer to = locationIndices.get(toId);
+        if (from != null && to != null) {
+            double value = values[from][to];
+            if (!Double.isNaN(value)) return value;
+        }
+        throw new IllegalStateException(valueName + " value for relation from " + fromId + " to " + toId + " does not exist");
+    }
 
     @Override
     public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
@@ -212,20 +257,7 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
     private double getTime(String fromId, String toId) {
         if (fromId.equals(toId)) return 0.0;
         if (!timesSet) return 0.0;
-        RelationKey key = RelationKey.newKey(fromId, toId);
-        if (!isSymmetric) {
-            if (times.containsKey(key)) return times.get(key);
-            else
-                throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
-        } else {
-            Double time = times.get(key);
-            if (time == null) {
-                time = times.get(RelationKey.newKey(toId, fromId));
-            }
-            if (time != null) return time;
-            else
-                throw new IllegalStateException("time value for relation from " + fromId + " to " + toId + " does not exist");
-        }
+        return get(times, fromId, toId, "time");
     }
 
     /**
@@ -239,20 +271,7 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
     public double getDistance(String fromId, String toId) {
         if (fromId.equals(toId)) return 0.0;
         if (!distancesSet) return 0.0;
-        RelationKey key = RelationKey.newKey(fromId, toId);
-        if (!isSymmetric) {
-            if (distances.containsKey(key)) return distances.get(key);
-            else
-                throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-        } else {
-            Double time = distances.get(key);
-            if (time == null) {
-                time = distances.get(RelationKey.newKey(toId, fromId));
-            }
-            if (time != null) return time;
-            else
-                throw new IllegalStateException("distance value for relation from " + fromId + " to " + toId + " does not exist");
-        }
+        return get(distances, fromId, toId, "distance");
     }
 
     @Override
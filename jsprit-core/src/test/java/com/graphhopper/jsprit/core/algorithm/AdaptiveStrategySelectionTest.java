@@ -0,0 +1,128 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class AdaptiveStrategySelectionTest {
+
+    private SearchStrategyManager manager;
+
+    @Before
+    public void doBefore() {
+        manager = new SearchStrategyManager();
+        manager.addStrategy(new SearchStrategy("fast", null, null, null), 1.);
+        manager.addStrategy(new SearchStrategy("slow", null, null, null), 1.);
+        manager.addStrategy(new SearchStrategy("disabled", null, null, null), 0.);
+    }
+
+    private SearchStrategy.DiscoveredSolution discovered(String strategyId, double selectedCost, double newCost, long computationTime) {
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), newCost);
+        return new SearchStrategy.DiscoveredSolution(solution, true, strategyId, selectedCost, computationTime);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenSegmentLengthIsZero_itShouldThrowException() {
+        new AdaptiveStrategySelection(manager, 0);
+    }
+
+    @Test
+    public void whenStrategyYieldsMoreImprovementPerTime_itsWeightShouldIncrease() {
+        AdaptiveStrategySelection selection = new AdaptiveStrategySelection(manager, 2);
+        //same improvement, but fast takes a tenth of the time
+        selection.informSelectedStrategy(discovered("fast", 100., 90., 1000000), null, null);
+        selection.informSelectedStrategy(discovered("slow", 100., 90., 10000000), null, null);
+
+        assertTrue(manager.getWeight("fast") > 1.);
+        assertTrue(manager.getWeight("slow") < 1.);
+        assertEquals(0., manager.getWeight("disabled"), 0.);
+        assertEquals(2., manager.getWeight("fast") + manager.getWeight("slow"), 1e-9);
+    }
+
+    @Test
+    public void weightsShouldOnlyBeUpdatedAtEndOfSegment() {
+        AdaptiveStrategySelection selection = new AdaptiveStrategySelection(manager, 3);
+        selection.informSelectedStrategy(discovered("fast", 100., 90., 1000000), null, null);
+        selection.informSelectedStrategy(discovered("slow", 100., 90., 10000000), null, null);
+
+        assertEquals(1., manager.getWeight("fast"), 0.);
+        assertEquals(1., manager.getWeight("slow"), 0.);
+    }
+
+    @Test
+    public void whenNoStrategyImproves_weightsShouldRemainUnchanged() {
+        AdaptiveStrategySelection selection = new AdaptiveStrategySelection(manager, 2);
+        selection.informSelectedStrategy(discovered("fast", 100., 110., 1000000), null, null);
+        selection.informSelectedStrategy(discovered("slow", 100., 100., 10000000), null, null);
+
+        assertEquals(1., manager.getWeight("fast"), 0.);
+        assertEquals(1., manager.getWeight("slow"), 0.);
+    }
+
+    @Test
+    public void weightShouldNotDropBelowMinWeight() {
+        AdaptiveStrategySelection selection = new AdaptiveStrategySelection(manager, 2);
+        selection.setReactionFactor(1.);
+        selection.setMinWeightFactor(0.2);
+        for (int i = 0; i < 10; i++) {
+            selection.informSelectedStrategy(discovered("fast", 100., 90., 1000000), null, null);
+            selection.informSelectedStrategy(discovered("slow", 100., 110., 1000000), null, null);
+        }
+
+        //fast gets 2 (i.e. 2 * its initial weight), slow is raised to 0.2, then both are scaled to sum 2
+        assertEquals(0.2 * 2. / 2.2, manager.getWeight("slow"), 1e-9);
+        assertEquals(2. * 2. / 2.2, manager.getWeight("fast"), 1e-9);
+    }
+
+    @Test
+    public void statisticsShouldContainTimeAndYieldOfEachStrategy() {
+        AdaptiveStrategySelection selection = new AdaptiveStrategySelection(manager, 100);
+        selection.informSelectedStrategy(discovered("fast", 100., 90., 1000000), null, null);
+        selection.informSelectedStrategy(discovered("fast", 100., 110., 1000000), null, null);
+        selection.informSelectedStrategy(new SearchStrategy.DiscoveredSolution(
+            new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 50.), false, "slow"), null, null);
+
+        SearchStrategyStatistics.Statistics fast = selection.getStatistics().getStatistics("fast");
+        assertEquals(2, fast.getNuOfRuns());
+        assertEquals(2, fast.getNuOfAcceptedSolutions());
+        assertEquals(1, fast.getNuOfImprovements());
+        assertEquals(10., fast.getImprovement(), 1e-9);
+        assertEquals(2000000, fast.getComputationTime());
+        assertEquals(5000., fast.getImprovementPerSecond(), 1e-6);
+
+        SearchStrategyStatistics.Statistics slow = selection.getStatistics().getStatistics("slow");
+        assertEquals(1, slow.getNuOfRuns());
+        assertEquals(0, slow.getNuOfAcceptedSolutions());
+        assertEquals(0, slow.getNuOfImprovements());
+        assertEquals(0., slow.getImprovementPerSecond(), 0.);
+
+        assertNull(selection.getStatistics().getStatistics("disabled"));
+        assertEquals(2, selection.getStatistics().getStatistics().size());
+    }
+
+}
@@ -20,16 +20,23 @@ package com.graphhopper.jsprit.core.algorithm;
 import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
 import com.graphhopper.jsprit.core.algorithm.selector.SolutionSelector;
+import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -231,5 +238,74 @@ public class SearchStrategyTest {
         assertEquals(runs.size(), N);
     }
 
+    @Test
+    public void whenStratRuns_discoveredSolutionShouldKnowCostsOfSelectedSolutionAndComputationTime() {
+        final VehicleRoutingProblemSolution selectedSolution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 100.);
+        SolutionSelector select = new SolutionSelector() {
+
+            @Override
+            public VehicleRoutingProblemSolution selectSolution(Collection<VehicleRoutingProblemSolution> solutions) {
+                return selectedSolution;
+            }
+        };
+        SolutionAcceptor accept = new SolutionAcceptor() {
+
+            @Override
+            public boolean acceptSolution(Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution newSolution) {
+                return true;
+            }
+        };
+        SolutionCostCalculator calc = new SolutionCostCalculator() {
+
+            @Override
+            public double getCosts(VehicleRoutingProblemSolution solution) {
+                return 80.;
+            }
+        };
+
+        SearchStrategy strat = new SearchStrategy("strat", select, accept, calc);
+        SearchStrategy.DiscoveredSolution discoveredSolution = strat.run(null, new ArrayList<VehicleRoutingProblemSolution>());
+
+        assertEquals(100., discoveredSolution.getSelectedSolutionCost(), 0.01);
+        assertEquals(80., discoveredSolution.getSolution().getCost(), 0.01);
+        assertTrue(discoveredSolution.getComputationTime() >= 0);
+        assertEquals(100., selectedSolution.getCost(), 0.01);
+    }
+
+    @Test
+    public void whenStratRunsConcurrently_itShouldNotShareActivitiesWithSelectedSolution() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("start")).build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(service).build();
+        final VehicleRoutingProblemSolution selectedSolution = new VehicleRoutingProblemSolution(Arrays.asList(route), 100.);
+        SolutionSelector select = new SolutionSelector() {
+
+            @Override
+            public VehicleRoutingProblemSolution selectSolution(Collection<VehicleRoutingProblemSolution> solutions) {
+                return selectedSolution;
+            }
+        };
+        SolutionAcceptor accept = new SolutionAcceptor() {
+
+            @Override
+            public boolean acceptSolution(Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution newSolution) {
+                return true;
+            }
+        };
+        SolutionCostCalculator calc = new SolutionCostCalculator() {
+
+            @Override
+            public double getCosts(VehicleRoutingProblemSolution solution) {
+                return 80.;
+            }
+        };
+
+        SearchStrategy strat = new SearchStrategy("strat", select, accept, calc);
+        SearchStrategy.DiscoveredSolution discoveredSolution = strat.runConcurrently(null, new ArrayList<VehicleRoutingProblemSolution>());
+
+        VehicleRoute copiedRoute = discoveredSolution.getSolution().getRoutes().iterator().next();
+        assertEquals(1, copiedRoute.getActivities().size());
+        assertNotSame(route.getActivities().get(0), copiedRoute.getActivities().get(0));
+    }
 
 }
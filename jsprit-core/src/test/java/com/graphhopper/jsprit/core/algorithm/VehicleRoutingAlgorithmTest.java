@@ -182,4 +182,33 @@ public class VehicleRoutingAlgorithmTest {
         assertEquals(25, counter.getCountIterations());
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAddingAlgorithmAsItsOwnWorker_itShouldThrowException() {
+        VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class),
+            mock(SearchStrategyManager.class));
+        algorithm.addWorker(algorithm);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAddingWorkerThatSolvesAnotherProblem_itShouldThrowException() {
+        VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class),
+            mock(SearchStrategyManager.class));
+        algorithm.addWorker(new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class), mock(SearchStrategyManager.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAddingAlgorithmAsItsOwnIsland_itShouldThrowException() {
+        VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(mock(VehicleRoutingProblem.class),
+            mock(SearchStrategyManager.class));
+        algorithm.addIsland(algorithm);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenAddingIslandToAlgorithmWithWorkers_itShouldThrowException() {
+        VehicleRoutingProblem vrp = mock(VehicleRoutingProblem.class);
+        VehicleRoutingAlgorithm algorithm = new VehicleRoutingAlgorithm(vrp, mock(SearchStrategyManager.class));
+        algorithm.addWorker(new VehicleRoutingAlgorithm(vrp, mock(SearchStrategyManager.class)));
+        algorithm.addIsland(new VehicleRoutingAlgorithm(vrp, mock(SearchStrategyManager.class)));
+    }
+
 }
@@ -18,21 +18,30 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.AdaptiveStrategySelection;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.BeforeJobInsertionListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobInsertedListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.algorithm.termination.IterationWithoutImprovementTermination;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.algorithm.termination.VariationCoefficientTermination;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import com.graphhopper.jsprit.core.util.Solutions;
 import junit.framework.Assert;
 import org.junit.Test;
 
@@ -477,6 +486,177 @@ public class JspritTest {
         Assert.assertTrue(true);
     }
 
+    @Test
+    public void whenSearchingWithSeveralThreads_allJobsShouldBeServed() {
+        Service s = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(1, 2)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(1, 3)).build();
+        Service s4 = Service.Builder.newInstance("s4").setLocation(Location.newInstance(1, 4)).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(s4).addJob(s2).addJob(s3).addJob(s).build();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SEARCH_THREADS, "3").buildAlgorithm();
+        vra.setMaxIterations(50);
+        final List<Integer> iterations = new ArrayList<Integer>();
+        vra.addListener(new IterationStartsListener() {
+            @Override
+            public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                iterations.add(i);
+            }
+        });
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertEquals(3, vra.getWorkers().size());
+        Assert.assertEquals(50, iterations.size());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        Assert.assertEquals(1, solution.getRoutes().size());
+        Assert.assertEquals(4, solution.getRoutes().iterator().next().getTourActivities().getJobs().size());
+    }
+
+    @Test
+    public void whenSearchingWithSeveralThreadsAndAdaptiveStrategySelection_onlyWorkersShouldAdaptWeights() {
+        VehicleRoutingProblem vrp = getProblemWithFourServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.SEARCH_THREADS, "2")
+            .setProperty(Jsprit.Parameter.ADAPTIVE_STRATEGY_SELECTION, "true")
+            .setProperty(Jsprit.Parameter.ADAPTIVE_STRATEGY_SEGMENT, "5").buildAlgorithm();
+        vra.setMaxIterations(50);
+        List<Double> weights = new ArrayList<Double>(vra.getSearchStrategyManager().getWeights());
+        Assert.assertEquals(0, countAdaptiveStrategySelections(vra));
+        for (VehicleRoutingAlgorithm worker : vra.getWorkers()) {
+            Assert.assertEquals(1, countAdaptiveStrategySelections(worker));
+        }
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertEquals(weights, vra.getSearchStrategyManager().getWeights());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+    private int countAdaptiveStrategySelections(VehicleRoutingAlgorithm vra) {
+        int count = 0;
+        for (VehicleRoutingAlgorithmListener listener : vra.getAlgorithmListeners().getAlgorithmListeners()) {
+            if (listener instanceof AdaptiveStrategySelection) count++;
+        }
+        return count;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenSearchingWithSeveralThreadsAndCustomStateManager_itShouldThrowException() {
+        Service s = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(s).build();
+        Jsprit.Builder.newInstance(vrp).setStateAndConstraintManager(new StateManager(vrp), new ConstraintManager(vrp, new StateManager(vrp)))
+            .setProperty(Jsprit.Parameter.SEARCH_THREADS, "2").buildAlgorithm();
+    }
+
+    @Test
+    public void whenSearchingOnIslands_eachIslandShouldRunAllIterations() {
+        VehicleRoutingProblem vrp = getProblemWithFourServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.ISLANDS, "2")
+            .setProperty(Jsprit.Parameter.MIGRATION_INTERVAL, "10").buildAlgorithm();
+        vra.setMaxIterations(50);
+        final List<Integer> iterations = Collections.synchronizedList(new ArrayList<Integer>());
+        for (VehicleRoutingAlgorithm island : vra.getIslands()) {
+            island.addListener(new IterationStartsListener() {
+                @Override
+                public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    iterations.add(i);
+                }
+            });
+        }
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertEquals(2, vra.getIslands().size());
+        Assert.assertEquals(10, vra.getMigrationInterval());
+        Assert.assertEquals(100, iterations.size());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        Assert.assertEquals(4, solution.getRoutes().iterator().next().getTourActivities().getJobs().size());
+    }
+
+    @Test
+    public void whenTerminationCriterionIsMet_allIslandsShouldTerminate() {
+        VehicleRoutingProblem vrp = getProblemWithFourServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.ISLANDS, "2").buildAlgorithm();
+        vra.setMaxIterations(1000);
+        vra.addTerminationCriterion(new PrematureAlgorithmTermination() {
+
+            private int noDiscoveredSolutions = 0;
+
+            @Override
+            public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+                noDiscoveredSolutions++;
+                return noDiscoveredSolutions == 30;
+            }
+        });
+        final List<Integer> iterations = Collections.synchronizedList(new ArrayList<Integer>());
+        for (VehicleRoutingAlgorithm island : vra.getIslands()) {
+            island.addListener(new IterationStartsListener() {
+                @Override
+                public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    iterations.add(i);
+                }
+            });
+        }
+        vra.searchSolutions();
+        Assert.assertTrue(iterations.size() >= 30);
+        Assert.assertTrue(iterations.size() <= 31);
+    }
+
+    @Test
+    public void whenNoIslandImprovesGlobalBest_allIslandsShouldTerminate() {
+        VehicleRoutingProblem vrp = getProblemWithFourServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.ISLANDS, "2").buildAlgorithm();
+        vra.setMaxIterations(1000);
+        vra.addTerminationCriterion(new IterationWithoutImprovementTermination(20));
+        final List<Integer> iterations = Collections.synchronizedList(new ArrayList<Integer>());
+        for (VehicleRoutingAlgorithm island : vra.getIslands()) {
+            island.addListener(new IterationStartsListener() {
+                @Override
+                public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    iterations.add(i);
+                }
+            });
+        }
+        vra.searchSolutions();
+        Assert.assertTrue(iterations.size() > 20);
+        Assert.assertTrue(iterations.size() < 200);
+    }
+
+    @Test
+    public void whenVariationCoefficientIsBelowThreshold_allIslandsShouldTerminate() {
+        VehicleRoutingProblem vrp = getProblemWithFourServices();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.ISLANDS, "2").buildAlgorithm();
+        vra.setMaxIterations(1000);
+        VariationCoefficientTermination termination = new VariationCoefficientTermination(10, 0.01);
+        vra.setPrematureAlgorithmTermination(termination);
+        vra.addListener(termination);
+        final List<Integer> iterations = new ArrayList<Integer>();
+        vra.addListener(new IterationStartsListener() {
+            @Override
+            public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                iterations.add(i);
+            }
+        });
+        vra.searchSolutions();
+        //coefficient is evaluated every 10 iterations
+        Assert.assertFalse(iterations.isEmpty());
+        Assert.assertTrue(iterations.size() < 1000);
+        Assert.assertEquals(0, iterations.size() % 10);
+        for (int i = 0; i < iterations.size(); i++) {
+            Assert.assertEquals(i + 1, (int) iterations.get(i));
+        }
+    }
+
+    private VehicleRoutingProblem getProblemWithFourServices() {
+        Service s = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(1, 2)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(1, 3)).build();
+        Service s4 = Service.Builder.newInstance("s4").setLocation(Location.newInstance(1, 4)).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        return VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(s4).addJob(s2).addJob(s3).addJob(s).build();
+    }
+
     @Test
     public void compare() {
         String s1 = "s2234";
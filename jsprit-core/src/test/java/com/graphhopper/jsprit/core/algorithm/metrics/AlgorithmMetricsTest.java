@@ -0,0 +1,145 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.metrics;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.ServiceLoadRouteLevelConstraint;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class AlgorithmMetricsTest {
+
+    private static class RejectAll implements HardActivityConstraint {
+
+        @Override
+        public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+            return ConstraintsStatus.NOT_FULFILLED;
+        }
+
+    }
+
+    private static class OtherConstraints {
+
+        private static class RejectAll implements HardActivityConstraint {
+
+            @Override
+            public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+                return ConstraintsStatus.NOT_FULFILLED;
+            }
+
+        }
+
+    }
+
+    @Test
+    public void flushShouldReportRunToSinkAndResetMetrics() {
+        MetricsCollector collector = new MetricsCollector();
+        AlgorithmMetrics metrics = new AlgorithmMetrics(collector);
+        metrics.addTime(AlgorithmMetrics.Phase.RUIN, 10);
+        metrics.addTime(AlgorithmMetrics.Phase.RUIN, 5);
+        metrics.countInsertionEvaluation();
+        metrics.countConstraintChecks(3);
+        metrics.countRejection(new RejectAll());
+        metrics.flush("s", 100);
+
+        assertEquals(0, metrics.getTime(AlgorithmMetrics.Phase.RUIN));
+        metrics.flush("s", 100);
+
+        assertEquals(2, collector.getNuOfIterations("s"));
+        assertEquals(15, collector.getTime("s", AlgorithmMetrics.Phase.RUIN));
+        assertEquals(0, collector.getTime("s", AlgorithmMetrics.Phase.RECREATE));
+        assertEquals(1, collector.getCount("s", AlgorithmMetrics.Counter.INSERTION_EVALUATIONS));
+        assertEquals(3, collector.getCount("s", AlgorithmMetrics.Counter.CONSTRAINT_CHECKS));
+        assertEquals(Long.valueOf(1), collector.getRejections("s").get(RejectAll.class.getName()));
+        assertEquals(1e7, collector.getIterationsPerSecond("s"), 1e-3);
+    }
+
+    @Test
+    public void whenConstraintClassesHaveTheSameSimpleName_rejectionsShouldBeReportedSeparately() {
+        MetricsCollector collector = new MetricsCollector();
+        AlgorithmMetrics metrics = new AlgorithmMetrics(collector);
+        metrics.countRejection(new RejectAll());
+        metrics.countRejection(new RejectAll());
+        metrics.countRejection(new OtherConstraints.RejectAll());
+        metrics.flush("s", 100);
+
+        Map<String, Long> rejections = collector.getRejections("s");
+        assertEquals(2, rejections.size());
+        assertEquals(Long.valueOf(2), rejections.get(RejectAll.class.getName()));
+        assertEquals(Long.valueOf(1), rejections.get(OtherConstraints.RejectAll.class.getName()));
+    }
+
+    @Test
+    public void resetShouldDiscardRecordedMetrics() {
+        MetricsCollector collector = new MetricsCollector();
+        AlgorithmMetrics metrics = new AlgorithmMetrics(collector);
+        metrics.addTime(AlgorithmMetrics.Phase.STATE_UPDATE, 10);
+        metrics.countConstraintChecks(3);
+        metrics.countRejection(new RejectAll());
+        metrics.reset();
+        metrics.flush("s", 100);
+
+        assertEquals(0, collector.getTime("s", AlgorithmMetrics.Phase.STATE_UPDATE));
+        assertEquals(0, collector.getCount("s", AlgorithmMetrics.Counter.CONSTRAINT_CHECKS));
+        assertTrue(collector.getRejections("s").isEmpty());
+    }
+
+    @Test
+    public void whenSearchingWithMetricsSink_eachIterationShouldBeRecorded() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 2).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(v);
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setLocation(Location.newInstance(i, 10 - i)).build());
+        }
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        MetricsCollector collector = new MetricsCollector();
+        Jsprit.Builder builder = Jsprit.Builder.newInstance(vrp).setMetricsSink(collector);
+        for (Jsprit.Strategy strategy : Jsprit.Strategy.values()) builder.setProperty(strategy, "0.");
+        builder.setProperty(Jsprit.Strategy.RANDOM_BEST, "1.");
+        VehicleRoutingAlgorithm vra = builder.buildAlgorithm();
+        vra.setMaxIterations(20);
+        vra.searchSolutions();
+
+        String strategyId = Jsprit.Strategy.RANDOM_BEST.toString();
+        assertEquals(1, collector.getStrategyIds().size());
+        assertEquals(20, collector.getNuOfIterations(strategyId));
+        assertTrue(collector.getTime(strategyId, AlgorithmMetrics.Phase.RECREATE) > 0);
+        assertTrue(collector.getTime(strategyId, AlgorithmMetrics.Phase.STATE_UPDATE) > 0);
+        assertTrue(collector.getCount(strategyId, AlgorithmMetrics.Counter.INSERTION_EVALUATIONS) > 0);
+        assertTrue(collector.getCount(strategyId, AlgorithmMetrics.Counter.CONSTRAINT_CHECKS) > 0);
+        Map<String, Long> rejections = collector.getRejections(strategyId);
+        assertTrue(rejections.containsKey(ServiceLoadRouteLevelConstraint.class.getName()));
+        assertTrue(collector.getIterationsPerSecond() > 0.);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobUnassignedListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BestInsertionConcurrentPartitionedTest {
+
+    private ExecutorService executor;
+
+    private VehicleRoutingProblem vrp;
+
+    @Before
+    public void doBefore() {
+        executor = Executors.newFixedThreadPool(2);
+        vrp = createProblem(10);
+    }
+
+    private VehicleRoutingProblem createProblem(int capacity) {
+        return createProblem(capacity, 1);
+    }
+
+    private VehicleRoutingProblem createProblem(int capacity, int distanceBetweenStartLocations) {
+        Random random = new Random(42);
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, capacity).build();
+        for (int i = 0; i < 5; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setType(type)
+                .setStartLocation(Location.newInstance(50 + i * distanceBetweenStartLocations, 50)).build());
+        }
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    @After
+    public void doAfter() {
+        executor.shutdown();
+    }
+
+    private AbstractInsertionStrategy createInsertion(boolean concurrent, int nuOfJobsPerRound) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addLoadConstraint();
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        InsertionStrategyBuilder builder = new InsertionStrategyBuilder(vrp, fleetManager, stateManager, constraintManager);
+        if (concurrent) builder.setConcurrentMode(executor, 3, nuOfJobsPerRound);
+        AbstractInsertionStrategy insertion = (AbstractInsertionStrategy) builder.build();
+        insertion.addListener(stateManager);
+        insertion.addListener(new VehicleSwitched(fleetManager));
+        insertion.setRandom(new Random(1));
+        return insertion;
+    }
+
+    private Set<String> insert(AbstractInsertionStrategy insertion, Collection<Job> jobs) {
+        Collection<VehicleRoute> routes = new ArrayList<>();
+        Collection<Job> badJobs = insertion.insertJobs(routes, jobs);
+        Set<String> tours = new TreeSet<>();
+        for (VehicleRoute route : routes) {
+            if (route.isEmpty()) continue;
+            StringBuilder tour = new StringBuilder(route.getVehicle().getId()).append(":");
+            for (TourActivity act : route.getActivities()) {
+                tour.append(((TourActivity.JobActivity) act).getJob().getId()).append(",");
+            }
+            tours.add(tour.toString());
+        }
+        for (Job badJob : badJobs) {
+            tours.add("unassigned:" + badJob.getId());
+        }
+        return tours;
+    }
+
+    @Test
+    public void whenBuildingWithPartitionedWorkers_itShouldReturnPartitionedInsertion() {
+        assertTrue(createInsertion(true, 4) instanceof BestInsertionConcurrentPartitioned);
+    }
+
+    @Test
+    public void whenEvaluatingOneJobPerRound_toursShouldBeEqualToBestInsertion() {
+        Set<String> expected = insert(createInsertion(false, 1), vrp.getJobs().values());
+        assertEquals(expected, insert(createInsertion(true, 1), vrp.getJobs().values()));
+    }
+
+    @Test
+    public void whenEvaluatingSeveralJobsPerRound_toursShouldBeEqualToBestInsertion() {
+        Set<String> expected = insert(createInsertion(false, 1), vrp.getJobs().values());
+        assertEquals(expected, insert(createInsertion(true, 4), vrp.getJobs().values()));
+        assertEquals(expected, insert(createInsertion(true, 40), vrp.getJobs().values()));
+    }
+
+    @Test
+    public void whenVehiclesAreTakenFromFleetWithinRound_jobsShouldNotBePostponed() {
+        //vehicles at the same location cannot be switched, i.e. vehicles are only taken but never returned to the fleet
+        vrp = createProblem(10, 0);
+        BestInsertionConcurrentPartitioned insertion = (BestInsertionConcurrentPartitioned) createInsertion(true, 40);
+        Set<String> tours = insert(insertion, vrp.getJobs().values());
+        assertEquals(1, insertion.getNuOfRounds());
+        assertEquals(insert(createInsertion(false, 1), vrp.getJobs().values()), tours);
+    }
+
+    @Test
+    public void whenInsertingSeveralTimes_workersShouldBeKept() {
+        AbstractInsertionStrategy insertion = createInsertion(true, 4);
+        insert(insertion, vrp.getJobs().values());
+        insert(insertion, vrp.getJobs().values());
+        //3 partitions, the first one is evaluated by the calling thread
+        assertEquals(2, ((ThreadPoolExecutor) executor).getTaskCount());
+    }
+
+    @Test
+    public void whenCapacityOfFleetIsTooSmall_remainingJobsShouldBeUnassigned() {
+        vrp = createProblem(6);
+        Set<String> tours = insert(createInsertion(true, 8), vrp.getJobs().values());
+        int nuOfUnassignedJobs = 0;
+        for (String tour : tours) {
+            if (tour.startsWith("unassigned:")) nuOfUnassignedJobs++;
+        }
+        assertEquals(10, nuOfUnassignedJobs);
+        assertEquals(insert(createInsertion(false, 1), vrp.getJobs().values()), tours);
+    }
+
+    private Map<String, List<String>> getFailedConstraints(AbstractInsertionStrategy insertion) {
+        final Map<String, List<String>> failedConstraints = new TreeMap<>();
+        insertion.addListener(new JobUnassignedListener() {
+
+            @Override
+            public void informJobUnassigned(Job unassigned, Collection<String> failedConstraintNames) {
+                List<String> names = new ArrayList<>(failedConstraintNames);
+                Collections.sort(names);
+                failedConstraints.put(unassigned.getId(), names);
+            }
+        });
+        insertion.insertJobs(new ArrayList<VehicleRoute>(), vrp.getJobs().values());
+        return failedConstraints;
+    }
+
+    @Test
+    public void whenJobFailsOnRouteChangedInSameRound_failedConstraintsShouldBeCountedOnce() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).build();
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(0, 0)).build());
+        for (int i = 0; i < 9; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setPriority(1)
+                .setLocation(Location.newInstance(i, 10)).build());
+        }
+        vrpBuilder.addJob(Service.Builder.newInstance("big").addSizeDimension(0, 5).setPriority(3)
+            .setLocation(Location.newInstance(5, 5)).build());
+        vrp = vrpBuilder.build();
+        Map<String, List<String>> expected = getFailedConstraints(createInsertion(false, 1));
+        assertEquals(1, expected.size());
+        assertTrue(!expected.get("big").isEmpty());
+        assertEquals(expected, getFailedConstraints(createInsertion(true, 10)));
+    }
+
+}
@@ -20,6 +20,8 @@ package com.graphhopper.jsprit.core.algorithm.recreate;
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
@@ -27,8 +29,10 @@ import com.graphhopper.jsprit.core.problem.vehicle.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -102,4 +106,27 @@ public class CalcVehicleTypeDependentServiceInsertionTest {
         assertThat(iData.getSelectedVehicle(), is(veh2));
 
     }
+
+    @Test
+    public void whenSkillIndexIsSet_vehiclesWithoutRequiredSkillsShouldNotBeEvaluated() {
+        VehicleImpl withSkill = VehicleImpl.Builder.newInstance("withSkill").setStartLocation(Location.newInstance(0, 0)).addSkill("drill").build();
+        VehicleImpl withoutSkill = VehicleImpl.Builder.newInstance("withoutSkill").setStartLocation(Location.newInstance(0, 0)).build();
+        Service drilling = Service.Builder.newInstance("drilling").setLocation(Location.newInstance(1, 1)).addRequiredSkill("drill").build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .addVehicle(withSkill).addVehicle(withoutSkill).addJob(drilling).build();
+        final List<Vehicle> evaluatedVehicles = new ArrayList<>();
+        JobInsertionCostsCalculator calc = new JobInsertionCostsCalculator() {
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                evaluatedVehicles.add(newVehicle);
+                return new InsertionData(1., InsertionData.NO_INDEX, 0, newVehicle, newDriver);
+            }
+        };
+        VehicleTypeDependentJobInsertionCalculator insertion = new VehicleTypeDependentJobInsertionCalculator(vrp,
+            new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager(), calc);
+        insertion.setSkillIndex(vrp.getSkillIndex());
+        InsertionData iData = insertion.getInsertionData(VehicleRoute.emptyRoute(), drilling, null, 0.0, null, Double.MAX_VALUE);
+        assertThat(iData.getSelectedVehicle(), is((Vehicle) withSkill));
+        assertThat(evaluatedVehicles, is(Collections.<Vehicle>singletonList(withSkill)));
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListeners;
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListener;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GranularInsertionTest {
+
+    private static class FixedNeighborhoods implements JobNeighborhoods {
+
+        private List<Job> neighbors = new ArrayList<>();
+
+        @Override
+        public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+            return neighbors.subList(0, Math.min(nNeighbors, neighbors.size())).iterator();
+        }
+
+        @Override
+        public void initialise() {
+
+        }
+
+        @Override
+        public double getMaxDistance() {
+            return 0;
+        }
+    }
+
+    private static class EvaluationCounter implements SoftActivityConstraint {
+
+        private int count;
+
+        @Override
+        public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+            count++;
+            return 0;
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private StateManager stateManager;
+
+    private ConstraintManager constraintManager;
+
+    private FixedNeighborhoods neighborhoods;
+
+    private EvaluationCounter counter;
+
+    @Before
+    public void doBefore() {
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).setReturnToDepot(false).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(10 * i, 0)).build());
+        }
+        vrpBuilder.addJob(Service.Builder.newInstance("service").setLocation(Location.newInstance(55, 1)).build());
+        vrpBuilder.addJob(Service.Builder.newInstance("other").setLocation(Location.newInstance(55, 100)).build());
+        vrpBuilder.addJob(Shipment.Builder.newInstance("shipment").setPickupLocation(Location.newInstance(52, 1))
+            .setDeliveryLocation(Location.newInstance(58, 1)).build());
+        vrp = vrpBuilder.build();
+        stateManager = new StateManager(vrp);
+        constraintManager = new ConstraintManager(vrp, stateManager);
+        counter = new EvaluationCounter();
+        constraintManager.addConstraint(counter);
+        neighborhoods = new FixedNeighborhoods();
+    }
+
+    private VehicleRoute createRoute() {
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (int i = 0; i < 10; i++) {
+            builder.addService((Service) vrp.getJobs().get("s" + i));
+        }
+        return builder.build();
+    }
+
+    private ServiceInsertionCalculator createServiceCalculator() {
+        return new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(),
+            new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager),
+            constraintManager, vrp.getJobActivityFactory());
+    }
+
+    private ShipmentInsertionCalculator createShipmentCalculator() {
+        return new ShipmentInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(),
+            new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager),
+            constraintManager, vrp.getJobActivityFactory());
+    }
+
+    private void setNeighbors(String... jobIds) {
+        for (String jobId : jobIds) neighborhoods.neighbors.add(vrp.getJobs().get(jobId));
+    }
+
+    @Test
+    public void whenInsertingService_onlyPositionsNextToNeighborsAndRouteEndsShouldBeEvaluated() {
+        setNeighbors("s5");
+        ServiceInsertionCalculator calculator = createServiceCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 1);
+        InsertionData iData = calculator.getInsertionData(createRoute(), vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(6, iData.getDeliveryInsertionIndex());
+        //positions 0, 5, 6 and 10 instead of 11 positions
+        assertEquals(4, counter.count);
+    }
+
+    @Test
+    public void whenBestPositionIsAdjacentToNeighbor_resultShouldBeEqualToFullEvaluation() {
+        VehicleRoute route = createRoute();
+        InsertionData expected = createServiceCalculator().getInsertionData(route, vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(11, counter.count);
+
+        setNeighbors("s6", "s5");
+        ServiceInsertionCalculator calculator = createServiceCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 2);
+        InsertionData iData = calculator.getInsertionData(route, vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(expected.getDeliveryInsertionIndex(), iData.getDeliveryInsertionIndex());
+        assertEquals(expected.getInsertionCost(), iData.getInsertionCost(), 1e-10);
+    }
+
+    @Test
+    public void whenMoreNeighborsAreAvailable_onlyTheSpecifiedNumberOfNeighborsShouldBeConsidered() {
+        setNeighbors("s2", "s5");
+        ServiceInsertionCalculator calculator = createServiceCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 1);
+        InsertionData iData = calculator.getInsertionData(createRoute(), vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertTrue(Arrays.asList(0, 2, 3, 10).contains(iData.getDeliveryInsertionIndex()));
+
+        calculator.setJobNeighborhoods(neighborhoods, 2);
+        iData = calculator.getInsertionData(createRoute(), vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(6, iData.getDeliveryInsertionIndex());
+    }
+
+    @Test
+    public void whenRouteContainsNoNeighbor_itShouldBeSkipped() {
+        setNeighbors("other");
+        ServiceInsertionCalculator calculator = createServiceCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 1);
+        InsertionData iData = calculator.getInsertionData(createRoute(), vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertTrue(iData instanceof InsertionData.NoInsertionFound);
+        assertEquals(0, counter.count);
+    }
+
+    @Test
+    public void whenRouteIsEmpty_itShouldBeEvaluated() {
+        setNeighbors("other");
+        ServiceInsertionCalculator calculator = createServiceCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 1);
+        VehicleRoute emptyRoute = VehicleRoute.emptyRoute();
+        InsertionData iData = calculator.getInsertionData(emptyRoute, vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(0, iData.getDeliveryInsertionIndex());
+    }
+
+    @Test
+    public void whenInsertingShipment_pickupAndDeliveryShouldOnlyBeInsertedNextToNeighbors() {
+        VehicleRoute route = createRoute();
+        InsertionData expected = createShipmentCalculator().getInsertionData(route, vrp.getJobs().get("shipment"), vehicle, 0., null, Double.MAX_VALUE);
+        int nuOfEvaluationsWithoutNeighborhood = counter.count;
+        counter.count = 0;
+
+        setNeighbors("s5");
+        ShipmentInsertionCalculator calculator = createShipmentCalculator();
+        calculator.setJobNeighborhoods(neighborhoods, 1);
+        InsertionData iData = calculator.getInsertionData(route, vrp.getJobs().get("shipment"), vehicle, 0., null, Double.MAX_VALUE);
+        assertEquals(6, iData.getPickupInsertionIndex());
+        assertEquals(6, iData.getDeliveryInsertionIndex());
+        assertEquals(expected.getInsertionCost(), iData.getInsertionCost(), 1e-10);
+        assertTrue(counter.count < nuOfEvaluationsWithoutNeighborhood / 4);
+
+        setNeighbors("s2");
+        calculator.setJobNeighborhoods(neighborhoods, 2);
+        iData = calculator.getInsertionData(route, vrp.getJobs().get("shipment"), vehicle, 0., null, Double.MAX_VALUE);
+        List<Integer> allowedPositions = Arrays.asList(0, 2, 3, 5, 6, 10);
+        assertTrue(allowedPositions.contains(iData.getPickupInsertionIndex()));
+        assertTrue(allowedPositions.contains(iData.getDeliveryInsertionIndex()));
+    }
+
+    @Test
+    public void whenBuildingWithGranularInsertion_serviceInsertionShouldBeRestricted() {
+        setNeighbors("other");
+        JobInsertionCostsCalculator calculator = new JobInsertionCostsCalculatorBuilder(new ArrayList<InsertionListener>(),
+            new ArrayList<VehicleRoutingAlgorithmListeners.PrioritizedVRAListener>())
+            .setVehicleRoutingProblem(vrp).setStateManager(stateManager).setConstraintManager(constraintManager)
+            .setVehicleFleetManager(new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager())
+            .setGranularInsertion(neighborhoods, 5).build();
+        InsertionData iData = calculator.getInsertionData(createRoute(), vrp.getJobs().get("service"), vehicle, 0., null, Double.MAX_VALUE);
+        assertTrue(iData instanceof InsertionData.NoInsertionFound);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenCombiningGranularInsertionWithRouteLevel_itShouldThrowException() {
+        new JobInsertionCostsCalculatorBuilder(new ArrayList<InsertionListener>(), new ArrayList<VehicleRoutingAlgorithmListeners.PrioritizedVRAListener>())
+            .setVehicleRoutingProblem(vrp).setStateManager(stateManager).setConstraintManager(constraintManager)
+            .setVehicleFleetManager(new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager())
+            .setRouteLevel(2, 2, true).setGranularInsertion(neighborhoods, 5).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNumberOfNeighborsIsZero_itShouldThrowException() {
+        new JobInsertionCostsCalculatorBuilder(new ArrayList<InsertionListener>(), new ArrayList<VehicleRoutingAlgorithmListeners.PrioritizedVRAListener>())
+            .setGranularInsertion(neighborhoods, 0);
+    }
+
+}
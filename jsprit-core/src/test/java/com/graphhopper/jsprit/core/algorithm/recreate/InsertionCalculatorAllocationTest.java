@@ -0,0 +1,167 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the memory allocated by insertion calculators does not depend on the number of insertion positions.
+ */
+public class InsertionCalculatorAllocationTest {
+
+    private static final int NU_OF_CALLS = 1000;
+
+    private com.sun.management.ThreadMXBean threadBean;
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private StateManager stateManager;
+
+    private ConstraintManager constraintManager;
+
+    @Before
+    public void doBefore() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).setReturnToDepot(false)
+            .setLatestArrival(1e6).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        for (int i = 0; i < 100; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i, 0))
+                .addTimeWindow(TimeWindow.newInstance(0, 1e6)).build());
+        }
+        for (int i = 0; i < 20; i++) {
+            vrpBuilder.addJob(Shipment.Builder.newInstance("sh" + i).setPickupLocation(Location.newInstance(i, 10))
+                .setDeliveryLocation(Location.newInstance(i, 20)).build());
+        }
+        vrpBuilder.addJob(Service.Builder.newInstance("service").setLocation(Location.newInstance(50.3, 5)).build());
+        vrpBuilder.addJob(Service.Builder.newInstance("early").setLocation(Location.newInstance(1, 0))
+            .addTimeWindow(TimeWindow.newInstance(0, 10)).build());
+        vrpBuilder.addJob(Shipment.Builder.newInstance("shipment").setPickupLocation(Location.newInstance(10, 5))
+            .setDeliveryLocation(Location.newInstance(10, 15)).build());
+        vrp = vrpBuilder.build();
+
+        stateManager = new StateManager(vrp);
+        stateManager.updateTimeWindowStates();
+        constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addTimeWindowConstraint();
+    }
+
+    private VehicleRoute createRoute(String prefix, int nuOfJobs) {
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (int i = 0; i < nuOfJobs; i++) {
+            Job job = vrp.getJobs().get(prefix + i);
+            if (job instanceof Service) builder.addService((Service) job);
+            else builder.addPickup((Shipment) job);
+        }
+        for (int i = 0; i < nuOfJobs; i++) {
+            Job job = vrp.getJobs().get(prefix + i);
+            if (job instanceof Shipment) builder.addDelivery((Shipment) job);
+        }
+        VehicleRoute route = builder.build();
+        stateManager.informInsertionStarts(Collections.singletonList(route), Collections.<Job>emptyList());
+        return route;
+    }
+
+    private long getAllocatedBytes(JobInsertionCostsCalculator calculator, VehicleRoute route, Job job) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < NU_OF_CALLS; i++) {
+            calculator.getInsertionData(route, job, vehicle, 0., null, Double.MAX_VALUE);
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+    }
+
+    private void assertAllocationIndependentOfRouteLength(JobInsertionCostsCalculator calculator, VehicleRoute shortRoute, VehicleRoute longRoute, Job job) {
+        for (int i = 0; i < 10; i++) {
+            getAllocatedBytes(calculator, shortRoute, job);
+            getAllocatedBytes(calculator, longRoute, job);
+        }
+        long additionalBytes = getAllocatedBytes(calculator, longRoute, job) - getAllocatedBytes(calculator, shortRoute, job);
+        assertTrue("additional bytes per call: " + additionalBytes / NU_OF_CALLS, additionalBytes < NU_OF_CALLS * 16);
+    }
+
+    private LocalActivityInsertionCostsCalculator createActivityInsertionCostsCalculator() {
+        return new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager);
+    }
+
+    @Test
+    public void whenInsertingServiceIntoLongerRoute_noAdditionalMemoryShouldBeAllocated() {
+        ServiceInsertionCalculator calculator = new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(),
+            createActivityInsertionCostsCalculator(), constraintManager, vrp.getJobActivityFactory());
+        VehicleRoute longRoute = createRoute("s", 100);
+        Job service = vrp.getJobs().get("service");
+        assertEquals(51, calculator.getInsertionData(longRoute, service, vehicle, 0., null, Double.MAX_VALUE).getDeliveryInsertionIndex());
+        assertAllocationIndependentOfRouteLength(calculator, createRoute("s", 5), longRoute, service);
+    }
+
+    @Test
+    public void whenInsertingShipmentIntoLongerRoute_noAdditionalMemoryShouldBeAllocated() {
+        ShipmentInsertionCalculatorFlex calculator = new ShipmentInsertionCalculatorFlex(vrp.getTransportCosts(), vrp.getActivityCosts(),
+            createActivityInsertionCostsCalculator(), constraintManager);
+        calculator.setJobActivityFactory(vrp.getJobActivityFactory());
+        VehicleRoute longRoute = createRoute("sh", 20);
+        Job shipment = vrp.getJobs().get("shipment");
+        assertTrue(calculator.getInsertionData(longRoute, shipment, vehicle, 0., null, Double.MAX_VALUE).getPickupInsertionIndex() >= 0);
+        assertAllocationIndependentOfRouteLength(calculator, createRoute("sh", 2), longRoute, shipment);
+    }
+
+    @Test
+    public void whenNoPositionIsFeasible_failedConstraintsShouldBeReported() {
+        ServiceInsertionCalculator calculator = new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(),
+            createActivityInsertionCostsCalculator(), constraintManager, vrp.getJobActivityFactory());
+        InsertionData iData = calculator.getInsertionData(createRoute("s", 5), vrp.getJobs().get("early"), vehicle, 100., null, Double.MAX_VALUE);
+        assertTrue(iData instanceof InsertionData.NoInsertionFound);
+        //one failure per insertion position
+        assertEquals(Collections.nCopies(6, "VehicleDependentTimeWindowConstraints"), iData.getFailedConstraintNames());
+    }
+
+    @Test
+    public void whenAddingToFailedConstraintNames_failureShouldBeRecorded() {
+        InsertionData iData = new InsertionData.NoInsertionFound();
+        iData.addFailedConstrainName("MaxDistanceConstraint");
+        iData.getFailedConstraintNames().add("HardSkillConstraint");
+        assertEquals(1, iData.getFailedConstraints().getCount(ConstraintManager.getConstraintId("HardSkillConstraint")));
+        assertEquals(2, iData.getFailedConstraintNames().size());
+        assertTrue(iData.getFailedConstraintNames().contains("HardSkillConstraint"));
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ServiceActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+
+public class InsertionCostsCacheTest {
+
+    private static class CountingCalculator implements JobInsertionCostsCalculator {
+
+        private final double costs;
+
+        private int nuOfCalls = 0;
+
+        CountingCalculator(double costs) {
+            this.costs = costs;
+        }
+
+        @Override
+        public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+            nuOfCalls++;
+            if (costs >= bestKnownCosts) return new InsertionData.NoInsertionFound();
+            InsertionData iData = new InsertionData(costs, InsertionData.NO_INDEX, 0, newVehicle, newDriver);
+            iData.getEvents().add(new InsertActivity(currentRoute, newVehicle, ServiceActivity.newInstance((Service) newJob), 0));
+            return iData;
+        }
+    }
+
+    private Vehicle vehicle;
+
+    private Service service;
+
+    private Service otherService;
+
+    private VehicleRoute route;
+
+    @Before
+    public void doBefore() {
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 0)).build();
+        otherService = Service.Builder.newInstance("o").setLocation(Location.newInstance(0, 1)).build();
+        route = VehicleRoute.Builder.newInstance(vehicle).addService(otherService).build();
+    }
+
+    private InsertionData getInsertionData(JobInsertionCostsCalculator calculator, VehicleRoute route, double bestKnownCosts) {
+        return calculator.getInsertionData(route, service, vehicle, 0., route.getDriver(), bestKnownCosts);
+    }
+
+    @Test
+    public void whenRouteIsUnchanged_insertionDataShouldBeLookedUp() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        InsertionData first = getInsertionData(cached, route, Double.MAX_VALUE);
+        InsertionData second = getInsertionData(cached, route, Double.MAX_VALUE);
+        assertEquals(1, calculator.nuOfCalls);
+        assertEquals(1, cache.getNuOfHits());
+        assertEquals(10., second.getInsertionCost(), 0.01);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void whenRouteIsModified_insertionDataShouldBeCalculatedAgain() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        route.getTourActivities().removeJob(otherService);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuOfCalls);
+    }
+
+    @Test
+    public void copiesOfRoute_shouldGetInsertionDataThatRefersToCopy() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        InsertionData original = getInsertionData(cached, route, Double.MAX_VALUE);
+        VehicleRoute copy = VehicleRoute.lazyCopyOf(route);
+        InsertionData copied = getInsertionData(cached, copy, Double.MAX_VALUE);
+        assertEquals(1, calculator.nuOfCalls);
+        InsertActivity originalEvent = (InsertActivity) original.getEvents().get(0);
+        InsertActivity copiedEvent = (InsertActivity) copied.getEvents().get(0);
+        assertSame(copy, copiedEvent.getVehicleRoute());
+        assertNotSame(originalEvent.getActivity(), copiedEvent.getActivity());
+        assertSame(service, ((ServiceActivity) copiedEvent.getActivity()).getJob());
+    }
+
+    @Test
+    public void whenCachedInsertionIsNotBetterThanBestKnownCosts_noInsertionShouldBeFound() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        assertTrue(getInsertionData(cached, route, 10.) instanceof InsertionData.NoInsertionFound);
+        assertEquals(1, calculator.nuOfCalls);
+    }
+
+    @Test
+    public void noInsertionFound_shouldOnlyBeLookedUpForLowerOrEqualBestKnownCosts() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        assertTrue(getInsertionData(cached, route, 8.) instanceof InsertionData.NoInsertionFound);
+        assertTrue(getInsertionData(cached, route, 5.) instanceof InsertionData.NoInsertionFound);
+        assertEquals(1, calculator.nuOfCalls);
+        assertEquals(10., getInsertionData(cached, route, 20.).getInsertionCost(), 0.01);
+        assertEquals(2, calculator.nuOfCalls);
+    }
+
+    @Test
+    public void whenCostsContextChanges_insertionDataShouldBeCalculatedAgain() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        double[] context = {0.5};
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, () -> context[0]);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        context[0] = 0.6;
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuOfCalls);
+    }
+
+    @Test
+    public void whenCacheIsDisabled_insertionDataShouldAlwaysBeCalculated() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        cache.setEnabled(false);
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuOfCalls);
+        assertEquals(0, cache.getNuOfHits() + cache.getNuOfMisses());
+    }
+
+    @Test
+    public void insertionStart_shouldDropVersionsOfRoutesThatAreNotInSolution() {
+        InsertionCostsCache cache = new InsertionCostsCache();
+        CountingCalculator calculator = new CountingCalculator(10.);
+        JobInsertionCostsCalculator cached = new CachedJobInsertionCostsCalculator(calculator, cache, null);
+        VehicleRoute otherRoute = VehicleRoute.Builder.newInstance(vehicle).addService(otherService).build();
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        getInsertionData(cached, otherRoute, Double.MAX_VALUE);
+        cache.informInsertionStarts(Collections.singletonList(route), Collections.<Job>singletonList(service));
+        getInsertionData(cached, route, Double.MAX_VALUE);
+        getInsertionData(cached, otherRoute, Double.MAX_VALUE);
+        assertEquals(3, calculator.nuOfCalls);
+    }
+
+}
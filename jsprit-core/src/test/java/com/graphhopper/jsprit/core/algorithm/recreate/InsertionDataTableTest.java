@@ -0,0 +1,96 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class InsertionDataTableTest {
+
+    private static InsertionData[] insertions(double... costs) {
+        InsertionData[] insertions = new InsertionData[costs.length];
+        for (int i = 0; i < costs.length; i++) {
+            insertions[i] = new InsertionData(costs[i], InsertionData.NO_INDEX, 1, null, null);
+        }
+        return insertions;
+    }
+
+    @Test
+    public void whenTableIsEmpty_thereShouldBeNoBestSlots() {
+        InsertionDataTable table = new InsertionDataTable();
+        table.update(0, insertions());
+        assertEquals(-1, table.getBestSlot());
+        assertEquals(-1, table.getSecondBestSlot());
+    }
+
+    @Test
+    public void bestSlotsShouldBeMaintainedOnUpdate() {
+        InsertionDataTable table = new InsertionDataTable();
+        table.update(0, insertions(30.));
+        table.update(1, insertions(10., 50.));
+        table.update(2, insertions(20.));
+        assertEquals(1, table.getBestSlot());
+        assertEquals(2, table.getSecondBestSlot());
+
+        table.update(3, insertions(5.));
+        assertEquals(3, table.getBestSlot());
+        assertEquals(1, table.getSecondBestSlot());
+    }
+
+    @Test
+    public void whenBestSlotGetsWorse_bestSlotsShouldBeDeterminedFromScratch() {
+        InsertionDataTable table = new InsertionDataTable();
+        table.update(0, insertions(30.));
+        table.update(1, insertions(10.));
+        table.update(2, insertions(20.));
+        table.update(1, insertions(40.));
+        assertEquals(2, table.getBestSlot());
+        assertEquals(0, table.getSecondBestSlot());
+
+        table.update(2, insertions());
+        assertEquals(0, table.getBestSlot());
+        assertEquals(1, table.getSecondBestSlot());
+        assertEquals(0, table.getInsertionData(2).length);
+    }
+
+    @Test
+    public void amongEquallyExpensiveInsertions_earlierUpdateShouldComeFirst() {
+        InsertionDataTable table = new InsertionDataTable();
+        table.update(0, insertions(10.));
+        table.update(1, insertions(10.));
+        table.update(2, insertions(10.));
+        assertEquals(0, table.getBestSlot());
+        assertEquals(1, table.getSecondBestSlot());
+
+        table.update(0, insertions(10.));
+        assertEquals(1, table.getBestSlot());
+        assertEquals(2, table.getSecondBestSlot());
+    }
+
+    @Test
+    public void slotsThatHaveNotBeenUpdatedShouldBeEmpty() {
+        InsertionDataTable table = new InsertionDataTable();
+        table.update(20, insertions(10.));
+        assertEquals(21, table.getNuOfSlots());
+        assertEquals(0, table.getInsertionData(5).length);
+        assertEquals(20, table.getBestSlot());
+    }
+
+}
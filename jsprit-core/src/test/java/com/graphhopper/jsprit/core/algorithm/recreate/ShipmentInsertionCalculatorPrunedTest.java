@@ -0,0 +1,235 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.SoftActivityConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShipmentInsertionCalculatorPrunedTest {
+
+    private static class CountingSoftActivityConstraint implements SoftActivityConstraint {
+
+        private int nuOfCalls = 0;
+
+        @Override
+        public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+            nuOfCalls++;
+            return 0.;
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private StateManager stateManager;
+
+    private ConstraintManager constraintManager;
+
+    private CountingSoftActivityConstraint countingConstraint;
+
+    private List<Job> remainingJobs;
+
+    private Collection<VehicleRoute> routes;
+
+    private void createProblem(long seed, int nuOfShipments, boolean withTimeWindows) {
+        createProblem(seed, nuOfShipments, withTimeWindows, 8);
+    }
+
+    private void createProblem(long seed, int nuOfShipments, boolean withTimeWindows, int capacity) {
+        Random random = new Random(seed);
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleTypeImpl small = VehicleTypeImpl.Builder.newInstance("small").addCapacityDimension(0, capacity)
+            .setCostPerDistance(1.).build();
+        VehicleTypeImpl large = VehicleTypeImpl.Builder.newInstance("large").addCapacityDimension(0, 2 * capacity)
+            .setCostPerDistance(1.5).setCostPerTransportTime(0.5).setFixedCost(100).build();
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v1").setType(small).setStartLocation(Location.newInstance(50, 50)).build());
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v2").setType(large).setStartLocation(Location.newInstance(20, 70))
+            .setEndLocation(Location.newInstance(80, 30)).build());
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v3").setType(small).setStartLocation(Location.newInstance(0, 0))
+            .setReturnToDepot(false).build());
+        for (int i = 0; i < nuOfShipments; i++) {
+            Shipment.Builder shipment = Shipment.Builder.newInstance("s" + i).addSizeDimension(0, 1 + random.nextInt(3))
+                .setPickupLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100))
+                .setDeliveryLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100));
+            if (withTimeWindows) {
+                double pickupStart = random.nextDouble() * 500;
+                double deliveryStart = random.nextDouble() * 500;
+                shipment.setPickupTimeWindow(TimeWindow.newInstance(pickupStart, pickupStart + 200 + random.nextDouble() * 500))
+                    .setDeliveryTimeWindow(TimeWindow.newInstance(deliveryStart, deliveryStart + 300 + random.nextDouble() * 500));
+            }
+            vrpBuilder.addJob(shipment.build());
+        }
+        vrp = vrpBuilder.build();
+
+        stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        stateManager.updateTimeWindowStates();
+        constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addLoadConstraint();
+        constraintManager.addTimeWindowConstraint();
+        countingConstraint = new CountingSoftActivityConstraint();
+        constraintManager.addConstraint(countingConstraint);
+
+        //insert most shipments with the default calculator and keep the others to compare the calculators with
+        List<Job> jobs = new ArrayList<>(vrp.getJobs().values());
+        remainingJobs = new ArrayList<>(jobs.subList(0, 10));
+        VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        InsertionStrategy insertion = new InsertionStrategyBuilder(vrp, fleetManager, stateManager, constraintManager).build();
+        insertion.addListener(stateManager);
+        insertion.addListener(new VehicleSwitched(fleetManager));
+        routes = new ArrayList<>();
+        insertion.insertJobs(routes, jobs.subList(10, jobs.size()));
+    }
+
+    private VehicleRoute getLongestRoute() {
+        VehicleRoute longestRoute = null;
+        for (VehicleRoute route : routes) {
+            if (longestRoute == null || route.getActivities().size() > longestRoute.getActivities().size()) {
+                longestRoute = route;
+            }
+        }
+        return longestRoute;
+    }
+
+    private JobInsertionCostsCalculator createCalculator(JobInsertionCostsCalculatorFactory factory) {
+        ActivityInsertionCostsCalculator activityInsertionCostsCalculator = new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager);
+        return factory.create(vrp, activityInsertionCostsCalculator, vrp.getJobActivityFactory(), constraintManager);
+    }
+
+    private int assertSameInsertions(double bestKnownCostsFactor) {
+        JobInsertionCostsCalculator reference = createCalculator(new ShipmentInsertionCalculatorFactory());
+        JobInsertionCostsCalculator pruned = createCalculator(new ShipmentInsertionCalculatorPrunedFactory());
+        int nuOfInsertionsFound = 0;
+        for (Job job : remainingJobs) {
+            for (VehicleRoute route : routes) {
+                for (Vehicle vehicle : vrp.getVehicles()) {
+                    InsertionData expected = reference.getInsertionData(route, job, vehicle, vehicle.getEarliestDeparture(), route.getDriver(), Double.MAX_VALUE);
+                    double bestKnownCosts = Double.MAX_VALUE;
+                    if (!(expected instanceof InsertionData.NoInsertionFound)) {
+                        bestKnownCosts = expected.getInsertionCost() * bestKnownCostsFactor;
+                        expected = reference.getInsertionData(route, job, vehicle, vehicle.getEarliestDeparture(), route.getDriver(), bestKnownCosts);
+                    }
+                    InsertionData actual = pruned.getInsertionData(route, job, vehicle, vehicle.getEarliestDeparture(), route.getDriver(), bestKnownCosts);
+                    String message = job.getId() + " into route of " + route.getVehicle().getId() + " with " + vehicle.getId();
+                    assertEquals(message, expected instanceof InsertionData.NoInsertionFound, actual instanceof InsertionData.NoInsertionFound);
+                    if (expected instanceof InsertionData.NoInsertionFound) continue;
+                    nuOfInsertionsFound++;
+                    assertEquals(message, expected.getInsertionCost(), actual.getInsertionCost(), 0.);
+                    assertEquals(message, expected.getPickupInsertionIndex(), actual.getPickupInsertionIndex());
+                    assertEquals(message, expected.getDeliveryInsertionIndex(), actual.getDeliveryInsertionIndex());
+                }
+            }
+        }
+        return nuOfInsertionsFound;
+    }
+
+    @Test
+    public void whenInsertingShipments_bestInsertionsShouldBeEqualToShipmentInsertionCalculator() {
+        for (long seed = 0; seed < 5; seed++) {
+            createProblem(seed, 60, false);
+            assertTrue(assertSameInsertions(2.) > 0);
+        }
+    }
+
+    @Test
+    public void whenInsertingShipmentsWithTimeWindows_bestInsertionsShouldBeEqualToShipmentInsertionCalculator() {
+        for (long seed = 0; seed < 5; seed++) {
+            createProblem(seed, 60, true);
+            assertTrue(assertSameInsertions(2.) > 0);
+        }
+    }
+
+    @Test
+    public void whenBestKnownCostsAreTight_bestInsertionsShouldBeEqualToShipmentInsertionCalculator() {
+        for (long seed = 0; seed < 5; seed++) {
+            createProblem(seed, 60, true);
+            assertEquals(0, assertSameInsertions(1.));
+            assertTrue(assertSameInsertions(1.000001) > 0);
+        }
+    }
+
+    @Test
+    public void whenInsertingIntoLongRoutes_lessDeliveryPositionsShouldBeEvaluated() {
+        createProblem(42, 80, false, 1000);
+        JobInsertionCostsCalculator reference = createCalculator(new ShipmentInsertionCalculatorFactory());
+        JobInsertionCostsCalculator pruned = createCalculator(new ShipmentInsertionCalculatorPrunedFactory());
+        VehicleRoute route = getLongestRoute();
+        Job job = remainingJobs.get(0);
+
+        countingConstraint.nuOfCalls = 0;
+        InsertionData expected = reference.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), Double.MAX_VALUE);
+        int nuOfReferenceEvaluations = countingConstraint.nuOfCalls;
+
+        countingConstraint.nuOfCalls = 0;
+        InsertionData actual = pruned.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), Double.MAX_VALUE);
+        int nuOfPrunedEvaluations = countingConstraint.nuOfCalls;
+
+        assertEquals(expected.getInsertionCost(), actual.getInsertionCost(), 0.);
+        assertTrue(route.getActivities().size() > 60);
+        assertTrue(nuOfPrunedEvaluations + " vs. " + nuOfReferenceEvaluations, nuOfPrunedEvaluations * 5 < nuOfReferenceEvaluations);
+    }
+
+    @Test
+    public void whenActivityInsertionCostsAreNotCalculatedLocally_noPositionShouldBeSkipped() {
+        createProblem(42, 80, false, 1000);
+        ActivityInsertionCostsCalculator constantCosts = new ActivityInsertionCostsCalculator() {
+
+            @Override
+            public double getCosts(JobInsertionContext iContext, TourActivity prevAct, TourActivity nextAct, TourActivity newAct, double depTimeAtPrevAct) {
+                return 1.;
+            }
+
+        };
+        JobInsertionCostsCalculator reference = new ShipmentInsertionCalculatorFactory().create(vrp, constantCosts, vrp.getJobActivityFactory(), constraintManager);
+        JobInsertionCostsCalculator pruned = new ShipmentInsertionCalculatorPrunedFactory().create(vrp, constantCosts, vrp.getJobActivityFactory(), constraintManager);
+        VehicleRoute route = getLongestRoute();
+        Job job = remainingJobs.get(0);
+
+        countingConstraint.nuOfCalls = 0;
+        reference.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), Double.MAX_VALUE);
+        int nuOfReferenceEvaluations = countingConstraint.nuOfCalls;
+
+        countingConstraint.nuOfCalls = 0;
+        pruned.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), Double.MAX_VALUE);
+        assertEquals(nuOfReferenceEvaluations, countingConstraint.nuOfCalls);
+    }
+
+}
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.EuclideanServiceDistance;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.Location;
@@ -24,14 +25,17 @@ import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Break;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.EuclideanCosts;
+import com.graphhopper.jsprit.core.util.GreatCircleCosts;
 
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -158,4 +162,104 @@ public class JobNeighborhoodsOptimizedTest {
         assertEquals(0, services.size());
     }
 
+    private VehicleRoutingProblem createRandomProblem(int nuOfServices, double minX, double maxX, double minY, double maxY) {
+        Random random = new Random(4711);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < nuOfServices; i++) {
+            //rounded coordinates to get equally distant neighbors
+            Location location = Location.newInstance(minX + Math.round(random.nextDouble() * (maxX - minX)), minY + Math.round(random.nextDouble() * (maxY - minY)));
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(location).build());
+        }
+        return builder.build();
+    }
+
+    private void assertNeighborsAsInFullSort(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        assertNeighborsAsInFullSort(new JobNeighborhoodsOptimized(vrp, jobDistance, capacity), vrp, jobDistance, capacity);
+    }
+
+    private void assertNeighborsAsInFullSort(JobNeighborhoodsOptimized jn, VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        jn.initialise();
+        final List<Job> jobs = new ArrayList<>(vrp.getJobsInclusiveInitialJobsInRoutes().values());
+        double maxDistance = 0.;
+        for (final Job job : jobs) {
+            List<Job> expected = new ArrayList<>(jobs);
+            expected.remove(job);
+            for (Job other : expected) maxDistance = Math.max(maxDistance, jobDistance.getDistance(job, other));
+            final JobDistance distance = jobDistance;
+            Collections.sort(expected, new Comparator<Job>() {
+                @Override
+                public int compare(Job o1, Job o2) {
+                    return Double.compare(distance.getDistance(job, o1), distance.getDistance(job, o2));
+                }
+            });
+            List<Job> actual = new ArrayList<>();
+            Iterator<Job> iter = jn.getNearestNeighborsIterator(capacity, job);
+            while (iter.hasNext()) actual.add(iter.next());
+            assertEquals(expected.subList(0, capacity), actual);
+        }
+        assertEquals(maxDistance, jn.getMaxDistance(), 0.);
+    }
+
+    @Test
+    public void whenUsingEuclideanDistanceWithFewNeighbors_neighborsShouldBeEqualToFullSort() {
+        assertNeighborsAsInFullSort(createRandomProblem(500, 0, 50, 0, 50), new EuclideanServiceDistance(), 10);
+    }
+
+    @Test
+    public void whenUsingEuclideanCostsWithFewNeighbors_neighborsShouldBeEqualToFullSort() {
+        assertNeighborsAsInFullSort(createRandomProblem(500, 0, 50, 0, 50), new AvgServiceAndShipmentDistance(new EuclideanCosts()), 20);
+    }
+
+    @Test
+    public void whenUsingGreatCircleCostsWithFewNeighbors_neighborsShouldBeEqualToFullSort() {
+        assertNeighborsAsInFullSort(createRandomProblem(500, -180, 180, -90, 90), new AvgServiceAndShipmentDistance(new GreatCircleCosts()), 10);
+    }
+
+    @Test
+    public void whenUsingArbitraryDistance_neighborsShouldBeEqualToFullSort() {
+        JobDistance manhattan = new JobDistance() {
+            @Override
+            public double getDistance(Job i, Job j) {
+                Coordinate c_i = ((Service) i).getLocation().getCoordinate();
+                Coordinate c_j = ((Service) j).getLocation().getCoordinate();
+                return Math.abs(c_i.getX() - c_j.getX()) + Math.abs(c_i.getY() - c_j.getY());
+            }
+        };
+        assertNeighborsAsInFullSort(createRandomProblem(300, 0, 20, 0, 20), manhattan, 10);
+        assertNeighborsAsInFullSort(createRandomProblem(300, 0, 20, 0, 20), manhattan, 150);
+    }
+
+    @Test
+    public void whenUsingEuclideanDistanceWithManyNeighbors_neighborsShouldBeEqualToFullSort() {
+        assertNeighborsAsInFullSort(createRandomProblem(300, 0, 20, 0, 20), new EuclideanServiceDistance(), 150);
+    }
+
+    @Test
+    public void whenProcessingConcurrently_neighborsShouldBeEqualToFullSort() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            VehicleRoutingProblem vrp = createRandomProblem(500, 0, 50, 0, 50);
+            JobDistance jobDistance = new EuclideanServiceDistance();
+            assertNeighborsAsInFullSort(new JobNeighborhoodsOptimized(vrp, jobDistance, 10, executor, 3), vrp, jobDistance, 10);
+            assertNeighborsAsInFullSort(new JobNeighborhoodsOptimized(vrp, jobDistance, 200, executor, 3), vrp, jobDistance, 200);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void whenNoExecutorIsSpecified_distancesShouldBeCalculatedByCallingThread() {
+        final Thread callingThread = Thread.currentThread();
+        final Set<Thread> threads = new HashSet<>();
+        JobDistance jobDistance = new JobDistance() {
+            @Override
+            public double getDistance(Job i, Job j) {
+                threads.add(Thread.currentThread());
+                return new EuclideanServiceDistance().getDistance(i, j);
+            }
+        };
+        new JobNeighborhoodsOptimized(createRandomProblem(100, 0, 20, 0, 20), jobDistance, 10).initialise();
+        assertEquals(Collections.singleton(callingThread), threads);
+    }
+
 }
@@ -21,6 +21,7 @@ import com.graphhopper.jsprit.core.problem.*;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ServiceActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -32,6 +33,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -139,6 +142,120 @@ public class StateManagerTest {
         assertEquals(500, getCap.get(0));
     }
 
+    @Test
+    public void whenDoubleActivityStateIsSet_itMustBeSetCorrectly() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        stateManager.putActivityState(activity, id, 3.5);
+        assertEquals(3.5, stateManager.getActivityState(activity, id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsNotSet_itShouldReturnDefault() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        assertEquals(-1., stateManager.getActivityState(activity, id, -1.), 0.01);
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsSet_itCanBeRetrievedWithGenericMethod() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        stateManager.putActivityState(activity, id, 3.5);
+        assertEquals(3.5, stateManager.getActivityState(activity, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenVehicleDependentDoubleRouteStateIsSet_itMustBeSetCorrectly() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(4.).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleImpl vehicle2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("loc")).setType(type).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addVehicle(vehicle2).build();
+        VehicleRoute route = getRoute(vehicle);
+
+        StateManager stateManager = new StateManager(vrp);
+        DoubleStateId id = stateManager.createDoubleStateId("vehicleParam");
+        stateManager.putRouteState(route, vehicle, id, 1.);
+        stateManager.putRouteState(route, vehicle2, id, 4.);
+        assertEquals(1., stateManager.getRouteState(route, vehicle, id, 0.), 0.01);
+        assertEquals(4., stateManager.getRouteState(route, vehicle2, id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenIntActivityStateIsSet_itMustBeSetCorrectly() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).build();
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrp);
+        IntStateId id = stateManager.createIntStateId("myState");
+        stateManager.putActivityState(activity, vehicle, id, 3);
+        assertEquals(3, stateManager.getActivityState(activity, vehicle, id, 0));
+    }
+
+    @Test
+    public void whenCapacityRouteStateIsSet_itMustBeSetCorrectly() {
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        CapacityStateId id = stateManager.createCapacityStateId("myState");
+        stateManager.putTypedInternalRouteState(route, id, Capacity.Builder.newInstance().addDimension(0, 500).build());
+        assertEquals(500, stateManager.getRouteState(route, id).get(0));
+    }
+
+    @Test
+    public void whenInternalDoubleStateIsSetWithGenericMethod_itCanBeRetrievedWithTypedMethod() {
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        StateId id = InternalStates.COSTS;
+        stateManager.putTypedInternalRouteState(route, id, 10.);
+        assertEquals(10., stateManager.getRouteState(route, InternalStates.COSTS, 0.), 0.01);
+    }
+
+    @Test
+    public void whenClearing_typedStatesShouldBeRemoved() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        stateManager.putActivityState(activity, id, 3.5);
+        stateManager.clear();
+        assertNull(stateManager.getActivityState(activity, id, Double.class));
+        assertEquals(0., stateManager.getActivityState(activity, id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenCreatingManyDoubleStates_memorizedStatesShouldBeKept() {
+        TourActivity activity = mock(TourActivity.class);
+        when(activity.getIndex()).thenReturn(1);
+        StateManager stateManager = new StateManager(vrpMock);
+        DoubleStateId first = stateManager.createDoubleStateId("myState");
+        stateManager.putActivityState(activity, first, 3.5);
+        for (int i = 0; i < 20; i++) {
+            stateManager.createDoubleStateId("myState" + i);
+        }
+        assertEquals(3.5, stateManager.getActivityState(activity, first, 0.), 0.01);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenCreatingTypedStateWithNameOfOtherType_itShouldThrowException() {
+        StateManager stateManager = new StateManager(vrpMock);
+        stateManager.createDoubleStateId("myState");
+        stateManager.createIntStateId("myState");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenPuttingInternalDoubleState_itShouldThrowException() {
+        VehicleRoute route = getRoute(mock(Vehicle.class));
+        StateManager stateManager = new StateManager(vrpMock);
+        stateManager.putRouteState(route, InternalStates.COSTS, 10.);
+    }
+
 
     @Test
     public void whenActivityStateIsSetWithGenericMethodAndBoolean_itMustBeSetCorrectly() {
@@ -183,6 +300,14 @@ public class StateManagerTest {
         assertTrue(problemState);
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void whenProblemStateIsSetWithTypedStateId_itThrowsException() {
+        StateManager stateManager = new StateManager(vrpMock);
+        stateManager.createStateId("problemState");
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        stateManager.putProblemState(id, Double.class, 1.);
+    }
+
     @Test(expected = NullPointerException.class)
     public void whenProblemStateIsSetAndStateManagerClearedAfterwards_itThrowsException() {
         StateManager stateManager = new StateManager(vrpMock);
@@ -356,4 +481,188 @@ public class StateManagerTest {
         }
         stateManager.putTypedInternalRouteState(route,myState,1.);
     }
+
+    static class VisitCounter implements StateUpdater, ActivityVisitor {
+
+        int nuVisitedRoutes = 0;
+
+        @Override
+        public void begin(VehicleRoute route) {
+            nuVisitedRoutes++;
+        }
+
+        @Override
+        public void visit(TourActivity activity) {
+
+        }
+
+        @Override
+        public void finish() {
+
+        }
+    }
+
+    private VehicleRoutingProblem getProblem(VehicleRoutingProblem.FleetSize fleetSize) {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(10, 0)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(20, 0)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(0, 10)).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        return VehicleRoutingProblem.Builder.newInstance().setFleetSize(fleetSize).addJob(s1).addJob(s2).addJob(s3)
+            .addVehicle(v1).addVehicle(v2).build();
+    }
+
+    private VehicleRoute getRoute(VehicleRoutingProblem vrp, String vehicleId, String... jobIds) {
+        Vehicle vehicle = null;
+        for (Vehicle v : vrp.getVehicles()) {
+            if (v.getId().equals(vehicleId)) vehicle = v;
+        }
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (String jobId : jobIds) {
+            builder.addService((Service) vrp.getJobs().get(jobId));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void whenFleetIsFiniteAndRouteHasNotChanged_itShouldNotBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, "v2", "s3");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        assertEquals(2, counter.nuVisitedRoutes);
+        stateManager.informIterationStarts(2, vrp, null);
+        stateManager.informInsertionStarts(Arrays.asList(VehicleRoute.copyOf(route1), VehicleRoute.copyOf(route2)), Collections.<Job>emptyList());
+        assertEquals(2, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenUpdaterVisitsUnchangedRoutes_itShouldBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, "v2", "s3");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        VisitCounter unchangedCounter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.addStateUpdater(unchangedCounter, true);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        stateManager.informIterationStarts(2, vrp, null);
+        stateManager.informInsertionStarts(Arrays.asList(VehicleRoute.copyOf(route1), VehicleRoute.copyOf(route2)), Collections.<Job>emptyList());
+        assertEquals(2, counter.nuVisitedRoutes);
+        assertEquals(4, unchangedCounter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenFleetIsInfinite_routesShouldAlwaysBeVisited() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.INFINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, "v2", "s3");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        stateManager.informIterationStarts(2, vrp, null);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        assertEquals(4, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenJobIsRemovedFromRoute_onlyThisRouteShouldBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, "v2", "s3");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        Job s2 = vrp.getJobs().get("s2");
+        route1.getTourActivities().removeJob(s2);
+        stateManager.removed(s2, route1);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        assertEquals(3, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenRouteIsModifiedWithoutNotification_itShouldBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1), Collections.<Job>emptyList());
+        VehicleRoute otherRoute1 = getRoute(vrp, "v1", "s2", "s1");
+        stateManager.informInsertionStarts(Arrays.asList(otherRoute1), Collections.<Job>emptyList());
+        assertEquals(2, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenActivityHasBeenVisitedInAnotherRoute_routeShouldBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1), Collections.<Job>emptyList());
+        VehicleRoute route2 = getRoute(vrp, "v2", "s2");
+        stateManager.informInsertionStarts(Arrays.asList(route2), Collections.<Job>emptyList());
+        stateManager.informInsertionStarts(Arrays.asList(VehicleRoute.copyOf(route1)), Collections.<Job>emptyList());
+        assertEquals(3, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenStatesAreRecalculatedExplicitly_routeShouldBeVisitedAgain() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        VisitCounter counter = new VisitCounter();
+        stateManager.addStateUpdater(counter);
+        stateManager.informInsertionStarts(Arrays.asList(route1), Collections.<Job>emptyList());
+        stateManager.reCalculateStates(route1);
+        assertEquals(2, counter.nuVisitedRoutes);
+    }
+
+    @Test
+    public void whenFleetIsFiniteAndIterationStarts_routeStatesShouldBeKept() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route1 = getRoute(vrp, "v1", "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        DoubleStateId id = stateManager.createDoubleStateId("myState");
+        stateManager.putRouteState(route1, id, 5.);
+        stateManager.informIterationStarts(2, vrp, null);
+        assertEquals(5., stateManager.getRouteState(VehicleRoute.copyOf(route1), id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenVehicleIsSwitched_routeStatesShouldBeMovedToNewVehicle() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route = getRoute(vrp, "v1", "s1");
+        StateManager stateManager = new StateManager(vrp);
+        DoubleStateId doubleId = stateManager.createDoubleStateId("doubleState");
+        StateId id = stateManager.createStateId("state");
+        stateManager.putRouteState(route, doubleId, 5.);
+        stateManager.putRouteState(route, id, 6.);
+        Vehicle oldVehicle = route.getVehicle();
+        Vehicle newVehicle = getRoute(vrp, "v2").getVehicle();
+        stateManager.vehicleSwitched(route, oldVehicle, newVehicle);
+        route.setVehicleAndDepartureTime(newVehicle, 0.);
+        assertEquals(5., stateManager.getRouteState(route, doubleId, 0.), 0.01);
+        assertEquals(6., stateManager.getRouteState(route, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenNewRouteGetsVehicle_itShouldNotHaveRouteStates() {
+        VehicleRoutingProblem vrp = getProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoute route = getRoute(vrp, "v2", "s1");
+        StateManager stateManager = new StateManager(vrp);
+        DoubleStateId id = stateManager.createDoubleStateId("doubleState");
+        stateManager.putRouteState(route, id, 5.);
+        VehicleRoute newRoute = VehicleRoute.emptyRoute();
+        stateManager.vehicleSwitched(newRoute, newRoute.getVehicle(), route.getVehicle());
+        newRoute.setVehicleAndDepartureTime(route.getVehicle(), 0.);
+        assertEquals(0., stateManager.getRouteState(newRoute, id, 0.), 0.01);
+    }
 }
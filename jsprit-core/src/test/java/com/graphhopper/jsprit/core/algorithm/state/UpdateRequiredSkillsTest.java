@@ -19,10 +19,12 @@
 package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.SkillIndex;
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.PickupService;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
@@ -32,7 +34,9 @@ import org.junit.Test;
 
 import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -44,6 +48,8 @@ public class UpdateRequiredSkillsTest {
 
     private StateManager stateManager;
 
+    private VehicleRoutingProblem vrp;
+
     @Before
     public void doBefore() {
         VehicleType type = VehicleTypeImpl.Builder.newInstance("t").build();
@@ -51,12 +57,13 @@ public class UpdateRequiredSkillsTest {
         Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).addRequiredSkill("skill1").build();
         Service service2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc")).addRequiredSkill("skill1").addRequiredSkill("skill2").addRequiredSkill("skill3").build();
         Service service3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance("loc")).addRequiredSkill("skill4").addRequiredSkill("skill5").build();
-        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(service)
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(service)
             .addJob(service2).addJob(service3).build();
         route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()).addService(service).addService(service2).addService(service3).build();
 
         stateManager = new StateManager(vrp);
         stateManager.updateSkillStates();
+        stateManager.requireSkillsState();
         stateManager.informInsertionStarts(Arrays.asList(route), null);
     }
 
@@ -72,5 +79,40 @@ public class UpdateRequiredSkillsTest {
         assertTrue(skills.containsSkill("skill5"));
     }
 
+    @Test
+    public void whenSkillsAreNotRequired_onlySkillSetShouldBeMemorized() {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateSkillStates();
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+        assertNull(stateManager.getRouteState(route, InternalStates.SKILLS, Skills.class));
+        assertNotNull(stateManager.getRouteState(route, InternalStates.SKILL_SET, long[].class));
+    }
+
+    @Test
+    public void whenRouteContainsJobThatIsNotIndexed_skillsShouldBeMemorizedAnyway() {
+        Service service4 = Service.Builder.newInstance("s4").setLocation(Location.newInstance("loc")).addRequiredSkill("skill6").build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(this.route.getVehicle()).setJobActivityFactory(vrp.getJobActivityFactory())
+            .addService((Service) vrp.getJobs().get("s")).build();
+        route.getTourActivities().addActivity(new PickupService(service4));
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateSkillStates();
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+        assertNull(stateManager.getRouteState(route, InternalStates.SKILL_SET, long[].class));
+        Skills skills = stateManager.getRouteState(route, InternalStates.SKILLS, Skills.class);
+        assertNotNull(skills);
+        Assert.assertEquals(2, skills.values().size());
+        assertTrue(skills.containsSkill("skill1"));
+        assertTrue(skills.containsSkill("skill6"));
+    }
+
+    @Test
+    public void whenUpdatingRoute_skillSetAtRouteLevelShouldContainAllSkills() {
+        long[] skillSet = stateManager.getRouteState(route, InternalStates.SKILL_SET, long[].class);
+        assertNotNull(skillSet);
+        SkillIndex skillIndex = vrp.getSkillIndex();
+        long expected = 0;
+        for (int i = 1; i <= 5; i++) expected |= 1L << skillIndex.getSkillId("skill" + i);
+        assertArrayEquals(new long[]{expected}, skillSet);
+    }
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.problem;
+
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SkillIndexTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl drillAndSaw;
+
+    private VehicleImpl drill;
+
+    private VehicleImpl drill2;
+
+    @Before
+    public void doBefore() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t").build();
+        drillAndSaw = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).setType(type)
+            .addSkill("Drill").addSkill("saw").build();
+        drill = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).setType(type)
+            .addSkill("drill").build();
+        drill2 = VehicleImpl.Builder.newInstance("v3").setStartLocation(Location.newInstance(0, 0)).setType(type)
+            .addSkill("drill").build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(drillAndSaw).addVehicle(drill).addVehicle(drill2)
+            .addJob(Service.Builder.newInstance("drilling").setLocation(Location.newInstance(1, 1)).addRequiredSkill("drill").build())
+            .addJob(Service.Builder.newInstance("drillingAndSawing").setLocation(Location.newInstance(1, 1))
+                .addRequiredSkill("drill").addRequiredSkill("SAW").build())
+            .addJob(Service.Builder.newInstance("painting").setLocation(Location.newInstance(1, 1)).addRequiredSkill("paint").build())
+            .addJob(Service.Builder.newInstance("noSkills").setLocation(Location.newInstance(1, 1)).build())
+            .build();
+    }
+
+    @Test
+    public void whenBuildingProblem_eachDistinctSkillShouldGetAnId() {
+        SkillIndex skillIndex = vrp.getSkillIndex();
+        assertEquals(3, skillIndex.getNuOfSkills());
+        assertEquals(1, skillIndex.getNuOfWords());
+        assertTrue(skillIndex.getSkillId("drill") >= 0);
+        assertEquals(skillIndex.getSkillId("drill"), skillIndex.getSkillId(" DRILL "));
+        assertTrue(skillIndex.getSkillId("drill") != skillIndex.getSkillId("saw"));
+        assertEquals(-1, skillIndex.getSkillId("weld"));
+    }
+
+    @Test
+    public void bitSetsShouldContainSkillsOfJobsAndVehicles() {
+        SkillIndex skillIndex = vrp.getSkillIndex();
+        long drillBit = 1L << skillIndex.getSkillId("drill");
+        long sawBit = 1L << skillIndex.getSkillId("saw");
+        assertArrayEquals(new long[]{drillBit | sawBit}, skillIndex.getRequiredSkills(vrp.getJobs().get("drillingAndSawing")));
+        assertArrayEquals(new long[]{0}, skillIndex.getRequiredSkills(vrp.getJobs().get("noSkills")));
+        assertArrayEquals(new long[]{drillBit | sawBit}, skillIndex.getSkills(drillAndSaw));
+        assertArrayEquals(new long[]{drillBit}, skillIndex.getSkills(drill2));
+    }
+
+    @Test
+    public void compatibilityShouldBeDeterminedByRequiredSkills() {
+        SkillIndex skillIndex = vrp.getSkillIndex();
+        assertTrue(skillIndex.isCompatible(vrp.getJobs().get("drilling"), drillAndSaw));
+        assertTrue(skillIndex.isCompatible(vrp.getJobs().get("drilling"), drill));
+        assertTrue(skillIndex.isCompatible(vrp.getJobs().get("drillingAndSawing"), drillAndSaw));
+        assertFalse(skillIndex.isCompatible(vrp.getJobs().get("drillingAndSawing"), drill));
+        assertFalse(skillIndex.isCompatible(vrp.getJobs().get("drillingAndSawing"), drill2));
+        assertFalse(skillIndex.isCompatible(vrp.getJobs().get("painting"), drillAndSaw));
+        assertTrue(skillIndex.isCompatible(vrp.getJobs().get("noSkills"), drill));
+    }
+
+    @Test
+    public void whenJobOrVehicleIsNotPartOfProblem_skillsShouldBeComparedByName() {
+        SkillIndex skillIndex = vrp.getSkillIndex();
+        Service sawing = Service.Builder.newInstance("sawing").setLocation(Location.newInstance(1, 1)).addRequiredSkill("saw").build();
+        VehicleImpl saw = VehicleImpl.Builder.newInstance("v4").setStartLocation(Location.newInstance(0, 0)).addSkill("saw").build();
+        assertNull(skillIndex.getRequiredSkills(sawing));
+        assertNull(skillIndex.getSkills(saw));
+        assertTrue(skillIndex.isCompatible(sawing, drillAndSaw));
+        assertFalse(skillIndex.isCompatible(sawing, drill));
+        assertTrue(skillIndex.isCompatible(vrp.getJobs().get("noSkills"), saw));
+        assertFalse(skillIndex.isCompatible(vrp.getJobs().get("drilling"), saw));
+    }
+
+    @Test
+    public void whenProblemHasMoreThan64Skills_bitSetsShouldSpanSeveralWords() {
+        VehicleImpl.Builder vehicleBuilder = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0));
+        for (int i = 0; i < 100; i++) vehicleBuilder.addSkill("skill" + i);
+        VehicleImpl vehicle = vehicleBuilder.build();
+        VehicleImpl lowSkills = VehicleImpl.Builder.newInstance("low").setStartLocation(Location.newInstance(0, 0)).addSkill("skill1").build();
+        VehicleRoutingProblem problem = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addVehicle(lowSkills)
+            .addJob(Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 1)).addRequiredSkill("skill99").build())
+            .build();
+        SkillIndex skillIndex = problem.getSkillIndex();
+        assertEquals(100, skillIndex.getNuOfSkills());
+        assertEquals(2, skillIndex.getNuOfWords());
+        assertTrue(skillIndex.isCompatible(problem.getJobs().get("s"), vehicle));
+        assertFalse(skillIndex.isCompatible(problem.getJobs().get("s"), lowSkills));
+    }
+
+    @Test
+    public void containsAllAndAddAllShouldWorkOnBitSets() {
+        long[] skills = new long[]{5L, 1L};
+        assertTrue(SkillIndex.containsAll(skills, new long[]{4L, 1L}));
+        assertFalse(SkillIndex.containsAll(skills, new long[]{2L, 0L}));
+        SkillIndex.addAll(skills, new long[]{2L, 2L});
+        assertArrayEquals(new long[]{7L, 3L}, skills);
+    }
+
+}
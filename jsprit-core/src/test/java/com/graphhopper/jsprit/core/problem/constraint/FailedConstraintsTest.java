@@ -0,0 +1,98 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FailedConstraintsTest {
+
+    private final int timeWindowId = ConstraintManager.getConstraintId(VehicleDependentTimeWindowConstraints.class);
+
+    private final int skillId = ConstraintManager.getConstraintId(HardSkillConstraint.class);
+
+    @Test
+    public void whenAddingFailures_theyShouldBeCountedPerConstraint() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        assertTrue(failedConstraints.isEmpty());
+        failedConstraints.add(timeWindowId);
+        failedConstraints.add(timeWindowId);
+        failedConstraints.add(skillId, 3);
+        assertFalse(failedConstraints.isEmpty());
+        assertEquals(2, failedConstraints.getCount(timeWindowId));
+        assertEquals(3, failedConstraints.getCount(skillId));
+        assertTrue(failedConstraints.getConstraintIdBound() > Math.max(timeWindowId, skillId));
+        assertEquals(0, failedConstraints.getCount(failedConstraints.getConstraintIdBound()));
+    }
+
+    @Test
+    public void whenAddingAll_countsShouldBeSummedUp() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.add(timeWindowId);
+        FailedConstraints other = new FailedConstraints();
+        other.add(timeWindowId, 2);
+        other.add(skillId);
+        failedConstraints.addAll(other);
+        assertEquals(3, failedConstraints.getCount(timeWindowId));
+        assertEquals(1, failedConstraints.getCount(skillId));
+        assertEquals(2, other.getCount(timeWindowId));
+    }
+
+    @Test
+    public void constraintNames_shouldBeContainedAsOftenAsConstraintFailed() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.add(timeWindowId, 2);
+        assertEquals(Arrays.asList("VehicleDependentTimeWindowConstraints", "VehicleDependentTimeWindowConstraints"), failedConstraints.getConstraintNames());
+    }
+
+    @Test
+    public void constraintNames_shouldReflectLaterFailures() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        List<String> constraintNames = failedConstraints.getConstraintNames();
+        failedConstraints.add(skillId);
+        failedConstraints.add(timeWindowId, 2);
+        assertEquals(3, constraintNames.size());
+        assertEquals(2, Collections.frequency(constraintNames, "VehicleDependentTimeWindowConstraints"));
+        assertEquals(1, Collections.frequency(constraintNames, "HardSkillConstraint"));
+    }
+
+    @Test
+    public void whenAddingConstraintName_failureShouldBeRecorded() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.getConstraintNames().add("NameOnlyConstraint");
+        assertEquals(1, failedConstraints.getCount(ConstraintManager.getConstraintId("NameOnlyConstraint")));
+        assertEquals(Arrays.asList("NameOnlyConstraint"), failedConstraints.getConstraintNames());
+    }
+
+    @Test
+    public void whenClearing_noFailureShouldBeLeft() {
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.add(timeWindowId, 2);
+        failedConstraints.clear();
+        assertTrue(failedConstraints.isEmpty());
+        assertTrue(failedConstraints.getConstraintNames().isEmpty());
+    }
+
+}
@@ -18,8 +18,10 @@
 
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
@@ -32,7 +34,9 @@ import org.junit.Test;
 
 import java.util.Arrays;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 
@@ -40,6 +44,8 @@ public class SkillConstraintTest {
 
     private HardRouteConstraint skillConstraint;
 
+    private HardRouteConstraint indexedSkillConstraint;
+
     private VehicleRoute route;
 
     private VehicleImpl vehicle;
@@ -70,6 +76,7 @@ public class SkillConstraintTest {
         stateManager.informInsertionStarts(Arrays.asList(route), null);
 
         skillConstraint = new HardSkillConstraint(stateManager);
+        indexedSkillConstraint = new HardSkillConstraint(stateManager, vrp.getSkillIndex());
     }
 
     @Test
@@ -102,4 +109,46 @@ public class SkillConstraintTest {
         assertTrue(skillConstraint.fulfilled(insertionContext));
     }
 
+    @Test
+    public void whenSkillsAreIndexed_resultsShouldBeEqualToComparingSkillsByName() {
+        for (VehicleImpl v : Arrays.asList(vehicle, vehicle2)) {
+            for (String jobId : Arrays.asList("s", "s2", "s3", "s4")) {
+                JobInsertionContext insertionContext = new JobInsertionContext(route, vrp.getJobs().get(jobId), v, route.getDriver(), 0.);
+                assertEquals(skillConstraint.fulfilled(insertionContext), indexedSkillConstraint.fulfilled(insertionContext));
+            }
+        }
+    }
+
+    @Test
+    public void whenRouteToBeOvertakenRequiresSkillsThatVehicleDoesNotHave_indexedConstraintShouldReturnFalse() {
+        JobInsertionContext insertionContext = new JobInsertionContext(route, vrp.getJobs().get("s4"), vehicle2, route.getDriver(), 0.);
+        assertFalse(indexedSkillConstraint.fulfilled(insertionContext));
+    }
+
+    @Test
+    public void whenConstraintHasNoIndex_skillsOfRoutesShouldBeMemorized() {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateSkillStates();
+        new HardSkillConstraint(stateManager);
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+        assertNotNull(stateManager.getRouteState(route, InternalStates.SKILLS, Skills.class));
+    }
+
+    @Test
+    public void whenVehicleIsNotPartOfProblem_indexedConstraintShouldCompareRouteSkillsByName() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t2").build();
+        VehicleImpl vehicle3 = VehicleImpl.Builder.newInstance("v3").addSkill("skill1").addSkill("skill2").setStartLocation(Location.newInstance("start")).setType(type).build();
+        assertFalse(indexedSkillConstraint.fulfilled(new JobInsertionContext(route, vrp.getJobs().get("s4"), vehicle3, route.getDriver(), 0.)));
+        VehicleImpl vehicle4 = VehicleImpl.Builder.newInstance("v4").addSkill("skill1").addSkill("skill2").addSkill("skill3").addSkill("skill6").setStartLocation(Location.newInstance("start")).setType(type).build();
+        assertTrue(indexedSkillConstraint.fulfilled(new JobInsertionContext(route, vrp.getJobs().get("s4"), vehicle4, route.getDriver(), 0.)));
+    }
+
+    @Test
+    public void whenJobIsNotPartOfProblem_indexedConstraintShouldCompareSkillsByName() {
+        Service service5 = Service.Builder.newInstance("s5").setLocation(Location.newInstance("loc")).addRequiredSkill("skill5").build();
+        assertFalse(indexedSkillConstraint.fulfilled(new JobInsertionContext(route, service5, vehicle, route.getDriver(), 0.)));
+        Service service6 = Service.Builder.newInstance("s6").setLocation(Location.newInstance("loc")).addRequiredSkill("skill2").build();
+        assertTrue(indexedSkillConstraint.fulfilled(new JobInsertionContext(route, service6, vehicle, route.getDriver(), 0.)));
+    }
+
 }
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class TestConstraintManager {
@@ -87,4 +88,57 @@ public class TestConstraintManager {
         assertEquals(2, man.getConstraints().size());
     }
 
+    @Test
+    public void whenAddingHardConstraint_itShouldReceiveIdOfItsClass() {
+        ConstraintManager man = new ConstraintManager(mock(VehicleRoutingProblem.class), mock(RouteAndActivityStateGetter.class));
+        man.addConstraint(new ServiceDeliveriesFirstConstraint(), ConstraintManager.Priority.HIGH);
+        int constraintId = ConstraintManager.getConstraintId(ServiceDeliveriesFirstConstraint.class);
+        assertEquals(constraintId, ConstraintManager.getConstraintId(ServiceDeliveriesFirstConstraint.class));
+        assertEquals("ServiceDeliveriesFirstConstraint", ConstraintManager.getConstraintName(constraintId));
+    }
+
+    @Test
+    public void whenConstraintClassesHaveTheSameSimpleName_theyShouldReceiveDifferentIds() {
+        int constraintId = ConstraintManager.getConstraintId(First.SameName.class);
+        int otherConstraintId = ConstraintManager.getConstraintId(Second.SameName.class);
+        assertTrue(constraintId != otherConstraintId);
+        assertEquals("SameName", ConstraintManager.getConstraintName(constraintId));
+        assertEquals("SameName", ConstraintManager.getConstraintName(otherConstraintId));
+    }
+
+    @Test
+    public void whenFailureIsReportedByName_itShouldReceiveIdOfItsName() {
+        int constraintId = ConstraintManager.getConstraintId("NameOnlyConstraint");
+        assertEquals(constraintId, ConstraintManager.getConstraintId("NameOnlyConstraint"));
+        assertEquals("NameOnlyConstraint", ConstraintManager.getConstraintName(constraintId));
+    }
+
+    @Test
+    public void whenNumberOfConstraintNamesIsExceeded_furtherNamesShouldShareOneId() {
+        int constraintId = ConstraintManager.getConstraintId("NameOnlyConstraint");
+        int otherConstraintsId = ConstraintManager.getConstraintId("FirstUnknownConstraint", 0);
+        assertEquals(ConstraintManager.OTHER_CONSTRAINTS, ConstraintManager.getConstraintName(otherConstraintsId));
+        assertEquals(otherConstraintsId, ConstraintManager.getConstraintId("SecondUnknownConstraint", 0));
+        assertEquals(constraintId, ConstraintManager.getConstraintId("NameOnlyConstraint", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenGettingNameOfUnknownConstraintId_itShouldThrowException() {
+        ConstraintManager.getConstraintName(-1);
+    }
+
+    private static class First {
+
+        private static class SameName {
+        }
+
+    }
+
+    private static class Second {
+
+        private static class SameName {
+        }
+
+    }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalSolutionCostCalculatorTest {
+
+    private static class RouteCounter extends IncrementalSolutionCostCalculator {
+
+        private int nuEvaluatedRoutes = 0;
+
+        RouteCounter(VehicleRoutingProblem vrp) {
+            super(vrp);
+        }
+
+        @Override
+        protected double getRouteCosts(VehicleRoute route) {
+            nuEvaluatedRoutes++;
+            double costs = 100.;
+            for (TourActivity act : route.getActivities()) {
+                costs += act.getArrTime() + 1.;
+            }
+            return costs;
+        }
+
+        @Override
+        protected double getUnassignedJobCosts(Job job) {
+            return 1000.;
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private RouteCounter calculator;
+
+    @Before
+    public void doBefore() {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(10, 0)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(20, 0)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(0, 10)).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addJob(s1).addJob(s2).addJob(s3)
+            .addVehicle(v1).addVehicle(v2).build();
+        calculator = new RouteCounter(vrp);
+    }
+
+    private VehicleRoute getRoute(String vehicleId, String... jobIds) {
+        Vehicle vehicle = null;
+        for (Vehicle v : vrp.getVehicles()) {
+            if (v.getId().equals(vehicleId)) vehicle = v;
+        }
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (String jobId : jobIds) {
+            builder.addService((Service) vrp.getJobs().get(jobId));
+        }
+        return builder.build();
+    }
+
+    private VehicleRoutingProblemSolution getSolution(VehicleRoute... routes) {
+        return new VehicleRoutingProblemSolution(Arrays.asList(routes), 0.);
+    }
+
+    @Test
+    public void costsShouldBeSumOfRouteCostsAndUnassignedJobCosts() {
+        VehicleRoute route = getRoute("v1", "s1", "s2");
+        List<Job> unassigned = new ArrayList<>();
+        unassigned.add(vrp.getJobs().get("s3"));
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(Collections.singletonList(route), unassigned, 0.);
+        assertEquals(102. + 1000., calculator.getCosts(solution), 0.01);
+    }
+
+    @Test
+    public void whenCopyOfUnchangedRouteIsEvaluated_itShouldNotBeEvaluatedAgain() {
+        VehicleRoute route1 = getRoute("v1", "s1", "s2");
+        VehicleRoute route2 = getRoute("v2", "s3");
+        VehicleRoutingProblemSolution solution = getSolution(route1, route2);
+        double costs = calculator.getCosts(solution);
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+        assertEquals(costs, calculator.getCosts(VehicleRoutingProblemSolution.copyOf(solution)), 0.);
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+    }
+
+    @Test
+    public void whenRouteHasChanged_onlyThisRouteShouldBeEvaluatedAgain() {
+        VehicleRoute unchangedRoute = getRoute("v2", "s3");
+        calculator.getCosts(getSolution(getRoute("v1", "s1", "s2"), unchangedRoute));
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+        double costs = calculator.getCosts(getSolution(getRoute("v1", "s1"), VehicleRoute.copyOf(unchangedRoute)));
+        assertEquals(3, calculator.nuEvaluatedRoutes);
+        assertEquals(101. + 101., costs, 0.01);
+    }
+
+    @Test
+    public void whenActivityTimesHaveBeenRecalculated_routeShouldBeEvaluatedAgain() {
+        VehicleRoute route = getRoute("v1", "s1", "s2");
+        calculator.getCosts(getSolution(route));
+        route.getActivities().get(1).setArrTime(50.);
+        route.getEnd().setArrTime(70.);
+        double costs = calculator.getCosts(getSolution(route));
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+        assertEquals(152., costs, 0.01);
+    }
+
+    @Test
+    public void whenActivitiesHaveBeenModified_routeShouldBeEvaluatedAgain() {
+        VehicleRoute route = getRoute("v1", "s1", "s2");
+        calculator.getCosts(getSolution(route));
+        TourActivity act = route.getActivities().get(1);
+        route.getTourActivities().removeActivity(act);
+        route.getTourActivities().addActivity(act);
+        calculator.getCosts(getSolution(route));
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+    }
+
+    @Test
+    public void whenVehicleHasChanged_routeShouldBeEvaluatedAgain() {
+        calculator.getCosts(getSolution(getRoute("v1", "s1", "s2")));
+        calculator.getCosts(getSolution(getRoute("v2", "s1", "s2")));
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+    }
+
+    @Test
+    public void whenRouteIsEmpty_itShouldBeEvaluated() {
+        VehicleRoute route = getRoute("v1");
+        calculator.getCosts(getSolution(route));
+        assertEquals(100., calculator.getCosts(getSolution(route)), 0.01);
+        assertEquals(2, calculator.nuEvaluatedRoutes);
+    }
+
+}
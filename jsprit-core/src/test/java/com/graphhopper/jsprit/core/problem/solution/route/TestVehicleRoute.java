@@ -351,4 +351,19 @@ public class TestVehicleRoute {
         assertTrue(((TourActivity.JobActivity) act).getJob() instanceof Delivery);
 
     }
+
+    @Test
+    public void whenLazyCopyIsModified_originalRouteShouldNotChange() {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance("loc1")).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(s1).addService(s2).build();
+        VehicleRoute copiedRoute = VehicleRoute.lazyCopyOf(route);
+        copiedRoute.getTourActivities().removeJob(s1);
+        copiedRoute.getActivities().get(0).setArrTime(10.);
+        copiedRoute.getEnd().setArrTime(20.);
+        assertEquals(2, route.getActivities().size());
+        assertEquals(0., route.getActivities().get(1).getArrTime(), 0.01);
+        assertEquals(0., route.getEnd().getArrTime(), 0.01);
+        assertEquals(1, copiedRoute.getActivities().size());
+    }
 }
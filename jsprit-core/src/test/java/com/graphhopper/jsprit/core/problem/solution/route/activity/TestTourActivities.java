@@ -24,6 +24,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 
@@ -249,4 +251,82 @@ public class TestTourActivities {
         assertTrue(copiedTour.servesJob(s));
     }
 
+    @Test
+    public void whenLazyCopyIsNotModified_itShouldShareActivities() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.lazyCopyOf(tour);
+        assertSame(act, copiedTour.getActivities().get(0));
+        assertTrue(copiedTour.servesJob(service));
+    }
+
+    @Test
+    public void whenLazyCopyIsModified_originalShouldNotChange() {
+        Service service2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        tour.addActivity(act);
+        tour.addActivity(ServiceActivity.newInstance(service2));
+        TourActivities copiedTour = TourActivities.lazyCopyOf(tour);
+        copiedTour.removeJob(service);
+        assertEquals(1, copiedTour.getActivities().size());
+        assertFalse(copiedTour.servesJob(service));
+        assertEquals(2, tour.getActivities().size());
+        assertTrue(tour.servesJob(service));
+        assertSame(act, tour.getActivities().get(0));
+        assertNotSame(tour.getActivities().get(1), copiedTour.getActivities().get(0));
+    }
+
+    @Test
+    public void whenOriginalIsModified_lazyCopyShouldNotChange() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.lazyCopyOf(tour);
+        Service service2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        tour.addActivity(0, ServiceActivity.newInstance(service2));
+        tour.getActivities().get(1).setArrTime(10.);
+        assertEquals(1, copiedTour.getActivities().size());
+        assertFalse(copiedTour.servesJob(service2));
+        assertEquals(0., copiedTour.getActivities().get(0).getArrTime(), 0.01);
+    }
+
+    @Test
+    public void whenRemovingSharedActivityFromLazyCopy_itShouldBeRemoved() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.lazyCopyOf(tour);
+        assertTrue(copiedTour.removeActivity(act));
+        assertTrue(copiedTour.isEmpty());
+        assertFalse(copiedTour.servesJob(service));
+        assertSame(act, tour.getActivities().get(0));
+    }
+
+    @Test
+    public void whenLazyCopyIsModified_previouslyReturnedActivitiesShouldReflectModification() {
+        tour.addActivity(act);
+        TourActivities copiedTour = TourActivities.lazyCopyOf(tour);
+        List<TourActivity> activities = copiedTour.getActivities();
+        Service service2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        copiedTour.addActivity(ServiceActivity.newInstance(service2));
+        assertEquals(2, activities.size());
+    }
+
+    @Test
+    public void copiesShouldShareVersion_untilTheyAreModified() {
+        tour.addActivity(act);
+        TourActivities lazyCopy = TourActivities.lazyCopyOf(tour);
+        TourActivities copy = TourActivities.copyOf(tour);
+        assertSame(tour.getVersion(), lazyCopy.getVersion());
+        assertSame(tour.getVersion(), copy.getVersion());
+        Service service2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("loc2")).build();
+        lazyCopy.addActivity(ServiceActivity.newInstance(service2));
+        assertNotSame(tour.getVersion(), lazyCopy.getVersion());
+        assertSame(tour.getVersion(), copy.getVersion());
+    }
+
+    @Test
+    public void emptySequencesShouldShareVersion() {
+        Object emptyVersion = tour.getVersion();
+        tour.addActivity(act);
+        assertNotSame(emptyVersion, tour.getVersion());
+        tour.removeJob(service);
+        assertSame(emptyVersion, tour.getVersion());
+        assertSame(emptyVersion, new TourActivities().getVersion());
+    }
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactVehicleRoutingTransportCostsMatrixTest {
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    @Test
+    public void whenAddingDistanceToSymmetricMatrix_itShouldReturnCorrectValues() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true);
+        matrixBuilder.addTransportDistance(1, 2, 2.);
+        CompactVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(2., matrix.getTransportCost(loc(1), loc(2), 0.0, null, null), 0.1);
+        assertEquals(2., matrix.getDistance(1, 2), 0.1);
+        assertEquals(2., matrix.getTransportCost(loc(2), loc(1), 0.0, null, null), 0.1);
+        assertEquals(2., matrix.getDistance(2, 1), 0.1);
+    }
+
+    @Test
+    public void whenAddingDistanceToAsymmetricMatrix_itShouldReturnCorrectValues() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false);
+        matrixBuilder.addTransportDistance(1, 2, 2.);
+        CompactVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(2., matrix.getTransportCost(loc(1), loc(2), 0.0, null, null), 0.1);
+        assertEquals(0., matrix.getTransportCost(loc(2), loc(1), 0.0, null, null), 0.1);
+    }
+
+    @Test
+    public void whenAddingTimeAndDistanceToSymmetricMatrix_itShouldReturnCorrectValues() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true);
+        matrixBuilder.addTransportTimeAndDistance(2, 1, 2., 20.);
+        CompactVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(2., matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.1);
+        assertEquals(20., matrix.getDistance(loc(1), loc(2), 0.0, null), 0.1);
+        assertEquals(24., matrix.getTransportCost(loc(1), loc(2), 0.0, null, vehicle), 0.1);
+        assertEquals(24., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.1);
+    }
+
+    @Test
+    public void whenAddingTimeAndDistanceToAsymmetricMatrix_itShouldReturnCorrectValues() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false);
+        matrixBuilder.addTransportTime(1, 2, 2.);
+        matrixBuilder.addTransportTime(2, 1, 8.);
+        CompactVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(4., matrix.getTransportCost(loc(1), loc(2), 0.0, null, vehicle), 0.1);
+        assertEquals(16., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.1);
+    }
+
+    @Test
+    public void symmetricMatrixShouldMemorizeEachRelationExactlyOnce() {
+        int noLocations = 7;
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, true);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = from; to < noLocations; to++) {
+                matrixBuilder.addTransportDistance(from, to, from * 100 + to);
+            }
+        }
+        CompactVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                assertEquals(Math.min(from, to) * 100 + Math.max(from, to), matrix.getDistance(from, to), 0.);
+            }
+        }
+        assertEquals(28, CompactVehicleRoutingTransportCostsMatrix.getNoValues(noLocations, true));
+    }
+
+    @Test
+    public void whenStoringFloats_valuesShouldBeMemorizedWithFloatPrecision() {
+        CompactVehicleRoutingTransportCostsMatrix matrix = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false)
+            .setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.FLOAT)
+            .addTransportTimeAndDistance(0, 2, 1.5, 1234.25).build();
+        assertEquals(1.5, matrix.getTransportTime(0, 2), 0.);
+        assertEquals(1234.25, matrix.getDistance(0, 2), 0.);
+    }
+
+    @Test
+    public void whenStoringInts_valuesShouldBeRoundedToResolution() {
+        CompactVehicleRoutingTransportCostsMatrix matrix = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true)
+            .setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.INT).setResolution(0.1)
+            .addTransportTimeAndDistance(2, 0, 12.34, 98.76).build();
+        assertEquals(12.3, matrix.getTransportTime(0, 2), 1e-9);
+        assertEquals(98.8, matrix.getDistance(0, 2), 1e-9);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenSettingStorageTypeAfterAddingValues_itShouldThrowException() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true).addTransportDistance(0, 1, 1.)
+            .setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.FLOAT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenIntValueExceedsRange_itShouldThrowException() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true)
+            .setStorageType(CompactVehicleRoutingTransportCostsMatrix.StorageType.INT).setResolution(0.001)
+            .addTransportDistance(0, 1, 1e7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMatrixIsTooLarge_itShouldThrowException() {
+        CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(50000, false);
+    }
+
+}
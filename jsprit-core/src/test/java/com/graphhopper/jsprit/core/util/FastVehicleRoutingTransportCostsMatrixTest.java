@@ -61,6 +61,8 @@ public class FastVehicleRoutingTransportCostsMatrixTest {
         FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
         assertEquals(2., matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.1);
         assertEquals(2., matrix.getTransportTime(loc(2), loc(1), 0.0, null, null), 0.1);
+        assertEquals(2., matrix.getTransportTime(1, 2), 0.1);
+        assertEquals(2., matrix.getTransportTime(2, 1), 0.1);
     }
 
     @Test
@@ -0,0 +1,141 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.CompactVehicleRoutingTransportCostsMatrix.StorageType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappedVehicleRoutingTransportCostsMatrixTest {
+
+    private File file;
+
+    @Before
+    public void doBefore() throws IOException {
+        file = File.createTempFile("matrix", ".bin");
+    }
+
+    @After
+    public void doAfter() {
+        file.delete();
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    @Test
+    public void whenWritingSymmetricMatrix_itShouldReturnCorrectValues() throws IOException {
+        MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, true)
+            .addTransportTimeAndDistance(2, 1, 2., 20.).close();
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        Vehicle vehicle = mock(Vehicle.class);
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        when(vehicle.getType()).thenReturn(type);
+        assertEquals(3, matrix.getNoLocations());
+        assertTrue(matrix.isSymmetric());
+        assertEquals(2., matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.);
+        assertEquals(20., matrix.getDistance(loc(1), loc(2), 0.0, null), 0.);
+        assertEquals(24., matrix.getTransportCost(loc(1), loc(2), 0.0, null, vehicle), 0.);
+        assertEquals(24., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.);
+        assertEquals(0., matrix.getDistance(0, 1), 0.);
+    }
+
+    @Test
+    public void whenWritingAsymmetricMatrix_itShouldReturnCorrectValues() throws IOException {
+        MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, false)
+            .addTransportTime(1, 2, 2.).addTransportTime(2, 1, 8.).close();
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        assertEquals(2., matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.);
+        assertEquals(8., matrix.getTransportTime(loc(2), loc(1), 0.0, null, null), 0.);
+    }
+
+    @Test
+    public void whenWritingInts_valuesShouldBeRoundedToResolution() throws IOException {
+        MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, false)
+            .setStorageType(StorageType.INT).setResolution(0.1)
+            .addTransportTimeAndDistance(0, 2, 12.34, 98.76).close();
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        assertEquals(StorageType.INT, matrix.getStorageType());
+        assertEquals(12.3, matrix.getTransportTime(0, 2), 1e-9);
+        assertEquals(98.8, matrix.getDistance(0, 2), 1e-9);
+    }
+
+    @Test
+    public void whenConvertingFastMatrix_allValuesShouldBeEqual() throws IOException {
+        int noLocations = 6;
+        FastVehicleRoutingTransportCostsMatrix.Builder builder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, true);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = from; to < noLocations; to++) {
+                builder.addTransportTimeAndDistance(from, to, from + to, from * 10 + to);
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix fastMatrix = builder.build();
+        MappedVehicleRoutingTransportCostsMatrix.Writer.write(fastMatrix, file);
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                assertEquals(fastMatrix.getDistance(from, to), matrix.getDistance(from, to), 0.);
+                assertEquals(fastMatrix.getTransportTime(loc(from), loc(to), 0., null, null), matrix.getTransportTime(from, to), 0.);
+            }
+        }
+    }
+
+    @Test
+    public void whenConvertingCompactMatrix_allValuesShouldBeEqual() throws IOException {
+        int noLocations = 5;
+        CompactVehicleRoutingTransportCostsMatrix.Builder builder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, false);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                builder.addTransportTimeAndDistance(from, to, from + 2 * to, from * 10 + to);
+            }
+        }
+        CompactVehicleRoutingTransportCostsMatrix compactMatrix = builder.build();
+        MappedVehicleRoutingTransportCostsMatrix.Writer.write(compactMatrix, file);
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                assertEquals(compactMatrix.getDistance(from, to), matrix.getDistance(from, to), 0.);
+                assertEquals(compactMatrix.getTransportTime(from, to), matrix.getTransportTime(from, to), 0.);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenReadingFileWithoutMagicNumber_itShouldThrowException() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[64]);
+        out.close();
+        MappedVehicleRoutingTransportCostsMatrix.newInstance(file);
+    }
+
+}
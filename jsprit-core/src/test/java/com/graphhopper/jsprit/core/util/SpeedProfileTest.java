@@ -0,0 +1,110 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpeedProfileTest {
+
+    private SpeedProfile rushHour() {
+        return SpeedProfile.Builder.newInstance()
+            .addSpeedFactor(100., 0.5)
+            .addSpeedFactor(200., 1.)
+            .addSpeedFactor(300., 0.8)
+            .build();
+    }
+
+    @Test
+    public void freeFlowProfile_shouldReturnFreeFlowTime() {
+        assertEquals(10., SpeedProfile.FREE_FLOW.getTravelTime(50., 10.), 0.001);
+        assertEquals(10., SpeedProfile.FREE_FLOW.getBackwardTravelTime(50., 10.), 0.001);
+        assertEquals(1., SpeedProfile.FREE_FLOW.getSpeedFactor(50.), 0.001);
+        assertEquals(0, SpeedProfile.FREE_FLOW.getNoIntervals());
+    }
+
+    @Test
+    public void whenTripIsBeforeFirstInterval_itShouldTakeFreeFlowTime() {
+        assertEquals(10., rushHour().getTravelTime(50., 10.), 0.001);
+        assertEquals(10., rushHour().getBackwardTravelTime(60., 10.), 0.001);
+    }
+
+    @Test
+    public void whenTripIsWithinInterval_itShouldBeSlowedDownBySpeedFactor() {
+        assertEquals(20., rushHour().getTravelTime(120., 10.), 0.001);
+        assertEquals(20., rushHour().getBackwardTravelTime(140., 10.), 0.001);
+    }
+
+    @Test
+    public void whenTripIsInLastInterval_itShouldBeSlowedDownBySpeedFactor() {
+        assertEquals(12.5, rushHour().getTravelTime(400., 10.), 0.001);
+        assertEquals(12.5, rushHour().getBackwardTravelTime(412.5, 10.), 0.001);
+        assertEquals(12.5, rushHour().getTravelTime(Double.MAX_VALUE, 10.), 0.001);
+        assertEquals(12.5, rushHour().getBackwardTravelTime(Double.MAX_VALUE, 10.), 0.001);
+    }
+
+    @Test
+    public void whenTripSpansIntervals_itShouldIntegrateSpeed() {
+        //95 to 100 at full speed, 5 left at half speed
+        assertEquals(15., rushHour().getTravelTime(95., 10.), 0.001);
+        assertEquals(15., rushHour().getBackwardTravelTime(110., 10.), 0.001);
+        //190 to 200 covers 5, 200 to 205 at full speed
+        assertEquals(15., rushHour().getTravelTime(190., 10.), 0.001);
+        assertEquals(15., rushHour().getBackwardTravelTime(205., 10.), 0.001);
+        //50 to 100 covers 50, 100 to 200 covers 50, 200 to 300 covers 100, 100 left at 0.8
+        assertEquals(375., rushHour().getTravelTime(50., 300.), 0.001);
+        assertEquals(375., rushHour().getBackwardTravelTime(425., 300.), 0.001);
+    }
+
+    @Test
+    public void speedFactor_shouldBeLookedUpByTime() {
+        assertEquals(1., rushHour().getSpeedFactor(99.), 0.001);
+        assertEquals(0.5, rushHour().getSpeedFactor(100.), 0.001);
+        assertEquals(1., rushHour().getSpeedFactor(250.), 0.001);
+        assertEquals(0.8, rushHour().getSpeedFactor(1000.), 0.001);
+        assertEquals(3, rushHour().getNoIntervals());
+    }
+
+    @Test
+    public void travelTimes_shouldBeFifoAndBackwardTimesTheirInverse() {
+        SpeedProfile.Builder builder = SpeedProfile.Builder.newInstance();
+        Random random = RandomNumberGeneration.newInstance();
+        for (int i = 0; i < 20; i++) {
+            builder.addSpeedFactor(i * 50., 0.1 + random.nextDouble());
+        }
+        SpeedProfile profile = builder.build();
+        double lastArrival = -Double.MAX_VALUE;
+        for (double departure = -100.; departure < 1200.; departure += 0.7) {
+            double travelTime = profile.getTravelTime(departure, 30.);
+            double arrival = departure + travelTime;
+            assertTrue(arrival >= lastArrival);
+            assertEquals(travelTime, profile.getBackwardTravelTime(arrival, 30.), 0.0001);
+            lastArrival = arrival;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenSpeedFactorIsNotPositive_itShouldThrowException() {
+        SpeedProfile.Builder.newInstance().addSpeedFactor(0., 0.);
+    }
+
+}
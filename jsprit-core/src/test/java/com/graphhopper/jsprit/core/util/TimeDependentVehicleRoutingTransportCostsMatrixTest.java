@@ -0,0 +1,110 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TimeDependentVehicleRoutingTransportCostsMatrixTest {
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    private CompactVehicleRoutingTransportCostsMatrix freeFlowMatrix(boolean isSymmetric) {
+        return CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, isSymmetric)
+            .addTransportTimeAndDistance(0, 1, 10., 100.)
+            .addTransportTimeAndDistance(1, 2, 20., 200.)
+            .addTransportTimeAndDistance(0, 2, 30., 300.)
+            .build();
+    }
+
+    private SpeedProfile halfSpeedFrom(double start) {
+        return SpeedProfile.Builder.newInstance().addSpeedFactor(start, 0.5).build();
+    }
+
+    @Test
+    public void whenNoProfileIsSet_itShouldReturnFreeFlowValues() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(true)).build();
+        assertEquals(10., matrix.getTransportTime(loc(0), loc(1), 100., null, null), 0.01);
+        assertEquals(10., matrix.getBackwardTransportTime(loc(1), loc(0), 100., null, null), 0.01);
+        assertEquals(100., matrix.getDistance(loc(1), loc(0), 100., null), 0.01);
+        assertSame(SpeedProfile.FREE_FLOW, matrix.getSpeedProfile(0, 1));
+    }
+
+    @Test
+    public void whenDefaultProfileIsSet_itShouldApplyToAllRelations() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(true))
+            .setDefaultSpeedProfile(halfSpeedFrom(50.)).build();
+        assertEquals(10., matrix.getTransportTime(0, 1, 0.), 0.01);
+        assertEquals(20., matrix.getTransportTime(0, 1, 50.), 0.01);
+        assertEquals(40., matrix.getTransportTime(2, 1, 50.), 0.01);
+        assertEquals(50., matrix.getTransportTime(2, 0, 40.), 0.01);
+        assertEquals(50., matrix.getBackwardTransportTime(2, 0, 90.), 0.01);
+    }
+
+    @Test
+    public void whenProfileIsSetForRelationOfSymmetricMatrix_itShouldApplyToBothDirectionsOnly() {
+        SpeedProfile profile = halfSpeedFrom(0.);
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(true))
+            .setSpeedProfile(0, 1, profile).build();
+        assertEquals(20., matrix.getTransportTime(0, 1, 10.), 0.01);
+        assertEquals(20., matrix.getTransportTime(1, 0, 10.), 0.01);
+        assertEquals(20., matrix.getTransportTime(1, 2, 10.), 0.01);
+        assertSame(profile, matrix.getSpeedProfile(1, 0));
+    }
+
+    @Test
+    public void whenProfileIsSetForRelationOfAsymmetricMatrix_itShouldApplyToThisDirectionOnly() {
+        SpeedProfile profile = halfSpeedFrom(0.);
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(false))
+            .setSpeedProfile(0, 1, profile).setSpeedProfile(0, 2, profile).build();
+        assertEquals(20., matrix.getTransportTime(0, 1, 10.), 0.01);
+        assertEquals(60., matrix.getTransportTime(0, 2, 10.), 0.01);
+        assertEquals(60., matrix.getBackwardTransportTime(0, 2, 70.), 0.01);
+        assertSame(SpeedProfile.FREE_FLOW, matrix.getSpeedProfile(1, 0));
+    }
+
+    @Test
+    public void transportCosts_shouldDependOnDepartureAndArrivalTime() {
+        TimeDependentVehicleRoutingTransportCostsMatrix matrix = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(true))
+            .setDefaultSpeedProfile(halfSpeedFrom(100.)).build();
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTransportTime(2.).build();
+        Vehicle vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(loc(0)).setType(type).build();
+        assertEquals(100. + 2. * 10., matrix.getTransportCost(loc(0), loc(1), 0., null, vehicle), 0.01);
+        assertEquals(100. + 2. * 20., matrix.getTransportCost(loc(0), loc(1), 100., null, vehicle), 0.01);
+        assertEquals(100. + 2. * 10., matrix.getBackwardTransportCost(loc(0), loc(1), 100., null, vehicle), 0.01);
+        assertEquals(100. + 2. * 20., matrix.getBackwardTransportCost(loc(0), loc(1), 200., null, vehicle), 0.01);
+        assertEquals(100., matrix.getTransportCost(loc(0), loc(1), 100., null, null), 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenThereAreTooManyProfiles_itShouldThrowException() {
+        TimeDependentVehicleRoutingTransportCostsMatrix.Builder builder = TimeDependentVehicleRoutingTransportCostsMatrix.Builder.newInstance(freeFlowMatrix(false));
+        for (int i = 0; i < 256; i++) {
+            builder.setSpeedProfile(0, 1, halfSpeedFrom(i));
+        }
+    }
+
+}
@@ -25,7 +25,10 @@ import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.FailedConstraints;
+import com.graphhopper.jsprit.core.problem.constraint.HardSkillConstraint;
 import com.graphhopper.jsprit.core.problem.constraint.MaxDistanceConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.VehicleDependentTimeWindowConstraints;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
@@ -38,6 +41,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -134,6 +138,44 @@ public class UnassignedJobReasonTrackerTest {
         Assert.assertEquals(4, reasonTracker.getMostLikelyReasonCode(solution.getUnassignedJobs().iterator().next().getId()));
     }
 
+    @Test
+    public void whenInformedAboutFailedConstraints_itShouldCountThemPerJob() {
+        Service service = Service.Builder.newInstance("1").setLocation(Location.newInstance(5, 7)).build();
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.add(ConstraintManager.getConstraintId(VehicleDependentTimeWindowConstraints.class), 2);
+        failedConstraints.add(ConstraintManager.getConstraintId(HardSkillConstraint.class));
+        UnassignedJobReasonTracker reasonTracker = new UnassignedJobReasonTracker();
+        reasonTracker.informJobUnassigned(service, failedConstraints);
+        reasonTracker.informJobUnassigned(service, Arrays.asList("HardSkillConstraint", "HardSkillConstraint"));
+        Assert.assertEquals(2, reasonTracker.getFailedConstraintCount("1", "VehicleDependentTimeWindowConstraints"));
+        Assert.assertEquals(3, reasonTracker.getFailedConstraintCount("1", "HardSkillConstraint"));
+        Assert.assertEquals(1, reasonTracker.getMostLikelyReasonCode("1"));
+        Assert.assertEquals("cannot serve required skill", reasonTracker.getMostLikelyReason("1"));
+        Assert.assertEquals(2, reasonTracker.getFailedConstraintNamesFrequencyMapping().get("1").getCount("VehicleDependentTimeWindowConstraints"));
+    }
+
+    @Test
+    public void whenConstraintIsIgnored_itsFailuresShouldNotBeCounted() {
+        Service service = Service.Builder.newInstance("1").setLocation(Location.newInstance(5, 7)).build();
+        FailedConstraints failedConstraints = new FailedConstraints();
+        failedConstraints.add(ConstraintManager.getConstraintId(VehicleDependentTimeWindowConstraints.class));
+        failedConstraints.add(ConstraintManager.getConstraintId(HardSkillConstraint.class), 2);
+        UnassignedJobReasonTracker reasonTracker = new UnassignedJobReasonTracker();
+        reasonTracker.ignore("HardSkillConstraint");
+        reasonTracker.informJobUnassigned(service, failedConstraints);
+        Assert.assertEquals(0, reasonTracker.getFailedConstraintCount("1", "HardSkillConstraint"));
+        Assert.assertEquals(2, reasonTracker.getMostLikelyReasonCode("1"));
+    }
+
+    @Test
+    public void whenConstraintsFailedEquallyOften_mostLikelyReasonShouldBeTheLexicographicallySmallerName() {
+        Service service = Service.Builder.newInstance("1").setLocation(Location.newInstance(5, 7)).build();
+        UnassignedJobReasonTracker reasonTracker = new UnassignedJobReasonTracker();
+        reasonTracker.informJobUnassigned(service, Arrays.asList("VehicleDependentTimeWindowConstraints", "HardSkillConstraint"));
+        Assert.assertEquals(1, reasonTracker.getMostLikelyReasonCode("1"));
+        Assert.assertEquals(-1, reasonTracker.getMostLikelyReasonCode("2"));
+    }
+
     @Test
     public void getMostLikelyTest() {
         Frequency frequency = new Frequency();
@@ -258,4 +258,12 @@ public class VehicleRoutingTransportCostsMatrixTest {
         assertEquals(1., matrix.getTransportCost(loc("to"), loc("from"), 0.0, null, vehicle), 0.1);
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void whenRequestingRelationOfUnknownLocation_itShouldThrowException() {
+        VehicleRoutingTransportCostsMatrix.Builder matrixBuilder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+        matrixBuilder.addTransportDistance("1", "2", 2.);
+        VehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        matrix.getDistance("1", "3");
+    }
+
 }
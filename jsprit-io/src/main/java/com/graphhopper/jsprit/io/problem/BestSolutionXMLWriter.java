@@ -0,0 +1,111 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmEndsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Writes the problem together with the best solution found so far while the algorithm runs, i.e. an interrupted run
+ * still leaves its best solution behind. Each time an iteration ends with a solution that is better than the one
+ * written last, the document is written to a temporary file next to the file and then moved to the file. Thus, the file
+ * always contains a complete document.
+ * <p>
+ * <p>The file is written as named. Like with {@link VrpXMLWriter#write(String)}, it is gzipped if its name ends with
+ * ".gz". Since large documents take a while to write, a min interval between two writes can be set, the best solution
+ * is written in any case when the algorithm ends.
+ * <p>
+ * <pre>
+ * algorithm.addListener(new BestSolutionXMLWriter("output/best.xml.gz"));
+ * </pre>
+ */
+public class BestSolutionXMLWriter implements IterationEndsListener, AlgorithmEndsListener {
+
+    private final File file;
+
+    private long minIntervalMillis = 0;
+
+    private long lastWriteMillis = 0;
+
+    private double writtenCost = Double.MAX_VALUE;
+
+    private int nuOfWrites = 0;
+
+    public BestSolutionXMLWriter(String filename) {
+        this.file = new File(filename);
+    }
+
+    /**
+     * Sets the min time between two writes during the search. Better solutions that are found in between are skipped.
+     *
+     * @param minIntervalMillis min interval in milliseconds
+     */
+    public void setMinInterval(long minIntervalMillis) {
+        this.minIntervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * @return number of times the file has been written
+     */
+    public int getNuOfWrites() {
+        return nuOfWrites;
+    }
+
+    @Override
+    public synchronized void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        if (System.currentTimeMillis() - lastWriteMillis < minIntervalMillis) return;
+        writeIfBetter(problem, solutions);
+    }
+
+    @Override
+    public synchronized void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        writeIfBetter(problem, solutions);
+    }
+
+    private void writeIfBetter(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        if (best == null || best.getCost() >= writtenCost) return;
+        String tmpSuffix = file.getName().endsWith(".gz") ? ".tmp.gz" : ".tmp.xml";
+        File tmpFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + tmpSuffix);
+        new VrpXMLWriter(problem, Collections.singletonList(best)).write(tmpFile.getPath());
+        try {
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot write " + file, e);
+        }
+        writtenCost = best.getCost();
+        lastWriteMillis = System.currentTimeMillis();
+        nuOfWrites++;
+    }
+
+}
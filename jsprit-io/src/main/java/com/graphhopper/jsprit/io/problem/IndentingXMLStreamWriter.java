@@ -0,0 +1,418 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stream writer that indents elements the way the xerces XMLSerializer does with indenting switched on, i.e. every
+ * element starts on a new line, text only elements are kept on one line, empty elements are closed with "/>" and the
+ * attributes of a start tag that exceeds the line width are wrapped. Thus, documents are formatted as they were when
+ * the writer still serialized a DOM.
+ * <p>
+ * <p>Attributes are written in the order they are specified, namespace declarations are written as attributes and
+ * prefixes are not managed. Comments, processing instructions, cdata sections, entity references and dtds are not
+ * supported.
+ */
+class IndentingXMLStreamWriter implements XMLStreamWriter {
+
+    private static final int LINE_WIDTH = 72;
+
+    private static class ElementState {
+
+        private final String name;
+
+        //start tag is not closed yet
+        private boolean empty = true;
+
+        private boolean afterElement = false;
+
+        ElementState(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Writer writer;
+
+    private final int indent;
+
+    //element states, the first one represents the document
+    private final List<ElementState> elementStates = new ArrayList<>();
+
+    private boolean startTagOfEmptyElement = false;
+
+    //line printed so far, followed by spaces and the text since the last space where the line can be wrapped
+    private StringBuilder line = new StringBuilder(40);
+
+    private int spaces = 0;
+
+    private StringBuilder text = new StringBuilder(20);
+
+    private int thisIndent = 0;
+
+    private int nextIndent = 0;
+
+    IndentingXMLStreamWriter(Writer writer, int indent) {
+        this.writer = writer;
+        this.indent = indent;
+        elementStates.add(new ElementState(null));
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        writeStartDocument("UTF-8", "1.0");
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+        writeStartDocument("UTF-8", version);
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        if (elementStates.size() > 1 || elementStates.get(0).afterElement)
+            throw new XMLStreamException("xml declaration must be at the beginning of the document");
+        printText("<?xml version=\"" + version + "\" encoding=\"" + encoding + "\"?>");
+        breakLine();
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+        closeEmptyElement();
+        ElementState parent = currentState();
+        if (!isDocumentState()) {
+            if (parent.empty) printText(">");
+            if (parent.empty || parent.afterElement) breakLine();
+            parent.empty = false;
+        }
+        printText("<");
+        printText(localName);
+        nextIndent += indent;
+        elementStates.add(new ElementState(localName));
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeStartElement(qualifiedName(prefix, localName));
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        writeStartElement(localName);
+        startTagOfEmptyElement = true;
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        writeEmptyElement(qualifiedName(prefix, localName));
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        closeEmptyElement();
+        endElement();
+    }
+
+    private void endElement() throws XMLStreamException {
+        if (isDocumentState()) throw new XMLStreamException("there is no element to end");
+        unindent();
+        ElementState state = elementStates.remove(elementStates.size() - 1);
+        if (state.empty) {
+            printText("/>");
+        } else {
+            if (state.afterElement) breakLine();
+            printText("</");
+            printText(state.name);
+            printText(">");
+        }
+        ElementState parent = currentState();
+        parent.afterElement = true;
+        parent.empty = false;
+        if (isDocumentState()) flushLines();
+    }
+
+    private void closeEmptyElement() throws XMLStreamException {
+        if (startTagOfEmptyElement) {
+            startTagOfEmptyElement = false;
+            endElement();
+        }
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        closeEmptyElement();
+        while (!isDocumentState()) endElement();
+        flushLines();
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        if (isDocumentState() || !currentState().empty)
+            throw new XMLStreamException("attribute " + localName + " must be written right after a start tag");
+        printSpace();
+        printText(localName);
+        printText("=\"");
+        printEscaped(value, true);
+        printText("\"");
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeAttribute(localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeAttribute(qualifiedName(prefix, localName), value);
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        if (prefix == null || prefix.isEmpty() || prefix.equals("xmlns")) writeDefaultNamespace(namespaceURI);
+        else writeAttribute("xmlns:" + prefix, namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        writeAttribute("xmlns", namespaceURI);
+    }
+
+    /**
+     * Writes the text, unless it consists of whitespace only. Like any other text, it is never wrapped.
+     */
+    @Override
+    public void writeCharacters(String characters) throws XMLStreamException {
+        closeEmptyElement();
+        if (characters.replace('\n', ' ').trim().isEmpty()) return;
+        if (isDocumentState()) throw new XMLStreamException("text must be written within an element");
+        ElementState state = currentState();
+        if (state.empty) {
+            printText(">");
+            state.empty = false;
+        }
+        state.afterElement = false;
+        printEscaped(characters, false);
+    }
+
+    @Override
+    public void writeCharacters(char[] characters, int start, int length) throws XMLStreamException {
+        writeCharacters(new String(characters, start, length));
+    }
+
+    @Override
+    public void writeComment(String data) {
+        throw new UnsupportedOperationException("comments are not supported");
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) {
+        throw new UnsupportedOperationException("processing instructions are not supported");
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) {
+        throw new UnsupportedOperationException("processing instructions are not supported");
+    }
+
+    @Override
+    public void writeCData(String data) {
+        throw new UnsupportedOperationException("cdata sections are not supported");
+    }
+
+    @Override
+    public void writeDTD(String dtd) {
+        throw new UnsupportedOperationException("dtds are not supported");
+    }
+
+    @Override
+    public void writeEntityRef(String name) {
+        throw new UnsupportedOperationException("entity references are not supported");
+    }
+
+    @Override
+    public String getPrefix(String uri) {
+        return null;
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) {
+        throw new UnsupportedOperationException("prefixes are not managed");
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) {
+        throw new UnsupportedOperationException("prefixes are not managed");
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) {
+        throw new UnsupportedOperationException("prefixes are not managed");
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        throw new IllegalArgumentException("property " + name + " is not supported");
+    }
+
+    /**
+     * Flushes the underlying writer. Text of the current line is kept until the line is complete.
+     */
+    @Override
+    public void flush() throws XMLStreamException {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    /**
+     * Flushes, but does not close the underlying writer.
+     */
+    @Override
+    public void close() throws XMLStreamException {
+        flush();
+    }
+
+    private ElementState currentState() {
+        return elementStates.get(elementStates.size() - 1);
+    }
+
+    private boolean isDocumentState() {
+        return elementStates.size() == 1;
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.isEmpty()) return localName;
+        return prefix + ":" + localName;
+    }
+
+    private void printText(String string) {
+        text.append(string);
+    }
+
+    //line breaks and tabs are escaped in attributes only, characters beyond the basic multilingual plane always
+    private void printEscaped(String string, boolean attribute) throws XMLStreamException {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+                printHex(Character.toCodePoint(c, string.charAt(++i)));
+            } else if (!isValid(c)) {
+                throw new XMLStreamException("invalid xml character 0x" + Integer.toHexString(c));
+            } else if (c == '<') {
+                printText("&lt;");
+            } else if (c == '&') {
+                printText("&amp;");
+            } else if (c == '\r' || (attribute && (c == '\n' || c == '\t'))) {
+                printHex(c);
+            } else if (attribute && c == '"') {
+                printText("&quot;");
+            } else if (!attribute && c == '>') {
+                printText("&gt;");
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    private static boolean isValid(char c) {
+        if (c == '\t' || c == '\n' || c == '\r') return true;
+        return c >= ' ' && !Character.isSurrogate(c) && c != '\uFFFE' && c != '\uFFFF';
+    }
+
+    private void printHex(int codePoint) {
+        text.append("&#x").append(Integer.toHexString(codePoint)).append(';');
+    }
+
+    //space the line can be wrapped at
+    private void printSpace() throws XMLStreamException {
+        if (text.length() > 0) {
+            if (thisIndent + line.length() + spaces + text.length() > LINE_WIDTH) {
+                flushLine();
+                write("\n");
+            }
+            appendTextToLine();
+        }
+        spaces++;
+    }
+
+    private void breakLine() throws XMLStreamException {
+        if (text.length() > 0) appendTextToLine();
+        flushLine();
+        write("\n");
+    }
+
+    private void appendTextToLine() {
+        for (; spaces > 0; spaces--) line.append(' ');
+        line.append(text);
+        text.setLength(0);
+    }
+
+    private void flushLine() throws XMLStreamException {
+        if (line.length() == 0) return;
+        int lineIndent = thisIndent;
+        if (2 * lineIndent > LINE_WIDTH) lineIndent = LINE_WIDTH / 2;
+        StringBuilder indentation = new StringBuilder(lineIndent);
+        for (int i = 0; i < lineIndent; i++) indentation.append(' ');
+        write(indentation.toString());
+        thisIndent = nextIndent;
+        spaces = 0;
+        write(line.toString());
+        line.setLength(0);
+    }
+
+    private void flushLines() throws XMLStreamException {
+        if (line.length() > 0 || text.length() > 0) breakLine();
+        flush();
+    }
+
+    private void unindent() {
+        nextIndent = Math.max(0, nextIndent - indent);
+        if (line.length() + spaces + text.length() == 0) thisIndent = nextIndent;
+    }
+
+    private void write(String string) throws XMLStreamException {
+        try {
+            writer.write(string);
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+/**
+ * Stream reader that validates the document against a schema while it is read, i.e. without reading it twice or
+ * holding it in memory. Each event the reader is advanced to is passed to a {@link ValidatorHandler}, the first
+ * violation of the schema is thrown as {@link XMLStreamException}.
+ * <p>
+ * <p>Only {@link #next()}, {@link #nextTag()} and {@link #getElementText()} advance the reader with validation.
+ */
+class SchemaValidatingStreamReader extends StreamReaderDelegate {
+
+    private final ValidatorHandler validatorHandler;
+
+    SchemaValidatingStreamReader(final XMLStreamReader reader, Schema schema) throws XMLStreamException {
+        super(reader);
+        validatorHandler = schema.newValidatorHandler();
+        validatorHandler.setDocumentLocator(new Locator() {
+
+            @Override
+            public String getPublicId() {
+                return reader.getLocation().getPublicId();
+            }
+
+            @Override
+            public String getSystemId() {
+                return reader.getLocation().getSystemId();
+            }
+
+            @Override
+            public int getLineNumber() {
+                return reader.getLocation().getLineNumber();
+            }
+
+            @Override
+            public int getColumnNumber() {
+                return reader.getLocation().getColumnNumber();
+            }
+        });
+        try {
+            validatorHandler.startDocument();
+        } catch (SAXException e) {
+            throw new XMLStreamException(e.getMessage(), getLocation(), e);
+        }
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        try {
+            validate(event);
+        } catch (SAXException e) {
+            throw new XMLStreamException(e.getMessage(), getLocation(), e);
+        }
+        return event;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (event == XMLStreamConstants.SPACE || event == XMLStreamConstants.COMMENT || event == XMLStreamConstants.PROCESSING_INSTRUCTION
+            || (event == XMLStreamConstants.CHARACTERS && isWhiteSpace())) {
+            event = next();
+        }
+        if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            throw new XMLStreamException("expected start or end tag", getLocation());
+        }
+        return event;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int event = next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                text.append(getTextCharacters(), getTextStart(), getTextLength());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("element text must not contain elements", getLocation());
+            }
+            event = next();
+        }
+        return text.toString();
+    }
+
+    private void validate(int event) throws SAXException {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                for (int i = 0; i < getNamespaceCount(); i++) {
+                    validatorHandler.startPrefixMapping(nonNull(getNamespacePrefix(i)), nonNull(getNamespaceURI(i)));
+                }
+                AttributesImpl attributes = new AttributesImpl();
+                for (int i = 0; i < getAttributeCount(); i++) {
+                    QName name = getAttributeName(i);
+                    attributes.addAttribute(nonNull(name.getNamespaceURI()), name.getLocalPart(), qualifiedName(name), getAttributeType(i), getAttributeValue(i));
+                }
+                validatorHandler.startElement(nonNull(getNamespaceURI()), getLocalName(), qualifiedName(getName()), attributes);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                validatorHandler.endElement(nonNull(getNamespaceURI()), getLocalName(), qualifiedName(getName()));
+                for (int i = 0; i < getNamespaceCount(); i++) {
+                    validatorHandler.endPrefixMapping(nonNull(getNamespacePrefix(i)));
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                validatorHandler.characters(getTextCharacters(), getTextStart(), getTextLength());
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                validatorHandler.endDocument();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String nonNull(String string) {
+        return string == null ? "" : string;
+    }
+
+    private static String qualifiedName(QName name) {
+        if (name.getPrefix() == null || name.getPrefix().isEmpty()) return name.getLocalPart();
+        return name.getPrefix() + ":" + name.getLocalPart();
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
+import com.graphhopper.jsprit.core.problem.job.*;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.CompactVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads a vehicle routing problem (and its solutions) from a binary snapshot written by {@link VrpBinaryWriter}.
+ * <p>
+ * <p>Files are memory-mapped and read in place, i.e. they are not copied to the heap before the problem builder is
+ * populated. If the snapshot contains a transport costs matrix, it is set to the builder as
+ * {@link CompactVehicleRoutingTransportCostsMatrix}.
+ */
+public class VrpBinaryReader {
+
+    private static Logger logger = LoggerFactory.getLogger(VrpBinaryReader.class);
+
+    private VehicleRoutingProblem.Builder vrpBuilder;
+
+    private Collection<VehicleRoutingProblemSolution> solutions;
+
+    private ByteBuffer buffer;
+
+    private List<String> strings;
+
+    private List<VehicleType> types;
+
+    private List<Vehicle> vehicles;
+
+    private List<Job> jobs;
+
+    public VrpBinaryReader(VehicleRoutingProblem.Builder vrpBuilder, Collection<VehicleRoutingProblemSolution> solutions) {
+        this.vrpBuilder = vrpBuilder;
+        this.solutions = solutions;
+    }
+
+    public VrpBinaryReader(VehicleRoutingProblem.Builder vrpBuilder) {
+        this.vrpBuilder = vrpBuilder;
+        this.solutions = null;
+    }
+
+    /**
+     * Reads the snapshot from a file or, if there is no such file, from a resource on the classpath or a url. Files
+     * are memory-mapped.
+     *
+     * @param filename name of file, resource or url
+     */
+    public void read(String filename) {
+        logger.debug("read vrp: {}", filename);
+        File file = new File(filename);
+        try {
+            if (file.exists()) {
+                try (FileChannel channel = new FileInputStream(file).getChannel()) {
+                    if (channel.size() > Integer.MAX_VALUE)
+                        throw new IllegalArgumentException(filename + " is too large to be mapped");
+                    read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            } else {
+                URL url = Resource.getAsURL(filename);
+                if (url == null) url = new URL(filename);
+                try (InputStream inputStream = url.openStream()) {
+                    read(inputStream);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads the snapshot from a stream. The stream is read to its end, but not closed.
+     *
+     * @param inputStream snapshot
+     */
+    public void read(InputStream inputStream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = new byte[1 << 16];
+        try {
+            for (int length; (length = inputStream.read(bytes)) >= 0; ) {
+                out.write(bytes, 0, length);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        read(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Reads the snapshot from the position of the specified buffer on.
+     *
+     * @param buffer snapshot
+     * @throws IllegalArgumentException if buffer does not contain a valid snapshot
+     */
+    public void read(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.strings = new ArrayList<>();
+        this.types = new ArrayList<>();
+        this.vehicles = new ArrayList<>();
+        this.jobs = new ArrayList<>();
+        try {
+            if (this.buffer.remaining() < 12 || this.buffer.getInt() != VrpBinaryWriter.MAGIC_NUMBER)
+                throw new IllegalArgumentException("buffer does not contain a vrp snapshot");
+            int version = this.buffer.getInt();
+            if (version != VrpBinaryWriter.VERSION)
+                throw new IllegalArgumentException("version " + version + " of vrp snapshot is not supported");
+            int flags = this.buffer.getInt();
+            readProblem();
+            readSolutions();
+            if ((flags & VrpBinaryWriter.FLAG_MATRIX) != 0) readMatrix();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("vrp snapshot is truncated", e);
+        } finally {
+            this.buffer = null;
+        }
+    }
+
+    private void readProblem() {
+        vrpBuilder.setFleetSize(buffer.getInt() == 1 ? VehicleRoutingProblem.FleetSize.INFINITE : VehicleRoutingProblem.FleetSize.FINITE);
+        int noTypes = buffer.getInt();
+        for (int i = 0; i < noTypes; i++) {
+            types.add(readType());
+        }
+        int noVehicles = buffer.getInt();
+        for (int i = 0; i < noVehicles; i++) {
+            Vehicle vehicle = readVehicle();
+            vehicles.add(vehicle);
+            vrpBuilder.addVehicle(vehicle);
+        }
+        int noJobs = buffer.getInt();
+        for (int i = 0; i < noJobs; i++) {
+            //since jobs of initial routes do not belong to the jobs that can be assigned, they are added with their routes
+            boolean inInitialRoute = getBoolean();
+            Job job = readJob();
+            jobs.add(job);
+            if (!inInitialRoute) vrpBuilder.addJob(job);
+        }
+        vrpBuilder.addInitialVehicleRoutes(readRoutes());
+    }
+
+    private void readSolutions() {
+        int noSolutions = buffer.getInt();
+        for (int i = 0; i < noSolutions; i++) {
+            double cost = buffer.getDouble();
+            List<VehicleRoute> routes = readRoutes();
+            List<Job> unassignedJobs = new ArrayList<>();
+            int noUnassignedJobs = buffer.getInt();
+            for (int j = 0; j < noUnassignedJobs; j++) {
+                unassignedJobs.add(getJob(buffer.getInt()));
+            }
+            if (solutions != null) solutions.add(new VehicleRoutingProblemSolution(routes, unassignedJobs, cost));
+        }
+    }
+
+    private VehicleType readType() {
+        VehicleTypeImpl.Builder typeBuilder = VehicleTypeImpl.Builder.newInstance(getString());
+        typeBuilder.setProfile(getString());
+        typeBuilder.setMaxVelocity(buffer.getDouble());
+        typeBuilder.setFixedCost(buffer.getDouble());
+        typeBuilder.setCostPerDistance(buffer.getDouble());
+        typeBuilder.setCostPerTransportTime(buffer.getDouble());
+        typeBuilder.setCostPerWaitingTime(buffer.getDouble());
+        typeBuilder.setCostPerServiceTime(buffer.getDouble());
+        typeBuilder.setCapacityDimensions(readCapacity());
+        return typeBuilder.build();
+    }
+
+    private Vehicle readVehicle() {
+        VehicleImpl.Builder vehicleBuilder = VehicleImpl.Builder.newInstance(getString());
+        vehicleBuilder.setType(get(types, buffer.getInt(), "type"));
+        vehicleBuilder.setStartLocation(readLocation());
+        vehicleBuilder.setEndLocation(readLocation());
+        vehicleBuilder.setEarliestStart(buffer.getDouble());
+        vehicleBuilder.setLatestArrival(buffer.getDouble());
+        vehicleBuilder.setReturnToDepot(getBoolean());
+        vehicleBuilder.addAllSkills(readSkills());
+        if (getBoolean()) {
+            Job aBreak = readJob();
+            if (!(aBreak instanceof Break)) throw new IllegalArgumentException("job " + aBreak.getId() + " is no break");
+            vehicleBuilder.setBreak((Break) aBreak);
+        }
+        return vehicleBuilder.build();
+    }
+
+    private Job readJob() {
+        byte kind = buffer.get();
+        String id = getString();
+        String name = getString();
+        int priority = buffer.getInt();
+        double maxTimeInVehicle = buffer.getDouble();
+        Capacity size = readCapacity();
+        List<String> skills = readSkills();
+        if (kind == VrpBinaryWriter.SHIPMENT) {
+            Shipment.Builder shipmentBuilder = Shipment.Builder.newInstance(id).setName(name).setPriority(priority)
+                .addAllSizeDimensions(size).addAllRequiredSkills(skills);
+            if (maxTimeInVehicle != Double.MAX_VALUE) shipmentBuilder.setMaxTimeInVehicle(maxTimeInVehicle);
+            shipmentBuilder.setPickupLocation(readLocation()).setPickupServiceTime(buffer.getDouble())
+                .addAllPickupTimeWindows(readTimeWindows());
+            shipmentBuilder.setDeliveryLocation(readLocation()).setDeliveryServiceTime(buffer.getDouble())
+                .addAllDeliveryTimeWindows(readTimeWindows());
+            return shipmentBuilder.build();
+        }
+        Service.Builder<? extends Service> serviceBuilder;
+        if (kind == VrpBinaryWriter.SERVICE) serviceBuilder = Service.Builder.newInstance(id);
+        else if (kind == VrpBinaryWriter.PICKUP) serviceBuilder = Pickup.Builder.newInstance(id);
+        else if (kind == VrpBinaryWriter.DELIVERY) serviceBuilder = Delivery.Builder.newInstance(id);
+        else if (kind == VrpBinaryWriter.BREAK) serviceBuilder = Break.Builder.newInstance(id);
+        else throw new IllegalArgumentException("unknown job type " + kind + " of job " + id);
+        serviceBuilder.setName(name).setPriority(priority).addAllSizeDimensions(size).addAllRequiredSkills(skills);
+        if (maxTimeInVehicle != Double.MAX_VALUE) serviceBuilder.setMaxTimeInVehicle(maxTimeInVehicle);
+        Location location = readLocation();
+        if (location != null) serviceBuilder.setLocation(location);
+        serviceBuilder.setServiceTime(buffer.getDouble()).addAllTimeWindows(readTimeWindows());
+        return serviceBuilder.build();
+    }
+
+    private List<VehicleRoute> readRoutes() {
+        int noRoutes = buffer.getInt();
+        List<VehicleRoute> routes = new ArrayList<>(noRoutes);
+        for (int i = 0; i < noRoutes; i++) {
+            Vehicle vehicle = get(vehicles, buffer.getInt(), "vehicle");
+            VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, DriverImpl.noDriver());
+            routeBuilder.setDepartureTime(buffer.getDouble());
+            double endArrTime = buffer.getDouble();
+            int noActivities = buffer.getInt();
+            double[] arrTimes = new double[noActivities];
+            double[] endTimes = new double[noActivities];
+            for (int j = 0; j < noActivities; j++) {
+                byte type = buffer.get();
+                if (type == VrpBinaryWriter.BREAK_ACTIVITY) {
+                    if (vehicle.getBreak() == null)
+                        throw new IllegalArgumentException("route of vehicle " + vehicle.getId() + " contains a break, but vehicle has none");
+                    Location location = readLocation();
+                    routeBuilder.addBreak(vehicle.getBreak(), readTimeWindow(), location);
+                } else {
+                    Job job = getJob(buffer.getInt());
+                    TimeWindow timeWindow = readTimeWindow();
+                    if (type == VrpBinaryWriter.SERVICE_ACTIVITY && job instanceof Service) {
+                        routeBuilder.addService((Service) job, timeWindow);
+                    } else if (type == VrpBinaryWriter.PICKUP_SHIPMENT_ACTIVITY && job instanceof Shipment) {
+                        routeBuilder.addPickup((Shipment) job, timeWindow);
+                    } else if (type == VrpBinaryWriter.DELIVER_SHIPMENT_ACTIVITY && job instanceof Shipment) {
+                        routeBuilder.addDelivery((Shipment) job, timeWindow);
+                    } else {
+                        throw new IllegalArgumentException("activity type " + type + " does not match job " + job.getId());
+                    }
+                }
+                arrTimes[j] = buffer.getDouble();
+                endTimes[j] = buffer.getDouble();
+            }
+            VehicleRoute route = routeBuilder.build();
+            int j = 0;
+            for (TourActivity act : route.getActivities()) {
+                act.setArrTime(arrTimes[j]);
+                act.setEndTime(endTimes[j]);
+                j++;
+            }
+            route.getEnd().setArrTime(endArrTime);
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    private void readMatrix() {
+        int noLocations = buffer.getInt();
+        boolean isSymmetric = getBoolean();
+        CompactVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = CompactVehicleRoutingTransportCostsMatrix.Builder.newInstance(noLocations, isSymmetric);
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = isSymmetric ? from : 0; to < noLocations; to++) {
+                matrixBuilder.addTransportDistance(from, to, buffer.getDouble());
+            }
+        }
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = isSymmetric ? from : 0; to < noLocations; to++) {
+                matrixBuilder.addTransportTime(from, to, buffer.getDouble());
+            }
+        }
+        vrpBuilder.setRoutingCost(matrixBuilder.build());
+    }
+
+    private Location readLocation() {
+        String id = getString();
+        if (id == null) return null;
+        Location.Builder locationBuilder = Location.Builder.newInstance().setId(id);
+        int index = buffer.getInt();
+        if (index != Location.NO_INDEX) locationBuilder.setIndex(index);
+        if (getBoolean()) locationBuilder.setCoordinate(Coordinate.newInstance(buffer.getDouble(), buffer.getDouble()));
+        return locationBuilder.setName(getString()).build();
+    }
+
+    private List<TimeWindow> readTimeWindows() {
+        int noTimeWindows = buffer.getInt();
+        List<TimeWindow> timeWindows = new ArrayList<>(noTimeWindows);
+        for (int i = 0; i < noTimeWindows; i++) {
+            timeWindows.add(readTimeWindow());
+        }
+        return timeWindows;
+    }
+
+    private TimeWindow readTimeWindow() {
+        return TimeWindow.newInstance(buffer.getDouble(), buffer.getDouble());
+    }
+
+    private Capacity readCapacity() {
+        Capacity.Builder capacityBuilder = Capacity.Builder.newInstance();
+        int noDimensions = buffer.getInt();
+        for (int i = 0; i < noDimensions; i++) {
+            capacityBuilder.addDimension(i, buffer.getInt());
+        }
+        return capacityBuilder.build();
+    }
+
+    private List<String> readSkills() {
+        int noSkills = buffer.getInt();
+        List<String> skills = new ArrayList<>(noSkills);
+        for (int i = 0; i < noSkills; i++) {
+            skills.add(getString());
+        }
+        return skills;
+    }
+
+    private boolean getBoolean() {
+        return buffer.get() != 0;
+    }
+
+    private String getString() {
+        int index = buffer.getInt();
+        if (index == VrpBinaryWriter.NULL_STRING) return null;
+        if (index == VrpBinaryWriter.NEW_STRING) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+        return get(strings, index, "string");
+    }
+
+    private Job getJob(int reference) {
+        if (reference > VrpBinaryWriter.BREAK_REFERENCE_OFFSET) return get(jobs, reference, "job");
+        Vehicle vehicle = get(vehicles, VrpBinaryWriter.BREAK_REFERENCE_OFFSET - reference, "vehicle");
+        if (vehicle.getBreak() == null) throw new IllegalArgumentException("vehicle " + vehicle.getId() + " has no break");
+        return vehicle.getBreak();
+    }
+
+    private static <T> T get(List<T> list, int index, String name) {
+        if (index < 0 || index >= list.size())
+            throw new IllegalArgumentException(name + " " + index + " does not exist in vrp snapshot");
+        return list.get(index);
+    }
+
+}
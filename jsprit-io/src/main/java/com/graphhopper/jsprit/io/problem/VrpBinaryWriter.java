@@ -0,0 +1,526 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.*;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.BreakActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverShipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.PickupShipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.CompactVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.MappedVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the problem and its solutions as compact binary snapshot that is read by {@link VrpBinaryReader}. Compared to
+ * {@link VrpXMLWriter}, snapshots are much smaller and faster to read, but they are not meant to be read or edited by
+ * humans. Snapshots are lossless, i.e. doubles are written with all their bits, and jobs, vehicles and types are read
+ * back in the order they have in the problem. Thus, they also get the same indices. User data is not written.
+ * <p>
+ * <p>If the problem's transport costs are an index based matrix ({@link FastVehicleRoutingTransportCostsMatrix},
+ * {@link CompactVehicleRoutingTransportCostsMatrix} or {@link MappedVehicleRoutingTransportCostsMatrix}), it can be
+ * embedded with {@link #setWriteTransportCostsMatrix(boolean)}.
+ * <p>
+ * <p>The format is (big-endian):
+ * <pre>
+ * header     int magic number 0x4A565250 ("JVRP"), int format version (1), int flags (bit 0: matrix is embedded)
+ * problem    int fleet size (0 = finite, 1 = infinite), types, vehicles, jobs, initial routes
+ * solutions  int number of solutions, each with double cost, routes and unassigned jobs
+ * matrix     int number of locations n, byte symmetric, distances and times as doubles, i.e. n*n values each or the
+ *            upper triangle including the diagonal row by row if the matrix is symmetric
+ * </pre>
+ * Lists are written as int size followed by their elements. Strings are written once, i.e. an int -2 followed by int
+ * length and utf-8 bytes, and are referred to by int index (in order of their first occurrence) thereafter. -1 denotes
+ * null. Vehicles refer to their type, activities and unassigned jobs refer to their job and routes refer to their
+ * vehicle by int index. Breaks are referred to by -2 - index of the vehicle they belong to.
+ */
+public class VrpBinaryWriter {
+
+    static final int MAGIC_NUMBER = 0x4A565250;
+
+    static final int VERSION = 1;
+
+    static final int FLAG_MATRIX = 1;
+
+    static final byte SERVICE = 0;
+
+    static final byte PICKUP = 1;
+
+    static final byte DELIVERY = 2;
+
+    static final byte SHIPMENT = 3;
+
+    static final byte BREAK = 4;
+
+    static final byte SERVICE_ACTIVITY = 0;
+
+    static final byte PICKUP_SHIPMENT_ACTIVITY = 1;
+
+    static final byte DELIVER_SHIPMENT_ACTIVITY = 2;
+
+    static final byte BREAK_ACTIVITY = 3;
+
+    static final int BREAK_REFERENCE_OFFSET = -2;
+
+    static final int NULL_STRING = -1;
+
+    static final int NEW_STRING = -2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Logger log = LoggerFactory.getLogger(VrpBinaryWriter.class);
+
+    private VehicleRoutingProblem vrp;
+
+    private Collection<VehicleRoutingProblemSolution> solutions;
+
+    private boolean onlyBestSolution = false;
+
+    private boolean writeTransportCostsMatrix = false;
+
+    private Map<String, Integer> typeIndices;
+
+    private Map<String, Integer> vehicleIndices;
+
+    private Map<String, Integer> jobIndices;
+
+    public VrpBinaryWriter(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions, boolean onlyBestSolution) {
+        this.vrp = vrp;
+        this.solutions = solutions;
+        this.onlyBestSolution = onlyBestSolution;
+    }
+
+    public VrpBinaryWriter(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        this.vrp = vrp;
+        this.solutions = solutions;
+    }
+
+    public VrpBinaryWriter(VehicleRoutingProblem vrp) {
+        this.vrp = vrp;
+        this.solutions = null;
+    }
+
+    /**
+     * Sets whether the transport costs matrix of the problem is embedded in the snapshot. Default is false.
+     *
+     * @param writeTransportCostsMatrix true if matrix is to be written
+     * @return this writer
+     */
+    public VrpBinaryWriter setWriteTransportCostsMatrix(boolean writeTransportCostsMatrix) {
+        this.writeTransportCostsMatrix = writeTransportCostsMatrix;
+        return this;
+    }
+
+    /**
+     * Writes the snapshot to a file.
+     *
+     * @param filename name of the file
+     */
+    public void write(String filename) {
+        log.info("write vrp: " + filename);
+        try (FileOutputStream out = new FileOutputStream(filename)) {
+            write(out.getChannel());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to the specified stream. The stream is flushed, but not closed.
+     *
+     * @param outputStream stream to write to
+     */
+    public void write(OutputStream outputStream) {
+        try {
+            write(Channels.newChannel(outputStream));
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to the specified channel. The channel is not closed.
+     *
+     * @param channel channel to write to
+     * @throws IOException              if channel cannot be written
+     * @throws IllegalStateException    if the matrix is to be written, but transport costs are no index based matrix
+     * @throws IllegalArgumentException if the problem contains jobs or activities that cannot be written
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        VehicleRoutingTransportCosts matrix = null;
+        if (writeTransportCostsMatrix) {
+            matrix = vrp.getTransportCosts();
+            if (getNoLocations(matrix) < 0)
+                throw new IllegalStateException("cannot write transport costs " + matrix.getClass().getName() + ". only index based matrices can be written.");
+        }
+        Output out = new Output(channel);
+        out.putInt(MAGIC_NUMBER);
+        out.putInt(VERSION);
+        out.putInt(matrix == null ? 0 : FLAG_MATRIX);
+        typeIndices = new HashMap<>();
+        vehicleIndices = new HashMap<>();
+        jobIndices = new HashMap<>();
+        writeProblem(out);
+        writeSolutions(out);
+        if (matrix != null) writeMatrix(out, matrix);
+        out.flush();
+    }
+
+    private void writeProblem(Output out) throws IOException {
+        out.putInt(vrp.getFleetSize() == VehicleRoutingProblem.FleetSize.INFINITE ? 1 : 0);
+        out.putInt(vrp.getTypes().size());
+        for (VehicleType type : vrp.getTypes()) {
+            typeIndices.put(type.getTypeId(), typeIndices.size());
+            writeType(out, type);
+        }
+        out.putInt(vrp.getVehicles().size());
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            vehicleIndices.put(vehicle.getId(), vehicleIndices.size());
+            writeVehicle(out, vehicle);
+        }
+        List<Job> jobs = new ArrayList<>(vrp.getJobs().values());
+        Set<Job> jobsInInitialRoutes = new LinkedHashSet<>();
+        for (VehicleRoute route : vrp.getInitialVehicleRoutes()) {
+            for (Job job : route.getTourActivities().getJobs()) {
+                if (!vrp.getJobs().containsKey(job.getId()) && !(job instanceof Break)) jobsInInitialRoutes.add(job);
+            }
+        }
+        out.putInt(jobs.size() + jobsInInitialRoutes.size());
+        for (Job job : jobs) {
+            jobIndices.put(job.getId(), jobIndices.size());
+            out.putBoolean(false);
+            writeJob(out, job);
+        }
+        for (Job job : jobsInInitialRoutes) {
+            jobIndices.put(job.getId(), jobIndices.size());
+            out.putBoolean(true);
+            writeJob(out, job);
+        }
+        writeRoutes(out, vrp.getInitialVehicleRoutes());
+    }
+
+    private void writeSolutions(Output out) throws IOException {
+        if (solutions == null) {
+            out.putInt(0);
+            return;
+        }
+        Collection<VehicleRoutingProblemSolution> solutionsToWrite = solutions;
+        if (onlyBestSolution) {
+            VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+            solutionsToWrite = best == null ? Collections.<VehicleRoutingProblemSolution>emptyList() : Collections.singletonList(best);
+        }
+        out.putInt(solutionsToWrite.size());
+        for (VehicleRoutingProblemSolution solution : solutionsToWrite) {
+            out.putDouble(solution.getCost());
+            writeRoutes(out, solution.getRoutes());
+            out.putInt(solution.getUnassignedJobs().size());
+            for (Job job : solution.getUnassignedJobs()) {
+                out.putInt(getJobReference(job));
+            }
+        }
+    }
+
+    private void writeType(Output out, VehicleType type) throws IOException {
+        out.putString(type.getTypeId());
+        out.putString(type.getProfile());
+        out.putDouble(type.getMaxVelocity());
+        VehicleTypeImpl.VehicleCostParams costs = type.getVehicleCostParams();
+        out.putDouble(costs.fix);
+        out.putDouble(costs.perDistanceUnit);
+        out.putDouble(costs.perTransportTimeUnit);
+        out.putDouble(costs.perWaitingTimeUnit);
+        out.putDouble(costs.perServiceTimeUnit);
+        writeCapacity(out, type.getCapacityDimensions());
+    }
+
+    private void writeVehicle(Output out, Vehicle vehicle) throws IOException {
+        out.putString(vehicle.getId());
+        out.putInt(getIndex(typeIndices, vehicle.getType().getTypeId(), "type"));
+        writeLocation(out, vehicle.getStartLocation());
+        writeLocation(out, vehicle.getEndLocation());
+        out.putDouble(vehicle.getEarliestDeparture());
+        out.putDouble(vehicle.getLatestArrival());
+        out.putBoolean(vehicle.isReturnToDepot());
+        writeSkills(out, vehicle.getSkills());
+        out.putBoolean(vehicle.getBreak() != null);
+        if (vehicle.getBreak() != null) writeJob(out, vehicle.getBreak());
+    }
+
+    private void writeJob(Output out, Job job) throws IOException {
+        if (job instanceof Shipment) {
+            Shipment shipment = (Shipment) job;
+            out.putByte(SHIPMENT);
+            writeJobAttributes(out, job);
+            writeLocation(out, shipment.getPickupLocation());
+            out.putDouble(shipment.getPickupServiceTime());
+            writeTimeWindows(out, shipment.getPickupTimeWindows());
+            writeLocation(out, shipment.getDeliveryLocation());
+            out.putDouble(shipment.getDeliveryServiceTime());
+            writeTimeWindows(out, shipment.getDeliveryTimeWindows());
+        } else if (job instanceof Service) {
+            Service service = (Service) job;
+            out.putByte(getKind(service));
+            writeJobAttributes(out, job);
+            writeLocation(out, service.getLocation());
+            out.putDouble(service.getServiceDuration());
+            writeTimeWindows(out, service.getTimeWindows());
+        } else {
+            throw new IllegalArgumentException("cannot write job " + job.getId() + " of type " + job.getClass().getName());
+        }
+    }
+
+    private static byte getKind(Service service) {
+        if (service.getClass() == Service.class) return SERVICE;
+        if (service.getClass() == Pickup.class) return PICKUP;
+        if (service.getClass() == Delivery.class) return DELIVERY;
+        if (service.getClass() == Break.class) return BREAK;
+        throw new IllegalArgumentException("cannot write job " + service.getId() + " of type " + service.getClass().getName());
+    }
+
+    private void writeJobAttributes(Output out, Job job) throws IOException {
+        out.putString(job.getId());
+        out.putString(job.getName());
+        out.putInt(job.getPriority());
+        out.putDouble(job.getMaxTimeInVehicle());
+        writeCapacity(out, job.getSize());
+        writeSkills(out, job.getRequiredSkills());
+    }
+
+    private void writeRoutes(Output out, Collection<VehicleRoute> routes) throws IOException {
+        out.putInt(routes.size());
+        for (VehicleRoute route : routes) {
+            out.putInt(getIndex(vehicleIndices, route.getVehicle().getId(), "vehicle"));
+            out.putDouble(route.getStart().getEndTime());
+            out.putDouble(route.getEnd().getArrTime());
+            out.putInt(route.getActivities().size());
+            for (TourActivity act : route.getActivities()) {
+                if (act instanceof BreakActivity) {
+                    out.putByte(BREAK_ACTIVITY);
+                    writeLocation(out, act.getLocation());
+                } else if (act instanceof TourActivity.JobActivity) {
+                    if (act instanceof PickupShipment) out.putByte(PICKUP_SHIPMENT_ACTIVITY);
+                    else if (act instanceof DeliverShipment) out.putByte(DELIVER_SHIPMENT_ACTIVITY);
+                    else out.putByte(SERVICE_ACTIVITY);
+                    out.putInt(getJobReference(((TourActivity.JobActivity) act).getJob()));
+                } else {
+                    throw new IllegalArgumentException("cannot write activity " + act.getName() + " of route with vehicle " + route.getVehicle().getId());
+                }
+                out.putDouble(act.getTheoreticalEarliestOperationStartTime());
+                out.putDouble(act.getTheoreticalLatestOperationStartTime());
+                out.putDouble(act.getArrTime());
+                out.putDouble(act.getEndTime());
+            }
+        }
+    }
+
+    //breaks do not belong to the jobs, they are referred to by their vehicle
+    private int getJobReference(Job job) {
+        if (job instanceof Break && !jobIndices.containsKey(job.getId())) {
+            for (Vehicle vehicle : vrp.getVehicles()) {
+                if (job.equals(vehicle.getBreak())) return BREAK_REFERENCE_OFFSET - vehicleIndices.get(vehicle.getId());
+            }
+        }
+        return getIndex(jobIndices, job.getId(), "job");
+    }
+
+    private static int getIndex(Map<String, Integer> indices, String id, String name) {
+        Integer index = indices.get(id);
+        if (index == null) throw new IllegalArgumentException(name + " " + id + " is not part of the problem");
+        return index;
+    }
+
+    private void writeLocation(Output out, Location location) throws IOException {
+        if (location == null) {
+            out.putString(null);
+            return;
+        }
+        out.putString(location.getId());
+        out.putInt(location.getIndex());
+        out.putBoolean(location.getCoordinate() != null);
+        if (location.getCoordinate() != null) {
+            out.putDouble(location.getCoordinate().getX());
+            out.putDouble(location.getCoordinate().getY());
+        }
+        out.putString(location.getName());
+    }
+
+    private void writeTimeWindows(Output out, Collection<TimeWindow> timeWindows) throws IOException {
+        out.putInt(timeWindows.size());
+        for (TimeWindow timeWindow : timeWindows) {
+            out.putDouble(timeWindow.getStart());
+            out.putDouble(timeWindow.getEnd());
+        }
+    }
+
+    private void writeCapacity(Output out, Capacity capacity) throws IOException {
+        out.putInt(capacity.getNuOfDimensions());
+        for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+            out.putInt(capacity.get(i));
+        }
+    }
+
+    private void writeSkills(Output out, Skills skills) throws IOException {
+        out.putInt(skills.values().size());
+        for (String skill : skills.values()) {
+            out.putString(skill);
+        }
+    }
+
+    private void writeMatrix(Output out, VehicleRoutingTransportCosts matrix) throws IOException {
+        int noLocations = getNoLocations(matrix);
+        boolean isSymmetric = isSymmetric(matrix);
+        out.putInt(noLocations);
+        out.putBoolean(isSymmetric);
+        for (int block = 0; block < 2; block++) {
+            for (int from = 0; from < noLocations; from++) {
+                for (int to = isSymmetric ? from : 0; to < noLocations; to++) {
+                    out.putDouble(block == 0 ? getDistance(matrix, from, to) : getTransportTime(matrix, from, to));
+                }
+            }
+        }
+    }
+
+    //-1 if transport costs are no index based matrix
+    private static int getNoLocations(VehicleRoutingTransportCosts matrix) {
+        if (matrix instanceof FastVehicleRoutingTransportCostsMatrix)
+            return ((FastVehicleRoutingTransportCostsMatrix) matrix).getNoLocations();
+        if (matrix instanceof CompactVehicleRoutingTransportCostsMatrix)
+            return ((CompactVehicleRoutingTransportCostsMatrix) matrix).getNoLocations();
+        if (matrix instanceof MappedVehicleRoutingTransportCostsMatrix)
+            return ((MappedVehicleRoutingTransportCostsMatrix) matrix).getNoLocations();
+        return -1;
+    }
+
+    private static boolean isSymmetric(VehicleRoutingTransportCosts matrix) {
+        if (matrix instanceof FastVehicleRoutingTransportCostsMatrix)
+            return ((FastVehicleRoutingTransportCostsMatrix) matrix).isSymmetric();
+        if (matrix instanceof CompactVehicleRoutingTransportCostsMatrix)
+            return ((CompactVehicleRoutingTransportCostsMatrix) matrix).isSymmetric();
+        return ((MappedVehicleRoutingTransportCostsMatrix) matrix).isSymmetric();
+    }
+
+    private static double getDistance(VehicleRoutingTransportCosts matrix, int from, int to) {
+        if (matrix instanceof FastVehicleRoutingTransportCostsMatrix)
+            return ((FastVehicleRoutingTransportCostsMatrix) matrix).getDistance(from, to);
+        if (matrix instanceof CompactVehicleRoutingTransportCostsMatrix)
+            return ((CompactVehicleRoutingTransportCostsMatrix) matrix).getDistance(from, to);
+        return ((MappedVehicleRoutingTransportCostsMatrix) matrix).getDistance(from, to);
+    }
+
+    private static double getTransportTime(VehicleRoutingTransportCosts matrix, int from, int to) {
+        if (matrix instanceof FastVehicleRoutingTransportCostsMatrix)
+            return ((FastVehicleRoutingTransportCostsMatrix) matrix).getTransportTime(from, to);
+        if (matrix instanceof CompactVehicleRoutingTransportCostsMatrix)
+            return ((CompactVehicleRoutingTransportCostsMatrix) matrix).getTransportTime(from, to);
+        return ((MappedVehicleRoutingTransportCostsMatrix) matrix).getTransportTime(from, to);
+    }
+
+    /**
+     * Buffers values and writes them to the channel whenever the buffer is full.
+     */
+    private static class Output {
+
+        private final WritableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte value) throws IOException {
+            ensureRemaining(1);
+            buffer.put(value);
+        }
+
+        void putBoolean(boolean value) throws IOException {
+            putByte(value ? (byte) 1 : (byte) 0);
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(4);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensureRemaining(8);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(NULL_STRING);
+                return;
+            }
+            Integer index = stringIndices.get(value);
+            if (index != null) {
+                putInt(index);
+                return;
+            }
+            stringIndices.put(value, stringIndices.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(NEW_STRING);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) flush();
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensureRemaining(int noBytes) throws IOException {
+            if (buffer.remaining() < noBytes) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+}
@@ -33,19 +33,31 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Resource;
-import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.configuration.HierarchicalConfiguration;
-import org.apache.commons.configuration.XMLConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import java.io.IOException;
-import java.io.InputStream;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.*;
+import java.net.URL;
 import java.util.*;
-
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a vehicle routing problem (and its solutions) from xml, see vrp_xml_schema.xsd.
+ * <p>
+ * <p>The document is read as a stream (javax.xml.stream) and the problem builder is populated while reading. Only
+ * single elements such as a service, a vehicle or a route are held in memory until they are turned into their model
+ * objects, thus the memory needed is proportional to the problem and not to the document. If schema validation is on,
+ * the document is validated in the same pass.
+ */
 public class VrpXMLReader {
 
     public interface ServiceBuilderFactory {
@@ -70,6 +82,120 @@ public class VrpXMLReader {
         }
     }
 
+    /**
+     * Element of the document with its attributes, trimmed text and child elements. Values are looked up by paths
+     * such as "pickup.location.id" or "coord[@x]".
+     */
+    static class XmlElement {
+
+        private final String name;
+
+        private Map<String, String> attributes = Collections.emptyMap();
+
+        private List<XmlElement> children = Collections.emptyList();
+
+        private String text;
+
+        XmlElement(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Reads the element the reader is positioned at, i.e. its start tag, and leaves the reader at its end tag.
+         */
+        static XmlElement read(XMLStreamReader reader) throws XMLStreamException {
+            XmlElement element = new XmlElement(reader.getLocalName());
+            if (reader.getAttributeCount() > 0) {
+                element.attributes = new HashMap<>();
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    element.attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+            }
+            StringBuilder text = null;
+            while (true) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (element.children.isEmpty()) element.children = new ArrayList<>(4);
+                    element.children.add(read(reader));
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                    if (text == null) text = new StringBuilder();
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    break;
+                }
+            }
+            element.text = text == null ? "" : text.toString().trim();
+            return element;
+        }
+
+        /**
+         * @param path path of elements separated by dots, e.g. "timeWindows.timeWindow"
+         * @return all elements at the end of the path
+         */
+        List<XmlElement> elementsAt(String path) {
+            List<XmlElement> elements = Collections.singletonList(this);
+            int from = 0;
+            while (from < path.length() && !elements.isEmpty()) {
+                int to = path.indexOf('.', from);
+                if (to < 0) to = path.length();
+                String childName = path.substring(from, to);
+                List<XmlElement> children = new ArrayList<>();
+                for (XmlElement element : elements) {
+                    for (XmlElement child : element.children) {
+                        if (child.name.equals(childName)) children.add(child);
+                    }
+                }
+                elements = children;
+                from = to + 1;
+            }
+            return elements;
+        }
+
+        /**
+         * @param path path of elements separated by dots, optionally followed by an attribute, e.g. "location.coord[@x]"
+         * @return text or attribute value of the first element at the end of the path, or null if there is none
+         */
+        String getString(String path) {
+            String attribute = null;
+            int attributeStart = path.indexOf("[@");
+            if (attributeStart >= 0) {
+                attribute = path.substring(attributeStart + 2, path.length() - 1);
+                path = path.substring(0, attributeStart);
+            }
+            List<XmlElement> elements = elementsAt(path);
+            for (XmlElement element : elements) {
+                if (attribute == null) return element.text;
+                String value = element.attributes.get(attribute);
+                if (value != null) return value;
+            }
+            return null;
+        }
+
+        boolean containsKey(String path) {
+            return getString(path) != null;
+        }
+
+        double getDouble(String path) {
+            String value = getString(path);
+            if (value == null) throw new IllegalArgumentException(path + " is missing in " + name + ".");
+            return Double.parseDouble(value);
+        }
+
+        int getInt(String path) {
+            String value = getString(path);
+            if (value == null) throw new IllegalArgumentException(path + " is missing in " + name + ".");
+            return Integer.parseInt(value);
+        }
+
+        boolean getBoolean(String path) {
+            String value = getString(path);
+            if ("true".equals(value) || "1".equals(value)) return true;
+            if ("false".equals(value) || "0".equals(value)) return false;
+            throw new IllegalArgumentException(path + " in " + name + " is not a boolean: " + value);
+        }
+
+    }
+
     private static Logger logger = LoggerFactory.getLogger(VrpXMLReader.class);
 
     private VehicleRoutingProblem.Builder vrpBuilder;
@@ -88,7 +214,12 @@ public class VrpXMLReader {
 
     private ServiceBuilderFactory serviceBuilderFactory = new DefaultServiceBuilderFactory();
 
+    private Map<String, VehicleType> types = new HashMap<String, VehicleType>();
+
+    //vehicles precede their types in the document, thus they are built once the types are known
+    private List<XmlElement> vehicleConfigs = new ArrayList<XmlElement>();
 
+    private boolean doNotWarnAgain = false;
 
     /**
      * @param schemaValidation the schemaValidation to set
@@ -114,65 +245,138 @@ public class VrpXMLReader {
         this.solutions = null;
     }
 
+    /**
+     * Reads the problem from a file or, if there is no such file, from a resource on the classpath or a url. Documents
+     * whose name ends with ".gz" are expected to be gzipped.
+     *
+     * @param filename name of file, resource or url
+     */
     public void read(String filename) {
         logger.debug("read vrp: {}", filename);
-        XMLConfiguration xmlConfig = createXMLConfiguration();
+        InputStream inputStream = null;
         try {
-            xmlConfig.load(filename);
-        } catch (ConfigurationException e) {
-            throw new RuntimeException(e);
+            File file = new File(filename);
+            if (file.exists()) {
+                inputStream = new FileInputStream(file);
+            } else {
+                URL url = Resource.getAsURL(filename);
+                if (url == null) url = new URL(filename);
+                inputStream = url.openStream();
+            }
+            if (filename.endsWith(".gz")) inputStream = new GZIPInputStream(inputStream, 1 << 16);
+            read(new BufferedInputStream(inputStream));
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read " + filename, e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    logger.debug("cannot close {}: {}", filename, e.getMessage());
+                }
+            }
         }
-        read(xmlConfig);
     }
 
+    /**
+     * Reads the problem from a stream. The stream is not closed.
+     *
+     * @param fileContents document
+     */
     public void read(InputStream fileContents) {
-        XMLConfiguration xmlConfig = createXMLConfiguration();
+        XMLStreamReader reader = null;
         try {
-            xmlConfig.load(fileContents);
-        } catch (ConfigurationException e) {
+            reader = createXMLStreamReader(fileContents);
+            read(reader);
+        } catch (XMLStreamException e) {
             throw new RuntimeException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.debug("cannot close xml reader: {}", e.getMessage());
+                }
+            }
         }
-        read(xmlConfig);
     }
 
-    private XMLConfiguration createXMLConfiguration() {
-        XMLConfiguration xmlConfig = new XMLConfiguration();
-        xmlConfig.setAttributeSplittingDisabled(true);
-        xmlConfig.setDelimiterParsingDisabled(true);
-
+    private XMLStreamReader createXMLStreamReader(InputStream inputStream) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
         if (schemaValidation) {
-            final InputStream resource = Resource.getAsInputStream("vrp_xml_schema.xsd");
-            if (resource != null) {
-                EntityResolver resolver = new EntityResolver() {
-
-                    @Override
-                    public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
-                        {
-                            InputSource is = new InputSource(resource);
-                            return is;
-                        }
-                    }
-                };
-                xmlConfig.setEntityResolver(resolver);
-                xmlConfig.setSchemaValidation(true);
-            } else {
-                logger.debug("cannot find schema-xsd file (vrp_xml_schema.xsd). try to read xml without xml-file-validation.");
+            Schema schema = createSchema();
+            if (schema != null) return new SchemaValidatingStreamReader(reader, schema);
+        }
+        return reader;
+    }
+
+    private static Schema createSchema() {
+        InputStream resource = Resource.getAsInputStream("vrp_xml_schema.xsd");
+        if (resource == null) {
+            logger.debug("cannot find schema-xsd file (vrp_xml_schema.xsd). try to read xml without xml-file-validation.");
+            return null;
+        }
+        try {
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(resource));
+        } catch (SAXException e) {
+            throw new IllegalStateException("cannot load schema vrp_xml_schema.xsd", e);
+        } finally {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                logger.debug("cannot close vrp_xml_schema.xsd: {}", e.getMessage());
             }
         }
-        return xmlConfig;
     }
 
-    private void read(XMLConfiguration xmlConfig) {
-        readProblemType(xmlConfig);
-        readVehiclesAndTheirTypes(xmlConfig);
+    private void read(XMLStreamReader reader) throws XMLStreamException {
+        reader.nextTag();
+        while (nextChild(reader)) {
+            String section = reader.getLocalName();
+            if (section.equals("problemType")) {
+                readProblemType(XmlElement.read(reader));
+            } else if (section.equals("vehicles")) {
+                while (nextChild(reader)) vehicleConfigs.add(XmlElement.read(reader));
+            } else if (section.equals("vehicleTypes")) {
+                while (nextChild(reader)) readVehicleType(XmlElement.read(reader));
+                readVehicles();
+            } else if (section.equals("services")) {
+                while (nextChild(reader)) readService(XmlElement.read(reader));
+            } else if (section.equals("shipments")) {
+                while (nextChild(reader)) readShipment(XmlElement.read(reader));
+            } else if (section.equals("initialRoutes")) {
+                readVehicles();
+                while (nextChild(reader)) readInitialRoute(XmlElement.read(reader));
+            } else if (section.equals("solutions") && solutions != null) {
+                readVehicles();
+                while (nextChild(reader)) readSolution(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        while (reader.hasNext()) reader.next();
+        readVehicles();
 
-        readShipments(xmlConfig);
-        readServices(xmlConfig);
+        addJobsAndTheirLocationsToVrp();
+    }
 
-        readInitialRoutes(xmlConfig);
-        readSolutions(xmlConfig);
+    /*
+     * advances the reader to the next child element of the current element. returns false and leaves the reader at
+     * the end tag of the current element if there is none.
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        return reader.nextTag() == XMLStreamConstants.START_ELEMENT;
+    }
 
-        addJobsAndTheirLocationsToVrp();
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT) depth--;
+        }
     }
 
     private void addJobsAndTheirLocationsToVrp() {
@@ -188,140 +392,135 @@ public class VrpXMLReader {
         }
     }
 
-    private void readInitialRoutes(XMLConfiguration xmlConfig) {
-        List<HierarchicalConfiguration> initialRouteConfigs = xmlConfig.configurationsAt("initialRoutes.route");
-        for (HierarchicalConfiguration routeConfig : initialRouteConfigs) {
-            Driver driver = DriverImpl.noDriver();
-            String vehicleId = routeConfig.getString("vehicleId");
-            Vehicle vehicle = getVehicle(vehicleId);
-            if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
-            String start = routeConfig.getString("start");
-            if (start == null) throw new IllegalArgumentException("route start-time is missing.");
-            double departureTime = Double.parseDouble(start);
-
-            VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
-            routeBuilder.setDepartureTime(departureTime);
-
-            List<HierarchicalConfiguration> actConfigs = routeConfig.configurationsAt("act");
-            for (HierarchicalConfiguration actConfig : actConfigs) {
-                String type = actConfig.getString("[@type]");
-                if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
-                double arrTime = 0.;
-                double endTime = 0.;
-                String arrTimeS = actConfig.getString("arrTime");
-                if (arrTimeS != null) arrTime = Double.parseDouble(arrTimeS);
-                String endTimeS = actConfig.getString("endTime");
-                if (endTimeS != null) endTime = Double.parseDouble(endTimeS);
+    private void readInitialRoute(XmlElement routeConfig) {
+        Driver driver = DriverImpl.noDriver();
+        String vehicleId = routeConfig.getString("vehicleId");
+        Vehicle vehicle = getVehicle(vehicleId);
+        if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
+        String start = routeConfig.getString("start");
+        if (start == null) throw new IllegalArgumentException("route start-time is missing.");
+        double departureTime = Double.parseDouble(start);
+
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
+        routeBuilder.setDepartureTime(departureTime);
+
+        List<XmlElement> actConfigs = routeConfig.elementsAt("act");
+        for (XmlElement actConfig : actConfigs) {
+            String type = actConfig.getString("[@type]");
+            if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
+
+            String serviceId = actConfig.getString("serviceId");
+            if(type.equals("break")) {
+                Break currentbreak = getBreak(vehicleId);
+                routeBuilder.addBreak(currentbreak);
+            }
+            else {
+                if (serviceId != null) {
+                    Service service = getService(serviceId);
+                    if (service == null)
+                        throw new IllegalArgumentException("service to serviceId " + serviceId + " is missing (reference in one of your initial routes). make sure you define the service you refer to here in <services> </services>.");
+                    //!!!since job is part of initial route, it does not belong to jobs in problem, i.e. variable jobs that can be assigned/scheduled
+                    freezedJobIds.add(serviceId);
+                    routeBuilder.addService(service);
+                } else {
+                    String shipmentId = actConfig.getString("shipmentId");
+                    if (shipmentId == null)
+                        throw new IllegalArgumentException("either serviceId or shipmentId is missing");
+                    Shipment shipment = getShipment(shipmentId);
+                    if (shipment == null)
+                        throw new IllegalArgumentException("shipment to shipmentId " + shipmentId + " is missing (reference in one of your initial routes). make sure you define the shipment you refer to here in <shipments> </shipments>.");
+                    freezedJobIds.add(shipmentId);
+                    if (type.equals("pickupShipment")) {
+                        routeBuilder.addPickup(shipment);
+                    } else if (type.equals("deliverShipment")) {
+                        routeBuilder.addDelivery(shipment);
+                    } else
+                        throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
+                }
+            }
+        }
+        VehicleRoute route = routeBuilder.build();
+        vrpBuilder.addInitialVehicleRoute(route);
+    }
 
-                String serviceId = actConfig.getString("serviceId");
-                if(type.equals("break")) {
-                    Break currentbreak = getBreak(vehicleId);
-                    routeBuilder.addBreak(currentbreak);
+    private void readSolution(XMLStreamReader reader) throws XMLStreamException {
+        double cost = -1;
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        List<Job> unassignedJobs = new ArrayList<Job>();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (name.equals("cost")) {
+                String totalCost = XmlElement.read(reader).getString("");
+                if (!totalCost.isEmpty()) cost = Double.parseDouble(totalCost);
+            } else if (name.equals("routes")) {
+                while (nextChild(reader)) {
+                    XmlElement routeConfig = XmlElement.read(reader);
+                    if (routeConfig.name.equals("route")) routes.add(readSolutionRoute(routeConfig));
                 }
-                else {
-                    if (serviceId != null) {
-                        Service service = getService(serviceId);
-                        if (service == null)
-                            throw new IllegalArgumentException("service to serviceId " + serviceId + " is missing (reference in one of your initial routes). make sure you define the service you refer to here in <services> </services>.");
-                        //!!!since job is part of initial route, it does not belong to jobs in problem, i.e. variable jobs that can be assigned/scheduled
-                        freezedJobIds.add(serviceId);
-                        routeBuilder.addService(service);
-                    } else {
-                        String shipmentId = actConfig.getString("shipmentId");
-                        if (shipmentId == null)
-                            throw new IllegalArgumentException("either serviceId or shipmentId is missing");
-                        Shipment shipment = getShipment(shipmentId);
-                        if (shipment == null)
-                            throw new IllegalArgumentException("shipment to shipmentId " + shipmentId + " is missing (reference in one of your initial routes). make sure you define the shipment you refer to here in <shipments> </shipments>.");
-                        freezedJobIds.add(shipmentId);
-                        if (type.equals("pickupShipment")) {
-                            routeBuilder.addPickup(shipment);
-                        } else if (type.equals("deliverShipment")) {
-                            routeBuilder.addDelivery(shipment);
-                        } else
-                            throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
-                    }
+            } else if (name.equals("unassignedJobs")) {
+                while (nextChild(reader)) {
+                    XmlElement unassignedJobConfig = XmlElement.read(reader);
+                    if (!unassignedJobConfig.name.equals("job")) continue;
+                    String jobId = unassignedJobConfig.getString("[@id]");
+                    Job job = getShipment(jobId);
+                    if (job == null) job = getService(jobId);
+                    if (job == null) throw new IllegalArgumentException("cannot find unassignedJob with id " + jobId);
+                    unassignedJobs.add(job);
                 }
+            } else {
+                skip(reader);
             }
-            VehicleRoute route = routeBuilder.build();
-            vrpBuilder.addInitialVehicleRoute(route);
         }
-
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, cost);
+        solution.getUnassignedJobs().addAll(unassignedJobs);
+        solutions.add(solution);
     }
 
-    private void readSolutions(XMLConfiguration vrpProblem) {
-        if (solutions == null) return;
-        List<HierarchicalConfiguration> solutionConfigs = vrpProblem.configurationsAt("solutions.solution");
-        for (HierarchicalConfiguration solutionConfig : solutionConfigs) {
-            String totalCost = solutionConfig.getString("cost");
-            double cost = -1;
-            if (totalCost != null) cost = Double.parseDouble(totalCost);
-            List<HierarchicalConfiguration> routeConfigs = solutionConfig.configurationsAt("routes.route");
-            List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
-            for (HierarchicalConfiguration routeConfig : routeConfigs) {
-                //! here, driverId is set to noDriver, no matter whats in driverId.
-                Driver driver = DriverImpl.noDriver();
-                String vehicleId = routeConfig.getString("vehicleId");
-                Vehicle vehicle = getVehicle(vehicleId);
-                if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
-                String start = routeConfig.getString("start");
-                if (start == null) throw new IllegalArgumentException("route start-time is missing.");
-                double departureTime = Double.parseDouble(start);
-
-                String end = routeConfig.getString("end");
-                if (end == null) throw new IllegalArgumentException("route end-time is missing.");
-
-                VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
-                routeBuilder.setDepartureTime(departureTime);
-                List<HierarchicalConfiguration> actConfigs = routeConfig.configurationsAt("act");
-                for (HierarchicalConfiguration actConfig : actConfigs) {
-                    String type = actConfig.getString("[@type]");
-                    if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
-                    double arrTime = 0.;
-                    double endTime = 0.;
-                    String arrTimeS = actConfig.getString("arrTime");
-                    if (arrTimeS != null) arrTime = Double.parseDouble(arrTimeS);
-                    String endTimeS = actConfig.getString("endTime");
-                    if (endTimeS != null) endTime = Double.parseDouble(endTimeS);
-                    if(type.equals("break")) {
-                        Break currentbreak = getBreak(vehicleId);
-                        routeBuilder.addBreak(currentbreak);
-                    }
-                    else {
-                        String serviceId = actConfig.getString("serviceId");
-                        if (serviceId != null) {
-                            Service service = getService(serviceId);
-                            routeBuilder.addService(service);
-                        } else {
-                            String shipmentId = actConfig.getString("shipmentId");
-                            if (shipmentId == null)
-                                throw new IllegalArgumentException("either serviceId or shipmentId is missing");
-                            Shipment shipment = getShipment(shipmentId);
-                            if (shipment == null)
-                                throw new IllegalArgumentException("shipment with id " + shipmentId + " does not exist.");
-                            if (type.equals("pickupShipment")) {
-                                routeBuilder.addPickup(shipment);
-                            } else if (type.equals("deliverShipment")) {
-                                routeBuilder.addDelivery(shipment);
-                            } else
-                                throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
-                        }
-                    }
+    private VehicleRoute readSolutionRoute(XmlElement routeConfig) {
+        //! here, driverId is set to noDriver, no matter whats in driverId.
+        Driver driver = DriverImpl.noDriver();
+        String vehicleId = routeConfig.getString("vehicleId");
+        Vehicle vehicle = getVehicle(vehicleId);
+        if (vehicle == null) throw new IllegalArgumentException("vehicle is missing.");
+        String start = routeConfig.getString("start");
+        if (start == null) throw new IllegalArgumentException("route start-time is missing.");
+        double departureTime = Double.parseDouble(start);
+
+        String end = routeConfig.getString("end");
+        if (end == null) throw new IllegalArgumentException("route end-time is missing.");
+
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle, driver);
+        routeBuilder.setDepartureTime(departureTime);
+        List<XmlElement> actConfigs = routeConfig.elementsAt("act");
+        for (XmlElement actConfig : actConfigs) {
+            String type = actConfig.getString("[@type]");
+            if (type == null) throw new IllegalArgumentException("act[@type] is missing.");
+            if(type.equals("break")) {
+                Break currentbreak = getBreak(vehicleId);
+                routeBuilder.addBreak(currentbreak);
+            }
+            else {
+                String serviceId = actConfig.getString("serviceId");
+                if (serviceId != null) {
+                    Service service = getService(serviceId);
+                    routeBuilder.addService(service);
+                } else {
+                    String shipmentId = actConfig.getString("shipmentId");
+                    if (shipmentId == null)
+                        throw new IllegalArgumentException("either serviceId or shipmentId is missing");
+                    Shipment shipment = getShipment(shipmentId);
+                    if (shipment == null)
+                        throw new IllegalArgumentException("shipment with id " + shipmentId + " does not exist.");
+                    if (type.equals("pickupShipment")) {
+                        routeBuilder.addPickup(shipment);
+                    } else if (type.equals("deliverShipment")) {
+                        routeBuilder.addDelivery(shipment);
+                    } else
+                        throw new IllegalArgumentException("type " + type + " is not supported. Use 'pickupShipment' or 'deliverShipment' here");
                 }
-                routes.add(routeBuilder.build());
             }
-            VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, cost);
-            List<HierarchicalConfiguration> unassignedJobConfigs = solutionConfig.configurationsAt("unassignedJobs.job");
-            for (HierarchicalConfiguration unassignedJobConfig : unassignedJobConfigs) {
-                String jobId = unassignedJobConfig.getString("[@id]");
-                Job job = getShipment(jobId);
-                if (job == null) job = getService(jobId);
-                if (job == null) throw new IllegalArgumentException("cannot find unassignedJob with id " + jobId);
-                solution.getUnassignedJobs().add(job);
-            }
-
-            solutions.add(solution);
         }
+        return routeBuilder.build();
     }
 
     private Shipment getShipment(String shipmentId) {
@@ -340,129 +539,124 @@ public class VrpXMLReader {
         return vehicleMap.get(vehicleId).getBreak();
     }
 
-    private void readProblemType(XMLConfiguration vrpProblem) {
-        String fleetSize = vrpProblem.getString("problemType.fleetSize");
+    private void readProblemType(XmlElement problemTypeConfig) {
+        String fleetSize = problemTypeConfig.getString("fleetSize");
         if (fleetSize == null) vrpBuilder.setFleetSize(FleetSize.INFINITE);
         else if (fleetSize.toUpperCase().equals(FleetSize.INFINITE.toString()))
             vrpBuilder.setFleetSize(FleetSize.INFINITE);
         else vrpBuilder.setFleetSize(FleetSize.FINITE);
     }
 
-    private void readShipments(XMLConfiguration config) {
-        List<HierarchicalConfiguration> shipmentConfigs = config.configurationsAt("shipments.shipment");
-        for (HierarchicalConfiguration shipmentConfig : shipmentConfigs) {
-            String id = shipmentConfig.getString("[@id]");
-            if (id == null) throw new IllegalArgumentException("shipment[@id] is missing.");
+    private void readShipment(XmlElement shipmentConfig) {
+        String id = shipmentConfig.getString("[@id]");
+        if (id == null) throw new IllegalArgumentException("shipment[@id] is missing.");
 
-            String capacityString = shipmentConfig.getString("capacity-demand");
-            boolean capacityDimensionsExist = shipmentConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of shipment is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
-
-            Shipment.Builder builder;
-            if (capacityString != null) {
-                builder = Shipment.Builder.newInstance(id).addSizeDimension(0, Integer.parseInt(capacityString));
-            } else {
-                builder = Shipment.Builder.newInstance(id);
-                List<HierarchicalConfiguration> dimensionConfigs = shipmentConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    builder.addSizeDimension(index, value);
-                }
-            }
+        String capacityString = shipmentConfig.getString("capacity-demand");
+        boolean capacityDimensionsExist = shipmentConfig.containsKey("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of shipment is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            //name
-            String name = shipmentConfig.getString("name");
-            if (name != null) builder.setName(name);
-
-            //pickup location
-            //pickup-locationId
-            Location.Builder pickupLocationBuilder = Location.Builder.newInstance();
-            String pickupLocationId = shipmentConfig.getString("pickup.locationId");
-            if (pickupLocationId == null) pickupLocationId = shipmentConfig.getString("pickup.location.id");
-            if (pickupLocationId != null) {
-                pickupLocationBuilder.setId(pickupLocationId);
+        Shipment.Builder builder;
+        if (capacityString != null) {
+            builder = Shipment.Builder.newInstance(id).addSizeDimension(0, Integer.parseInt(capacityString));
+        } else {
+            builder = Shipment.Builder.newInstance(id);
+            List<XmlElement> dimensionConfigs = shipmentConfig.elementsAt("capacity-dimensions.dimension");
+            for (XmlElement dimension : dimensionConfigs) {
+                Integer index = dimension.getInt("[@index]");
+                Integer value = dimension.getInt("");
+                builder.addSizeDimension(index, value);
             }
+        }
 
-            //pickup-coord
-            Coordinate pickupCoord = getCoord(shipmentConfig, "pickup.");
-            if (pickupCoord == null) pickupCoord = getCoord(shipmentConfig, "pickup.location.");
-            if (pickupCoord != null) {
-                pickupLocationBuilder.setCoordinate(pickupCoord);
-            }
+        //name
+        String name = shipmentConfig.getString("name");
+        if (name != null) builder.setName(name);
+
+        //pickup location
+        //pickup-locationId
+        Location.Builder pickupLocationBuilder = Location.Builder.newInstance();
+        String pickupLocationId = shipmentConfig.getString("pickup.locationId");
+        if (pickupLocationId == null) pickupLocationId = shipmentConfig.getString("pickup.location.id");
+        if (pickupLocationId != null) {
+            pickupLocationBuilder.setId(pickupLocationId);
+        }
 
-            //pickup.location.index
-            String pickupLocationIndex = shipmentConfig.getString("pickup.location.index");
-            if (pickupLocationIndex != null) pickupLocationBuilder.setIndex(Integer.parseInt(pickupLocationIndex));
-            builder.setPickupLocation(pickupLocationBuilder.build());
+        //pickup-coord
+        Coordinate pickupCoord = getCoord(shipmentConfig, "pickup.");
+        if (pickupCoord == null) pickupCoord = getCoord(shipmentConfig, "pickup.location.");
+        if (pickupCoord != null) {
+            pickupLocationBuilder.setCoordinate(pickupCoord);
+        }
 
-            //pickup-serviceTime
-            String pickupServiceTime = shipmentConfig.getString("pickup.duration");
-            if (pickupServiceTime != null) builder.setPickupServiceTime(Double.parseDouble(pickupServiceTime));
+        //pickup.location.index
+        String pickupLocationIndex = shipmentConfig.getString("pickup.location.index");
+        if (pickupLocationIndex != null) pickupLocationBuilder.setIndex(Integer.parseInt(pickupLocationIndex));
+        builder.setPickupLocation(pickupLocationBuilder.build());
 
-            //pickup-tw
-            List<HierarchicalConfiguration> pickupTWConfigs = shipmentConfig.configurationsAt("pickup.timeWindows.timeWindow");
-            if (!pickupTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration pu_twConfig : pickupTWConfigs) {
-                    builder.addPickupTimeWindow(TimeWindow.newInstance(pu_twConfig.getDouble("start"), pu_twConfig.getDouble("end")));
-                }
-            }
+        //pickup-serviceTime
+        String pickupServiceTime = shipmentConfig.getString("pickup.duration");
+        if (pickupServiceTime != null) builder.setPickupServiceTime(Double.parseDouble(pickupServiceTime));
 
-            //delivery location
-            //delivery-locationId
-            Location.Builder deliveryLocationBuilder = Location.Builder.newInstance();
-            String deliveryLocationId = shipmentConfig.getString("delivery.locationId");
-            if (deliveryLocationId == null) deliveryLocationId = shipmentConfig.getString("delivery.location.id");
-            if (deliveryLocationId != null) {
-                deliveryLocationBuilder.setId(deliveryLocationId);
-//				builder.setDeliveryLocationId(deliveryLocationId);
+        //pickup-tw
+        List<XmlElement> pickupTWConfigs = shipmentConfig.elementsAt("pickup.timeWindows.timeWindow");
+        if (!pickupTWConfigs.isEmpty()) {
+            for (XmlElement pu_twConfig : pickupTWConfigs) {
+                builder.addPickupTimeWindow(TimeWindow.newInstance(pu_twConfig.getDouble("start"), pu_twConfig.getDouble("end")));
             }
+        }
 
-            //delivery-coord
-            Coordinate deliveryCoord = getCoord(shipmentConfig, "delivery.");
-            if (deliveryCoord == null) deliveryCoord = getCoord(shipmentConfig, "delivery.location.");
-            if (deliveryCoord != null) {
-                deliveryLocationBuilder.setCoordinate(deliveryCoord);
-            }
+        //delivery location
+        //delivery-locationId
+        Location.Builder deliveryLocationBuilder = Location.Builder.newInstance();
+        String deliveryLocationId = shipmentConfig.getString("delivery.locationId");
+        if (deliveryLocationId == null) deliveryLocationId = shipmentConfig.getString("delivery.location.id");
+        if (deliveryLocationId != null) {
+            deliveryLocationBuilder.setId(deliveryLocationId);
+        }
 
-            String deliveryLocationIndex = shipmentConfig.getString("delivery.location.index");
-            if (deliveryLocationIndex != null)
-                deliveryLocationBuilder.setIndex(Integer.parseInt(deliveryLocationIndex));
-            builder.setDeliveryLocation(deliveryLocationBuilder.build());
+        //delivery-coord
+        Coordinate deliveryCoord = getCoord(shipmentConfig, "delivery.");
+        if (deliveryCoord == null) deliveryCoord = getCoord(shipmentConfig, "delivery.location.");
+        if (deliveryCoord != null) {
+            deliveryLocationBuilder.setCoordinate(deliveryCoord);
+        }
 
-            //delivery-serviceTime
-            String deliveryServiceTime = shipmentConfig.getString("delivery.duration");
-            if (deliveryServiceTime != null) builder.setDeliveryServiceTime(Double.parseDouble(deliveryServiceTime));
+        String deliveryLocationIndex = shipmentConfig.getString("delivery.location.index");
+        if (deliveryLocationIndex != null)
+            deliveryLocationBuilder.setIndex(Integer.parseInt(deliveryLocationIndex));
+        builder.setDeliveryLocation(deliveryLocationBuilder.build());
 
-            //delivery-tw
-            List<HierarchicalConfiguration> deliveryTWConfigs = shipmentConfig.configurationsAt("delivery.timeWindows.timeWindow");
-            if (!deliveryTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration dl_twConfig : deliveryTWConfigs) {
-                    builder.addDeliveryTimeWindow(TimeWindow.newInstance(dl_twConfig.getDouble("start"), dl_twConfig.getDouble("end")));
-                }
-            }
+        //delivery-serviceTime
+        String deliveryServiceTime = shipmentConfig.getString("delivery.duration");
+        if (deliveryServiceTime != null) builder.setDeliveryServiceTime(Double.parseDouble(deliveryServiceTime));
 
-            //read skills
-            String skillString = shipmentConfig.getString("requiredSkills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
+        //delivery-tw
+        List<XmlElement> deliveryTWConfigs = shipmentConfig.elementsAt("delivery.timeWindows.timeWindow");
+        if (!deliveryTWConfigs.isEmpty()) {
+            for (XmlElement dl_twConfig : deliveryTWConfigs) {
+                builder.addDeliveryTimeWindow(TimeWindow.newInstance(dl_twConfig.getDouble("start"), dl_twConfig.getDouble("end")));
             }
+        }
 
-            //build shipment
-            Shipment shipment = builder.build();
-//			vrpBuilder.addJob(shipment);
-            shipmentMap.put(shipment.getId(), shipment);
+        //read skills
+        String skillString = shipmentConfig.getString("requiredSkills");
+        if (skillString != null) {
+            String cleaned = skillString.replaceAll("\\s", "");
+            String[] skillTokens = cleaned.split("[,;]");
+            for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
         }
+
+        //build shipment
+        Shipment shipment = builder.build();
+        shipmentMap.put(shipment.getId(), shipment);
     }
 
-    private static Coordinate getCoord(HierarchicalConfiguration serviceConfig, String prefix) {
+    private static Coordinate getCoord(XmlElement serviceConfig, String prefix) {
         Coordinate pickupCoord = null;
         if (serviceConfig.getString(prefix + "coord[@x]") != null && serviceConfig.getString(prefix + "coord[@y]") != null) {
             double x = Double.parseDouble(serviceConfig.getString(prefix + "coord[@x]"));
@@ -472,251 +666,231 @@ public class VrpXMLReader {
         return pickupCoord;
     }
 
-    private void readServices(XMLConfiguration vrpProblem) {
-        List<HierarchicalConfiguration> serviceConfigs = vrpProblem.configurationsAt("services.service");
-        for (HierarchicalConfiguration serviceConfig : serviceConfigs) {
-            String id = serviceConfig.getString("[@id]");
-            if (id == null) throw new IllegalArgumentException("service[@id] is missing.");
-            String type = serviceConfig.getString("[@type]");
-            if (type == null) type = "service";
-
-            String capacityString = serviceConfig.getString("capacity-demand");
-            boolean capacityDimensionsExist = serviceConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of service is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
+    private void readService(XmlElement serviceConfig) {
+        String id = serviceConfig.getString("[@id]");
+        if (id == null) throw new IllegalArgumentException("service[@id] is missing.");
+        String type = serviceConfig.getString("[@type]");
+        if (type == null) type = "service";
 
-            Service.Builder builder;
-            if (capacityString != null) {
-                builder = serviceBuilderFactory.createBuilder(type, id, Integer.parseInt(capacityString));
-            } else {
-                builder = serviceBuilderFactory.createBuilder(type, id, null);
-                List<HierarchicalConfiguration> dimensionConfigs = serviceConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    builder.addSizeDimension(index, value);
-                }
-            }
-
-            //name
-            String name = serviceConfig.getString("name");
-            if (name != null) builder.setName(name);
-
-            //location
-            Location.Builder locationBuilder = Location.Builder.newInstance();
-            String serviceLocationId = serviceConfig.getString("locationId");
-            if (serviceLocationId == null) {
-                serviceLocationId = serviceConfig.getString("location.id");
-            }
-            if (serviceLocationId != null) locationBuilder.setId(serviceLocationId);
+        String capacityString = serviceConfig.getString("capacity-demand");
+        boolean capacityDimensionsExist = serviceConfig.containsKey("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of service is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            Coordinate serviceCoord = getCoord(serviceConfig, "");
-            if (serviceCoord == null) serviceCoord = getCoord(serviceConfig, "location.");
-            if (serviceCoord != null) {
-                locationBuilder.setCoordinate(serviceCoord);
+        Service.Builder builder;
+        if (capacityString != null) {
+            builder = serviceBuilderFactory.createBuilder(type, id, Integer.parseInt(capacityString));
+        } else {
+            builder = serviceBuilderFactory.createBuilder(type, id, null);
+            List<XmlElement> dimensionConfigs = serviceConfig.elementsAt("capacity-dimensions.dimension");
+            for (XmlElement dimension : dimensionConfigs) {
+                Integer index = dimension.getInt("[@index]");
+                Integer value = dimension.getInt("");
+                builder.addSizeDimension(index, value);
             }
+        }
 
-            String locationIndex = serviceConfig.getString("location.index");
-            if (locationIndex != null) locationBuilder.setIndex(Integer.parseInt(locationIndex));
-            builder.setLocation(locationBuilder.build());
+        //name
+        String name = serviceConfig.getString("name");
+        if (name != null) builder.setName(name);
 
-            if (serviceConfig.containsKey("duration")) {
-                builder.setServiceTime(serviceConfig.getDouble("duration"));
-            }
-            List<HierarchicalConfiguration> deliveryTWConfigs = serviceConfig.configurationsAt("timeWindows.timeWindow");
-            if (!deliveryTWConfigs.isEmpty()) {
-                for (HierarchicalConfiguration twConfig : deliveryTWConfigs) {
-                    builder.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
-                }
-            }
+        //location
+        Location.Builder locationBuilder = Location.Builder.newInstance();
+        String serviceLocationId = serviceConfig.getString("locationId");
+        if (serviceLocationId == null) {
+            serviceLocationId = serviceConfig.getString("location.id");
+        }
+        if (serviceLocationId != null) locationBuilder.setId(serviceLocationId);
 
-            //read skills
-            String skillString = serviceConfig.getString("requiredSkills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
-            }
+        Coordinate serviceCoord = getCoord(serviceConfig, "");
+        if (serviceCoord == null) serviceCoord = getCoord(serviceConfig, "location.");
+        if (serviceCoord != null) {
+            locationBuilder.setCoordinate(serviceCoord);
+        }
 
-            //build service
-            Service service = builder.build();
-            serviceMap.put(service.getId(), service);
-//			vrpBuilder.addJob(service);
+        String locationIndex = serviceConfig.getString("location.index");
+        if (locationIndex != null) locationBuilder.setIndex(Integer.parseInt(locationIndex));
+        builder.setLocation(locationBuilder.build());
 
+        if (serviceConfig.containsKey("duration")) {
+            builder.setServiceTime(serviceConfig.getDouble("duration"));
+        }
+        List<XmlElement> deliveryTWConfigs = serviceConfig.elementsAt("timeWindows.timeWindow");
+        if (!deliveryTWConfigs.isEmpty()) {
+            for (XmlElement twConfig : deliveryTWConfigs) {
+                builder.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
+            }
         }
-    }
 
-    private void readVehiclesAndTheirTypes(XMLConfiguration vrpProblem) {
+        //read skills
+        String skillString = serviceConfig.getString("requiredSkills");
+        if (skillString != null) {
+            String cleaned = skillString.replaceAll("\\s", "");
+            String[] skillTokens = cleaned.split("[,;]");
+            for (String skill : skillTokens) builder.addRequiredSkill(skill.toLowerCase());
+        }
 
-        //read vehicle-types
-        Map<String, VehicleType> types = new HashMap<String, VehicleType>();
-        List<HierarchicalConfiguration> typeConfigs = vrpProblem.configurationsAt("vehicleTypes.type");
-        for (HierarchicalConfiguration typeConfig : typeConfigs) {
-            String typeId = typeConfig.getString("id");
-            if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
+        //build service
+        Service service = builder.build();
+        serviceMap.put(service.getId(), service);
+    }
 
-            String capacityString = typeConfig.getString("capacity");
-            boolean capacityDimensionsExist = typeConfig.containsKey("capacity-dimensions.dimension(0)");
-            if (capacityString == null && !capacityDimensionsExist) {
-                throw new IllegalArgumentException("capacity of type is not set. use 'capacity-dimensions'");
-            }
-            if (capacityString != null && capacityDimensionsExist) {
-                throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
-            }
+    private void readVehicleType(XmlElement typeConfig) {
+        String typeId = typeConfig.getString("id");
+        if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
 
-            VehicleTypeImpl.Builder typeBuilder;
-            if (capacityString != null) {
-                typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId).addCapacityDimension(0, Integer.parseInt(capacityString));
-            } else {
-                typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId);
-                List<HierarchicalConfiguration> dimensionConfigs = typeConfig.configurationsAt("capacity-dimensions.dimension");
-                for (HierarchicalConfiguration dimension : dimensionConfigs) {
-                    Integer index = dimension.getInt("[@index]");
-                    Integer value = dimension.getInt("");
-                    typeBuilder.addCapacityDimension(index, value);
-                }
-            }
+        String capacityString = typeConfig.getString("capacity");
+        boolean capacityDimensionsExist = typeConfig.containsKey("capacity-dimensions.dimension");
+        if (capacityString == null && !capacityDimensionsExist) {
+            throw new IllegalArgumentException("capacity of type is not set. use 'capacity-dimensions'");
+        }
+        if (capacityString != null && capacityDimensionsExist) {
+            throw new IllegalArgumentException("either use capacity or capacity-dimension, not both. prefer the use of 'capacity-dimensions' over 'capacity'.");
+        }
 
-            Double fix = typeConfig.getDouble("costs.fixed");
-            Double timeC = typeConfig.getDouble("costs.time");
-            Double distC = typeConfig.getDouble("costs.distance");
-            if(typeConfig.containsKey("costs.service")){
-                Double serviceC = typeConfig.getDouble("costs.service");
-                if (serviceC != null) typeBuilder.setCostPerServiceTime(serviceC);
+        VehicleTypeImpl.Builder typeBuilder;
+        if (capacityString != null) {
+            typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId).addCapacityDimension(0, Integer.parseInt(capacityString));
+        } else {
+            typeBuilder = VehicleTypeImpl.Builder.newInstance(typeId);
+            List<XmlElement> dimensionConfigs = typeConfig.elementsAt("capacity-dimensions.dimension");
+            for (XmlElement dimension : dimensionConfigs) {
+                Integer index = dimension.getInt("[@index]");
+                Integer value = dimension.getInt("");
+                typeBuilder.addCapacityDimension(index, value);
             }
+        }
 
-            if(typeConfig.containsKey("costs.wait")){
-                Double waitC = typeConfig.getDouble("costs.wait");
-                if (waitC != null) typeBuilder.setCostPerWaitingTime(waitC);
-            }
+        if (typeConfig.containsKey("costs.fixed")) typeBuilder.setFixedCost(typeConfig.getDouble("costs.fixed"));
+        if (typeConfig.containsKey("costs.time")) typeBuilder.setCostPerTransportTime(typeConfig.getDouble("costs.time"));
+        if (typeConfig.containsKey("costs.distance")) typeBuilder.setCostPerDistance(typeConfig.getDouble("costs.distance"));
+        if (typeConfig.containsKey("costs.service")) typeBuilder.setCostPerServiceTime(typeConfig.getDouble("costs.service"));
+        if (typeConfig.containsKey("costs.wait")) typeBuilder.setCostPerWaitingTime(typeConfig.getDouble("costs.wait"));
 
-            if (fix != null) typeBuilder.setFixedCost(fix);
-            if (timeC != null) typeBuilder.setCostPerTransportTime(timeC);
-            if (distC != null) typeBuilder.setCostPerDistance(distC);
-            VehicleType type = typeBuilder.build();
-            String id = type.getTypeId();
-            types.put(id, type);
-        }
-
-        //read vehicles
-        List<HierarchicalConfiguration> vehicleConfigs = vrpProblem.configurationsAt("vehicles.vehicle");
-        boolean doNotWarnAgain = false;
-        for (HierarchicalConfiguration vehicleConfig : vehicleConfigs) {
-            String vehicleId = vehicleConfig.getString("id");
-            if (vehicleId == null) throw new IllegalArgumentException("vehicleId is missing.");
-            Builder builder = VehicleImpl.Builder.newInstance(vehicleId);
-            String typeId = vehicleConfig.getString("typeId");
-            if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
-            String vType = vehicleConfig.getString("[@type]");
-            if (vType != null) {
-                if (vType.equals("penalty")) {
-                    typeId += "_penalty";
-                }
-            }
-            VehicleType type = types.get(typeId);
-            if (type == null) throw new IllegalArgumentException("vehicleType with typeId " + typeId + " is missing.");
-            builder.setType(type);
-
-            //read startlocation
-            Location.Builder startLocationBuilder = Location.Builder.newInstance();
-            String locationId = vehicleConfig.getString("location.id");
-            if (locationId == null) {
-                locationId = vehicleConfig.getString("startLocation.id");
-            }
-            startLocationBuilder.setId(locationId);
-            String coordX = vehicleConfig.getString("location.coord[@x]");
-            String coordY = vehicleConfig.getString("location.coord[@y]");
-            if (coordX == null || coordY == null) {
-                coordX = vehicleConfig.getString("startLocation.coord[@x]");
-                coordY = vehicleConfig.getString("startLocation.coord[@y]");
-            }
-            if (coordX == null || coordY == null) {
-                if (!doNotWarnAgain) {
-                    logger.debug("location.coord is missing. will not warn you again.");
-                    doNotWarnAgain = true;
-                }
-            } else {
-                Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(coordX), Double.parseDouble(coordY));
-                startLocationBuilder.setCoordinate(coordinate);
-            }
-            String index = vehicleConfig.getString("startLocation.index");
-            if (index == null) index = vehicleConfig.getString("location.index");
-            if (index != null) {
-                startLocationBuilder.setIndex(Integer.parseInt(index));
-            }
-            builder.setStartLocation(startLocationBuilder.build());
-
-            //read endlocation
-            Location.Builder endLocationBuilder = Location.Builder.newInstance();
-            boolean hasEndLocation = false;
-            String endLocationId = vehicleConfig.getString("endLocation.id");
-            if (endLocationId != null) {
-                hasEndLocation = true;
-                endLocationBuilder.setId(endLocationId);
-            }
-            String endCoordX = vehicleConfig.getString("endLocation.coord[@x]");
-            String endCoordY = vehicleConfig.getString("endLocation.coord[@y]");
-            if (endCoordX == null || endCoordY == null) {
-                if (!doNotWarnAgain) {
-                    logger.debug("endLocation.coord is missing. will not warn you again.");
-                    doNotWarnAgain = true;
-                }
-            } else {
-                Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(endCoordX), Double.parseDouble(endCoordY));
-                hasEndLocation = true;
-                endLocationBuilder.setCoordinate(coordinate);
-            }
-            String endLocationIndex = vehicleConfig.getString("endLocation.index");
-            if (endLocationIndex != null) {
-                hasEndLocation = true;
-                endLocationBuilder.setIndex(Integer.parseInt(endLocationIndex));
-            }
-            if (hasEndLocation) builder.setEndLocation(endLocationBuilder.build());
-
-            //read timeSchedule
-            String start = vehicleConfig.getString("timeSchedule.start");
-            String end = vehicleConfig.getString("timeSchedule.end");
-            if (start != null) builder.setEarliestStart(Double.parseDouble(start));
-            if (end != null) builder.setLatestArrival(Double.parseDouble(end));
-
-            //read return2depot
-            String returnToDepot = vehicleConfig.getString("returnToDepot");
-            if (returnToDepot != null) {
-                builder.setReturnToDepot(vehicleConfig.getBoolean("returnToDepot"));
-            }
+        VehicleType type = typeBuilder.build();
+        String id = type.getTypeId();
+        types.put(id, type);
+    }
 
-            //read skills
-            String skillString = vehicleConfig.getString("skills");
-            if (skillString != null) {
-                String cleaned = skillString.replaceAll("\\s", "");
-                String[] skillTokens = cleaned.split("[,;]");
-                for (String skill : skillTokens) builder.addSkill(skill.toLowerCase());
-            }
+    private void readVehicles() {
+        for (XmlElement vehicleConfig : vehicleConfigs) readVehicle(vehicleConfig);
+        vehicleConfigs.clear();
+    }
 
-            // read break
-            List<HierarchicalConfiguration> breakTWConfigs = vehicleConfig.configurationsAt("breaks.timeWindows.timeWindow");
-            if (!breakTWConfigs.isEmpty()) {
-                String breakDurationString = vehicleConfig.getString("breaks.duration");
-                String id = vehicleConfig.getString("breaks.id");
-                Break.Builder current_break = Break.Builder.newInstance(id);
-                current_break.setServiceTime(Double.parseDouble(breakDurationString));
-                for (HierarchicalConfiguration twConfig : breakTWConfigs) {
-                	current_break.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
-                }
-                builder.setBreak(current_break.build());
+    private void readVehicle(XmlElement vehicleConfig) {
+        String vehicleId = vehicleConfig.getString("id");
+        if (vehicleId == null) throw new IllegalArgumentException("vehicleId is missing.");
+        Builder builder = VehicleImpl.Builder.newInstance(vehicleId);
+        String typeId = vehicleConfig.getString("typeId");
+        if (typeId == null) throw new IllegalArgumentException("typeId is missing.");
+        String vType = vehicleConfig.getString("[@type]");
+        if (vType != null) {
+            if (vType.equals("penalty")) {
+                typeId += "_penalty";
             }
+        }
+        VehicleType type = types.get(typeId);
+        if (type == null) throw new IllegalArgumentException("vehicleType with typeId " + typeId + " is missing.");
+        builder.setType(type);
+
+        //read startlocation
+        Location.Builder startLocationBuilder = Location.Builder.newInstance();
+        String locationId = vehicleConfig.getString("location.id");
+        if (locationId == null) {
+            locationId = vehicleConfig.getString("startLocation.id");
+        }
+        startLocationBuilder.setId(locationId);
+        String coordX = vehicleConfig.getString("location.coord[@x]");
+        String coordY = vehicleConfig.getString("location.coord[@y]");
+        if (coordX == null || coordY == null) {
+            coordX = vehicleConfig.getString("startLocation.coord[@x]");
+            coordY = vehicleConfig.getString("startLocation.coord[@y]");
+        }
+        if (coordX == null || coordY == null) {
+            if (!doNotWarnAgain) {
+                logger.debug("location.coord is missing. will not warn you again.");
+                doNotWarnAgain = true;
+            }
+        } else {
+            Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(coordX), Double.parseDouble(coordY));
+            startLocationBuilder.setCoordinate(coordinate);
+        }
+        String index = vehicleConfig.getString("startLocation.index");
+        if (index == null) index = vehicleConfig.getString("location.index");
+        if (index != null) {
+            startLocationBuilder.setIndex(Integer.parseInt(index));
+        }
+        builder.setStartLocation(startLocationBuilder.build());
+
+        //read endlocation
+        Location.Builder endLocationBuilder = Location.Builder.newInstance();
+        boolean hasEndLocation = false;
+        String endLocationId = vehicleConfig.getString("endLocation.id");
+        if (endLocationId != null) {
+            hasEndLocation = true;
+            endLocationBuilder.setId(endLocationId);
+        }
+        String endCoordX = vehicleConfig.getString("endLocation.coord[@x]");
+        String endCoordY = vehicleConfig.getString("endLocation.coord[@y]");
+        if (endCoordX == null || endCoordY == null) {
+            if (!doNotWarnAgain) {
+                logger.debug("endLocation.coord is missing. will not warn you again.");
+                doNotWarnAgain = true;
+            }
+        } else {
+            Coordinate coordinate = Coordinate.newInstance(Double.parseDouble(endCoordX), Double.parseDouble(endCoordY));
+            hasEndLocation = true;
+            endLocationBuilder.setCoordinate(coordinate);
+        }
+        String endLocationIndex = vehicleConfig.getString("endLocation.index");
+        if (endLocationIndex != null) {
+            hasEndLocation = true;
+            endLocationBuilder.setIndex(Integer.parseInt(endLocationIndex));
+        }
+        if (hasEndLocation) builder.setEndLocation(endLocationBuilder.build());
+
+        //read timeSchedule
+        String start = vehicleConfig.getString("timeSchedule.start");
+        String end = vehicleConfig.getString("timeSchedule.end");
+        if (start != null) builder.setEarliestStart(Double.parseDouble(start));
+        if (end != null) builder.setLatestArrival(Double.parseDouble(end));
+
+        //read return2depot
+        String returnToDepot = vehicleConfig.getString("returnToDepot");
+        if (returnToDepot != null) {
+            builder.setReturnToDepot(vehicleConfig.getBoolean("returnToDepot"));
+        }
 
+        //read skills
+        String skillString = vehicleConfig.getString("skills");
+        if (skillString != null) {
+            String cleaned = skillString.replaceAll("\\s", "");
+            String[] skillTokens = cleaned.split("[,;]");
+            for (String skill : skillTokens) builder.addSkill(skill.toLowerCase());
+        }
 
-            //build vehicle
-            VehicleImpl vehicle = builder.build();
-            vrpBuilder.addVehicle(vehicle);
-            vehicleMap.put(vehicleId, vehicle);
+        // read break
+        List<XmlElement> breakTWConfigs = vehicleConfig.elementsAt("breaks.timeWindows.timeWindow");
+        if (!breakTWConfigs.isEmpty()) {
+            String breakDurationString = vehicleConfig.getString("breaks.duration");
+            String id = vehicleConfig.getString("breaks.id");
+            Break.Builder current_break = Break.Builder.newInstance(id);
+            current_break.setServiceTime(Double.parseDouble(breakDurationString));
+            for (XmlElement twConfig : breakTWConfigs) {
+            	current_break.addTimeWindow(TimeWindow.newInstance(twConfig.getDouble("start"), twConfig.getDouble("end")));
+            }
+            builder.setBreak(current_break.build());
         }
 
+
+        //build vehicle
+        VehicleImpl vehicle = builder.build();
+        vrpBuilder.addVehicle(vehicle);
+        vehicleMap.put(vehicleId, vehicle);
     }
 
 
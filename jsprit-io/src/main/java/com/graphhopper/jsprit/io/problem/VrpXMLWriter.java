@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.io.problem;
 
+import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
@@ -32,36 +33,32 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.util.Solutions;
 import com.graphhopper.jsprit.core.util.VehicleIndexComparator;
-import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.configuration.XMLConfiguration;
-import org.apache.xml.serialize.OutputFormat;
-import org.apache.xml.serialize.XMLSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 
+/**
+ * Writes the problem and its solutions as xml document (see vrp_xml_schema.xsd). The document is streamed element by
+ * element to its destination, i.e. it is never held in memory as a whole (unless it is written with {@link #write()}).
+ */
 public class VrpXMLWriter {
 
-    static class XMLConf extends XMLConfiguration {
-
+    private static final String NAMESPACE = "http://www.w3schools.com";
 
-        /**
-         *
-         */
-        private static final long serialVersionUID = 1L;
+    private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
 
-        public Document createDoc() throws ConfigurationException {
-            return createDocument();
-        }
-    }
+    private static final int INDENT = 5;
 
     private Logger log = LoggerFactory.getLogger(VrpXMLWriter.class);
 
@@ -87,47 +84,73 @@ public class VrpXMLWriter {
         this.solutions = null;
     }
 
-    private static Logger logger = LoggerFactory.getLogger(VrpXMLWriter.class);
-
+    /**
+     * Writes the document to a file. If the filename ends with ".gz", the file is gzipped, otherwise ".xml" is appended
+     * to the filename if it does not end with it yet.
+     *
+     * @param filename name of the file
+     */
     public void write(String filename) {
-        if (!filename.endsWith(".xml")) filename += ".xml";
+        boolean gzip = filename.endsWith(".gz");
+        if (!gzip && !filename.endsWith(".xml")) filename += ".xml";
         log.info("write vrp: " + filename);
-        XMLConf xmlConfig = createXMLConfiguration();
-
-        try {
-            xmlConfig.setFileName(filename);
-            Writer out = new FileWriter(filename);
-            XMLSerializer serializer = new XMLSerializer(out, createOutputFormat());
-            serializer.serialize(xmlConfig.getDocument());
-            out.close();
+        try (OutputStream out = new FileOutputStream(filename)) {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 1 << 16);
+                write(gzipOut);
+                gzipOut.finish();
+            } else {
+                write(new BufferedOutputStream(out, 1 << 16));
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Writes the document to a byte array stream. Note that this holds the whole document in memory, use
+     * {@link #write(OutputStream)} to write it directly to its destination.
+     *
+     * @return ByteArrayOutputStream with the document
+     */
     public OutputStream write() {
-        XMLConf xmlConfig = createXMLConfiguration();
-        OutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        return out;
+    }
 
+    /**
+     * Writes the document utf-8 encoded to the specified stream. The stream is flushed, but not closed.
+     *
+     * @param outputStream stream to write to
+     */
+    public void write(OutputStream outputStream) {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        XMLStreamWriter xmlWriter = new IndentingXMLStreamWriter(writer, INDENT);
         try {
-            XMLSerializer serializer = new XMLSerializer(out, createOutputFormat());
-            serializer.serialize(xmlConfig.getDocument());
-            out.close();
-        } catch (IOException e) {
+            write(xmlWriter);
+            xmlWriter.close();
+        } catch (XMLStreamException e) {
             throw new RuntimeException(e);
         }
-
-        return out;
     }
 
-    private XMLConf createXMLConfiguration() {
-        XMLConf xmlConfig = new XMLConf();
-        xmlConfig.setRootElementName("problem");
-        xmlConfig.setAttributeSplittingDisabled(true);
-        xmlConfig.setDelimiterParsingDisabled(true);
-
-        writeProblemType(xmlConfig);
-        writeVehiclesAndTheirTypes(xmlConfig);
+    /**
+     * Writes the document to the specified stream writer, e.g. one that is created by a
+     * {@link javax.xml.stream.XMLOutputFactory}. The writer is flushed, but not closed.
+     *
+     * @param xmlWriter stream writer to write to
+     * @throws XMLStreamException if the stream writer fails
+     */
+    public void write(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeStartDocument("UTF-8", "1.0");
+        xmlWriter.writeStartElement("problem");
+        xmlWriter.writeDefaultNamespace(NAMESPACE);
+        xmlWriter.writeNamespace("xsi", XSI_NAMESPACE);
+        xmlWriter.writeAttribute("xsi", XSI_NAMESPACE, "schemaLocation", NAMESPACE + " vrp_xml_schema.xsd");
+
+        writeProblemType(xmlWriter);
+        writeVehiclesAndTheirTypes(xmlWriter);
 
         //might be sorted?
         List<Job> jobs = new ArrayList<Job>();
@@ -136,299 +159,266 @@ public class VrpXMLWriter {
             jobs.addAll(r.getTourActivities().getJobs());
         }
 
-        writeServices(xmlConfig, jobs);
-        writeShipments(xmlConfig, jobs);
-
-        writeInitialRoutes(xmlConfig);
-        if(onlyBestSolution && solutions != null) {
-            VehicleRoutingProblemSolution solution = Solutions.bestOf(solutions);
-            solutions.clear();
-            solutions.add(solution);
-        }
-
-        writeSolutions(xmlConfig);
-
-
-        try {
-            Document document = xmlConfig.createDoc();
+        writeServices(xmlWriter, jobs);
+        writeShipments(xmlWriter, jobs);
 
-            Element element = document.getDocumentElement();
-            element.setAttribute("xmlns", "http://www.w3schools.com");
-            element.setAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
-            element.setAttribute("xsi:schemaLocation", "http://www.w3schools.com vrp_xml_schema.xsd");
+        writeInitialRoutes(xmlWriter);
+        writeSolutions(xmlWriter);
 
-        } catch (ConfigurationException e) {
-            throw new RuntimeException(e);
-        }
-        return xmlConfig;
+        xmlWriter.writeEndElement();
+        xmlWriter.writeEndDocument();
+        xmlWriter.flush();
     }
 
-    private OutputFormat createOutputFormat() {
-        OutputFormat format = new OutputFormat();
-        format.setIndenting(true);
-        format.setIndent(5);
-        return format;
-    }
-
-    private void writeInitialRoutes(XMLConf xmlConfig) {
+    private void writeInitialRoutes(XMLStreamWriter xmlWriter) throws XMLStreamException {
         if (vrp.getInitialVehicleRoutes().isEmpty()) return;
-        String path = "initialRoutes.route";
-        int routeCounter = 0;
+        xmlWriter.writeStartElement("initialRoutes");
         for (VehicleRoute route : vrp.getInitialVehicleRoutes()) {
-            xmlConfig.setProperty(path + "(" + routeCounter + ").driverId", route.getDriver().getId());
-            xmlConfig.setProperty(path + "(" + routeCounter + ").vehicleId", route.getVehicle().getId());
-            xmlConfig.setProperty(path + "(" + routeCounter + ").start", route.getStart().getEndTime());
-            int actCounter = 0;
-            for (TourActivity act : route.getTourActivities().getActivities()) {
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ")[@type]", act.getName());
-                if (act instanceof TourActivity.JobActivity) {
-                    Job job = ((TourActivity.JobActivity) act).getJob();
-                    if (job instanceof Service) {
-                        xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").serviceId", job.getId());
-                    } else if (job instanceof Shipment) {
-                        xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").shipmentId", job.getId());
-                    } else if (job instanceof Break) {
-                    	xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").breakId", job.getId());
-                    } else {
-                        throw new IllegalStateException("cannot write solution correctly since job-type is not know. make sure you use either service or shipment, or another writer");
-                    }
+            writeRoute(xmlWriter, route);
+        }
+        xmlWriter.writeEndElement();
+    }
+
+    private void writeSolutions(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        Collection<VehicleRoutingProblemSolution> solutionsToWrite = getSolutionsToWrite();
+        if (solutionsToWrite.isEmpty()) return;
+        xmlWriter.writeStartElement("solutions");
+        for (VehicleRoutingProblemSolution solution : solutionsToWrite) {
+            xmlWriter.writeStartElement("solution");
+            writeElement(xmlWriter, "cost", decimal(solution.getCost()));
+            if (!solution.getRoutes().isEmpty()) {
+                xmlWriter.writeStartElement("routes");
+                List<VehicleRoute> list = new ArrayList<VehicleRoute>(solution.getRoutes());
+                Collections.sort(list, new VehicleIndexComparator());
+                for (VehicleRoute route : list) {
+                    writeRoute(xmlWriter, route);
                 }
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").arrTime", act.getArrTime());
-                xmlConfig.setProperty(path + "(" + routeCounter + ").act(" + actCounter + ").endTime", act.getEndTime());
-                actCounter++;
+                xmlWriter.writeEndElement();
             }
-            xmlConfig.setProperty(path + "(" + routeCounter + ").end", route.getEnd().getArrTime());
-            routeCounter++;
+            if (!solution.getUnassignedJobs().isEmpty()) {
+                xmlWriter.writeStartElement("unassignedJobs");
+                for (Job unassignedJob : solution.getUnassignedJobs()) {
+                    xmlWriter.writeEmptyElement("job");
+                    xmlWriter.writeAttribute("id", unassignedJob.getId());
+                }
+                xmlWriter.writeEndElement();
+            }
+            xmlWriter.writeEndElement();
         }
+        xmlWriter.writeEndElement();
+    }
 
+    private Collection<VehicleRoutingProblemSolution> getSolutionsToWrite() {
+        if (solutions == null || solutions.isEmpty()) return Collections.emptyList();
+        if (onlyBestSolution) return Collections.singletonList(Solutions.bestOf(solutions));
+        return solutions;
     }
 
-    private void writeSolutions(XMLConf xmlConfig) {
-        if (solutions == null) return;
-        String solutionPath = "solutions.solution";
-        int counter = 0;
-        for (VehicleRoutingProblemSolution solution : solutions) {
-            xmlConfig.setProperty(solutionPath + "(" + counter + ").cost", solution.getCost());
-            int routeCounter = 0;
-            List<VehicleRoute> list = new ArrayList<VehicleRoute>(solution.getRoutes());
-            Collections.sort(list , new VehicleIndexComparator());
-            for (VehicleRoute route : list) {
-//				xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").cost", route.getCost());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").driverId", route.getDriver().getId());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").vehicleId", route.getVehicle().getId());
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").start", route.getStart().getEndTime());
-                int actCounter = 0;
-                for (TourActivity act : route.getTourActivities().getActivities()) {
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ")[@type]", act.getName());
-                    if (act instanceof TourActivity.JobActivity) {
-                        Job job = ((TourActivity.JobActivity) act).getJob();
-                        if (job instanceof Break) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").breakId", job.getId());
-                        } else if (job instanceof Service) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").serviceId", job.getId());
-                        } else if (job instanceof Shipment) {
-                            xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").shipmentId", job.getId());
-                        } else {
-                            throw new IllegalStateException("cannot write solution correctly since job-type is not know. make sure you use either service or shipment, or another writer");
-                        }
-                    }
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").arrTime", act.getArrTime());
-                    xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").act(" + actCounter + ").endTime", act.getEndTime());
-                    actCounter++;
+    private void writeRoute(XMLStreamWriter xmlWriter, VehicleRoute route) throws XMLStreamException {
+        xmlWriter.writeStartElement("route");
+        writeElement(xmlWriter, "driverId", route.getDriver().getId());
+        writeElement(xmlWriter, "vehicleId", route.getVehicle().getId());
+        writeElement(xmlWriter, "start", route.getStart().getEndTime());
+        for (TourActivity act : route.getTourActivities().getActivities()) {
+            xmlWriter.writeStartElement("act");
+            xmlWriter.writeAttribute("type", act.getName());
+            if (act instanceof TourActivity.JobActivity) {
+                Job job = ((TourActivity.JobActivity) act).getJob();
+                if (job instanceof Break) {
+                    writeElement(xmlWriter, "breakId", job.getId());
+                } else if (job instanceof Service) {
+                    writeElement(xmlWriter, "serviceId", job.getId());
+                } else if (job instanceof Shipment) {
+                    writeElement(xmlWriter, "shipmentId", job.getId());
+                } else {
+                    throw new IllegalStateException("cannot write solution correctly since job-type is not know. make sure you use either service or shipment, or another writer");
                 }
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").routes.route(" + routeCounter + ").end", route.getEnd().getArrTime());
-                routeCounter++;
             }
-            int unassignedJobCounter = 0;
-            for (Job unassignedJob : solution.getUnassignedJobs()) {
-                xmlConfig.setProperty(solutionPath + "(" + counter + ").unassignedJobs.job(" + unassignedJobCounter + ")[@id]", unassignedJob.getId());
-                unassignedJobCounter++;
-            }
-            counter++;
+            writeElement(xmlWriter, "arrTime", act.getArrTime());
+            writeElement(xmlWriter, "endTime", act.getEndTime());
+            xmlWriter.writeEndElement();
         }
+        writeElement(xmlWriter, "end", route.getEnd().getArrTime());
+        xmlWriter.writeEndElement();
     }
 
-    private void writeServices(XMLConf xmlConfig, List<Job> jobs) {
-        String shipmentPathString = "services.service";
-        int counter = 0;
+    private void writeServices(XMLStreamWriter xmlWriter, List<Job> jobs) throws XMLStreamException {
+        boolean started = false;
         for (Job j : jobs) {
             if (!(j instanceof Service)) continue;
             Service service = (Service) j;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@id]", service.getId());
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@type]", service.getType());
-            if (service.getLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.id", service.getLocation().getId());
-            if (service.getLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.coord[@x]", service.getLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.coord[@y]", service.getLocation().getCoordinate().getY());
-            }
-            if (service.getLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").location.index", service.getLocation().getIndex());
-            }
-            for (int i = 0; i < service.getSize().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")", service.getSize().get(i));
-            }
-
-            Collection<TimeWindow> tws = service.getTimeWindows();
-            int index = 0;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").duration", service.getServiceDuration());
-            for(TimeWindow tw : tws) {
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").timeWindows.timeWindow(" + index + ").start", tw.getStart());
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-	            ++index;
+            if (!started) {
+                xmlWriter.writeStartElement("services");
+                started = true;
             }
+            xmlWriter.writeStartElement("service");
+            xmlWriter.writeAttribute("id", service.getId());
+            xmlWriter.writeAttribute("type", service.getType());
+            writeLocation(xmlWriter, "location", service.getLocation());
+            writeCapacityDimensions(xmlWriter, service.getSize());
+            writeElement(xmlWriter, "duration", decimal(service.getServiceDuration()));
+            writeTimeWindows(xmlWriter, service.getTimeWindows());
 
             //skills
-            String skillString = getSkillString(service);
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").requiredSkills", skillString);
+            writeElement(xmlWriter, "requiredSkills", getSkillString(service));
 
             //name
-            if (service.getName() != null) {
-                if (!service.getName().equals("no-name")) {
-                    xmlConfig.setProperty(shipmentPathString + "(" + counter + ").name", service.getName());
-                }
+            if (service.getName() != null && !service.getName().equals("no-name")) {
+                writeElement(xmlWriter, "name", service.getName());
             }
-            counter++;
+            xmlWriter.writeEndElement();
         }
+        if (started) xmlWriter.writeEndElement();
     }
 
-    private void writeShipments(XMLConf xmlConfig, List<Job> jobs) {
-        String shipmentPathString = "shipments.shipment";
-        int counter = 0;
+    private void writeShipments(XMLStreamWriter xmlWriter, List<Job> jobs) throws XMLStreamException {
+        boolean started = false;
         for (Job j : jobs) {
             if (!(j instanceof Shipment)) continue;
             Shipment shipment = (Shipment) j;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ")[@id]", shipment.getId());
-//			xmlConfig.setProperty(shipmentPathString + "("+counter+")[@type]", service.getType());
-            if (shipment.getPickupLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.id", shipment.getPickupLocation().getId());
-            if (shipment.getPickupLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.coord[@x]", shipment.getPickupLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.coord[@y]", shipment.getPickupLocation().getCoordinate().getY());
-            }
-            if (shipment.getPickupLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.location.index", shipment.getPickupLocation().getIndex());
+            if (!started) {
+                xmlWriter.writeStartElement("shipments");
+                started = true;
             }
+            xmlWriter.writeStartElement("shipment");
+            xmlWriter.writeAttribute("id", shipment.getId());
 
-            Collection<TimeWindow> pu_tws = shipment.getPickupTimeWindows();
-            int index = 0;
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.duration", shipment.getPickupServiceTime());
-            for(TimeWindow tw : pu_tws) {
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-	            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").pickup.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-	            ++index;
-	        }
-
-            if (shipment.getDeliveryLocation().getId() != null)
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.id", shipment.getDeliveryLocation().getId());
-            if (shipment.getDeliveryLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.coord[@x]", shipment.getDeliveryLocation().getCoordinate().getX());
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.coord[@y]", shipment.getDeliveryLocation().getCoordinate().getY());
-            }
-            if (shipment.getDeliveryLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.location.index", shipment.getDeliveryLocation().getIndex());
-            }
+            xmlWriter.writeStartElement("pickup");
+            writeLocation(xmlWriter, "location", shipment.getPickupLocation());
+            writeElement(xmlWriter, "duration", decimal(shipment.getPickupServiceTime()));
+            writeTimeWindows(xmlWriter, shipment.getPickupTimeWindows());
+            xmlWriter.writeEndElement();
 
-            Collection<TimeWindow> del_tws = shipment.getDeliveryTimeWindows();
-        	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.duration", shipment.getDeliveryServiceTime());
-        	index = 0;
-            for(TimeWindow tw : del_tws) {
-            	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-            	xmlConfig.setProperty(shipmentPathString + "(" + counter + ").delivery.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-            	++index;
-            }
+            xmlWriter.writeStartElement("delivery");
+            writeLocation(xmlWriter, "location", shipment.getDeliveryLocation());
+            writeElement(xmlWriter, "duration", decimal(shipment.getDeliveryServiceTime()));
+            writeTimeWindows(xmlWriter, shipment.getDeliveryTimeWindows());
+            xmlWriter.writeEndElement();
 
-            for (int i = 0; i < shipment.getSize().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(shipmentPathString + "(" + counter + ").capacity-dimensions.dimension(" + i + ")", shipment.getSize().get(i));
-            }
+            writeCapacityDimensions(xmlWriter, shipment.getSize());
 
             //skills
-            String skillString = getSkillString(shipment);
-            xmlConfig.setProperty(shipmentPathString + "(" + counter + ").requiredSkills", skillString);
+            writeElement(xmlWriter, "requiredSkills", getSkillString(shipment));
 
             //name
-            if (shipment.getName() != null) {
-                if (!shipment.getName().equals("no-name")) {
-                    xmlConfig.setProperty(shipmentPathString + "(" + counter + ").name", shipment.getName());
-                }
+            if (shipment.getName() != null && !shipment.getName().equals("no-name")) {
+                writeElement(xmlWriter, "name", shipment.getName());
             }
-            counter++;
+            xmlWriter.writeEndElement();
         }
+        if (started) xmlWriter.writeEndElement();
     }
 
-    private void writeProblemType(XMLConfiguration xmlConfig) {
-        xmlConfig.setProperty("problemType.fleetSize", vrp.getFleetSize());
+    private void writeProblemType(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeStartElement("problemType");
+        writeElement(xmlWriter, "fleetSize", vrp.getFleetSize());
+        xmlWriter.writeEndElement();
     }
 
-    private void writeVehiclesAndTheirTypes(XMLConfiguration xmlConfig) {
+    private void writeVehiclesAndTheirTypes(XMLStreamWriter xmlWriter) throws XMLStreamException {
 
         //vehicles
-        String vehiclePathString = Schema.VEHICLES + "." + Schema.VEHICLE;
-        int counter = 0;
-        for (Vehicle vehicle : vrp.getVehicles()) {
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").id", vehicle.getId());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").typeId", vehicle.getType().getTypeId());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.id", vehicle.getStartLocation().getId());
-            if (vehicle.getStartLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.coord[@x]", vehicle.getStartLocation().getCoordinate().getX());
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.coord[@y]", vehicle.getStartLocation().getCoordinate().getY());
-            }
-            if (vehicle.getStartLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").startLocation.index", vehicle.getStartLocation().getIndex());
-            }
-
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.id", vehicle.getEndLocation().getId());
-            if (vehicle.getEndLocation().getCoordinate() != null) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.coord[@x]", vehicle.getEndLocation().getCoordinate().getX());
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.coord[@y]", vehicle.getEndLocation().getCoordinate().getY());
-            }
-            if (vehicle.getEndLocation().getIndex() != Location.NO_INDEX) {
-                xmlConfig.setProperty(vehiclePathString + "(" + counter + ").endLocation.index", vehicle.getEndLocation().getId());
-            }
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").timeSchedule.start", vehicle.getEarliestDeparture());
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").timeSchedule.end", vehicle.getLatestArrival());
-
-            if (vehicle.getBreak() != null) {
-                Collection<TimeWindow> tws = vehicle.getBreak().getTimeWindows();
-                int index = 0;
-	            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.duration", vehicle.getBreak().getServiceDuration());
-                for(TimeWindow tw : tws) {
-		            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.timeWindows.timeWindow(" + index + ").start", tw.getStart());
-		            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").breaks.timeWindows.timeWindow(" + index + ").end", tw.getEnd());
-		            ++index;
+        if (!vrp.getVehicles().isEmpty()) {
+            xmlWriter.writeStartElement(Schema.VEHICLES);
+            for (Vehicle vehicle : vrp.getVehicles()) {
+                xmlWriter.writeStartElement(Schema.VEHICLE);
+                writeElement(xmlWriter, "id", vehicle.getId());
+                writeElement(xmlWriter, "typeId", vehicle.getType().getTypeId());
+                writeLocation(xmlWriter, "startLocation", vehicle.getStartLocation());
+                writeLocation(xmlWriter, "endLocation", vehicle.getEndLocation());
+                xmlWriter.writeStartElement("timeSchedule");
+                writeElement(xmlWriter, "start", vehicle.getEarliestDeparture());
+                writeElement(xmlWriter, "end", vehicle.getLatestArrival());
+                xmlWriter.writeEndElement();
+
+                if (vehicle.getBreak() != null) {
+                    xmlWriter.writeStartElement("breaks");
+                    writeTimeWindows(xmlWriter, vehicle.getBreak().getTimeWindows());
+                    writeElement(xmlWriter, "duration", vehicle.getBreak().getServiceDuration());
+                    writeElement(xmlWriter, "id", vehicle.getBreak().getId());
+                    xmlWriter.writeEndElement();
                 }
-	        }
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").returnToDepot", vehicle.isReturnToDepot());
+                writeElement(xmlWriter, "returnToDepot", vehicle.isReturnToDepot());
 
-            //write skills
-            String skillString = getSkillString(vehicle);
-            xmlConfig.setProperty(vehiclePathString + "(" + counter + ").skills", skillString);
+                //write skills
+                writeElement(xmlWriter, "skills", getSkillString(vehicle));
 
-            counter++;
+                xmlWriter.writeEndElement();
+            }
+            xmlWriter.writeEndElement();
         }
 
         //types
-        String typePathString = Schema.builder().append(Schema.TYPES).dot(Schema.TYPE).build();
-        int typeCounter = 0;
-        for (VehicleType type : vrp.getTypes()) {
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").id", type.getTypeId());
-
-            for (int i = 0; i < type.getCapacityDimensions().getNuOfDimensions(); i++) {
-                xmlConfig.setProperty(typePathString + "(" + typeCounter + ").capacity-dimensions.dimension(" + i + ")[@index]", i);
-                xmlConfig.setProperty(typePathString + "(" + typeCounter + ").capacity-dimensions.dimension(" + i + ")", type.getCapacityDimensions().get(i));
+        if (!vrp.getTypes().isEmpty()) {
+            xmlWriter.writeStartElement(Schema.TYPES);
+            for (VehicleType type : vrp.getTypes()) {
+                xmlWriter.writeStartElement(Schema.TYPE);
+                writeElement(xmlWriter, "id", type.getTypeId());
+                writeCapacityDimensions(xmlWriter, type.getCapacityDimensions());
+                xmlWriter.writeStartElement("costs");
+                writeElement(xmlWriter, "fixed", decimal(type.getVehicleCostParams().fix));
+                writeElement(xmlWriter, "distance", decimal(type.getVehicleCostParams().perDistanceUnit));
+                writeElement(xmlWriter, "time", decimal(type.getVehicleCostParams().perTransportTimeUnit));
+                writeElement(xmlWriter, "service", decimal(type.getVehicleCostParams().perServiceTimeUnit));
+                writeElement(xmlWriter, "wait", decimal(type.getVehicleCostParams().perWaitingTimeUnit));
+                xmlWriter.writeEndElement();
+                xmlWriter.writeEndElement();
             }
+            xmlWriter.writeEndElement();
+        }
+    }
+
+    private static void writeLocation(XMLStreamWriter xmlWriter, String name, Location location) throws XMLStreamException {
+        boolean hasIndex = location.getIndex() != Location.NO_INDEX;
+        if (location.getId() == null && location.getCoordinate() == null && !hasIndex) return;
+        xmlWriter.writeStartElement(name);
+        writeElement(xmlWriter, "id", location.getId());
+        if (location.getCoordinate() != null) {
+            xmlWriter.writeEmptyElement("coord");
+            xmlWriter.writeAttribute("x", String.valueOf(location.getCoordinate().getX()));
+            xmlWriter.writeAttribute("y", String.valueOf(location.getCoordinate().getY()));
+        }
+        if (hasIndex) writeElement(xmlWriter, "index", location.getIndex());
+        xmlWriter.writeEndElement();
+    }
 
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.fixed", type.getVehicleCostParams().fix);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.distance", type.getVehicleCostParams().perDistanceUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.time", type.getVehicleCostParams().perTransportTimeUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.service", type.getVehicleCostParams().perServiceTimeUnit);
-            xmlConfig.setProperty(typePathString + "(" + typeCounter + ").costs.wait", type.getVehicleCostParams().perWaitingTimeUnit);
-            typeCounter++;
+    private static void writeCapacityDimensions(XMLStreamWriter xmlWriter, Capacity capacity) throws XMLStreamException {
+        if (capacity.getNuOfDimensions() == 0) return;
+        xmlWriter.writeStartElement("capacity-dimensions");
+        for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+            xmlWriter.writeStartElement("dimension");
+            xmlWriter.writeAttribute("index", String.valueOf(i));
+            xmlWriter.writeCharacters(String.valueOf(capacity.get(i)));
+            xmlWriter.writeEndElement();
         }
+        xmlWriter.writeEndElement();
+    }
 
+    private static void writeTimeWindows(XMLStreamWriter xmlWriter, Collection<TimeWindow> timeWindows) throws XMLStreamException {
+        if (timeWindows.isEmpty()) return;
+        xmlWriter.writeStartElement("timeWindows");
+        for (TimeWindow tw : timeWindows) {
+            xmlWriter.writeStartElement("timeWindow");
+            writeElement(xmlWriter, "start", tw.getStart());
+            writeElement(xmlWriter, "end", tw.getEnd());
+            xmlWriter.writeEndElement();
+        }
+        xmlWriter.writeEndElement();
+    }
 
+    //elements without value are omitted
+    private static void writeElement(XMLStreamWriter xmlWriter, String name, Object value) throws XMLStreamException {
+        if (value == null) return;
+        xmlWriter.writeStartElement(name);
+        xmlWriter.writeCharacters(String.valueOf(value));
+        xmlWriter.writeEndElement();
+    }
+
+    //xs:decimal does not allow the exponent notation Double.toString switches to for large and small values
+    private static String decimal(double value) {
+        String string = String.valueOf(value);
+        if (string.indexOf('E') < 0) return string;
+        return BigDecimal.valueOf(value).toPlainString();
     }
 
     private String getSkillString(Vehicle vehicle) {
@@ -451,4 +441,3 @@ public class VrpXMLWriter {
 
 
 }
-
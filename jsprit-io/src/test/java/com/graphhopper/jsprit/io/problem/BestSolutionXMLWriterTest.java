@@ -0,0 +1,106 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.io.util.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BestSolutionXMLWriterTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleRoute route;
+
+    private File file;
+
+    @Before
+    public void doBefore() throws IOException {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(TestUtils.loc("loc")).setType(type).build();
+        Service s1 = Service.Builder.newInstance("1").addSizeDimension(0, 1).setLocation(TestUtils.loc("loc")).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addJob(s1).build();
+        route = VehicleRoute.Builder.newInstance(v1).addService(s1).build();
+        file = File.createTempFile("best", ".xml.gz");
+        file.deleteOnExit();
+    }
+
+    private List<VehicleRoutingProblemSolution> solutions(double... costs) {
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        for (double cost : costs) {
+            solutions.add(new VehicleRoutingProblemSolution(Collections.singletonList(route), cost));
+        }
+        return solutions;
+    }
+
+    private double readCost() {
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        new VrpXMLReader(VehicleRoutingProblem.Builder.newInstance(), solutions).read(file.getPath());
+        assertEquals(1, solutions.size());
+        return solutions.get(0).getCost();
+    }
+
+    @Test
+    public void whenSolutionsImprove_bestSolutionShouldBeWrittenEachTime() {
+        BestSolutionXMLWriter writer = new BestSolutionXMLWriter(file.getPath());
+        writer.informIterationEnds(1, vrp, solutions(30., 20.));
+        assertEquals(20., readCost(), 0.01);
+        writer.informIterationEnds(2, vrp, solutions(15.));
+        assertEquals(15., readCost(), 0.01);
+        assertEquals(2, writer.getNuOfWrites());
+        assertFalse(new File(file.getPath() + ".tmp.gz").exists());
+    }
+
+    @Test
+    public void whenSolutionsDoNotImprove_fileShouldNotBeWrittenAgain() {
+        BestSolutionXMLWriter writer = new BestSolutionXMLWriter(file.getPath());
+        writer.informIterationEnds(1, vrp, solutions(20.));
+        writer.informIterationEnds(2, vrp, solutions(20.));
+        writer.informIterationEnds(3, vrp, solutions(25.));
+        writer.informAlgorithmEnds(vrp, solutions(20.));
+        assertEquals(1, writer.getNuOfWrites());
+        assertEquals(20., readCost(), 0.01);
+    }
+
+    @Test
+    public void whenMinIntervalHasNotPassed_bestSolutionShouldOnlyBeWrittenWhenAlgorithmEnds() {
+        BestSolutionXMLWriter writer = new BestSolutionXMLWriter(file.getPath());
+        writer.setMinInterval(Long.MAX_VALUE);
+        writer.informIterationEnds(1, vrp, solutions(20.));
+        writer.informIterationEnds(2, vrp, solutions(10.));
+        writer.informAlgorithmEnds(vrp, solutions(10.));
+        assertEquals(1, writer.getNuOfWrites());
+        assertEquals(10., readCost(), 0.01);
+    }
+
+}
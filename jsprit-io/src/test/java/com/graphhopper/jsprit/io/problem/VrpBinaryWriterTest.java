@@ -0,0 +1,277 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.io.problem;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.CompactVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix;
+import com.graphhopper.jsprit.io.util.TestUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VrpBinaryWriterTest {
+
+    private VehicleRoutingProblem writeAndRead(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions, Collection<VehicleRoutingProblemSolution> readSolutions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VrpBinaryWriter(vrp, solutions).write(out);
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpBinaryReader(vrpBuilder, readSolutions).read(new ByteArrayInputStream(out.toByteArray()));
+        return vrpBuilder.build();
+    }
+
+    private static String xml(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        return new VrpXMLWriter(vrp, solutions).write().toString();
+    }
+
+    @Test
+    public void whenWritingAndReadingXmlProblems_theirXmlShouldNotChange() {
+        for (String resource : Arrays.asList("finiteVrpForReaderTest.xml", "finiteVrpWithShipmentsAndSolution.xml",
+            "finiteVrpWithInitialSolutionForReaderTest.xml", "simpleProblem_inclShipments_iniRoutes.xml",
+            "writtenProblemWithSolution.xml", "lui-shen-solution.xml")) {
+            VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+            List<VehicleRoutingProblemSolution> solutions = new ArrayList<>();
+            new VrpXMLReader(vrpBuilder, solutions).read(getClass().getResourceAsStream(resource));
+            VehicleRoutingProblem vrp = vrpBuilder.build();
+
+            List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<>();
+            VehicleRoutingProblem readVrp = writeAndRead(vrp, solutions, readSolutions);
+            assertEquals(resource, xml(vrp, solutions), xml(readVrp, readSolutions));
+        }
+    }
+
+    @Test
+    public void whenWritingJobs_allTheirAttributesShouldBeRead() {
+        Location location = Location.Builder.newInstance().setId("loc").setIndex(3).setCoordinate(Coordinate.newInstance(1.5, -2.)).setName("street").build();
+        Service service = Service.Builder.newInstance("s").setName("cleaning").setLocation(location).setServiceTime(2.)
+            .addTimeWindow(10., 20.).addTimeWindow(30., 40.).addSizeDimension(0, 1).addSizeDimension(2, 5)
+            .addRequiredSkill("drill").addRequiredSkill("ladder").setPriority(1).build();
+        Delivery delivery = Delivery.Builder.newInstance("d").setLocation(TestUtils.loc("loc2")).setMaxTimeInVehicle(100.).build();
+        Shipment shipment = Shipment.Builder.newInstance("sh").setPickupLocation(TestUtils.loc("p")).setPickupServiceTime(1.)
+            .addPickupTimeWindow(0., 5.).setDeliveryLocation(TestUtils.loc(Coordinate.newInstance(4., 5.))).setDeliveryServiceTime(3.)
+            .addDeliveryTimeWindow(6., 7.).addDeliveryTimeWindow(8., 9.).setPriority(3).setMaxTimeInVehicle(50.).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle("v", null))
+            .addJob(service).addJob(delivery).addJob(shipment).build();
+
+        VehicleRoutingProblem readVrp = writeAndRead(vrp, null, null);
+        Service readService = (Service) readVrp.getJobs().get("s");
+        assertEquals("cleaning", readService.getName());
+        assertEquals("loc", readService.getLocation().getId());
+        assertEquals(3, readService.getLocation().getIndex());
+        assertEquals(Coordinate.newInstance(1.5, -2.), readService.getLocation().getCoordinate());
+        assertEquals("street", readService.getLocation().getName());
+        assertEquals(2., readService.getServiceDuration(), 0.);
+        assertEquals(new ArrayList<>(service.getTimeWindows()), new ArrayList<>(readService.getTimeWindows()));
+        assertEquals(service.getSize(), readService.getSize());
+        assertEquals(service.getRequiredSkills(), readService.getRequiredSkills());
+        assertEquals(1, readService.getPriority());
+
+        Delivery readDelivery = (Delivery) readVrp.getJobs().get("d");
+        assertEquals(100., readDelivery.getMaxTimeInVehicle(), 0.);
+
+        Shipment readShipment = (Shipment) readVrp.getJobs().get("sh");
+        assertEquals("p", readShipment.getPickupLocation().getId());
+        assertEquals(1., readShipment.getPickupServiceTime(), 0.);
+        assertEquals(new ArrayList<>(shipment.getPickupTimeWindows()), new ArrayList<>(readShipment.getPickupTimeWindows()));
+        assertEquals(Coordinate.newInstance(4., 5.), readShipment.getDeliveryLocation().getCoordinate());
+        assertEquals(3., readShipment.getDeliveryServiceTime(), 0.);
+        assertEquals(new ArrayList<>(shipment.getDeliveryTimeWindows()), new ArrayList<>(readShipment.getDeliveryTimeWindows()));
+        assertEquals(3, readShipment.getPriority());
+        assertEquals(50., readShipment.getMaxTimeInVehicle(), 0.);
+
+        for (String jobId : vrp.getJobs().keySet()) {
+            assertEquals(vrp.getJobs().get(jobId).getIndex(), readVrp.getJobs().get(jobId).getIndex());
+        }
+    }
+
+    @Test
+    public void whenWritingVehicles_allTheirAttributesShouldBeRead() {
+        Break aBreak = Break.Builder.newInstance("break").setServiceTime(30.).addTimeWindow(100., 200.).build();
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).addCapacityDimension(1, 3)
+            .setFixedCost(100.).setCostPerDistance(1.5).setCostPerTransportTime(0.5).setCostPerWaitingTime(0.25)
+            .setCostPerServiceTime(0.75).setMaxVelocity(13.).setProfile("bike").build();
+        Vehicle v1 = VehicleImpl.Builder.newInstance("v1").setType(type).setStartLocation(TestUtils.loc("start"))
+            .setEndLocation(TestUtils.loc("end")).setEarliestStart(10.).setLatestArrival(1000.).addSkill("drill").setBreak(aBreak).build();
+        Vehicle v2 = VehicleImpl.Builder.newInstance("v2").setType(type).setStartLocation(TestUtils.loc("start"))
+            .setReturnToDepot(false).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .addVehicle(v1).addVehicle(v2).build();
+
+        VehicleRoutingProblem readVrp = writeAndRead(vrp, null, null);
+        assertEquals(VehicleRoutingProblem.FleetSize.FINITE, readVrp.getFleetSize());
+        assertEquals(1, readVrp.getTypes().size());
+        assertEquals(type, readVrp.getTypes().iterator().next());
+        assertEquals("bike", readVrp.getTypes().iterator().next().getProfile());
+        List<Vehicle> readVehicles = new ArrayList<>(readVrp.getVehicles());
+        Vehicle readV1 = readVehicles.get(0);
+        assertEquals("v1", readV1.getId());
+        assertEquals("end", readV1.getEndLocation().getId());
+        assertEquals(10., readV1.getEarliestDeparture(), 0.);
+        assertEquals(1000., readV1.getLatestArrival(), 0.);
+        assertTrue(readV1.getSkills().containsSkill("drill"));
+        assertEquals("break", readV1.getBreak().getId());
+        assertTrue(readV1.getBreak().hasVariableLocation());
+        assertEquals(new ArrayList<>(aBreak.getTimeWindows()), new ArrayList<>(readV1.getBreak().getTimeWindows()));
+        assertEquals(30., readV1.getBreak().getServiceDuration(), 0.);
+        assertFalse(readVehicles.get(1).isReturnToDepot());
+        assertEquals(v1.getVehicleTypeIdentifier(), readV1.getVehicleTypeIdentifier());
+        assertEquals(v1.getIndex(), readV1.getIndex());
+        assertEquals(v2.getIndex(), readVehicles.get(1).getIndex());
+    }
+
+    @Test
+    public void whenWritingSolutions_routesAndTheirTimesShouldBeRead() {
+        Break aBreak = Break.Builder.newInstance("break").setServiceTime(30.).addTimeWindow(0., 200.).build();
+        Vehicle vehicle = vehicle("v", aBreak);
+        Service s1 = Service.Builder.newInstance("s1").setLocation(TestUtils.loc("1")).addTimeWindow(0., 10.).addTimeWindow(20., 30.).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(TestUtils.loc("2")).build();
+        Shipment shipment = Shipment.Builder.newInstance("sh").setPickupLocation(TestUtils.loc("p")).setDeliveryLocation(TestUtils.loc("d")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .addVehicle(vehicle).addJob(s1).addJob(s2).addJob(shipment).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setDepartureTime(5.).addPickup(shipment)
+            .addService(s1, TimeWindow.newInstance(20., 30.)).addBreak(aBreak, TimeWindow.newInstance(0., 200.), TestUtils.loc("1"))
+            .addDelivery(shipment).build();
+        double time = 10.;
+        for (TourActivity act : route.getActivities()) {
+            act.setArrTime(time);
+            act.setEndTime(time + 1.5);
+            time += 10.;
+        }
+        route.getEnd().setArrTime(time);
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(Arrays.asList(route), 42.5);
+        solution.getUnassignedJobs().add(s2);
+
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<>();
+        VehicleRoutingProblem readVrp = writeAndRead(vrp, Arrays.asList(solution), readSolutions);
+        assertEquals(1, readSolutions.size());
+        VehicleRoutingProblemSolution readSolution = readSolutions.get(0);
+        assertEquals(42.5, readSolution.getCost(), 0.);
+        assertEquals(1, readSolution.getUnassignedJobs().size());
+        assertSame(readVrp.getJobs().get("s2"), readSolution.getUnassignedJobs().iterator().next());
+        VehicleRoute readRoute = readSolution.getRoutes().iterator().next();
+        assertSame(readVrp.getVehicles().iterator().next(), readRoute.getVehicle());
+        assertEquals(5., readRoute.getDepartureTime(), 0.);
+        assertEquals(time, readRoute.getEnd().getArrTime(), 0.);
+        assertEquals(route.getActivities().size(), readRoute.getActivities().size());
+        for (int i = 0; i < route.getActivities().size(); i++) {
+            TourActivity act = route.getActivities().get(i);
+            TourActivity readAct = readRoute.getActivities().get(i);
+            assertEquals(act.getName(), readAct.getName());
+            assertEquals(act.getLocation().getId(), readAct.getLocation().getId());
+            assertEquals(act.getTheoreticalEarliestOperationStartTime(), readAct.getTheoreticalEarliestOperationStartTime(), 0.);
+            assertEquals(act.getTheoreticalLatestOperationStartTime(), readAct.getTheoreticalLatestOperationStartTime(), 0.);
+            assertEquals(act.getArrTime(), readAct.getArrTime(), 0.);
+            assertEquals(act.getEndTime(), readAct.getEndTime(), 0.);
+        }
+    }
+
+    @Test
+    public void whenBreakIsUnassigned_itShouldBeReadAsUnassignedJob() {
+        Break aBreak = Break.Builder.newInstance("break").setServiceTime(30.).build();
+        Vehicle vehicle = vehicle("v", aBreak);
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .addVehicle(vehicle).build();
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(), 0.);
+        solution.getUnassignedJobs().add(aBreak);
+
+        List<VehicleRoutingProblemSolution> readSolutions = new ArrayList<>();
+        VehicleRoutingProblem readVrp = writeAndRead(vrp, Arrays.asList(solution), readSolutions);
+        assertSame(readVrp.getVehicles().iterator().next().getBreak(), readSolutions.get(0).getUnassignedJobs().iterator().next());
+    }
+
+    @Test
+    public void whenWritingMatrix_itShouldBeReadAsTransportCosts() throws IOException {
+        for (boolean symmetric : new boolean[]{false, true}) {
+            FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, symmetric);
+            for (int from = 0; from < 3; from++) {
+                for (int to = 0; to < 3; to++) {
+                    if (symmetric && from > to) continue;
+                    matrixBuilder.addTransportTimeAndDistance(from, to, from * 10 + to + 0.1, from * 3 + to + 0.7);
+                }
+            }
+            FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+            Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(2)).build();
+            VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle("v", null)).addJob(service)
+                .setRoutingCost(matrix).build();
+            File file = File.createTempFile("vrp", ".bin");
+            file.deleteOnExit();
+            new VrpBinaryWriter(vrp).setWriteTransportCostsMatrix(true).write(file.getPath());
+
+            VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+            new VrpBinaryReader(vrpBuilder).read(file.getPath());
+            CompactVehicleRoutingTransportCostsMatrix readMatrix = (CompactVehicleRoutingTransportCostsMatrix) vrpBuilder.build().getTransportCosts();
+            assertEquals(3, readMatrix.getNoLocations());
+            assertEquals(symmetric, readMatrix.isSymmetric());
+            for (int from = 0; from < 3; from++) {
+                for (int to = 0; to < 3; to++) {
+                    assertEquals(matrix.getDistance(from, to), readMatrix.getDistance(from, to), 0.);
+                    assertEquals(matrix.getTransportTime(from, to), readMatrix.getTransportTime(from, to), 0.);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenTransportCostsAreNoMatrix_writingMatrixShouldFail() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle("v", null)).build();
+        new VrpBinaryWriter(vrp).setWriteTransportCostsMatrix(true).write(new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenBufferIsNoSnapshot_readingShouldFail() {
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read(ByteBuffer.wrap("<problem/>".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenSnapshotIsTruncated_readingShouldFail() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle("v", null)).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VrpBinaryWriter(vrp).write(out);
+        byte[] bytes = out.toByteArray();
+        new VrpBinaryReader(VehicleRoutingProblem.Builder.newInstance()).read(ByteBuffer.wrap(bytes, 0, bytes.length - 8));
+    }
+
+    private static Vehicle vehicle(String id, Break aBreak) {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).build();
+        return VehicleImpl.Builder.newInstance(id).setType(type).setStartLocation(Location.newInstance(0)).setBreak(aBreak).build();
+    }
+
+}
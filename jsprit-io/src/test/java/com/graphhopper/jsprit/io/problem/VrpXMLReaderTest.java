@@ -32,7 +32,13 @@ import com.graphhopper.jsprit.core.util.Solutions;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -635,6 +641,43 @@ public class VrpXMLReaderTest {
         assertEquals(1, solution.getUnassignedJobs().size());
         assertEquals("4", solution.getUnassignedJobs().iterator().next().getId());
     }
+
+    private static final String INVALID_PROBLEM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<problem xmlns=\"http://www.w3schools.com\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.w3schools.com vrp_xml_schema.xsd\">\n"
+        + "<problemType><fleetSize>FINITE</fleetSize><unknown>x</unknown></problemType>\n"
+        + "<services><service id=\"1\"><locationId>loc</locationId><capacity-demand>1</capacity-demand></service></services>\n"
+        + "</problem>";
+
+    @Test(expected = RuntimeException.class)
+    public void whenReadingDocumentThatViolatesSchema_itShouldThrowException() {
+        new VrpXMLReader(VehicleRoutingProblem.Builder.newInstance()).read(new ByteArrayInputStream(INVALID_PROBLEM.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void whenReadingDocumentThatViolatesSchemaWithoutValidation_unknownElementsShouldBeIgnored() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        VrpXMLReader reader = new VrpXMLReader(builder);
+        reader.setSchemaValidation(false);
+        reader.read(new ByteArrayInputStream(INVALID_PROBLEM.getBytes(StandardCharsets.UTF_8)));
+        VehicleRoutingProblem vrp = builder.build();
+        assertEquals(FleetSize.FINITE, vrp.getFleetSize());
+        assertEquals("loc", ((Service) vrp.getJobs().get("1")).getLocation().getId());
+    }
+
+    @Test
+    public void whenReadingFromFile_itReadsTheSameAsFromStream() throws IOException {
+        File file = File.createTempFile("finiteVrpForReaderTest", ".xml");
+        file.deleteOnExit();
+        Files.copy(getClass().getResourceAsStream("finiteVrpForReaderTest.xml"), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(builder).read(file.getAbsolutePath());
+        VehicleRoutingProblem vrp = builder.build();
+        VehicleRoutingProblem.Builder streamBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(streamBuilder).read(getClass().getResourceAsStream("finiteVrpForReaderTest.xml"));
+        VehicleRoutingProblem streamVrp = streamBuilder.build();
+        assertEquals(streamVrp.getJobs().keySet(), vrp.getJobs().keySet());
+        assertEquals(streamVrp.getVehicles().size(), vrp.getVehicles().size());
+    }
 }
 
 //
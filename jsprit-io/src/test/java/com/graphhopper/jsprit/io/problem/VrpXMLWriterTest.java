@@ -19,6 +19,7 @@ package com.graphhopper.jsprit.io.problem;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Break;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
@@ -33,12 +34,12 @@ import com.graphhopper.jsprit.io.util.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
 
@@ -610,6 +611,110 @@ public class VrpXMLWriterTest {
 
     }
 
+    @Test
+    public void writtenDocumentShouldBeFormattedAsBefore() throws IOException {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setType(type)
+            .setStartLocation(Location.Builder.newInstance().setId("depot").setCoordinate(Coordinate.newInstance(0, 0)).build()).build();
+        Service s1 = Service.Builder.newInstance("1").addSizeDimension(0, 1).setServiceTime(2.0).setName("cleaning & repair")
+            .setLocation(Location.Builder.newInstance().setId("loc").setCoordinate(Coordinate.newInstance(10, 0)).build()).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addJob(s1).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v1).addService(s1).build();
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(Collections.singletonList(route), 20.);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new VrpXMLWriter(vrp, Collections.singletonList(solution)).write(os);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (InputStream is = getClass().getResourceAsStream("writtenProblemWithSolution.xml")) {
+            byte[] buffer = new byte[4096];
+            for (int n = is.read(buffer); n >= 0; n = is.read(buffer)) expected.write(buffer, 0, n);
+        }
+        assertEquals(expected.toString("UTF-8"), os.toString("UTF-8"));
+    }
+
+    @Test
+    public void whenWritingVehicleWithBreak_readingAgainReturnsBreak() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).build();
+        Break aBreak = Break.Builder.newInstance("lunch").setServiceTime(30.).addTimeWindow(TimeWindow.newInstance(100., 200.)).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setType(type).setStartLocation(TestUtils.loc("loc")).setBreak(aBreak).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE).addVehicle(v1).build();
+
+        VehicleRoutingProblem readVrp = writeAndRereadXml(vrp);
+        Break readBreak = getVehicle("v1", readVrp.getVehicles()).getBreak();
+        assertEquals("lunch", readBreak.getId());
+        assertEquals(30., readBreak.getServiceDuration(), 0.01);
+        assertEquals(100., readBreak.getTimeWindow().getStart(), 0.01);
+        assertEquals(200., readBreak.getTimeWindow().getEnd(), 0.01);
+    }
+
+    @Test
+    public void whenWritingEndLocationWithIndex_readingAgainReturnsIndex() {
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setType(type)
+            .setStartLocation(Location.Builder.newInstance().setId("start").setIndex(1).build())
+            .setEndLocation(Location.Builder.newInstance().setId("end").setIndex(2).build()).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).build();
+
+        VehicleRoutingProblem readVrp = writeAndRereadXml(vrp);
+        assertEquals(2, getVehicle("v1", readVrp.getVehicles()).getEndLocation().getIndex());
+    }
+
+    @Test
+    public void largeCostsShouldBeWrittenAsValidDecimals() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).setFixedCost(1e8).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(TestUtils.loc("loc")).setType(type).build();
+        Service s1 = Service.Builder.newInstance("1").addSizeDimension(0, 1).setLocation(TestUtils.loc("loc")).build();
+        VehicleRoutingProblem vrp = builder.addVehicle(v1).addJob(s1).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v1).addService(s1).build();
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        solutions.add(new VehicleRoutingProblemSolution(Collections.singletonList(route), 1.2345e8));
+
+        List<VehicleRoutingProblemSolution> solutionsToRead = writeAndRereadXmlWithSolutions(vrp, solutions);
+        assertEquals(1.2345e8, solutionsToRead.get(0).getCost(), 0.01);
+    }
+
+    @Test
+    public void whenWritingOnlyBestSolution_itShouldBeTheOnlySolutionToBeRead() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("vehType").addCapacityDimension(0, 20).build();
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(TestUtils.loc("loc")).setType(type).build();
+        Service s1 = Service.Builder.newInstance("1").addSizeDimension(0, 1).setLocation(TestUtils.loc("loc")).build();
+        VehicleRoutingProblem vrp = builder.addVehicle(v1).addJob(s1).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v1).addService(s1).build();
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+        solutions.add(new VehicleRoutingProblemSolution(Collections.singletonList(route), 20.));
+        solutions.add(new VehicleRoutingProblemSolution(Collections.singletonList(route), 10.));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new VrpXMLWriter(vrp, solutions, true).write(os);
+        List<VehicleRoutingProblemSolution> solutionsToRead = new ArrayList<VehicleRoutingProblemSolution>();
+        new VrpXMLReader(VehicleRoutingProblem.Builder.newInstance(), solutionsToRead).read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(1, solutionsToRead.size());
+        assertEquals(10., solutionsToRead.get(0).getCost(), 0.01);
+        assertEquals(2, solutions.size());
+    }
+
+    @Test
+    public void whenFilenameEndsWithGz_fileShouldBeGzipped() throws IOException {
+        VehicleRoutingProblem vrp = twoVehicleTypesAndImpls().build();
+        File file = File.createTempFile("vrp", ".xml.gz");
+        file.deleteOnExit();
+        new VrpXMLWriter(vrp).write(file.getPath());
+
+        ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            for (int n = is.read(buffer); n >= 0; n = is.read(buffer)) unzipped.write(buffer, 0, n);
+        }
+        assertEquals(new VrpXMLWriter(vrp).write().toString(), unzipped.toString());
+
+        VehicleRoutingProblem.Builder vrpToReadBuilder = VehicleRoutingProblem.Builder.newInstance();
+        new VrpXMLReader(vrpToReadBuilder, null).read(file.getPath());
+        assertEquals(2, vrpToReadBuilder.build().getVehicles().size());
+    }
+
     private VehicleRoutingProblem writeAndRereadXml(VehicleRoutingProblem vrp) {
         VrpXMLWriter vrpXMLWriter = new VrpXMLWriter(vrp, null);
         ByteArrayOutputStream os = (ByteArrayOutputStream) vrpXMLWriter.write();